@@ -0,0 +1,59 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.masking.LegacyRequestPayloadSerializer;
+import com.sushilk.payment_service.masking.MaskingJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit payload serialization: previous tree-based serializer vs. streaming MaskingJsonWriter.
+ * Run with -prof gc to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditPayloadBenchmark {
+
+    @Param({"CARD", "UPI_P2P"})
+    public String shape;
+
+    private LegacyRequestPayloadSerializer legacy;
+    private MaskingJsonWriter streaming;
+    private InitiatePaymentRequest request;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        legacy = new LegacyRequestPayloadSerializer(objectMapper);
+        streaming = new MaskingJsonWriter(objectMapper);
+        request = "CARD".equals(shape) ? BenchmarkFixtures.cardRequest("bench-card") : BenchmarkFixtures.p2pRequest("bench-p2p");
+    }
+
+    @Benchmark
+    public String legacyTreeSerializer() {
+        return legacy.serialize(request);
+    }
+
+    @Benchmark
+    public String streamingMaskingWriter() throws IOException {
+        return streaming.writeValueAsString(request);
+    }
+}
@@ -0,0 +1,38 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.dtos.BeneficiaryDetails;
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.UPIDetails;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+
+import java.math.BigDecimal;
+
+/**
+ * Representative requests shared by the benchmarks (same shapes as the README examples).
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static InitiatePaymentRequest cardRequest(String idempotencyKey) {
+        return new InitiatePaymentRequest(
+                "USER123", "PROD_ORD_001", OrderType.PRODUCT, new BigDecimal("1000.50"), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, idempotencyKey,
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+
+    static InitiatePaymentRequest p2pRequest(String idempotencyKey) {
+        return new InitiatePaymentRequest(
+                "USER123", "P2P_ORD_001", OrderType.P2P, new BigDecimal("500.00"), "INR",
+                PaymentProvider.PAYTM, PaymentMethod.UPI, idempotencyKey,
+                null,
+                new UPIDetails("sender@paytm", "9876543210"),
+                new BeneficiaryDetails("USER456", "Jane Doe", "USER", "receiver@paytm", null, null),
+                null, null);
+    }
+}
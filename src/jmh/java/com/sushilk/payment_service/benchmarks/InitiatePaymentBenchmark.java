@@ -0,0 +1,70 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.PaymentServiceApplication;
+import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.services.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end PaymentService.initiatePayment against the in-memory H2 database, with the
+ * application context booted once per fork (no web layer). Every call uses a fresh
+ * idempotency key, so each operation is a full persist / provider / complete cycle.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class InitiatePaymentBenchmark {
+
+    private final AtomicLong keys = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchdb;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        paymentService = context.getBean(PaymentService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public InitiatePaymentResponse initiateCardPayment() {
+        return paymentService.initiatePayment(BenchmarkFixtures.cardRequest("bench-card-" + keys.incrementAndGet()));
+    }
+
+    @Benchmark
+    public InitiatePaymentResponse initiateP2pPayment() {
+        return paymentService.initiatePayment(BenchmarkFixtures.p2pRequest("bench-p2p-" + keys.incrementAndGet()));
+    }
+}
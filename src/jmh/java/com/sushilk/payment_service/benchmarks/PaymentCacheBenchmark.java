@@ -0,0 +1,124 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.PaymentServiceApplication;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentRepository.findById with and without the second-level cache, under the skew of webhook
+ * and refund traffic: hotShare of the reads go to the newest hotFraction of payments (the last
+ * hour of a day's volume by default), the rest are spread over all of them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PaymentCacheBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"100000"})
+    public int payments;
+
+    @Param({"0.04"})
+    public double hotFraction;
+
+    @Param({"0.9"})
+    public double hotShare;
+
+    private ConfigurableApplicationContext context;
+    private PaymentRepository paymentRepository;
+    private UUID[] ids;
+    private int hotFrom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:cachebench;DB_CLOSE_DELAY=-1",
+                        "payment.cache.enabled=" + cacheEnabled,
+                        "payment.status-poll.enabled=false",
+                        "payment.outbox.relay.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        paymentRepository = context.getBean(PaymentRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        // Inserted oldest first; UUIDv7 ids keep that order, so the tail of ids is the recent traffic
+        ids = new UUID[payments];
+        for (int from = 0; from < payments; from += BATCH) {
+            int to = Math.min(payments, from + BATCH);
+            List<Payment> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                batch.add(payment(i));
+            }
+            List<Payment> saved = transactionTemplate.execute(status -> paymentRepository.saveAll(batch));
+            for (int i = from; i < to; i++) {
+                ids[i] = saved.get(i - from).getPaymentId();
+            }
+        }
+        hotFrom = payments - Math.max(1, (int) (payments * hotFraction));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Payment findById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextDouble() < hotShare ? random.nextInt(hotFrom, payments) : random.nextInt(payments);
+        return paymentRepository.findById(ids[index]).orElseThrow();
+    }
+
+    private static Payment payment(int i) {
+        return Payment.builder()
+                .userId("USER" + (i % 1_000))
+                .orderId("CACHE_ORD_" + i)
+                .orderType(OrderType.PRODUCT)
+                .amount(new BigDecimal("250.00"))
+                .currency("INR")
+                .provider(PaymentProvider.PHONEPE)
+                .paymentMethod(PaymentMethod.UPI)
+                .status(PaymentStatus.PROCESSING)
+                .idempotencyKey("cache-bench-" + i)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.masking.MaskingJsonWriter;
+import com.sushilk.payment_service.metrics.PaymentMetrics;
+import com.sushilk.payment_service.resilience.ProviderGuards;
+import com.sushilk.payment_service.resilience.ResilienceSettings;
+import com.sushilk.payment_service.routing.RoutingSettings;
+import com.sushilk.payment_service.routing.UpiRouter;
+import com.sushilk.payment_service.services.PaymentProviderFactory;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import com.sushilk.payment_service.services.impl.CardPaymentProvider;
+import com.sushilk.payment_service.services.impl.GooglePayPaymentProvider;
+import com.sushilk.payment_service.services.impl.PaytmPaymentProvider;
+import com.sushilk.payment_service.services.impl.PhonePePaymentProvider;
+import com.sushilk.payment_service.services.impl.RequestPayloadSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process steps of initiatePayment that run for every request, outside the database:
+ * audit payload serialization, card masking and provider lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentHotPathBenchmark {
+
+    private static final PaymentProvider[] PROVIDERS = PaymentProvider.values();
+
+    private RequestPayloadSerializer serializer;
+    private PaymentProviderFactory providerFactory;
+    private ExecutorService providerExecutor;
+    private InitiatePaymentRequest cardRequest;
+    private InitiatePaymentRequest p2pRequest;
+    private CardDetails cardDetails;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        serializer = new RequestPayloadSerializer(new MaskingJsonWriter(objectMapper));
+        providerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        List<PaymentProviderService> providers = List.of(
+                new CardPaymentProvider(objectMapper),
+                new PhonePePaymentProvider(objectMapper),
+                new PaytmPaymentProvider(objectMapper),
+                new GooglePayPaymentProvider(objectMapper));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        providerFactory = new PaymentProviderFactory(providers, providerExecutor, new PaymentMetrics(meterRegistry),
+                new ProviderGuards(ResilienceSettings.defaults(), providerExecutor, meterRegistry),
+                new UpiRouter(RoutingSettings.defaults(), meterRegistry));
+        cardRequest = BenchmarkFixtures.cardRequest("bench-card");
+        p2pRequest = BenchmarkFixtures.p2pRequest("bench-p2p");
+        cardDetails = cardRequest.cardDetails();
+    }
+
+    @TearDown
+    public void tearDown() {
+        providerExecutor.close();
+    }
+
+    @Benchmark
+    public String serializeCardRequest() {
+        return serializer.serialize(cardRequest);
+    }
+
+    @Benchmark
+    public String serializeP2pRequest() {
+        return serializer.serialize(p2pRequest);
+    }
+
+    @Benchmark
+    public String maskedCardNumber() {
+        return cardDetails.getMaskedCardNumber();
+    }
+
+    @Benchmark
+    public PaymentProviderService providerLookup() {
+        // Rotate through providers so the lookup is not folded to a constant
+        PaymentProvider provider = PROVIDERS[next];
+        next = (next + 1) % PROVIDERS.length;
+        return providerFactory.getProvider(provider);
+    }
+}
@@ -0,0 +1,181 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.ids.UuidV7;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Fetching page N of one power user's payments, newest first: LIMIT/OFFSET vs. a keyset seek
+ * after the previous page's (created_at, payment_id), both on idx_payment_user_created and
+ * selecting only the list columns (the same SQL PaymentRepository.findPageAfter produces).
+ *
+ * Uses a file-backed H2 database with preloadRows payments spread over USERS users. The
+ * default preload takes a while - use -p preloadRows=... to shrink it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentPaginationBenchmark {
+
+    private static final int USERS = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH = 1_000;
+    private static final String POWER_USER = "USER0";
+    private static final String COLUMNS =
+            "select payment_id, order_id, amount, currency, status, provider, payment_method, created_at from payments ";
+
+    @Param({"2000000"})
+    public int preloadRows;
+
+    @Param({"1", "100", "5000"})
+    public int page;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement offsetQuery;
+    private PreparedStatement keysetQuery;
+    private Timestamp cursorCreatedAt;
+    private UUID cursorPaymentId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("page-bench");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("bench") + ";CACHE_SIZE=65536", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table payments (
+                        payment_id uuid primary key,
+                        user_id varchar(100) not null,
+                        order_id varchar(100) not null,
+                        amount numeric(19, 2) not null,
+                        currency varchar(3) not null,
+                        status varchar(32) not null,
+                        provider varchar(32) not null,
+                        payment_method varchar(32) not null,
+                        beneficiary_account varchar(256),
+                        created_at timestamp(6) not null)""");
+            statement.execute("create index idx_payment_user_created on payments(user_id, created_at, payment_id)");
+        }
+        preload();
+
+        offsetQuery = connection.prepareStatement(COLUMNS
+                + "where user_id = ? order by created_at desc, payment_id desc limit ? offset ?");
+        keysetQuery = connection.prepareStatement(COLUMNS
+                + "where user_id = ? and (created_at < ? or (created_at = ? and payment_id < ?))"
+                + " order by created_at desc, payment_id desc limit ?");
+
+        // The cursor a client holds when asking for this page: the last row of the page before
+        int offset = (page - 1) * PAGE_SIZE;
+        if (offset == 0) {
+            cursorCreatedAt = Timestamp.valueOf(LocalDateTime.now().plusYears(1));
+            cursorPaymentId = new UUID(-1L, -1L);
+        } else {
+            try (PreparedStatement last = connection.prepareStatement(
+                    "select created_at, payment_id from payments where user_id = ?"
+                            + " order by created_at desc, payment_id desc limit 1 offset ?")) {
+                last.setString(1, POWER_USER);
+                last.setInt(2, offset - 1);
+                try (ResultSet row = last.executeQuery()) {
+                    if (!row.next()) {
+                        throw new IllegalStateException("page " + page + " is past the preloaded rows");
+                    }
+                    cursorCreatedAt = row.getTimestamp(1);
+                    cursorPaymentId = row.getObject(2, UUID.class);
+                }
+            }
+        }
+    }
+
+    private void preload() throws SQLException {
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into payments values (?, ?, ?, 100.00, 'INR', 'SUCCESS', 'PHONEPE', 'UPI', 'user@upi', ?)")) {
+            for (int row = 0; row < preloadRows; row++) {
+                insert.setObject(1, UuidV7.generate());
+                insert.setString(2, "USER" + (row % USERS));
+                insert.setString(3, "ORD_" + row);
+                insert.setTimestamp(4, Timestamp.valueOf(start.plusNanos(row * 10_000_000L)));
+                insert.addBatch();
+                if ((row + 1) % BATCH == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole blackhole) throws SQLException {
+        offsetQuery.setString(1, POWER_USER);
+        offsetQuery.setInt(2, PAGE_SIZE);
+        offsetQuery.setInt(3, (page - 1) * PAGE_SIZE);
+        consume(offsetQuery, blackhole);
+    }
+
+    @Benchmark
+    public void keysetPage(Blackhole blackhole) throws SQLException {
+        keysetQuery.setString(1, POWER_USER);
+        keysetQuery.setTimestamp(2, cursorCreatedAt);
+        keysetQuery.setTimestamp(3, cursorCreatedAt);
+        keysetQuery.setObject(4, cursorPaymentId);
+        keysetQuery.setInt(5, PAGE_SIZE);
+        consume(keysetQuery, blackhole);
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet rows = query.executeQuery()) {
+            int count = 0;
+            while (rows.next()) {
+                blackhole.consume(rows.getObject(1));
+                blackhole.consume(rows.getBigDecimal(3));
+                blackhole.consume(rows.getTimestamp(8));
+                count++;
+            }
+            if (count != PAGE_SIZE) {
+                throw new IllegalStateException("expected a full page, got " + count);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
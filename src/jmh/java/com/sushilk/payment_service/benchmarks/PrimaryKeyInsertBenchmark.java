@@ -0,0 +1,115 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.ids.UuidV7;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a payments-shaped table (UUID primary key plus a UUID foreign-key
+ * index, like payment_attempts.paymentId) that already holds preloadRows rows, with random
+ * v4 ids vs. time-ordered v7 ids.
+ *
+ * Uses a file-backed H2 database so page splits hit storage; the database file size after
+ * the run is logged at tear-down as a proxy for index size. The default preload builds a
+ * multi-million-row table and takes a while - use -p preloadRows=... to shrink it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PrimaryKeyInsertBenchmark.class);
+    private static final int BATCH = 1_000;
+
+    @Param({"RANDOM_V4", "TIME_ORDERED_V7"})
+    public String idType;
+
+    @Param({"2000000"})
+    public int preloadRows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        ids = "RANDOM_V4".equals(idType) ? UUID::randomUUID : UuidV7::generate;
+        directory = Files.createTempDirectory("pk-bench");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("bench") + ";CACHE_SIZE=65536", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table payment_attempts (
+                        attempt_id uuid primary key,
+                        payment_id uuid not null,
+                        status varchar(32) not null,
+                        created_at timestamp not null)""");
+            statement.execute("create index idx_attempt_payment on payment_attempts(payment_id)");
+        }
+        insert = connection.prepareStatement(
+                "insert into payment_attempts(attempt_id, payment_id, status, created_at) values (?, ?, 'INITIATED', current_timestamp)");
+        for (int loaded = 0; loaded < preloadRows; loaded += BATCH) {
+            insertBatch();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH; i++) {
+            insert.setObject(1, ids.get());
+            insert.setObject(2, ids.get());
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("checkpoint sync");
+        }
+        connection.close();
+        long bytes;
+        try (Stream<Path> files = Files.list(directory)) {
+            bytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        log.info("[{}] database size after run: {} MiB", idType, String.format("%.1f", bytes / (1024.0 * 1024.0)));
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
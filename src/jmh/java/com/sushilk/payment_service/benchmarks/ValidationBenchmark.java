@@ -0,0 +1,91 @@
+package com.sushilk.payment_service.benchmarks;
+
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.validation.PaymentDetailsRequired;
+import com.sushilk.payment_service.validation.ValidCardNumber;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request validation on the initiate path: the custom constraint validators called directly,
+ * and full Bean Validation of a request as the controller's @Valid does it.
+ *
+ * Valid inputs only - the validators are called with a null context, which they touch only
+ * when reporting a violation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private final ValidCardNumber.CardNumberValidator cardNumberValidator = new ValidCardNumber.CardNumberValidator();
+    private final PaymentDetailsRequired.PaymentDetailsRequiredValidator paymentDetailsValidator =
+            new PaymentDetailsRequired.PaymentDetailsRequiredValidator();
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private InitiatePaymentRequest cardRequest;
+    private InitiatePaymentRequest p2pRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        cardRequest = BenchmarkFixtures.cardRequest("bench-card");
+        p2pRequest = BenchmarkFixtures.p2pRequest("bench-p2p");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean cardNumber() {
+        return cardNumberValidator.isValid("4111111111111111", null);
+    }
+
+    @Benchmark
+    public boolean cardNumberWithSeparators() {
+        return cardNumberValidator.isValid("4111 1111-1111 1111", null);
+    }
+
+    @Benchmark
+    public boolean paymentDetailsRequiredCard() {
+        return paymentDetailsValidator.isValid(cardRequest, null);
+    }
+
+    @Benchmark
+    public boolean paymentDetailsRequiredP2p() {
+        return paymentDetailsValidator.isValid(p2pRequest, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<InitiatePaymentRequest>> beanValidationCard() {
+        return validator.validate(cardRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<InitiatePaymentRequest>> beanValidationP2p() {
+        return validator.validate(p2pRequest);
+    }
+}
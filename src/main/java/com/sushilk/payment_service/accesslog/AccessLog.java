@@ -0,0 +1,159 @@
+package com.sushilk.payment_service.accesslog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking access log.
+ *
+ * Request threads only copy a few fields into a pre-allocated ring buffer slot; one background
+ * thread drains the ring in batches and writes JSON lines to a rotating file. Request threads
+ * never wait on I/O or a lock:
+ * - above sample-threshold (fraction of the ring in use) only 1 in sample-rate 2xx/3xx requests is kept
+ * - when the ring is full the entry is dropped
+ * Dropped and sampled-out counts are written to the log and exported as meters.
+ */
+@Component
+@Slf4j
+public class AccessLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final Path file;
+    private final DataSize maxFileSize;
+    private final int maxFiles;
+    private final int batchSize;
+    private final long sampleAbove;
+    private final int sampleRate;
+    private final AccessLogRingBuffer ring;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Writer thread only
+    private long reportedDropped;
+    private long reportedSampledOut;
+
+    public AccessLog(
+            @Value("${payment.access-log.enabled:true}") boolean enabled,
+            @Value("${payment.access-log.file:logs/access.log}") Path file,
+            @Value("${payment.access-log.max-file-size:10MB}") DataSize maxFileSize,
+            @Value("${payment.access-log.max-files:5}") int maxFiles,
+            @Value("${payment.access-log.buffer-size:8192}") int bufferSize,
+            @Value("${payment.access-log.batch-size:256}") int batchSize,
+            @Value("${payment.access-log.sample-threshold:0.75}") double sampleThreshold,
+            @Value("${payment.access-log.sample-rate:10}") int sampleRate,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.batchSize = batchSize;
+        this.ring = new AccessLogRingBuffer(bufferSize);
+        this.sampleAbove = (long) (ring.capacity() * sampleThreshold);
+        this.sampleRate = Math.max(1, sampleRate);
+
+        FunctionCounter.builder("access_log.dropped", dropped, LongAdder::sum)
+                .description("Access log entries dropped because the ring buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("access_log.sampled_out", sampledOut, LongAdder::sum)
+                .description("Access log entries skipped by backpressure sampling")
+                .register(meterRegistry);
+        Gauge.builder("access_log.buffer.used", ring, AccessLogRingBuffer::size)
+                .description("Access log entries waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        RollingJsonLinesWriter writer = new RollingJsonLinesWriter(file, maxFileSize.toBytes(), maxFiles);
+        running = true;
+        writerThread = Thread.ofPlatform().daemon().name("access-log-writer").start(() -> drainLoop(writer));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Records one request; never blocks. Must be called with the epoch millis of the request
+     * and System.nanoTime based durations.
+     */
+    public void record(long epochMillis, String method, String uri, int status, long durationNanos,
+                       int sqlStatements, long dbNanos) {
+        if (!running) {
+            return;
+        }
+        if (status < 400 && ring.size() >= sampleAbove && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (!ring.tryPublish(epochMillis, method, uri, status, durationNanos, sqlStatements, dbNanos)) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop(RollingJsonLinesWriter writer) {
+        try (writer) {
+            while (running) {
+                if (ring.drain(entry -> write(writer, entry), batchSize) == 0) {
+                    reportLosses(writer);
+                    writer.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            // Shutdown: write whatever was published before stop()
+            while (ring.drain(entry -> write(writer, entry), batchSize) > 0) {
+                // keep draining
+            }
+            reportLosses(writer);
+        } catch (IOException | RuntimeException e) {
+            running = false;
+            log.error("Access log writer stopped, further entries are discarded", e);
+        }
+    }
+
+    private void reportLosses(RollingJsonLinesWriter writer) throws IOException {
+        long droppedNow = dropped.sum();
+        long sampledOutNow = sampledOut.sum();
+        if (droppedNow != reportedDropped || sampledOutNow != reportedSampledOut) {
+            writer.writeDropped(droppedNow - reportedDropped, sampledOutNow - reportedSampledOut);
+            reportedDropped = droppedNow;
+            reportedSampledOut = sampledOutNow;
+        }
+    }
+
+    private static void write(RollingJsonLinesWriter writer, AccessLogEntry entry) {
+        try {
+            writer.write(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
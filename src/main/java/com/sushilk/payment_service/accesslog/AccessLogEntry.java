@@ -0,0 +1,32 @@
+package com.sushilk.payment_service.accesslog;
+
+/**
+ * Pre-allocated ring buffer slot. Written by exactly one request thread after it claims the
+ * slot, read by the writer thread after the slot is published - never both at once.
+ */
+final class AccessLogEntry {
+
+    long epochMillis;
+    String method;
+    String uri;
+    int status;
+    long durationNanos;
+    int sqlStatements;
+    long dbNanos;
+
+    void set(long epochMillis, String method, String uri, int status, long durationNanos,
+             int sqlStatements, long dbNanos) {
+        this.epochMillis = epochMillis;
+        this.method = method;
+        this.uri = uri;
+        this.status = status;
+        this.durationNanos = durationNanos;
+        this.sqlStatements = sqlStatements;
+        this.dbNanos = dbNanos;
+    }
+
+    void clear() {
+        method = null;
+        uri = null;
+    }
+}
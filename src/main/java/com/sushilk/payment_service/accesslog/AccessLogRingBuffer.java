@@ -0,0 +1,81 @@
+package com.sushilk.payment_service.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer / single-consumer ring of pre-allocated entries.
+ *
+ * Producers claim a sequence with a CAS and publish the slot by storing sequence + 1 in
+ * {@code published}; a full ring makes {@link #tryPublish} return false instead of waiting.
+ * The single consumer reads published slots in order and frees them by advancing {@code consumed}.
+ */
+final class AccessLogRingBuffer {
+
+    private final AccessLogEntry[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    AccessLogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.entries = new AccessLogEntry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new AccessLogEntry();
+        }
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Entries claimed but not yet consumed.
+     */
+    long size() {
+        return claimed.get() - consumed;
+    }
+
+    boolean tryPublish(long epochMillis, String method, String uri, int status, long durationNanos,
+                       int sqlStatements, long dbNanos) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= entries.length) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        entries[index].set(epochMillis, method, uri, status, durationNanos, sqlStatements, dbNanos);
+        published.set(index, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to max published entries to the handler in order; only the writer thread calls this.
+     */
+    int drain(Consumer<AccessLogEntry> handler, int max) {
+        long sequence = consumed;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (sequence & mask);
+            if (published.get(index) != sequence + 1) {
+                break;
+            }
+            AccessLogEntry entry = entries[index];
+            handler.accept(entry);
+            entry.clear();
+            sequence++;
+            drained++;
+        }
+        if (drained > 0) {
+            consumed = sequence;
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,131 @@
+package com.sushilk.payment_service.accesslog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats entries as JSON lines into access.log, rotating to access.log.1 .. access.log.N
+ * once the active file exceeds maxFileSize. Used only by the writer thread.
+ */
+final class RollingJsonLinesWriter implements AutoCloseable {
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final StringBuilder line = new StringBuilder(256);
+
+    private BufferedWriter out;
+    private long written;
+
+    RollingJsonLinesWriter(Path file, long maxFileSize, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    void write(AccessLogEntry entry) throws IOException {
+        line.setLength(0);
+        line.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.epochMillis), line);
+        line.append("\",\"method\":\"");
+        appendEscaped(entry.method);
+        line.append("\",\"uri\":\"");
+        appendEscaped(entry.uri);
+        line.append("\",\"status\":").append(entry.status)
+                .append(",\"durationMicros\":").append(entry.durationNanos / 1_000)
+                .append(",\"sqlStatements\":").append(entry.sqlStatements)
+                .append(",\"dbMicros\":").append(entry.dbNanos / 1_000)
+                .append("}\n");
+
+        out.append(line);
+        written += line.length();
+        if (written >= maxFileSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Writes a control record, e.g. how many entries were dropped since the last one.
+     */
+    void writeDropped(long dropped, long sampledOut) throws IOException {
+        line.setLength(0);
+        line.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.now(), line);
+        line.append("\",\"dropped\":").append(dropped)
+                .append(",\"sampledOut\":").append(sampledOut)
+                .append("}\n");
+        out.append(line);
+        written += line.length();
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        written = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = sibling(i);
+            if (Files.exists(source)) {
+                Files.move(source, sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles >= 1) {
+            Files.move(file, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path sibling(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void appendEscaped(String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.sushilk.payment_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.ledger.LedgerJournal;
+import com.sushilk.payment_service.ledger.LedgerJournalSink;
+import com.sushilk.payment_service.ledger.LedgerProjection;
+import com.sushilk.payment_service.outbox.OutboxSink;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "payment.ledger.journal.enabled", havingValue = "true")
+public class LedgerJournalConfig {
+
+    @Bean
+    public LedgerJournal ledgerJournal(
+            @Value("${payment.ledger.journal.dir:ledger}") Path dir,
+            @Value("${payment.ledger.journal.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        return new LedgerJournal(dir, Math.toIntExact(segmentSize.toBytes()));
+    }
+
+    /** Ordered first so a batch is journaled before it goes to the other sinks. */
+    @Bean
+    @Order(0)
+    public OutboxSink ledgerJournalSink(LedgerJournal ledgerJournal, ObjectMapper objectMapper) {
+        return new LedgerJournalSink(ledgerJournal, objectMapper);
+    }
+
+    @Bean
+    public LedgerProjection ledgerProjection(
+            LedgerJournal ledgerJournal,
+            DataSource dataSource,
+            @Value("${payment.ledger.projection.batch-size:500}") int batchSize) {
+        return new LedgerProjection(ledgerJournal, dataSource, batchSize);
+    }
+
+    /**
+     * Re-applies the journal to payment_transactions once the application is up, if asked to. Each
+     * shard gets the whole journal; updates of transactions it does not hold match no row.
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> ledgerProjectionRebuild(
+            LedgerProjection ledgerProjection,
+            ShardDirectory shardDirectory,
+            @Value("${payment.ledger.projection.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        return event -> {
+            if (rebuildOnStartup) {
+                shardDirectory.forEachShard(shard -> ledgerProjection.rebuild());
+            }
+        };
+    }
+}
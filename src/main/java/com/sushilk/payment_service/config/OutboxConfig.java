@@ -0,0 +1,37 @@
+package com.sushilk.payment_service.config;
+
+import com.sushilk.payment_service.outbox.InMemoryOutboxSink;
+import com.sushilk.payment_service.outbox.OutboxSink;
+import com.sushilk.payment_service.outbox.SegmentFileOutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class OutboxConfig {
+
+    /**
+     * Where the outbox relay publishes: "file" appends to local segment files consumers can tail,
+     * "memory" keeps events in memory (tests).
+     */
+    @Bean(destroyMethod = "close")
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public OutboxSink outboxSink(
+            @Value("${payment.outbox.sink:file}") String sink,
+            @Value("${payment.outbox.dir:outbox}") Path dir,
+            @Value("${payment.outbox.segment-size:64MB}") DataSize segmentSize,
+            @Value("${payment.outbox.retain-segments:16}") int retainSegments,
+            @Value("${payment.outbox.fsync:true}") boolean fsync) throws IOException {
+        return switch (sink) {
+            case "file" -> new SegmentFileOutboxSink(dir, segmentSize.toBytes(), retainSegments, fsync);
+            case "memory" -> new InMemoryOutboxSink();
+            default -> throw new IllegalArgumentException("Unknown payment.outbox.sink: " + sink);
+        };
+    }
+}
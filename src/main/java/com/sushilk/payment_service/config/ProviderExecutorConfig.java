@@ -0,0 +1,20 @@
+package com.sushilk.payment_service.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ProviderExecutorConfig {
+
+    /**
+     * Executor for provider calls: one virtual thread per call, so a blocked provider
+     * round trip parks a cheap virtual thread instead of a request or pool thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService providerExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("provider-", 0).factory());
+    }
+}
@@ -0,0 +1,35 @@
+package com.sushilk.payment_service.config;
+
+import com.sushilk.payment_service.resilience.ResilienceSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProviderResilienceConfig {
+
+    /**
+     * Per-provider isolation settings, see ResilienceSettings for what each one controls.
+     */
+    @Bean
+    public ResilienceSettings providerResilienceSettings(
+            @Value("${payment.provider.limit.initial:20}") int initialLimit,
+            @Value("${payment.provider.limit.min:2}") int minLimit,
+            @Value("${payment.provider.limit.max:200}") int maxLimit,
+            @Value("${payment.provider.limit.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${payment.provider.limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${payment.provider.timeout.multiplier:1.5}") double timeoutMultiplier,
+            @Value("${payment.provider.timeout.min:PT0.2S}") Duration minTimeout,
+            @Value("${payment.provider.timeout.max:PT5S}") Duration maxTimeout,
+            @Value("${payment.provider.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${payment.provider.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${payment.provider.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${payment.provider.circuit-breaker.open-duration:PT10S}") Duration openDuration,
+            @Value("${payment.provider.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        return new ResilienceSettings(initialLimit, minLimit, maxLimit, latencyTolerance, backoffRatio,
+                timeoutMultiplier, minTimeout, maxTimeout, failureRateThreshold, windowSize, minimumCalls,
+                openDuration, halfOpenCalls);
+    }
+}
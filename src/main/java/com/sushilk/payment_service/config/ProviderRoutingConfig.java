@@ -0,0 +1,24 @@
+package com.sushilk.payment_service.config;
+
+import com.sushilk.payment_service.routing.RoutingSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProviderRoutingConfig {
+
+    /**
+     * AUTO_UPI routing settings, see RoutingSettings for what each one controls.
+     */
+    @Bean
+    public RoutingSettings upiRoutingSettings(
+            @Value("${payment.routing.ewma-alpha:0.2}") double ewmaAlpha,
+            @Value("${payment.routing.exploration:0.05}") double exploration,
+            @Value("${payment.routing.fast-failure:PT1S}") Duration fastFailure,
+            @Value("${payment.routing.hedge-after:PT0S}") Duration hedgeAfter) {
+        return new RoutingSettings(ewmaAlpha, exploration, fastFailure, hedgeAfter);
+    }
+}
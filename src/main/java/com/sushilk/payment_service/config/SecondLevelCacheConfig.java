@@ -0,0 +1,101 @@
+package com.sushilk.payment_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PAYMENT_REGION = "payment";
+    public static final String REFUND_REGION = "refund";
+    public static final String REFUNDS_BY_PAYMENT_REGION = "refunds-by-payment";
+
+    /**
+     * Hibernate's second-level cache regions, each a bounded on-heap Ehcache. Regions are declared
+     * here rather than created on demand (Hibernate is told to fail on a missing one), so every
+     * cached entity or query has an explicit size. Hits, misses, puts and evictions are exported
+     * per region as cache.* meters.
+     * <p>
+     * The update-timestamps region records when each table last changed; cached query results
+     * older than that are discarded, so it must neither expire nor evict.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${payment.cache.payment.max-entries:50000}") long paymentEntries,
+            @Value("${payment.cache.payment.ttl:PT1H}") Duration paymentTtl,
+            @Value("${payment.cache.refund.max-entries:20000}") long refundEntries,
+            @Value("${payment.cache.refund.ttl:PT1H}") Duration refundTtl,
+            @Value("${payment.cache.refunds-by-payment.max-entries:20000}") long refundsByPaymentEntries,
+            @Value("${payment.cache.refunds-by-payment.ttl:PT10M}") Duration refundsByPaymentTtl,
+            MeterRegistry meterRegistry) {
+        Map<String, CacheConfiguration<Object, Object>> regions = Map.of(
+                PAYMENT_REGION, region(paymentEntries, ExpiryPolicyBuilder.timeToLiveExpiration(paymentTtl)),
+                REFUND_REGION, region(refundEntries, ExpiryPolicyBuilder.timeToLiveExpiration(refundTtl)),
+                REFUNDS_BY_PAYMENT_REGION, region(refundsByPaymentEntries,
+                        ExpiryPolicyBuilder.timeToLiveExpiration(refundsByPaymentTtl)),
+                // Created by Hibernate with the query cache; unused while every query names its region
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(100,
+                        ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofMinutes(10))),
+                RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(1_000,
+                        ExpiryPolicyBuilder.noExpiration()));
+
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, CacheConfiguration<Object, Object>> region : regions.entrySet()) {
+            configuration = configuration.withCache(region.getKey(), region.getValue());
+        }
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // A URI of its own per application context, so test contexts do not share regions
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:payment-service:hibernate:" + UUID.randomUUID()), configuration.build());
+
+        for (String region : regions.keySet()) {
+            cacheManager.enableStatistics(region, true);
+            JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(region));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(
+            CacheManager hibernateCacheManager,
+            @Value("${payment.cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            }
+        };
+    }
+
+    private static CacheConfiguration<Object, Object> region(long maxEntries, ExpiryPolicy<Object, Object> expiry) {
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiry)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.sushilk.payment_service.config;
+
+import com.sushilk.payment_service.sharding.ShardDataSources;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import com.sushilk.payment_service.sharding.ShardMap;
+import com.sushilk.payment_service.sharding.ShardRoutingDataSource;
+import com.sushilk.payment_service.sharding.ShardSchemaIntegrator;
+import com.sushilk.payment_service.sharding.ShardSplitter;
+import com.sushilk.payment_service.sharding.ShardTopologyStore;
+import com.sushilk.payment_service.sharding.ShardingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horizontal sharding of payments by userId over payment.sharding.shards. Without it there is a
+ * single-shard {@link ShardDirectory} and spring.datasource as usual. Cannot be combined with the
+ * read replica, which replaces the same DataSource.
+ * <p>
+ * Enabling it over existing data: the database holding the payments so far has to be the first
+ * shard. Their ids carry no bucket, so they stay there and are looked up there by paymentId
+ * (see {@link ShardDirectory}). Lookups by userId - the idempotency key check and the payment
+ * list - go to the owner of the user's bucket only, so they see such a payment only while that
+ * bucket is owned by the first shard: a retry of a pre-sharding request can create a second payment.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public ShardDirectory shardDirectory() {
+        return ShardDirectory.single();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+    static class Sharded {
+
+        @Bean
+        public ShardDataSources shardDataSources(ShardingProperties properties) {
+            return new ShardDataSources(properties.shards());
+        }
+
+        @Bean
+        public ShardDirectory shardDirectory(ShardingProperties properties, ShardDataSources shardDataSources) {
+            Map<String, String> buckets = new LinkedHashMap<>();
+            properties.shards().forEach(shard -> buckets.put(shard.name(), shard.buckets()));
+            List<String> shards = shardDataSources.names();
+            ShardTopologyStore store = new ShardTopologyStore(shardDataSources.get(shards.getFirst()));
+            return ShardDirectory.load(shards, ShardMap.fromRanges(buckets), store);
+        }
+
+        /** Connections are fetched at the first statement, inside the caller's ShardRouting. */
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSources shardDataSources, ShardDirectory shardDirectory,
+                                     MeterRegistry meterRegistry) {
+            return new LazyConnectionDataSourceProxy(
+                    new ShardRoutingDataSource(shardDataSources.pools(), shardDirectory, meterRegistry));
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardDirectory shardDirectory) {
+            ShardSchemaIntegrator integrator = new ShardSchemaIntegrator(shardDirectory);
+            return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(integrator));
+        }
+
+        @Bean
+        public ShardSplitter shardSplitter(
+                ShardDirectory shardDirectory,
+                ShardDataSources shardDataSources,
+                @Value("${payment.sharding.split.batch-size:1000}") int batchSize,
+                @Value("${payment.sharding.split.grace:PT5S}") Duration grace) {
+            return new ShardSplitter(shardDirectory, shardDataSources, batchSize, grace);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sushilk.payment_service.controllers;
+
+import com.sushilk.payment_service.export.ExportFormat;
+import com.sushilk.payment_service.export.ExportTable;
+import com.sushilk.payment_service.export.PaymentExporter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final PaymentExporter exporter;
+
+    /**
+     * Streams rows of payments, payment_transactions or refunds with created_at in [from, to)
+     * as they are read; the response is never held in memory.
+     */
+    @GetMapping("/{table}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String table,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        // Resolved before streaming starts, so bad input is still a 400 and not a truncated body
+        ExportTable exportTable = ExportTable.fromName(table);
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Export range is empty: from must be before to");
+        }
+        log.info("Export of {} from {} to {} as {}", exportTable.tableName(), from, to, exportFormat);
+
+        String fileName = exportTable.tableName() + "." + exportFormat.extension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            long rows = exporter.export(exportTable, exportFormat, from, to, target);
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+            log.info("Exported {} rows of {}", rows, exportTable.tableName());
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
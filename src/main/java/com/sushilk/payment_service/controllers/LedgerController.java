@@ -0,0 +1,28 @@
+package com.sushilk.payment_service.controllers;
+
+import com.sushilk.payment_service.ledger.JournalEntry;
+import com.sushilk.payment_service.ledger.LedgerJournal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/ledger")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.ledger.journal.enabled", havingValue = "true")
+public class LedgerController {
+
+    private final LedgerJournal ledgerJournal;
+
+    /** Every journaled change of the payment's transactions, oldest first. */
+    @GetMapping("/payments/{paymentId}")
+    public List<JournalEntry> history(@PathVariable UUID paymentId) {
+        return ledgerJournal.history(paymentId);
+    }
+}
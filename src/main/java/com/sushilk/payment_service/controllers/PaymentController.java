@@ -1,19 +1,35 @@
 package com.sushilk.payment_service.controllers;
 
+import com.sushilk.payment_service.dtos.BatchInitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.BatchInitiatePaymentResponse;
 import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
 import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.dtos.PaymentPage;
+import com.sushilk.payment_service.dtos.PaymentView;
 import com.sushilk.payment_service.dtos.RefundRequest;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.services.BatchPaymentService;
+import com.sushilk.payment_service.services.IdempotencyResponseCache;
+import com.sushilk.payment_service.services.PaymentQueryService;
 import com.sushilk.payment_service.services.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/payments")
 @RequiredArgsConstructor
@@ -21,15 +37,43 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyResponseCache idempotencyCache;
+    private final BatchPaymentService batchPaymentService;
+    private final PaymentQueryService paymentQueryService;
+
+    /**
+     * When enabled, /initiate persists the payment and answers 202 Accepted right away;
+     * the provider call completes in the background.
+     */
+    @Value("${payment.initiate.async:false}")
+    private boolean asyncInitiation;
 
     @PostMapping("/initiate")
     public ResponseEntity<InitiatePaymentResponse> initiatePayment(
             @Valid @RequestBody InitiatePaymentRequest request) {
         log.info("InitiatePayment request for user: {}", request.userId());
-        InitiatePaymentResponse response = paymentService.initiatePayment(request);
+        if (asyncInitiation) {
+            InitiatePaymentResponse response = idempotencyCache.getOrCompute(
+                    request.idempotencyKey(), () -> paymentService.initiatePaymentAsync(request),
+                    paymentService::currentStatus);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        // Cached outside the service transaction so only committed results are replayed; a replay
+        // re-reads the status, which may have moved on since (webhook, status poll)
+        InitiatePaymentResponse response = idempotencyCache.getOrCompute(
+                request.idempotencyKey(), () -> paymentService.initiatePayment(request),
+                paymentService::currentStatus);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/initiate/batch")
+    public ResponseEntity<BatchInitiatePaymentResponse> initiatePayments(
+            @Valid @RequestBody BatchInitiatePaymentRequest request) {
+        log.info("InitiatePayments batch request with {} payments", request.payments().size());
+        BatchInitiatePaymentResponse response = batchPaymentService.initiatePayments(request.payments());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/refund")
     public ResponseEntity<Void> refundPayment(
             @Valid @RequestBody RefundRequest request) {
@@ -37,5 +81,19 @@ public class PaymentController {
         paymentService.refundPayment(request);
         return ResponseEntity.ok().build();
     }
-}
 
+    @GetMapping("/{paymentId}")
+    public ResponseEntity<PaymentView> getPayment(@PathVariable UUID paymentId) {
+        return ResponseEntity.ok(paymentQueryService.getPayment(paymentId));
+    }
+
+    @GetMapping
+    public ResponseEntity<PaymentPage> listPayments(
+            @RequestParam String userId,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(paymentQueryService.listPayments(userId, status, from, cursor, limit));
+    }
+}
@@ -0,0 +1,36 @@
+package com.sushilk.payment_service.controllers;
+
+import com.sushilk.payment_service.dtos.WebhookReceipt;
+import com.sushilk.payment_service.services.WebhookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/webhooks")
+@RequiredArgsConstructor
+public class WebhookController {
+
+    static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+
+    private final WebhookService webhookService;
+
+    /**
+     * Acknowledges as soon as the event is stored: 202 Accepted for a new event, 200 OK for a
+     * redelivery. The payload is kept verbatim, so it is taken as a String rather than bound; the
+     * signature is computed over those exact bytes. A missing signature is a 401 like a wrong one.
+     */
+    @PostMapping(value = "/{provider}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<WebhookReceipt> receive(@PathVariable String provider, @RequestBody String payload,
+                                                  @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature) {
+        WebhookReceipt receipt = webhookService.receive(provider, payload, signature);
+        return ResponseEntity.status(receipt.duplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(receipt);
+    }
+}
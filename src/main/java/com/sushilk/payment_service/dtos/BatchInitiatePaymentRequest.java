@@ -0,0 +1,17 @@
+package com.sushilk.payment_service.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Batch of payment initiations.
+ * Items are validated one by one by the service so that a single bad item
+ * is reported in its own result instead of rejecting the whole batch.
+ */
+public record BatchInitiatePaymentRequest(
+        @NotEmpty(message = "At least one payment is required")
+        @Size(max = 1000, message = "A batch may contain at most 1000 payments")
+        List<InitiatePaymentRequest> payments
+) {}
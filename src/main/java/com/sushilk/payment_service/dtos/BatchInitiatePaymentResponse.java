@@ -0,0 +1,10 @@
+package com.sushilk.payment_service.dtos;
+
+import java.util.List;
+
+public record BatchInitiatePaymentResponse(
+        int total,
+        int accepted,
+        int rejected,
+        List<BatchPaymentResult> results
+) {}
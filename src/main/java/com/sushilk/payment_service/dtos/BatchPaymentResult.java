@@ -0,0 +1,19 @@
+package com.sushilk.payment_service.dtos;
+
+import com.sushilk.payment_service.enums.PaymentStatus;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of one item of a batch initiation, in request order.
+ * paymentId/status are null when the item was rejected; errors is empty on success.
+ */
+public record BatchPaymentResult(
+        int index,
+        String idempotencyKey,
+        UUID paymentId,
+        PaymentStatus status,
+        boolean duplicate,
+        List<String> errors
+) {}
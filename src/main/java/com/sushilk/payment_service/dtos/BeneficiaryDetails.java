@@ -1,5 +1,7 @@
 package com.sushilk.payment_service.dtos;
 
+import com.sushilk.payment_service.masking.Masked;
+import com.sushilk.payment_service.masking.MaskingRule;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -35,6 +37,7 @@ public record BeneficiaryDetails(
          * Format validation depends on beneficiaryType
          */
         @Size(max = 256, message = "Beneficiary account/UPI ID must not exceed 256 characters")
+        @Masked(MaskingRule.BENEFICIARY_ACCOUNT)
         String beneficiaryAccount,
 
         /**
@@ -48,25 +51,13 @@ public record BeneficiaryDetails(
          * Optional: Account number for bank transfers
          */
         @Pattern(regexp = "^[0-9]{9,18}$", message = "Account number must be 9-18 digits")
+        @Masked(MaskingRule.ACCOUNT_NUMBER)
         String accountNumber
 ) {
     /**
      * Returns masked beneficiary account for logging
      */
     public String getMaskedAccount() {
-        if (beneficiaryAccount == null || beneficiaryAccount.length() < 4) {
-            return "****";
-        }
-        
-        // If it's a UPI ID, mask it
-        if (beneficiaryAccount.contains("@")) {
-            int atIndex = beneficiaryAccount.indexOf('@');
-            String username = beneficiaryAccount.substring(0, Math.min(atIndex, 2));
-            String domain = beneficiaryAccount.substring(atIndex + 1);
-            return username + "***@" + domain;
-        }
-        
-        // For account numbers, show last 4 digits
-        return "****" + beneficiaryAccount.substring(beneficiaryAccount.length() - 4);
+        return MaskingRule.BENEFICIARY_ACCOUNT.apply(beneficiaryAccount);
     }
 }
@@ -1,5 +1,7 @@
 package com.sushilk.payment_service.dtos;
 
+import com.sushilk.payment_service.masking.Masked;
+import com.sushilk.payment_service.masking.MaskingRule;
 import com.sushilk.payment_service.validation.ValidCardExpiry;
 import com.sushilk.payment_service.validation.ValidCardNumber;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +18,7 @@ public record CardDetails(
         @Size(min = 13, max = 19, message = "Card number must be between 13 and 19 digits")
         @Pattern(regexp = "^[0-9]+$", message = "Card number must contain only digits")
         @ValidCardNumber(message = "Card number is invalid (failed Luhn algorithm check)")
+        @Masked(MaskingRule.CARD_NUMBER)
         String cardNumber,
 
         @NotBlank(message = "Cardholder name is required")
@@ -26,11 +29,13 @@ public record CardDetails(
         @NotBlank(message = "Expiry date is required (format: MM/YY)")
         @Pattern(regexp = "^(0[1-9]|1[0-2])/([0-9]{2})$", message = "Expiry date must be in MM/YY format (e.g., 12/25)")
         @ValidCardExpiry(message = "Card expiry date is invalid or has expired. Please use a valid future date")
+        @Masked(MaskingRule.EXPIRY_DATE)
         String expiryDate,
 
         @NotBlank(message = "CVV is required")
         @Size(min = 3, max = 4, message = "CVV must be 3 or 4 digits")
         @Pattern(regexp = "^[0-9]+$", message = "CVV must contain only digits")
+        @Masked(MaskingRule.CVV)
         String cvv
 ) {
     /**
@@ -38,10 +43,6 @@ public record CardDetails(
      * Use this method instead of cardNumber for logging to maintain PCI compliance
      */
     public String getMaskedCardNumber() {
-        if (cardNumber == null || cardNumber.length() < 4) {
-            return "****";
-        }
-        String cleaned = cardNumber.replaceAll("[\\s-]", "");
-        return "****-****-****-" + cleaned.substring(cleaned.length() - 4);
+        return MaskingRule.CARD_NUMBER.apply(cardNumber);
     }
 }
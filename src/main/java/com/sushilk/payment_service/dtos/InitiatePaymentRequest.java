@@ -3,6 +3,7 @@ package com.sushilk.payment_service.dtos;
 import com.sushilk.payment_service.enums.OrderType;
 import com.sushilk.payment_service.enums.PaymentMethod;
 import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.RoutingMode;
 import com.sushilk.payment_service.validation.PaymentDetailsRequired;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
@@ -73,6 +74,13 @@ public record InitiatePaymentRequest(
          * Should be validated using @Valid to trigger nested validation
          */
         @Valid
-        NetBankingDetails netBankingDetails
+        NetBankingDetails netBankingDetails,
+
+        /**
+         * Routing mode - optional, FIXED when absent
+         * AUTO_UPI lets the service pick among PHONEPE, PAYTM and GOOGLEPAY by live latency and
+         * success rate; provider is then only the preferred rail
+         */
+        RoutingMode routing
 ) {}
 
@@ -1,5 +1,7 @@
 package com.sushilk.payment_service.dtos;
 
+import com.sushilk.payment_service.masking.Masked;
+import com.sushilk.payment_service.masking.MaskingRule;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
@@ -28,15 +30,13 @@ public record NetBankingDetails(
          * Optional - some banks may require this, others may redirect to login
          */
         @Size(max = 100, message = "Customer ID must not exceed 100 characters")
+        @Masked(MaskingRule.CUSTOMER_ID)
         String customerId
 ) {
     /**
      * Returns masked customer ID for logging
      */
     public String getMaskedCustomerId() {
-        if (customerId == null || customerId.length() < 4) {
-            return "****";
-        }
-        return "****" + customerId.substring(customerId.length() - 4);
+        return MaskingRule.CUSTOMER_ID.apply(customerId);
     }
 }
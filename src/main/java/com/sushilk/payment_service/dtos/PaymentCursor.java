@@ -0,0 +1,34 @@
+package com.sushilk.payment_service.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in a user's payments: the (createdAt, paymentId) of the last row returned.
+ * Sent to clients as an opaque URL-safe token.
+ */
+public record PaymentCursor(LocalDateTime createdAt, UUID paymentId) {
+
+    public static PaymentCursor after(PaymentSummary last) {
+        return new PaymentCursor(last.createdAt(), last.paymentId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + paymentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PaymentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
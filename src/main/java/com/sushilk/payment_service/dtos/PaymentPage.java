@@ -0,0 +1,12 @@
+package com.sushilk.payment_service.dtos;
+
+import java.util.List;
+
+/**
+ * A page of GET /payments, newest first. nextCursor is null on the last page;
+ * otherwise pass it back as cursor to get the following page.
+ */
+public record PaymentPage(
+        List<PaymentSummary> items,
+        String nextCursor
+) {}
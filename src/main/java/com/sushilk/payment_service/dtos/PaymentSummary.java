@@ -0,0 +1,23 @@
+package com.sushilk.payment_service.dtos;
+
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of GET /payments, selected straight into this record (no entity is loaded).
+ */
+public record PaymentSummary(
+        UUID paymentId,
+        String orderId,
+        BigDecimal amount,
+        String currency,
+        PaymentStatus status,
+        PaymentProvider provider,
+        PaymentMethod paymentMethod,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,31 @@
+package com.sushilk.payment_service.dtos;
+
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * GET /payments/{id} response, selected straight into this record (no entity is loaded).
+ * beneficiaryAccount is left out; it is never returned by the read API.
+ */
+public record PaymentView(
+        UUID paymentId,
+        String userId,
+        String orderId,
+        OrderType orderType,
+        BigDecimal amount,
+        BigDecimal refundedAmount,
+        String currency,
+        PaymentStatus status,
+        PaymentProvider provider,
+        PaymentMethod paymentMethod,
+        String beneficiaryId,
+        String beneficiaryName,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {}
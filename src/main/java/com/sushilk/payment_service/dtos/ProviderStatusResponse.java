@@ -0,0 +1,9 @@
+package com.sushilk.payment_service.dtos;
+
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+
+public record ProviderStatusResponse(
+        ProviderPaymentStatus status,
+        String providerTransactionId,
+        String rawResponse
+) {}
@@ -0,0 +1,10 @@
+package com.sushilk.payment_service.dtos;
+
+import java.util.UUID;
+
+/**
+ * Acknowledgement of a provider webhook; duplicate is true when the provider event id had
+ * already been received, in which case eventId is that of the first delivery.
+ */
+public record WebhookReceipt(UUID eventId, boolean duplicate) {
+}
@@ -1,6 +1,8 @@
 package com.sushilk.payment_service.entities;
 
+import com.sushilk.payment_service.sqlstats.EntityLoadListener;
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -9,6 +11,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @MappedSuperclass
+@EntityListeners(EntityLoadListener.class)
 @Getter
 @Setter
 public abstract class BaseEntity {
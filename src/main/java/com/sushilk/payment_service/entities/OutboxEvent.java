@@ -0,0 +1,42 @@
+package com.sushilk.payment_service.entities;
+
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * A state change of a payment, refund or transaction, written in the transaction that made it
+ * and deleted by OutboxRelay once published. The time-ordered id is the relay's read order.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private UUID eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxAggregateType aggregateType;
+
+    @Column(nullable = false)
+    private UUID aggregateId;
+
+    /** The aggregate's status after the change. */
+    @Column(nullable = false, length = 30)
+    private String status;
+
+    /** JSON snapshot of the aggregate after the change. */
+    @Lob
+    @Column(columnDefinition = "CLOB", nullable = false)
+    private String payload;
+}
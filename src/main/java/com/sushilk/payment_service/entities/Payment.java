@@ -4,30 +4,47 @@ import com.sushilk.payment_service.enums.OrderType;
 import com.sushilk.payment_service.enums.PaymentMethod;
 import com.sushilk.payment_service.enums.PaymentProvider;
 import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.config.SecondLevelCacheConfig;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import com.sushilk.payment_service.sharding.ShardKeyed;
+import com.sushilk.payment_service.sharding.ShardKeys;
+import com.sushilk.payment_service.sharding.ShardWriteGuard;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ShardWriteGuard.class)
 @Table(
         name = "payments",
         indexes = {
                 @Index(name = "idx_payment_order", columnList = "orderId"),
-                @Index(name = "idx_payment_user", columnList = "userId"),
-                @Index(name = "idx_payment_idempotency", columnList = "idempotencyKey")
+                // Keyset pagination of a user's payments; also serves plain userId lookups
+                @Index(name = "idx_payment_user_created", columnList = "userId, createdAt, paymentId"),
+                @Index(name = "idx_payment_idempotency", columnList = "idempotencyKey"),
+                // Status poller's keyset scan of INITIATED/PROCESSING payments
+                @Index(name = "idx_payment_status_created", columnList = "status, createdAt, paymentId"),
+                // Range scans of the finance export
+                @Index(name = "idx_payment_created", columnList = "createdAt")
         }
 )
+// Read by id on every refund, webhook and status update, mostly while recent; read-write keeps
+// the cached copy consistent with status and version updates (soft-locked until commit)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PAYMENT_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
-public class Payment extends BaseEntity {
+@Builder(toBuilder = true)
+public class Payment extends BaseEntity implements ShardKeyed {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID paymentId;
 
     @Column(nullable = false)
@@ -43,6 +60,15 @@ public class Payment extends BaseEntity {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    /**
+     * Running total of refunds against this payment - SUCCESS plus in-flight (INITIATED) refunds.
+     * Reserved when a refund is created, released if it fails, so the remaining refundable
+     * amount is amount - refundedAmount without scanning the refunds table.
+     * Null only for rows created before the column existed, until RefundLedgerBackfill runs.
+     */
+    @Builder.Default
+    private BigDecimal refundedAmount = BigDecimal.ZERO;
+
     @Column(nullable = false)
     private String currency;
 
@@ -86,5 +112,17 @@ public class Payment extends BaseEntity {
      */
     @Column(length = 256)
     private String beneficiaryAccount;
-}
 
+    /**
+     * Optimistic lock - concurrent refunds (or other status changes) on the same payment
+     * cannot both commit against the same refundedAmount
+     */
+    @Version
+    private Long version;
+
+    @Override
+    public int shardBucket() {
+        // Sharded by userId; the paymentId carries the same bucket, or none if minted before sharding
+        return paymentId != null ? ShardKeys.bucketOf(paymentId) : ShardKeys.bucketOf(userId);
+    }
+}
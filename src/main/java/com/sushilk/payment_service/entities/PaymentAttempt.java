@@ -2,22 +2,27 @@ package com.sushilk.payment_service.entities;
 
 import com.sushilk.payment_service.enums.PaymentAttemptStatus;
 import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import com.sushilk.payment_service.sharding.ShardKeyed;
+import com.sushilk.payment_service.sharding.ShardKeys;
+import com.sushilk.payment_service.sharding.ShardWriteGuard;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ShardWriteGuard.class)
 @Table(name = "payment_attempts")
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class PaymentAttempt extends BaseEntity {
+public class PaymentAttempt extends BaseEntity implements ShardKeyed {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID attemptId;
 
     @Column(nullable = false)
@@ -41,4 +46,9 @@ public class PaymentAttempt extends BaseEntity {
     @Lob
     @Column(columnDefinition = "CLOB")
     private String responsePayload;
+
+    @Override
+    public int shardBucket() {
+        return ShardKeys.bucketOf(paymentId);
+    }
 }
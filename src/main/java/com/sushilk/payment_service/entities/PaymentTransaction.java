@@ -2,6 +2,10 @@ package com.sushilk.payment_service.entities;
 
 import com.sushilk.payment_service.enums.TransactionStatus;
 import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import com.sushilk.payment_service.sharding.ShardKeyed;
+import com.sushilk.payment_service.sharding.ShardKeys;
+import com.sushilk.payment_service.sharding.ShardWriteGuard;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,16 +13,27 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "payment_transactions")
+@EntityListeners(ShardWriteGuard.class)
+@Table(
+        name = "payment_transactions",
+        indexes = {
+                // A payment's transactions, e.g. the status poller's batched DEBIT lookup
+                @Index(name = "idx_transaction_payment", columnList = "paymentId"),
+                // Range scans of the finance export
+                @Index(name = "idx_transaction_created", columnList = "createdAt"),
+                // Settlement reconciliation and webhooks match provider records by this id
+                @Index(name = "idx_transaction_provider_ref", columnList = "providerReference")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class PaymentTransaction extends BaseEntity {
+public class PaymentTransaction extends BaseEntity implements ShardKeyed {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID transactionId;
 
     @Column(nullable = false)
@@ -36,4 +51,16 @@ public class PaymentTransaction extends BaseEntity {
     private TransactionStatus status;
 
     private String description;
+
+    /**
+     * Provider's id for this money movement (transaction id for DEBIT, refund id for REFUND),
+     * the key settlement files are reconciled on. Null until the provider has answered.
+     */
+    @Column(length = 100)
+    private String providerReference;
+
+    @Override
+    public int shardBucket() {
+        return ShardKeys.bucketOf(paymentId);
+    }
 }
@@ -0,0 +1,57 @@
+package com.sushilk.payment_service.entities;
+
+import com.sushilk.payment_service.enums.MismatchType;
+import com.sushilk.payment_service.enums.SettlementRecordType;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * A difference between a settlement line and our ledger. File fields are null for
+ * MISSING_IN_FILE, ledger fields for MISSING_IN_LEDGER; a MALFORMED_LINE has the byte offset
+ * of the line ("@1234") as providerReference.
+ */
+@Entity
+@Table(
+        name = "reconciliation_mismatches",
+        indexes = {
+                @Index(name = "idx_mismatch_run", columnList = "runId")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationMismatch extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private UUID mismatchId;
+
+    @Column(nullable = false)
+    private UUID runId;
+
+    @Enumerated(EnumType.STRING)
+    private SettlementRecordType recordType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MismatchType mismatchType;
+
+    @Column(nullable = false, length = 100)
+    private String providerReference;
+
+    private BigDecimal fileAmount;
+
+    private BigDecimal ledgerAmount;
+
+    @Column(length = 32)
+    private String fileStatus;
+
+    @Column(length = 32)
+    private String ledgerStatus;
+}
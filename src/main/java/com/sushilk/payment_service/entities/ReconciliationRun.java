@@ -0,0 +1,53 @@
+package com.sushilk.payment_service.entities;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.ReconciliationStatus;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One reconciliation of a provider's settlement file for a day; its differences are the
+ * ReconciliationMismatch rows with this runId.
+ */
+@Entity
+@Table(
+        name = "reconciliation_runs",
+        indexes = {
+                @Index(name = "idx_reconciliation_provider_date", columnList = "provider, settlementDate")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRun extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private UUID runId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentProvider provider;
+
+    @Column(nullable = false)
+    private LocalDate settlementDate;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReconciliationStatus status;
+
+    private long linesRead;
+
+    private long matched;
+
+    private long mismatches;
+}
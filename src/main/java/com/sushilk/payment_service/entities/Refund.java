@@ -1,23 +1,44 @@
 package com.sushilk.payment_service.entities;
 
 import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.config.SecondLevelCacheConfig;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import com.sushilk.payment_service.sharding.ShardKeyed;
+import com.sushilk.payment_service.sharding.ShardKeys;
+import com.sushilk.payment_service.sharding.ShardWriteGuard;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "refunds")
+@EntityListeners(ShardWriteGuard.class)
+@Table(
+        name = "refunds",
+        indexes = {
+                // A payment's refunds
+                @Index(name = "idx_refund_payment", columnList = "paymentId"),
+                // Range scans of the finance export
+                @Index(name = "idx_refund_created", columnList = "createdAt"),
+                // Settlement reconciliation matches provider lines by this id
+                @Index(name = "idx_refund_provider_ref", columnList = "providerRefundId")
+        }
+)
+// Cached so the refunds-by-payment query cache, which holds only ids, resolves without SQL
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.REFUND_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Refund extends BaseEntity {
+public class Refund extends BaseEntity implements ShardKeyed {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID refundId;
 
     @Column(nullable = false)
@@ -33,5 +54,9 @@ public class Refund extends BaseEntity {
     private String reason;
 
     private String providerRefundId;
-}
 
+    @Override
+    public int shardBucket() {
+        return ShardKeys.bucketOf(paymentId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sushilk.payment_service.entities;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.WebhookEventStatus;
+import com.sushilk.payment_service.ids.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A provider status notification as received on POST /webhooks/{provider}. Stored before it is
+ * acknowledged and applied to the payment later, in batches, by WebhookEventProcessor.
+ */
+@Entity
+@Table(
+        name = "webhook_events",
+        uniqueConstraints = {
+                // Providers redeliver until they see a 2xx; a redelivery is a no-op
+                @UniqueConstraint(name = "uk_webhook_provider_event", columnNames = {"provider", "providerEventId"})
+        },
+        indexes = {
+                // The processor's poll: RECEIVED events due for (another) attempt, oldest first
+                @Index(name = "idx_webhook_pending", columnList = "status, nextAttemptAt")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEvent extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private UUID eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentProvider provider;
+
+    @Column(nullable = false, length = 100)
+    private String providerEventId;
+
+    /** The provider's transaction id, matched against PaymentTransaction.providerReference. */
+    @Column(nullable = false, length = 100)
+    private String providerReference;
+
+    /** Final status as reported by the provider, e.g. SUCCESS or FAILED. */
+    @Column(nullable = false, length = 30)
+    private String providerStatus;
+
+    @Lob
+    @Column(columnDefinition = "CLOB")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookEventStatus status;
+
+    /** Times the event found no matching transaction; it may arrive before the initiation committed. */
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+}
@@ -0,0 +1,9 @@
+package com.sushilk.payment_service.enums;
+
+public enum MismatchType {
+    MISSING_IN_LEDGER,
+    MISSING_IN_FILE,
+    AMOUNT_MISMATCH,
+    STATUS_MISMATCH,
+    MALFORMED_LINE
+}
@@ -0,0 +1,7 @@
+package com.sushilk.payment_service.enums;
+
+public enum OutboxAggregateType {
+    PAYMENT,
+    REFUND,
+    PAYMENT_TRANSACTION
+}
@@ -3,5 +3,10 @@ package com.sushilk.payment_service.enums;
 public enum PaymentAttemptStatus {
     INITIATED,
     SUCCESS,
-    FAILED
+    FAILED,
+    // A hedged attempt accepted after the other one won: its collection is refunded through its own provider
+    REVERSAL_PENDING,
+    REVERSED,
+    // A hedged attempt whose call failed after it may have reached its provider: settled by a status query
+    OUTCOME_UNKNOWN
 }
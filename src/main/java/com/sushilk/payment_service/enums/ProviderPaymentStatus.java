@@ -0,0 +1,11 @@
+package com.sushilk.payment_service.enums;
+
+/**
+ * A payment's or refund's status as the provider reports it on a status query.
+ */
+public enum ProviderPaymentStatus {
+    PENDING,
+    SUCCESS,
+    FAILED,
+    NOT_FOUND
+}
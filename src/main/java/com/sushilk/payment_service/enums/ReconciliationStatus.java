@@ -0,0 +1,7 @@
+package com.sushilk.payment_service.enums;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
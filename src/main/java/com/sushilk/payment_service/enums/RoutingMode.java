@@ -0,0 +1,6 @@
+package com.sushilk.payment_service.enums;
+
+public enum RoutingMode {
+    FIXED,
+    AUTO_UPI
+}
@@ -0,0 +1,8 @@
+package com.sushilk.payment_service.enums;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    APPLIED,
+    IGNORED,
+    UNMATCHED
+}
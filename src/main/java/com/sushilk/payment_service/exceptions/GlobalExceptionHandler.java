@@ -2,13 +2,16 @@ package com.sushilk.payment_service.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.net.URI;
 import java.time.Instant;
@@ -52,6 +55,75 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail);
     }
 
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleProviderUnavailable(
+            ProviderUnavailableException ex, HttpServletRequest request) {
+        
+        log.warn("Provider unavailable: {}", ex.getMessage());
+        
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problemDetail.setTitle("Provider Unavailable");
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("path", request.getRequestURI());
+        problemDetail.setProperty("errorCode", "PROVIDER_UNAVAILABLE");
+        problemDetail.setProperty("provider", ex.getProvider());
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(problemDetail);
+    }
+
+    @ExceptionHandler(ShardMovingException.class)
+    public ResponseEntity<ProblemDetail> handleShardMoving(
+            ShardMovingException ex, HttpServletRequest request) {
+        
+        log.warn("Shard moving: {}", ex.getMessage());
+        
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.SERVICE_UNAVAILABLE, "The payment is being moved to another shard, please retry shortly");
+        problemDetail.setTitle("Shard Moving");
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("path", request.getRequestURI());
+        problemDetail.setProperty("errorCode", "SHARD_MOVING");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(problemDetail);
+    }
+
+    @ExceptionHandler(WebhookSignatureException.class)
+    public ResponseEntity<ProblemDetail> handleWebhookSignature(
+            WebhookSignatureException ex, HttpServletRequest request) {
+        
+        log.warn("Rejected webhook: {}", ex.getMessage());
+        
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.UNAUTHORIZED, "The webhook signature is missing or invalid");
+        problemDetail.setTitle("Invalid Webhook Signature");
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("path", request.getRequestURI());
+        problemDetail.setProperty("errorCode", "INVALID_WEBHOOK_SIGNATURE");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(problemDetail);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleConcurrentUpdate(
+            OptimisticLockingFailureException ex, HttpServletRequest request) {
+        
+        log.warn("Concurrent update conflict: {}", ex.getMessage());
+        
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.CONFLICT, "The payment was modified concurrently, please retry the request");
+        problemDetail.setTitle("Concurrent Update");
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("path", request.getRequestURI());
+        problemDetail.setProperty("errorCode", "CONCURRENT_UPDATE");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail);
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<ProblemDetail> handleIllegalState(
             IllegalStateException ex, HttpServletRequest request) {
@@ -124,6 +196,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problemDetail);
     }
 
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<ProblemDetail> handleInvalidParameter(
+            Exception ex, HttpServletRequest request) {
+        
+        log.warn("Invalid request parameter: {}", ex.getMessage());
+        
+        String detail = ex instanceof MethodArgumentTypeMismatchException mismatch
+                ? String.format("Invalid value '%s' for parameter '%s'", mismatch.getValue(), mismatch.getName())
+                : ex.getMessage();
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, detail);
+        problemDetail.setTitle("Invalid Parameter");
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("path", request.getRequestURI());
+        problemDetail.setProperty("errorCode", "INVALID_PARAMETER");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problemDetail);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ProblemDetail> handleGeneric(
             Exception ex, HttpServletRequest request) {
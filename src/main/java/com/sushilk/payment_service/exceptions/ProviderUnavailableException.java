@@ -0,0 +1,40 @@
+package com.sushilk.payment_service.exceptions;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import lombok.Getter;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * The provider call was not made or not completed because the provider is isolated:
+ * circuit breaker open, concurrency limit reached or call timed out.
+ *
+ * dispatched tells the two apart: false means the request never left this service, true means
+ * the provider may have received it and its outcome is unknown.
+ */
+@Getter
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final PaymentProvider provider;
+    private final boolean dispatched;
+
+    public ProviderUnavailableException(PaymentProvider provider, String reason) {
+        this(provider, reason, false);
+    }
+
+    public ProviderUnavailableException(PaymentProvider provider, String reason, boolean dispatched) {
+        super("Provider " + provider + " unavailable: " + reason);
+        this.provider = provider;
+        this.dispatched = dispatched;
+    }
+
+    /**
+     * Whether error, possibly wrapped by a CompletableFuture, proves the provider never received
+     * the request (circuit open, limit reached). After a timeout or any other error the provider
+     * may still have accepted it, so the outcome is unknown.
+     */
+    public static boolean rejectedBeforeDispatch(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        return cause instanceof ProviderUnavailableException unavailable && !unavailable.isDispatched();
+    }
+}
@@ -0,0 +1,12 @@
+package com.sushilk.payment_service.exceptions;
+
+/**
+ * A write hit a payment whose shard bucket is being moved by a shard split, or was sent to a
+ * shard that no longer owns it. The move takes seconds, so the request can be retried.
+ */
+public class ShardMovingException extends RuntimeException {
+
+    public ShardMovingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.sushilk.payment_service.exceptions;
+
+/**
+ * A webhook delivery without a valid signature for its provider. Nothing is stored; a genuine
+ * provider redelivers once its signing secret matches ours.
+ */
+public class WebhookSignatureException extends RuntimeException {
+
+    public WebhookSignatureException(String message) {
+        super(message);
+    }
+}
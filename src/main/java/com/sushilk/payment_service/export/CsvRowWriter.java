@@ -0,0 +1,76 @@
+package com.sushilk.payment_service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV with a header row. Values containing a comma, quote or line break are quoted;
+ * nulls are empty fields.
+ */
+final class CsvRowWriter implements RowWriter {
+
+    private final Writer out;
+    private final int columnCount;
+
+    CsvRowWriter(OutputStream out, List<String> columns) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.columnCount = columns.size();
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                this.out.write(',');
+            }
+            this.out.write(columns.get(i));
+        }
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(ResultSet row) throws SQLException, IOException {
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = row.getObject(i + 1);
+            if (value instanceof Timestamp timestamp) {
+                out.write(timestamp.toLocalDateTime().toString());
+            } else if (value != null) {
+                writeField(value.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush(); // the caller owns the stream
+    }
+}
@@ -0,0 +1,80 @@
+package com.sushilk.payment_service.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Command-line export: with payment.export.run=true the application exports the configured
+ * tables into partitioned files under payment.export.dir and exits (status 1 on failure), e.g.
+ * java -jar payment-service.jar --payment.export.run=true --payment.export.from=2024-01-01T00:00:00
+ */
+@Component
+@Slf4j
+public class ExportRunner implements ApplicationRunner {
+
+    private final PaymentExporter exporter;
+    private final ConfigurableApplicationContext context;
+    private final boolean enabled;
+    private final List<String> tables;
+    private final String from;
+    private final String to;
+    private final Path directory;
+    private final ExportFormat format;
+    private final int partitions;
+    private final boolean gzip;
+
+    public ExportRunner(
+            PaymentExporter exporter,
+            ConfigurableApplicationContext context,
+            @Value("${payment.export.run:false}") boolean enabled,
+            @Value("${payment.export.tables:payments,payment_transactions,refunds}") List<String> tables,
+            @Value("${payment.export.from:1970-01-01T00:00:00}") String from,
+            @Value("${payment.export.to:}") String to,
+            @Value("${payment.export.dir:exports}") Path directory,
+            @Value("${payment.export.format:ndjson}") String format,
+            @Value("${payment.export.partitions:0}") int partitions,
+            @Value("${payment.export.gzip:true}") boolean gzip) {
+        this.exporter = exporter;
+        this.context = context;
+        this.enabled = enabled;
+        this.tables = tables;
+        this.from = from;
+        this.to = to;
+        this.directory = directory;
+        this.format = ExportFormat.fromName(format);
+        // 0 = one partition per core
+        this.partitions = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            LocalDateTime rangeFrom = LocalDateTime.parse(from);
+            LocalDateTime rangeTo = to.isBlank() ? LocalDateTime.now() : LocalDateTime.parse(to);
+            for (String table : tables) {
+                List<Path> files = exporter.exportPartitioned(ExportTable.fromName(table.trim()), format,
+                        rangeFrom, rangeTo, directory, partitions, gzip);
+                log.info("Wrote {} files for {}", files.size(), table.trim());
+            }
+        } catch (Exception e) {
+            log.error("Export failed", e);
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
@@ -0,0 +1,54 @@
+package com.sushilk.payment_service.export;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tables finance can export and the columns written for each. Listed explicitly so a new
+ * sensitive column (e.g. payments.beneficiary_account) is never exported by accident.
+ */
+public enum ExportTable {
+    PAYMENTS("payments", List.of(
+            "payment_id", "user_id", "order_id", "order_type", "amount", "refunded_amount", "currency",
+            "status", "provider", "payment_method", "idempotency_key", "beneficiary_id", "beneficiary_name",
+            "beneficiary_type", "created_at", "updated_at")),
+    PAYMENT_TRANSACTIONS("payment_transactions", List.of(
+            "transaction_id", "payment_id", "transaction_type", "amount", "status", "description",
+            "provider_reference", "created_at", "updated_at")),
+    REFUNDS("refunds", List.of(
+            "refund_id", "payment_id", "amount", "status", "reason", "provider_refund_id",
+            "created_at", "updated_at"));
+
+    private final String tableName;
+    private final List<String> columns;
+
+    ExportTable(String tableName, List<String> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * Rows with created_at in [from, to). No ORDER BY: sorting would make the database
+     * materialize the whole range before the first row is returned.
+     */
+    String selectSql() {
+        return "select " + String.join(", ", columns) + " from " + tableName
+                + " where created_at >= ? and created_at < ?";
+    }
+
+    public static ExportTable fromName(String name) {
+        return Arrays.stream(values())
+                .filter(table -> table.tableName.equalsIgnoreCase(name) || table.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown export table: " + name + ". Valid values: payments, payment_transactions, refunds"));
+    }
+}
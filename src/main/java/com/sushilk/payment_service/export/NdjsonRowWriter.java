@@ -0,0 +1,56 @@
+package com.sushilk.payment_service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * One JSON object per line; amounts as JSON numbers, timestamps as ISO local date-times,
+ * everything else as strings.
+ */
+final class NdjsonRowWriter implements RowWriter {
+
+    private final JsonGenerator generator;
+    private final SerializableString[] names;
+
+    NdjsonRowWriter(JsonFactory factory, OutputStream out, List<String> columns) throws IOException {
+        this.generator = factory.createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null); // lines are ended explicitly
+        this.names = columns.stream().map(SerializedString::new).toArray(SerializableString[]::new);
+    }
+
+    @Override
+    public void write(ResultSet row) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < names.length; i++) {
+            generator.writeFieldName(names[i]);
+            Object value = row.getObject(i + 1);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof BigDecimal number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Timestamp timestamp) {
+                generator.writeString(timestamp.toLocalDateTime().toString());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close(); // flushes only, the caller owns the stream
+    }
+}
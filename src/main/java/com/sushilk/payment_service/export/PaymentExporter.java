@@ -0,0 +1,164 @@
+package com.sushilk.payment_service.export;
+
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a created_at range of a table to NDJSON or CSV with constant memory: a forward-only,
+ * read-only cursor with a fixed fetch size, one row written per callback and nothing collected.
+ * The read-only transaction is what lets drivers such as PostgreSQL honour the fetch size
+ * instead of buffering the whole result; H2 spills large results to disk on its side. With
+ * sharding the shards are scanned one after the other, so rows are grouped by shard.
+ */
+@Component
+@Slf4j
+public class PaymentExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardDirectory shards;
+
+    public PaymentExporter(DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           ShardDirectory shards,
+                           @Value("${payment.export.fetch-size:1000}") int fetchSize) {
+        // Own instance so the fetch size does not leak into other JdbcTemplate users
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shards = shards;
+    }
+
+    /**
+     * Writes rows with created_at in [from, to) to out and returns how many were written.
+     * out is flushed but not closed.
+     */
+    public long export(ExportTable table, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                       OutputStream out) {
+        requireRange(from, to);
+        return stream(table, format, from, to, out);
+    }
+
+    /**
+     * Exports to a file, gzip-compressed when the name ends in .gz.
+     */
+    public long export(ExportTable table, ExportFormat format, LocalDateTime from, LocalDateTime to, Path file) {
+        requireRange(from, to);
+        return streamToFile(table, format, from, to, file);
+    }
+
+    private long stream(ExportTable table, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                        OutputStream out) {
+        try (RowWriter writer = format.open(out, table.columns())) {
+            long[] count = new long[1];
+            // One range scan per shard, each in its own read-only transaction, into the same output
+            shards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(table.selectSql(), row -> {
+                        try {
+                            writer.write(row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e); // client went away or disk full - abort the query
+                        }
+                        count[0]++;
+                    }, Timestamp.valueOf(from), Timestamp.valueOf(to))));
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long streamToFile(ExportTable table, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                              Path file) {
+        try (OutputStream out = open(file)) {
+            return stream(table, format, from, to, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits [from, to) into partitions equal time slices and exports them in parallel, one
+     * file per slice (table-part-000.ndjson.gz, ...) in directory. Each slice is its own
+     * range scan and connection, so this uses up to partitions pool connections at once.
+     */
+    public List<Path> exportPartitioned(ExportTable table, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                                        Path directory, int partitions, boolean gzip) {
+        requireRange(from, to);
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Duration slice = Duration.between(from, to).dividedBy(partitions);
+        List<Path> files = new ArrayList<>(partitions);
+        List<Future<Long>> results = new ArrayList<>(partitions);
+        ExecutorService workers = Executors.newFixedThreadPool(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                LocalDateTime sliceFrom = from.plus(slice.multipliedBy(i));
+                LocalDateTime sliceTo = i == partitions - 1 ? to : sliceFrom.plus(slice);
+                Path file = directory.resolve(String.format("%s-part-%03d.%s%s",
+                        table.tableName(), i, format.extension(), gzip ? ".gz" : ""));
+                files.add(file);
+                results.add(workers.submit(() -> streamToFile(table, format, sliceFrom, sliceTo, file)));
+            }
+
+            long total = 0;
+            for (Future<Long> result : results) {
+                total += result.get();
+            }
+            log.info("Exported {} rows of {} in {} partitions to {}", total, table.tableName(), partitions, directory);
+            return files;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export of " + table.tableName() + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Export of " + table.tableName() + " failed", e.getCause());
+        } finally {
+            workers.shutdownNow(); // stops the remaining partitions if one failed
+        }
+    }
+
+    private static void requireRange(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Export range is empty: from must be before to");
+        }
+    }
+
+    private static OutputStream open(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return file.getFileName().toString().endsWith(".gz")
+                ? new GZIPOutputStream(out, BUFFER_SIZE)
+                : new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+}
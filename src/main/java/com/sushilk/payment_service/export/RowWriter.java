@@ -0,0 +1,19 @@
+package com.sushilk.payment_service.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes one result-set row at a time; nothing is retained between rows.
+ */
+interface RowWriter extends AutoCloseable {
+
+    void write(ResultSet row) throws SQLException, IOException;
+
+    /**
+     * Flushes buffered output without closing the underlying stream.
+     */
+    @Override
+    void close() throws IOException;
+}
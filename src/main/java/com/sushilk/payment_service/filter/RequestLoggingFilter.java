@@ -1,30 +1,45 @@
 package com.sushilk.payment_service.filter;
 
+import com.sushilk.payment_service.accesslog.AccessLog;
+import com.sushilk.payment_service.sqlstats.RequestSqlMetrics;
+import com.sushilk.payment_service.sqlstats.RequestSqlStats;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Hands method, URI, status and duration of every request to the non-blocking {@link AccessLog},
+ * together with the request's SQL statement count and database time, so a slow line in the
+ * access log shows whether the time went to the database. The same counts feed {@link RequestSqlMetrics}.
+ */
 @Component
+@RequiredArgsConstructor
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
+    private final AccessLog accessLog;
+    private final RequestSqlMetrics sqlMetrics;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        long start = System.currentTimeMillis();
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        RequestSqlStats sql = RequestSqlStats.start();
         try {
             filterChain.doFilter(request, response);
         } finally {
-            long duration = System.currentTimeMillis() - start;
-            System.out.println("Request: " + request.getMethod() + " " + request.getRequestURI() +
-                    " | Status: " + response.getStatus() +
-                    " | Duration: " + duration + "ms");
+            long duration = System.nanoTime() - start;
+            RequestSqlStats.stop();
+            sqlMetrics.record(request, sql);
+            accessLog.record(startMillis, request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), duration, sql.statements(), sql.executeNanos());
         }
     }
 }
-
@@ -0,0 +1,22 @@
+package com.sushilk.payment_service.ids;
+
+import com.sushilk.payment_service.sharding.ShardKeyed;
+import com.sushilk.payment_service.sharding.ShardKeys;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate generator behind {@link TimeOrderedUuid}. Ids of sharded entities carry their
+ * shard bucket, so a lookup by id alone finds the shard; rows of a payment minted before sharding
+ * get plain ids, as they stay on the home shard with it.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entity) {
+        if (entity instanceof ShardKeyed keyed && keyed.shardBucket() != ShardKeys.LEGACY) {
+            return UuidV7.generate(keyed.shardBucket());
+        }
+        return UuidV7.generate();
+    }
+}
@@ -0,0 +1,83 @@
+package com.sushilk.payment_service.ids;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs in the RFC 9562 version 7 layout:
+ * 48-bit unix epoch millis | version 7 | 12-bit sequence | variant | 62 random bits.
+ * {@link #generate(int)} spends the top 8 random bits on a shard bucket, leaving 54, and sets
+ * version 8 (the RFC's custom layout) instead, so an id minted before sharding, whose bits there
+ * are random, is never read as a bucket.
+ *
+ * The millis and sequence share one AtomicLong, so ids are strictly increasing per JVM
+ * without locking. More than 4096 ids in one millisecond borrow from the next millisecond
+ * instead of blocking; the clock going backwards keeps the last issued timestamp.
+ */
+public final class UuidV7 {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long BUCKETED_VERSION = 0x8000L;
+    private static final int BUCKETED = 8;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final int BUCKET_SHIFT = 54;
+    private static final int BUCKETS = 256;
+
+    private static final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long candidate = System.currentTimeMillis() << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = lastTimestampAndSequence.get();
+            next = Math.max(candidate, prev + 1);
+        } while (!lastTimestampAndSequence.compareAndSet(prev, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        long msb = (millis << 16) | VERSION | sequence;
+        long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * An id in the version 7 layout carrying bucket (0-255), marked as version 8 and read back with
+     * {@link #bucketOf(UUID)}.
+     */
+    public static UUID generate(int bucket) {
+        UUID uuid = generate();
+        long msb = uuid.getMostSignificantBits() & ~VERSION_MASK | BUCKETED_VERSION;
+        long lsb = uuid.getLeastSignificantBits() & ~((long) (BUCKETS - 1) << BUCKET_SHIFT);
+        return new UUID(msb, lsb | (long) Objects.checkIndex(bucket, BUCKETS) << BUCKET_SHIFT);
+    }
+
+    /**
+     * Whether uuid came from {@link #generate(int)}.
+     */
+    public static boolean hasBucket(UUID uuid) {
+        return uuid.version() == BUCKETED;
+    }
+
+    /**
+     * Bucket of an id from {@link #generate(int)}; for any other id these are random bits.
+     */
+    public static int bucketOf(UUID uuid) {
+        return (int) (uuid.getLeastSignificantBits() >>> BUCKET_SHIFT) & (BUCKETS - 1);
+    }
+
+    /**
+     * Unix epoch millis encoded in an id of this class, with or without a bucket.
+     */
+    public static long timestampOf(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
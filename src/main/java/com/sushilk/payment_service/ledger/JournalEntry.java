@@ -0,0 +1,7 @@
+package com.sushilk.payment_service.ledger;
+
+/**
+ * A change as stored in the journal: its byte position in the log and its sequence number.
+ */
+public record JournalEntry(long position, long sequence, LedgerChange change) {
+}
@@ -0,0 +1,20 @@
+package com.sushilk.payment_service.ledger;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One state change of a DEBIT or REFUND transaction as recorded in the journal.
+ * eventId is the outbox event it came from; providerReference may be null.
+ */
+public record LedgerChange(
+        UUID eventId,
+        Instant recordedAt,
+        UUID transactionId,
+        UUID paymentId,
+        String transactionType,
+        String status,
+        BigDecimal amount,
+        String providerReference) {
+}
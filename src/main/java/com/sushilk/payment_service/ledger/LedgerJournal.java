@@ -0,0 +1,315 @@
+package com.sushilk.payment_service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of ledger changes in memory-mapped, preallocated segment files.
+ * <p>
+ * Positions are byte offsets in one logical log; a segment file is named after the position of
+ * its first byte (ledger-00000000000000000000.journal, ...). An entry is
+ * {@code [int length][int crc32c][body]} and never spans segments: when it does not fit, the
+ * zero-filled rest of the segment marks its end and a new segment is started.
+ * <p>
+ * Each {@link #append} writes the whole group sequentially and forces the written range to disk
+ * once (group commit). Every entry stores the position of the previous entry of the same payment,
+ * so the in-memory index only keeps each payment's latest position and a payment's history is a
+ * walk back along that chain. Opening the journal replays it: entries are CRC-checked, the index
+ * is rebuilt and a torn tail left by a crash is zeroed so writing continues after the last good entry.
+ */
+@Slf4j
+public class LedgerJournal implements Closeable {
+
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int RECENT_EVENTS = 65_536;
+    private static final long NO_POSITION = -1;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<UUID, Long> latestByPayment = new HashMap<>();
+    private final Set<UUID> recentEvents = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+            return size() > RECENT_EVENTS;
+        }
+    });
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private long nextSequence;
+
+    public LedgerJournal(Path directory, int segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        recover();
+    }
+
+    /**
+     * Appends the changes in order and makes them durable before returning. Changes whose eventId
+     * is among the recently journaled ones are skipped, so a redelivered batch is not recorded twice.
+     */
+    public synchronized List<JournalEntry> append(List<LedgerChange> changes) throws IOException {
+        List<JournalEntry> appended = new ArrayList<>(changes.size());
+        Segment dirty = null;
+        int dirtyFrom = 0;
+        for (LedgerChange change : changes) {
+            if (!recentEvents.add(change.eventId())) {
+                continue;
+            }
+            long previous = latestByPayment.getOrDefault(change.paymentId(), NO_POSITION);
+            ByteBuffer body = encode(nextSequence, previous, change);
+            int entryBytes = HEADER_BYTES + body.remaining();
+            if (entryBytes > segmentBytes) {
+                throw new IllegalArgumentException("Ledger entry of " + entryBytes + " bytes exceeds the segment size");
+            }
+            Segment segment = active();
+            if (segment.writePosition + entryBytes > segmentBytes) {
+                if (dirty == segment) {
+                    force(dirty, dirtyFrom);
+                    dirty = null;
+                }
+                segment = openSegment(segment.base + segmentBytes, true);
+            }
+            if (dirty == null) {
+                dirty = segment;
+                dirtyFrom = segment.writePosition;
+            }
+
+            int at = segment.writePosition;
+            crc.reset();
+            crc.update(body.duplicate());
+            segment.buffer.putInt(at, body.remaining());
+            segment.buffer.putInt(at + 4, (int) crc.getValue());
+            segment.buffer.put(at + HEADER_BYTES, body, 0, body.remaining());
+            segment.writePosition = at + entryBytes;
+
+            long position = segment.base + at;
+            latestByPayment.put(change.paymentId(), position);
+            appended.add(new JournalEntry(position, nextSequence++, change));
+        }
+        if (dirty != null) {
+            force(dirty, dirtyFrom);
+        }
+        return appended;
+    }
+
+    /** A payment's changes, oldest first. */
+    public synchronized List<JournalEntry> history(UUID paymentId) {
+        List<JournalEntry> history = new ArrayList<>();
+        long position = latestByPayment.getOrDefault(paymentId, NO_POSITION);
+        while (position != NO_POSITION) {
+            Segment segment = segmentAt(position);
+            ByteBuffer body = body(segment, (int) (position - segment.base));
+            history.add(decode(position, body));
+            position = body.getLong(8);
+        }
+        Collections.reverse(history);
+        return history;
+    }
+
+    /** Every entry in journal order. */
+    public synchronized void replay(Consumer<JournalEntry> consumer) {
+        for (Segment segment : segments) {
+            int at = 0;
+            while (at < segment.writePosition) {
+                ByteBuffer body = body(segment, at);
+                consumer.accept(decode(segment.base + at, body));
+                at += HEADER_BYTES + body.remaining();
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return nextSequence;
+    }
+
+    @Override
+    public synchronized void close() {
+        // Mapped buffers are unmapped by the GC; everything appended has already been forced
+        segments.clear();
+    }
+
+    private Segment active() throws IOException {
+        return segments.isEmpty() ? openSegment(0, true) : segments.getLast();
+    }
+
+    private Segment segmentAt(long position) {
+        int index = (int) (position / segmentBytes) - (int) (segments.getFirst().base / segmentBytes);
+        return segments.get(index);
+    }
+
+    private static void force(Segment segment, int from) {
+        segment.buffer.force(from, segment.writePosition - from);
+    }
+
+    private Segment openSegment(long base, boolean create) throws IOException {
+        Path file = directory.resolve(PREFIX + String.format("%020d", base) + SUFFIX);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (!create && channel.size() != segmentBytes) {
+                throw new IOException("Ledger segment " + file + " is " + channel.size()
+                        + " bytes, expected " + segmentBytes + " (segment size changed?)");
+            }
+            Segment segment = new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.add(segment);
+            return segment;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null); // zero-padded positions sort by name
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = openSegment(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), false);
+            int at = 0;
+            while (at + HEADER_BYTES <= segmentBytes) {
+                int length = segment.buffer.getInt(at);
+                if (length <= 0 || at + HEADER_BYTES + length > segmentBytes || !crcMatches(segment, at, length)) {
+                    break;
+                }
+                ByteBuffer body = segment.buffer.slice(at + HEADER_BYTES, length);
+                JournalEntry entry = decode(segment.base + at, body);
+                latestByPayment.put(entry.change().paymentId(), entry.position());
+                recentEvents.add(entry.change().eventId());
+                nextSequence = entry.sequence() + 1;
+                at += HEADER_BYTES + length;
+            }
+            segment.writePosition = at;
+        }
+        if (!segments.isEmpty()) {
+            // Anything after the last good entry is a torn write; clear it so it cannot be misread later
+            Segment last = segments.getLast();
+            boolean torn = false;
+            for (int i = last.writePosition; i < segmentBytes; i++) {
+                if (last.buffer.get(i) != 0) {
+                    last.buffer.put(i, (byte) 0);
+                    torn = true;
+                }
+            }
+            if (torn) {
+                log.warn("Cleared a torn write at position {} of the ledger journal", last.base + last.writePosition);
+                last.buffer.force();
+            }
+        }
+        log.info("Ledger journal opened with {} entries in {} segments", nextSequence, segments.size());
+    }
+
+    private boolean crcMatches(Segment segment, int at, int length) {
+        crc.reset();
+        crc.update(segment.buffer.slice(at + HEADER_BYTES, length));
+        return (int) crc.getValue() == segment.buffer.getInt(at + 4);
+    }
+
+    private static ByteBuffer body(Segment segment, int at) {
+        return segment.buffer.slice(at + HEADER_BYTES, segment.buffer.getInt(at));
+    }
+
+    // Body: sequence, previous position of the payment, eventId, recordedAt millis, transactionId,
+    // paymentId, then transactionType, status, amount (plain string) and providerReference as
+    // length-prefixed UTF-8 (length -1 for null)
+    private ByteBuffer encode(long sequence, long previous, LedgerChange change) {
+        byte[][] strings = {
+                utf8(change.transactionType()), utf8(change.status()),
+                utf8(change.amount().toPlainString()), utf8(change.providerReference())};
+        int size = 8 * 10;
+        for (byte[] string : strings) {
+            size += 2 + (string != null ? string.length : 0);
+        }
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2));
+        }
+        ByteBuffer body = scratch.clear();
+        body.putLong(sequence).putLong(previous)
+                .putLong(change.eventId().getMostSignificantBits()).putLong(change.eventId().getLeastSignificantBits())
+                .putLong(change.recordedAt().toEpochMilli())
+                .putLong(change.transactionId().getMostSignificantBits()).putLong(change.transactionId().getLeastSignificantBits())
+                .putLong(change.paymentId().getMostSignificantBits()).putLong(change.paymentId().getLeastSignificantBits());
+        body.putLong(0); // reserved
+        for (byte[] string : strings) {
+            if (string == null) {
+                body.putShort((short) -1);
+            } else {
+                body.putShort((short) string.length).put(string);
+            }
+        }
+        return body.flip();
+    }
+
+    private static JournalEntry decode(long position, ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        long sequence = in.getLong();
+        in.getLong(); // previous position
+        UUID eventId = new UUID(in.getLong(), in.getLong());
+        Instant recordedAt = Instant.ofEpochMilli(in.getLong());
+        UUID transactionId = new UUID(in.getLong(), in.getLong());
+        UUID paymentId = new UUID(in.getLong(), in.getLong());
+        in.getLong(); // reserved
+        String transactionType = string(in);
+        String status = string(in);
+        BigDecimal amount = new BigDecimal(string(in));
+        String providerReference = string(in);
+        return new JournalEntry(position, sequence, new LedgerChange(
+                eventId, recordedAt, transactionId, paymentId, transactionType, status, amount, providerReference));
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Ledger field longer than " + Short.MAX_VALUE + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String string(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long base, MappedByteBuffer buffer) {
+            this.base = base;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sushilk.payment_service.ledger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+import com.sushilk.payment_service.outbox.OutboxMessage;
+import com.sushilk.payment_service.outbox.OutboxSink;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Feeds the ledger journal from the outbox relay: every committed state change of a payment
+ * transaction becomes one journal entry, a relay batch one group commit. Other events are skipped.
+ */
+public class LedgerJournalSink implements OutboxSink {
+
+    private final LedgerJournal journal;
+    private final ObjectReader reader;
+
+    public LedgerJournalSink(LedgerJournal journal, ObjectMapper objectMapper) {
+        this.journal = journal;
+        // Amounts are journaled exactly as written, not via double
+        this.reader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) throws IOException {
+        List<LedgerChange> changes = new ArrayList<>();
+        for (OutboxMessage message : batch) {
+            if (message.aggregateType() != OutboxAggregateType.PAYMENT_TRANSACTION) {
+                continue;
+            }
+            JsonNode payload = reader.readTree(message.payload());
+            JsonNode providerReference = payload.path("providerReference");
+            changes.add(new LedgerChange(
+                    message.eventId(),
+                    message.createdAt().atZone(ZoneId.systemDefault()).toInstant(),
+                    message.aggregateId(),
+                    UUID.fromString(payload.path("paymentId").asText()),
+                    payload.path("transactionType").asText(),
+                    message.status(),
+                    payload.path("amount").decimalValue(),
+                    providerReference.isTextual() ? providerReference.asText() : null));
+        }
+        if (!changes.isEmpty()) {
+            journal.append(changes);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.sushilk.payment_service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rebuilds the status and provider reference of payment_transactions from the journal, the
+ * journal being the record of every change. The last entry per transaction wins; rows are updated
+ * in JDBC batches of batch-size. Rows created after the journal was enabled are the only ones it
+ * knows, older rows are left as they are.
+ */
+@Slf4j
+public class LedgerProjection {
+
+    private static final String UPDATE_TRANSACTION = """
+            update payment_transactions
+            set status = ?, provider_reference = coalesce(?, provider_reference)
+            where transaction_id = ?
+            """;
+
+    private final LedgerJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public LedgerProjection(LedgerJournal journal, DataSource dataSource, int batchSize) {
+        this.journal = journal;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+    }
+
+    /** Returns the number of transactions written. */
+    public int rebuild() {
+        Map<UUID, LedgerChange> latest = new LinkedHashMap<>();
+        journal.replay(entry -> latest.put(entry.change().transactionId(), entry.change()));
+
+        List<LedgerChange> changes = new ArrayList<>(latest.values());
+        jdbcTemplate.batchUpdate(UPDATE_TRANSACTION, changes, batchSize, (statement, change) -> {
+            statement.setString(1, change.status());
+            statement.setString(2, change.providerReference());
+            statement.setObject(3, change.transactionId());
+        });
+        log.info("Projected {} ledger entries onto {} transactions", journal.size(), changes.size());
+        return changes.size();
+    }
+}
@@ -0,0 +1,19 @@
+package com.sushilk.payment_service.masking;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how a sensitive DTO field is masked when written to audit payloads by
+ * {@link MaskingJsonWriter}. On a record component the annotation propagates to the
+ * field and accessor Jackson serializes through.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Masked {
+    MaskingRule value();
+}
@@ -0,0 +1,162 @@
+package com.sushilk.payment_service.masking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes records as JSON in a single streaming pass, applying the {@link Masked} rule
+ * declared on each sensitive field.
+ *
+ * Property names and order come from Jackson's own introspection of each record type,
+ * resolved once and cached, so the output matches what the application ObjectMapper
+ * would produce for the same (masked) values - without building an intermediate tree.
+ */
+@Component
+public class MaskingJsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Class<?>, Property[]> layouts = new ConcurrentHashMap<>();
+
+    public MaskingJsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public String writeValueAsString(Object value) throws IOException {
+        StringWriter out = new StringWriter(512);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            writeValue(generator, value);
+        }
+        return out.toString();
+    }
+
+    public void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value.getClass().isRecord()) {
+            writeRecord(generator, value);
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    private void writeRecord(JsonGenerator generator, Object record) throws IOException {
+        Property[] properties = layouts.computeIfAbsent(record.getClass(), this::resolveLayout);
+        generator.writeStartObject();
+        for (Property property : properties) {
+            generator.writeFieldName(property.name());
+            property.write(this, generator, property.accessor().getValue(record));
+        }
+        generator.writeEndObject();
+    }
+
+    private Property[] resolveLayout(Class<?> type) {
+        BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type));
+
+        List<Property> properties = new ArrayList<>();
+        for (BeanPropertyDefinition definition : description.findProperties()) {
+            AnnotatedMember accessor = definition.getAccessor();
+            if (accessor == null || !definition.couldSerialize()) {
+                continue;
+            }
+            Masked masked = accessor.getAnnotation(Masked.class);
+            if (masked == null && definition.getField() != null) {
+                masked = definition.getField().getAnnotation(Masked.class);
+            }
+            properties.add(new Property(
+                    new SerializedString(definition.getName()),
+                    accessor,
+                    masked != null ? masked.value() : null,
+                    Kind.of(definition.getRawPrimaryType(), masked),
+                    enumNames(definition.getRawPrimaryType())));
+        }
+        return properties.toArray(Property[]::new);
+    }
+
+    /**
+     * Serialized form of each constant, indexed by ordinal, as the ObjectMapper writes it.
+     */
+    private SerializableString[] enumNames(Class<?> type) {
+        if (!type.isEnum()) {
+            return null;
+        }
+        Object[] constants = type.getEnumConstants();
+        SerializableString[] names = new SerializableString[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            names[i] = new SerializedString(objectMapper.convertValue(constants[i], String.class));
+        }
+        return names;
+    }
+
+    private enum Kind {
+        MASKED, STRING, DECIMAL, ENUM, OTHER;
+
+        static Kind of(Class<?> type, Masked masked) {
+            if (masked != null) {
+                return MASKED;
+            }
+            if (type == String.class) {
+                return STRING;
+            }
+            if (type == BigDecimal.class) {
+                return DECIMAL;
+            }
+            if (type.isEnum()) {
+                return ENUM;
+            }
+            return OTHER;
+        }
+    }
+
+    private record Property(SerializableString name, AnnotatedMember accessor, MaskingRule rule,
+                            Kind kind, SerializableString[] enumNames) {
+
+        void write(MaskingJsonWriter writer, JsonGenerator generator, Object value) throws IOException {
+            switch (kind) {
+                case MASKED -> {
+                    if (value == null && !rule.masksNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString(rule.apply((String) value));
+                    }
+                }
+                case STRING -> {
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString((String) value);
+                    }
+                }
+                case DECIMAL -> {
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber((BigDecimal) value);
+                    }
+                }
+                case ENUM -> {
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString(enumNames[((Enum<?>) value).ordinal()]);
+                    }
+                }
+                default -> writer.writeValue(generator, value);
+            }
+        }
+    }
+}
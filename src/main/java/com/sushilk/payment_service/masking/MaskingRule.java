@@ -0,0 +1,170 @@
+package com.sushilk.payment_service.masking;
+
+/**
+ * Masking rules for sensitive payment fields (PCI compliance).
+ * Each rule is shared by the DTO getMasked* helpers used in logs and by the audit payload writer,
+ * so logs and stored payloads always mask the same way.
+ */
+public enum MaskingRule {
+
+    /**
+     * Card number - only last 4 digits visible, e.g. ****-****-****-1111
+     */
+    CARD_NUMBER(true) {
+        @Override
+        public String apply(String value) {
+            if (value == null || value.length() < 4) {
+                return "****";
+            }
+            // Fill the last 4 non-separator characters into the mask from the right, skipping
+            // spaces/hyphens in place instead of stripping them with a regex first
+            char[] masked = CARD_MASK.toCharArray();
+            int filled = 0;
+            for (int i = value.length() - 1; i >= 0 && filled < 4; i--) {
+                char c = value.charAt(i);
+                if (c != '-' && !isAsciiWhitespace(c)) {
+                    masked[masked.length - 1 - filled++] = c;
+                }
+            }
+            return filled == 4 ? new String(masked) : "****";
+        }
+    },
+
+    /**
+     * CVV - never stored in any form
+     */
+    CVV(true) {
+        @Override
+        public String apply(String value) {
+            return "***";
+        }
+    },
+
+    /**
+     * Card expiry date - never stored in any form
+     */
+    EXPIRY_DATE(true) {
+        @Override
+        public String apply(String value) {
+            return "**/**";
+        }
+    },
+
+    /**
+     * UPI ID - username visible, domain masked except first and last 2 characters.
+     * Example: user@paytm -> user@pa***tm
+     */
+    UPI_ID(true) {
+        @Override
+        public String apply(String value) {
+            if (value == null || value.length() < 3) {
+                return "***@***";
+            }
+
+            int atIndex = value.indexOf('@');
+            if (atIndex <= 0 || atIndex >= value.length() - 1) {
+                return "***@***";
+            }
+
+            String username = value.substring(0, atIndex);
+            String domain = value.substring(atIndex + 1);
+
+            // Mask domain but show first and last 2 characters if domain is long enough
+            if (domain.length() <= 4) {
+                return username + "@****";
+            }
+            return username + "@" + domain.substring(0, 2) + "***" + domain.substring(domain.length() - 2);
+        }
+    },
+
+    /**
+     * Phone number - only last 4 digits visible
+     */
+    PHONE_NUMBER(false) {
+        @Override
+        public String apply(String value) {
+            if (value == null || value.length() < 4) {
+                return "******";
+            }
+            return "******" + value.substring(value.length() - 4);
+        }
+    },
+
+    /**
+     * Net banking customer ID - only last 4 characters visible
+     */
+    CUSTOMER_ID(false) {
+        @Override
+        public String apply(String value) {
+            if (value == null || value.length() < 4) {
+                return "****";
+            }
+            return "****" + value.substring(value.length() - 4);
+        }
+    },
+
+    /**
+     * Beneficiary account - UPI IDs keep the first 2 characters and the domain,
+     * account numbers keep the last 4 digits
+     */
+    BENEFICIARY_ACCOUNT(false) {
+        @Override
+        public String apply(String value) {
+            if (value == null || value.length() < 4) {
+                return "****";
+            }
+
+            // If it's a UPI ID, mask it
+            if (value.contains("@")) {
+                int atIndex = value.indexOf('@');
+                String username = value.substring(0, Math.min(atIndex, 2));
+                String domain = value.substring(atIndex + 1);
+                return username + "***@" + domain;
+            }
+
+            // For account numbers, show last 4 digits
+            return "****" + value.substring(value.length() - 4);
+        }
+    },
+
+    /**
+     * Bank account number - last 4 digits visible
+     */
+    ACCOUNT_NUMBER(false) {
+        @Override
+        public String apply(String value) {
+            if (value == null) {
+                return null;
+            }
+            return "****" + value.substring(Math.max(0, value.length() - 4));
+        }
+    };
+
+    private static final String CARD_MASK = "****-****-****-????";
+
+    private final boolean masksNull;
+
+    MaskingRule(boolean masksNull) {
+        this.masksNull = masksNull;
+    }
+
+    /**
+     * Returns the masked form of the value.
+     */
+    public abstract String apply(String value);
+
+    /**
+     * Whether a null value is still replaced by its mask in audit payloads.
+     * Card number, CVV, expiry and UPI ID always are; optional fields stay null.
+     */
+    public boolean masksNull() {
+        return masksNull;
+    }
+
+    /**
+     * Same character set as regex \s
+     */
+    private static boolean isAsciiWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,103 @@
+package com.sushilk.payment_service.metrics;
+
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Step timers for the payment flows, tagged by step, provider, payment method and outcome.
+ *
+ * Every timer publishes a percentile histogram, so p99 per step and per provider can be
+ * aggregated across instances from /actuator/prometheus; /actuator/metrics shows the
+ * same timers (e.g. /actuator/metrics/payment.initiate.step?tag=step:provider_call).
+ */
+@Component
+public class PaymentMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String DECLINED = "declined";
+    public static final String ERROR = "error";
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public PaymentMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T time(PaymentStep step, PaymentProvider provider, PaymentMethod method, Supplier<T> action) {
+        return time(step, provider, method, action, result -> SUCCESS);
+    }
+
+    /**
+     * Times the action; the outcome tag is derived from its result, or "error" if it throws.
+     */
+    public <T> T time(PaymentStep step, PaymentProvider provider, PaymentMethod method,
+                      Supplier<T> action, Function<? super T, String> outcome) {
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            record(step, provider, method, outcome.apply(result), System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            record(step, provider, method, ERROR, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Times the commit of the current transaction. JPA defers the INSERT/UPDATE statements to the
+     * flush at commit, so this is where the database write latency of a persist phase shows up.
+     */
+    public void timeCommit(PaymentStep step, PaymentProvider provider, PaymentMethod method) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (start != 0) {
+                    record(step, provider, method, status == STATUS_COMMITTED ? SUCCESS : ERROR,
+                            System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    public void record(PaymentStep step, PaymentProvider provider, PaymentMethod method, String outcome, long nanos) {
+        timers.computeIfAbsent(new TimerKey(step, provider, method, outcome), this::register)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.step().metricName())
+                .description("Latency of one step of the payment flow")
+                .tag("step", key.step().tagValue())
+                .tag("provider", key.provider() != null ? key.provider().name() : "unknown")
+                .tag("method", key.method() != null ? key.method().name() : "unknown")
+                .tag("outcome", key.outcome())
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record TimerKey(PaymentStep step, PaymentProvider provider, PaymentMethod method, String outcome) {}
+}
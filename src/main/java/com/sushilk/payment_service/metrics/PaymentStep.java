@@ -0,0 +1,58 @@
+package com.sushilk.payment_service.metrics;
+
+/**
+ * Timed steps of initiatePayment and refundPayment, matching the numbered steps in PaymentServiceImpl,
+ * and of the payment and refund status queries made by the poller and the recovery sweep.
+ * Each operation is one timer name; the step is a tag so a dashboard can stack them.
+ */
+public enum PaymentStep {
+
+    // initiatePayment
+    IDEMPOTENCY_LOOKUP(Operation.INITIATE, "idempotency_lookup"),
+    PAYMENT_INSERT(Operation.INITIATE, "payment_insert"),
+    ATTEMPT_INSERT(Operation.INITIATE, "attempt_insert"),
+    TRANSACTION_INSERT(Operation.INITIATE, "transaction_insert"),
+    PERSIST_COMMIT(Operation.INITIATE, "persist_commit"),
+    PROVIDER_CALL(Operation.INITIATE, "provider_call"),
+    FINAL_UPDATE(Operation.INITIATE, "final_update"),
+
+    // refundPayment
+    REFUND_VALIDATION(Operation.REFUND, "validation"),
+    REFUND_INSERT(Operation.REFUND, "refund_insert"),
+    REFUND_TRANSACTION_INSERT(Operation.REFUND, "transaction_insert"),
+    REFUND_PAYMENT_UPDATE(Operation.REFUND, "payment_update"),
+    REFUND_PROVIDER_CALL(Operation.REFUND, "provider_call"),
+    REFUND_FINAL_UPDATE(Operation.REFUND, "final_update"),
+
+    // PaymentStatusPoller and StrandedPaymentRecoveryService
+    STATUS_PROVIDER_CALL(Operation.STATUS_QUERY, "provider_call"),
+    REFUND_STATUS_PROVIDER_CALL(Operation.STATUS_QUERY, "refund_provider_call");
+
+    private final Operation operation;
+    private final String tagValue;
+
+    PaymentStep(Operation operation, String tagValue) {
+        this.operation = operation;
+        this.tagValue = tagValue;
+    }
+
+    public String metricName() {
+        return operation.metricName;
+    }
+
+    public String tagValue() {
+        return tagValue;
+    }
+
+    private enum Operation {
+        INITIATE("payment.initiate.step"),
+        REFUND("payment.refund.step"),
+        STATUS_QUERY("payment.status-query.step");
+
+        private final String metricName;
+
+        Operation(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+}
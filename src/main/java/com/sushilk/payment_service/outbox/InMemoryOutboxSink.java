@@ -0,0 +1,42 @@
+package com.sushilk.payment_service.outbox;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps published events in memory - the stand-in for tests and local runs without a consumer.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxMessage> messages = new ArrayList<>();
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        messages.addAll(batch);
+        notifyAll();
+    }
+
+    public synchronized List<OutboxMessage> messages() {
+        return List.copyOf(messages);
+    }
+
+    public synchronized void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Waits until at least count events have been published; returns them, or what arrived by the timeout.
+     */
+    public synchronized List<OutboxMessage> awaitMessages(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (messages.size() < count) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+        return new ArrayList<>(messages);
+    }
+}
@@ -0,0 +1,19 @@
+package com.sushilk.payment_service.outbox;
+
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An outbox event as handed to a sink; payload is the JSON snapshot of the aggregate.
+ * Delivery is at-least-once, so consumers deduplicate by eventId.
+ */
+public record OutboxMessage(
+        UUID eventId,
+        OutboxAggregateType aggregateType,
+        UUID aggregateId,
+        String status,
+        String payload,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,138 @@
+package com.sushilk.payment_service.outbox;
+
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import com.sushilk.payment_service.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the outbox on its own thread: reads up to batch-size events in id (creation) order,
+ * hands them to each sink in one call, in sink order, and deletes them with one batched statement.
+ * Request threads only insert the outbox row; nothing on the request path waits for publishing.
+ * <p>
+ * Events are deleted only after every sink accepted them, so a crash in between republishes the
+ * batch (at-least-once). While the outbox is non-empty the relay loops without pausing; when it
+ * is empty it sleeps for poll-interval. Meant to run on one node at a time. With sharding each
+ * shard's outbox is drained in turn, so events are ordered per shard only.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String SELECT_BATCH = """
+            select event_id, aggregate_type, aggregate_id, status, payload, created_at
+            from outbox_events
+            order by event_id
+            limit ?
+            """;
+    private static final String DELETE_EVENT = "delete from outbox_events where event_id = ?";
+
+    private static final RowMapper<OutboxMessage> MESSAGE = (rs, rowNum) -> new OutboxMessage(
+            rs.getObject("event_id", UUID.class),
+            OutboxAggregateType.valueOf(rs.getString("aggregate_type")),
+            rs.getObject("aggregate_id", UUID.class),
+            rs.getString("status"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<OutboxSink> sinks;
+    private final ShardDirectory shards;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final Counter published;
+
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public OutboxRelay(
+            DataSource dataSource,
+            List<OutboxSink> sinks,
+            ShardDirectory shards,
+            MeterRegistry meterRegistry,
+            @Value("${payment.outbox.relay.enabled:true}") boolean enabled,
+            @Value("${payment.outbox.relay.batch-size:1000}") int batchSize,
+            @Value("${payment.outbox.relay.poll-interval:PT0.05S}") Duration pollInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sinks = sinks;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.published = Counter.builder("payment.outbox.published")
+                .description("Outbox events handed to the sinks")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        relayThread = Thread.ofPlatform().daemon().name("outbox-relay").start(this::relayLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (relayThread != null) {
+            LockSupport.unpark(relayThread);
+            relayThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /** Publishes one batch from every shard; returns the largest number of events one shard published. */
+    int relayBatch() throws Exception {
+        int largest = 0;
+        for (String shard : shards.shards()) {
+            largest = Math.max(largest, ShardRouting.onShard(shard, this::relayShardBatch));
+        }
+        return largest;
+    }
+
+    private int relayShardBatch() throws Exception {
+        List<OutboxMessage> batch = jdbcTemplate.query(SELECT_BATCH, MESSAGE, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (OutboxSink sink : sinks) {
+            sink.publish(batch);
+        }
+        jdbcTemplate.batchUpdate(DELETE_EVENT, batch, batch.size(),
+                (statement, message) -> statement.setObject(1, message.eventId()));
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                if (relayBatch() < batchSize) {
+                    LockSupport.parkNanos(pollIntervalNanos);
+                }
+            } catch (Exception e) {
+                // Sink or database unavailable: the batch stays in the outbox and is retried
+                log.error("Outbox relay failed, retrying", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+}
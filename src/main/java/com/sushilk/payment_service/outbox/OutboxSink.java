@@ -0,0 +1,18 @@
+package com.sushilk.payment_service.outbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of published outbox events. A batch counts as published when publish returns;
+ * if it throws, the relay retries the same batch, so a sink may see a batch more than once.
+ */
+public interface OutboxSink extends Closeable {
+
+    void publish(List<OutboxMessage> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,82 @@
+package com.sushilk.payment_service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.entities.OutboxEvent;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+import com.sushilk.payment_service.repositories.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records state changes in the outbox. Must be called inside the transaction that makes the
+ * change, after the entity has been saved, so the event commits or rolls back with it; the insert
+ * joins that transaction's batched flush, and publishing happens later on the relay thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public void record(Payment payment) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("paymentId", payment.getPaymentId());
+        payload.put("orderId", payment.getOrderId());
+        payload.put("userId", payment.getUserId());
+        payload.put("status", payment.getStatus());
+        payload.put("amount", payment.getAmount());
+        payload.put("refundedAmount", payment.getRefundedAmount());
+        payload.put("currency", payment.getCurrency());
+        payload.put("provider", payment.getProvider());
+        payload.put("paymentMethod", payment.getPaymentMethod());
+        append(OutboxAggregateType.PAYMENT, payment.getPaymentId(), payment.getStatus().name(), payload);
+    }
+
+    public void record(Refund refund) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("refundId", refund.getRefundId());
+        payload.put("paymentId", refund.getPaymentId());
+        payload.put("status", refund.getStatus());
+        payload.put("amount", refund.getAmount());
+        payload.put("providerRefundId", refund.getProviderRefundId());
+        append(OutboxAggregateType.REFUND, refund.getRefundId(), refund.getStatus().name(), payload);
+    }
+
+    public void record(PaymentTransaction transaction) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("transactionId", transaction.getTransactionId());
+        payload.put("paymentId", transaction.getPaymentId());
+        payload.put("transactionType", transaction.getTransactionType());
+        payload.put("status", transaction.getStatus());
+        payload.put("amount", transaction.getAmount());
+        payload.put("providerReference", transaction.getProviderReference());
+        append(OutboxAggregateType.PAYMENT_TRANSACTION, transaction.getTransactionId(),
+                transaction.getStatus().name(), payload);
+    }
+
+    private void append(OutboxAggregateType type, UUID aggregateId, String status, Map<String, Object> payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written in the transaction of the state change");
+        }
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .aggregateType(type)
+                    .aggregateId(aggregateId)
+                    .status(status)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox event for " + type + " " + aggregateId, e);
+        }
+    }
+}
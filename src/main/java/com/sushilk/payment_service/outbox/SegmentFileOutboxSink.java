@@ -0,0 +1,154 @@
+package com.sushilk.payment_service.outbox;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends events to local segment files as JSON lines, one per event, each carrying a
+ * monotonically increasing offset. Segments are named after the offset of their first event
+ * (outbox-00000000000000000000.ndjson, ...), so consumers tail the newest one and resume from
+ * the last offset they processed. A segment is rolled once it reaches the size limit and the
+ * oldest segments beyond the retention count are deleted.
+ * <p>
+ * Each batch is encoded up front and written with one write call (optionally forced to disk);
+ * on startup a torn last line from a crash mid-write is truncated and the offset recovered.
+ */
+@Slf4j
+public class SegmentFileOutboxSink implements OutboxSink {
+
+    private static final String PREFIX = "outbox-";
+    private static final String SUFFIX = ".ndjson";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 * 1024);
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final int retainSegments;
+    private final boolean fsync;
+
+    private FileChannel segment;
+    private long nextOffset;
+
+    public SegmentFileOutboxSink(Path directory, long maxSegmentBytes, int retainSegments, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.retainSegments = Math.max(1, retainSegments);
+        this.fsync = fsync;
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            recover(segments.getLast());
+        }
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) throws IOException {
+        if (segment.size() >= maxSegmentBytes) {
+            segment.close();
+            openSegment(nextOffset);
+            deleteExpiredSegments();
+        }
+        buffer.reset();
+        long offset = nextOffset;
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null); // lines are ended explicitly
+            for (OutboxMessage message : batch) {
+                json.writeStartObject();
+                json.writeNumberField("offset", offset++);
+                json.writeStringField("eventId", message.eventId().toString());
+                json.writeStringField("aggregateType", message.aggregateType().name());
+                json.writeStringField("aggregateId", message.aggregateId().toString());
+                json.writeStringField("status", message.status());
+                json.writeStringField("createdAt", String.valueOf(message.createdAt()));
+                json.writeFieldName("payload");
+                json.writeRawValue(message.payload());
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            segment.write(bytes);
+        }
+        if (fsync) {
+            segment.force(false);
+        }
+        nextOffset = offset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    private void openSegment(long baseOffset) throws IOException {
+        Path file = directory.resolve(PREFIX + String.format("%020d", baseOffset) + SUFFIX);
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        nextOffset = baseOffset;
+    }
+
+    /** Reopens the newest segment, dropping a partial last line, and continues its offsets. */
+    private void recover(Path last) throws IOException {
+        String name = last.getFileName().toString();
+        long baseOffset = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        long lines = 0;
+        long complete = 0;
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            int read;
+            while ((read = channel.read(chunk, position)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (chunk.get(i) == '\n') {
+                        lines++;
+                        complete = position + i + 1;
+                    }
+                }
+                position += read;
+                chunk.clear();
+            }
+            if (complete < channel.size()) {
+                log.warn("Truncating partial outbox line at the end of {}", last);
+                channel.truncate(complete);
+            }
+        }
+        openSegment(baseOffset);
+        nextOffset = baseOffset + lines;
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - retainSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null); // zero-padded offsets sort by name
+        return segments;
+    }
+}
@@ -0,0 +1,384 @@
+package com.sushilk.payment_service.polling;
+
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentAttempt;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.enums.TransactionStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.repositories.PaymentAttemptRepository;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.services.PaymentProviderFactory;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import com.sushilk.payment_service.sharding.ShardRouting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves payments left INITIATED (node crashed before the provider answered) or PROCESSING
+ * (webhook never arrived) by asking the provider for their status.
+ * <p>
+ * Every pending payment is one timer in a {@link TimingWheel} driven by a single thread, so
+ * hundreds of thousands of them cost a small object each rather than a scheduled task each.
+ * Payments are found by a keyset scan of idx_payment_status_created per non-terminal status,
+ * only once they are initial-delay old (webhooks normally win before that); on startup the same
+ * scan starts from the beginning and rebuilds the wheel, spreading the backlog at discovery-rate.
+ * With sharding every shard has its own scan cursors and due payments are polled per owning shard.
+ * <p>
+ * Due payments are handled batch-size at a time:
+ * 1️⃣ reload them in one query and drop the ones that reached a final status meanwhile
+ * 2️⃣ query the providers, at most concurrency calls in flight (through the provider guards)
+ * 3️⃣ apply SUCCESS / FAILED / NOT_FOUND to the payment, its open attempt and its DEBIT, in one transaction
+ * 4️⃣ reschedule the rest with exponential backoff, giving up after max-attempts
+ */
+@Component
+@Slf4j
+public class PaymentStatusPoller {
+
+    private static final List<PaymentStatus> PENDING_STATUSES = List.of(PaymentStatus.INITIATED, PaymentStatus.PROCESSING);
+    private static final int WHEEL_LEVELS = 4;
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentAttemptRepository attemptRepository;
+    private final PaymentTransactionRepository transactionRepository;
+    private final PaymentProviderFactory providerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outbox;
+    private final ShardDirectory shards;
+    private final boolean enabled;
+    private final long tickNanos;
+    private final Duration initialDelay;
+    private final long discoveryIntervalNanos;
+    private final int discoveryRate;
+    private final int pageSize;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    // Owned by the poller thread
+    private final Map<UUID, Poll> tracked = new HashMap<>();
+    private final Map<String, Map<PaymentStatus, PendingPayment>> cursors = new HashMap<>();
+    private final long origin = System.nanoTime();
+    private TimingWheel<Poll> wheel;
+
+    private volatile int trackedCount;
+    private volatile boolean running;
+    private Thread pollerThread;
+
+    public PaymentStatusPoller(
+            PaymentRepository paymentRepository,
+            PaymentAttemptRepository attemptRepository,
+            PaymentTransactionRepository transactionRepository,
+            PaymentProviderFactory providerFactory,
+            TransactionTemplate transactionTemplate,
+            OutboxWriter outbox,
+            ShardDirectory shards,
+            MeterRegistry meterRegistry,
+            @Value("${payment.status-poll.enabled:true}") boolean enabled,
+            @Value("${payment.status-poll.tick:PT1S}") Duration tick,
+            @Value("${payment.status-poll.initial-delay:PT30S}") Duration initialDelay,
+            @Value("${payment.status-poll.discovery-interval:PT10S}") Duration discoveryInterval,
+            @Value("${payment.status-poll.discovery-rate:200}") int discoveryRate,
+            @Value("${payment.status-poll.page-size:1000}") int pageSize,
+            @Value("${payment.status-poll.batch-size:200}") int batchSize,
+            @Value("${payment.status-poll.concurrency:16}") int concurrency,
+            @Value("${payment.status-poll.min-backoff:PT30S}") Duration minBackoff,
+            @Value("${payment.status-poll.max-backoff:PT1H}") Duration maxBackoff,
+            @Value("${payment.status-poll.max-attempts:30}") int maxAttempts) {
+        this.paymentRepository = paymentRepository;
+        this.attemptRepository = attemptRepository;
+        this.transactionRepository = transactionRepository;
+        this.providerFactory = providerFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.tickNanos = tick.toNanos();
+        this.initialDelay = initialDelay;
+        this.discoveryIntervalNanos = discoveryInterval.toNanos();
+        this.discoveryRate = discoveryRate;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(concurrency);
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("payment.status-poll.pending", this, poller -> poller.trackedCount)
+                .description("Payments waiting for their next provider status query")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Scans start from the beginning, which is what rebuilds the wheel after a restart
+        PendingPayment start = new PendingPayment(new UUID(0, 0), LocalDateTime.of(1970, 1, 1, 0, 0));
+        for (String shard : shards.shards()) {
+            Map<PaymentStatus, PendingPayment> shardCursors = new EnumMap<>(PaymentStatus.class);
+            PENDING_STATUSES.forEach(status -> shardCursors.put(status, start));
+            cursors.put(shard, shardCursors);
+        }
+        wheel = new TimingWheel<>(WHEEL_LEVELS, currentTick());
+        running = true;
+        pollerThread = Thread.ofPlatform().daemon().name("payment-status-poller").start(this::pollLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (pollerThread != null) {
+            pollerThread.interrupt();
+            pollerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void pollLoop() {
+        long nextDiscovery = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - nextDiscovery >= 0) {
+                    discover();
+                    nextDiscovery = System.nanoTime() + discoveryIntervalNanos;
+                }
+                List<Poll> due = new ArrayList<>();
+                wheel.advanceTo(currentTick(), due::add);
+                // Each payment is reloaded and updated on the shard that owns it
+                Map<String, List<Poll>> dueByShard = due.stream().collect(Collectors.groupingBy(
+                        poll -> shards.ownerOfPayment(poll.paymentId), LinkedHashMap::new, Collectors.toList()));
+                for (Map.Entry<String, List<Poll>> shardDue : dueByShard.entrySet()) {
+                    List<Poll> polls = shardDue.getValue();
+                    for (int from = 0; from < polls.size(); from += batchSize) {
+                        List<Poll> batch = polls.subList(from, Math.min(polls.size(), from + batchSize));
+                        try {
+                            ShardRouting.runOnShard(shardDue.getKey(), () -> pollBatch(batch));
+                        } catch (RuntimeException e) {
+                            // e.g. the database is unreachable: try these again after a backoff
+                            log.error("Status poll of {} payments failed", batch.size(), e);
+                            batch.forEach(this::reschedule);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Pending payment discovery failed", e);
+            }
+            trackedCount = tracked.size();
+            long nextTick = origin + (currentTick() + 1) * tickNanos;
+            LockSupport.parkNanos(nextTick - System.nanoTime());
+        }
+    }
+
+    private void discover() {
+        LocalDateTime until = LocalDateTime.now().minus(initialDelay);
+        int found = 0;
+        for (String shard : shards.shards()) {
+            int foundBefore = found;
+            found = ShardRouting.onShard(shard, () -> discover(cursors.get(shard), until, foundBefore));
+        }
+        if (found > 0) {
+            log.info("Status poller is now tracking {} new pending payments ({} in total)", found, tracked.size());
+        }
+    }
+
+    /** Scans one shard from its cursors; returns found plus the payments it started tracking. */
+    private int discover(Map<PaymentStatus, PendingPayment> cursors, LocalDateTime until, int found) {
+        for (PaymentStatus status : PENDING_STATUSES) {
+            List<PendingPayment> page;
+            do {
+                PendingPayment cursor = cursors.get(status);
+                page = paymentRepository.findPendingAfter(status, cursor.createdAt(), cursor.paymentId(), until,
+                        Limit.of(pageSize));
+                for (PendingPayment pending : page) {
+                    if (!tracked.containsKey(pending.paymentId())) {
+                        // Spread what one scan finds (a whole backlog after a restart) over time
+                        long delayNanos = (long) found * TimeUnit.SECONDS.toNanos(1) / discoveryRate;
+                        Poll poll = new Poll(pending.paymentId());
+                        tracked.put(poll.paymentId, poll);
+                        wheel.schedule(poll, currentTick() + delayNanos / tickNanos);
+                        found++;
+                    }
+                }
+                if (!page.isEmpty()) {
+                    cursors.put(status, page.getLast());
+                }
+            } while (page.size() == pageSize && running);
+        }
+        return found;
+    }
+
+    private void pollBatch(List<Poll> polls) {
+        // 1️⃣ Current state, one query
+        Map<UUID, Payment> payments = paymentRepository.findAllById(polls.stream().map(poll -> poll.paymentId).toList())
+                .stream().collect(Collectors.toMap(Payment::getPaymentId, Function.identity()));
+
+        // 2️⃣ Provider status of the ones still pending
+        Map<UUID, CompletableFuture<ProviderStatusResponse>> queries = new HashMap<>();
+        for (Poll poll : polls) {
+            Payment payment = payments.get(poll.paymentId);
+            if (payment == null || !PENDING_STATUSES.contains(payment.getStatus())) {
+                tracked.remove(poll.paymentId); // resolved by a webhook, recovery or a refund
+                continue;
+            }
+            queries.put(poll.paymentId, query(payment));
+        }
+        CompletableFuture.allOf(queries.values().toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null).join();
+
+        Map<UUID, ProviderStatusResponse> answers = new HashMap<>();
+        queries.forEach((paymentId, query) -> {
+            ProviderStatusResponse answer = query.exceptionally(e -> null).join();
+            if (answer != null && isFinal(answer, payments.get(paymentId).getStatus())) {
+                answers.put(paymentId, answer);
+            }
+        });
+
+        // 3️⃣ Final answers in one transaction, flushed as batched updates
+        boolean applied = answers.isEmpty();
+        if (!applied) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyAnswers(answers));
+                applied = true;
+            } catch (OptimisticLockingFailureException e) {
+                log.info("Concurrent update while applying {} polled statuses, retrying", answers.size());
+            }
+        }
+
+        // 4️⃣ Done, or next attempt
+        for (Poll poll : polls) {
+            if (!queries.containsKey(poll.paymentId)) {
+                continue;
+            }
+            if (applied && answers.containsKey(poll.paymentId)) {
+                tracked.remove(poll.paymentId);
+            } else if (!applied && answers.containsKey(poll.paymentId)) {
+                wheel.schedule(poll, currentTick() + 1); // the conflicting update is re-read next tick
+            } else {
+                reschedule(poll);
+            }
+        }
+    }
+
+    private CompletableFuture<ProviderStatusResponse> query(Payment payment) {
+        inFlight.acquireUninterruptibly();
+        try {
+            return providerFactory.getAsyncProvider(payment.getProvider()).queryPaymentStatus(payment)
+                    .whenComplete((answer, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            log.debug("Status query failed for payment: {}", payment.getPaymentId(), error);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** NOT_FOUND only settles a payment the provider never acknowledged. */
+    private static boolean isFinal(ProviderStatusResponse answer, PaymentStatus paymentStatus) {
+        return switch (answer.status()) {
+            case SUCCESS, FAILED -> true;
+            case NOT_FOUND -> paymentStatus == PaymentStatus.INITIATED;
+            case PENDING -> false;
+        };
+    }
+
+    private void applyAnswers(Map<UUID, ProviderStatusResponse> answers) {
+        Map<UUID, PaymentTransaction> debits = transactionRepository
+                .findByPaymentIdInAndTransactionType(answers.keySet(), TransactionType.DEBIT).stream()
+                .collect(Collectors.toMap(PaymentTransaction::getPaymentId, Function.identity(), (a, b) -> a));
+        // The attempt still waiting for an answer is the latest one; attempts of a PROCESSING payment were already settled
+        Map<UUID, PaymentAttempt> openAttempts = attemptRepository
+                .findByPaymentIdInAndStatus(answers.keySet(), PaymentAttemptStatus.INITIATED).stream()
+                .collect(Collectors.toMap(PaymentAttempt::getPaymentId, Function.identity(),
+                        BinaryOperator.maxBy(Comparator.comparing(PaymentAttempt::getAttemptNo))));
+
+        for (Payment payment : paymentRepository.findAllById(answers.keySet())) {
+            if (!PENDING_STATUSES.contains(payment.getStatus())) {
+                continue;
+            }
+            ProviderStatusResponse answer = answers.get(payment.getPaymentId());
+            PaymentTransaction debit = debits.get(payment.getPaymentId());
+            boolean success = answer.status() == ProviderPaymentStatus.SUCCESS;
+            payment.setStatus(success ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+            PaymentAttempt attempt = openAttempts.get(payment.getPaymentId());
+            if (attempt != null && attempt.getProvider() == payment.getProvider()) {
+                attempt.setStatus(success ? PaymentAttemptStatus.SUCCESS : PaymentAttemptStatus.FAILED);
+            }
+            if (debit != null) {
+                debit.setStatus(success ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+                if (debit.getProviderReference() == null) {
+                    debit.setProviderReference(answer.providerTransactionId());
+                }
+                outbox.record(debit);
+            }
+            outbox.record(payment);
+            log.info("Payment {} resolved as {} by status query ({})", payment.getPaymentId(),
+                    payment.getStatus(), answer.status());
+        }
+    }
+
+    private void reschedule(Poll poll) {
+        poll.attempts++;
+        if (poll.attempts >= maxAttempts) {
+            tracked.remove(poll.paymentId);
+            log.warn("Giving up status polling of payment {} after {} attempts", poll.paymentId, poll.attempts);
+            return;
+        }
+        long backoff = minBackoff.toNanos() << Math.min(poll.attempts - 1, 20);
+        backoff = Math.min(backoff, maxBackoff.toNanos());
+        // +-10% jitter, so payments discovered together do not stay in lockstep
+        backoff += (long) (backoff * (ThreadLocalRandom.current().nextDouble() - 0.5) * 0.2);
+        wheel.schedule(poll, currentTick() + Math.max(1, backoff / tickNanos));
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+
+    private static final class Poll {
+        private final UUID paymentId;
+        private int attempts;
+
+        private Poll(UUID paymentId) {
+            this.paymentId = paymentId;
+        }
+    }
+}
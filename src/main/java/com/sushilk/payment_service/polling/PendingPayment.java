@@ -0,0 +1,10 @@
+package com.sushilk.payment_service.polling;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Key of a non-terminal payment found by the poller's keyset scan; also its scan cursor.
+ */
+public record PendingPayment(UUID paymentId, LocalDateTime createdAt) {
+}
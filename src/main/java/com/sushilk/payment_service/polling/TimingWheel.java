@@ -0,0 +1,103 @@
+package com.sushilk.payment_service.polling;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: levels of 64 slots, each slot of level n spanning 64^n ticks.
+ * Scheduling and expiry are O(1) per timer whatever the number of timers; a timer is moved
+ * down one level each time the slot it sits in comes round (at most levels - 1 moves), so
+ * hundreds of thousands of pending deadlines cost one small object each and no sorting.
+ * <p>
+ * Deadlines further out than 64^levels - 1 ticks are clamped and fire early. Not thread-safe:
+ * the wheel belongs to the thread that advances it.
+ */
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final ArrayDeque<Timer<T>>[][] levels;
+    private final long maxDelta;
+    private long cursor; // next tick to expire
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(int levelCount, long startTick) {
+        if (levelCount < 1 || levelCount * SLOT_BITS > 60) {
+            throw new IllegalArgumentException("levelCount must be between 1 and 10: " + levelCount);
+        }
+        this.levels = new ArrayDeque[levelCount][SLOTS];
+        this.maxDelta = (1L << (SLOT_BITS * levelCount)) - 1;
+        this.cursor = startTick;
+    }
+
+    /** Adds a timer expiring at deadlineTick; deadlines already passed expire on the next advance. */
+    void schedule(T item, long deadlineTick) {
+        place(new Timer<>(item, deadlineTick));
+        size++;
+    }
+
+    /** Expires every timer with a deadline up to and including tick, in deadline order. */
+    void advanceTo(long tick, Consumer<? super T> expired) {
+        while (cursor <= tick) {
+            // Move the timers of every higher-level slot that starts at this tick one level down
+            for (int level = levels.length - 1; level > 0; level--) {
+                if ((cursor & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    ArrayDeque<Timer<T>> slot = levels[level][slotIndex(cursor, level)];
+                    if (slot != null) {
+                        Timer<T> timer;
+                        while ((timer = slot.poll()) != null) {
+                            place(timer);
+                        }
+                    }
+                }
+            }
+            ArrayDeque<Timer<T>> due = levels[0][(int) cursor & SLOT_MASK];
+            if (due != null) {
+                Timer<T> timer;
+                while ((timer = due.poll()) != null) {
+                    size--;
+                    expired.accept(timer.item());
+                }
+            }
+            cursor++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long currentTick() {
+        return cursor;
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadline() - cursor;
+        if (delta < 0) {
+            delta = 0;
+        } else if (delta > maxDelta) {
+            delta = maxDelta;
+        }
+        long deadline = cursor + delta;
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = slotIndex(deadline, level);
+        ArrayDeque<Timer<T>> slot = levels[level][index];
+        if (slot == null) {
+            slot = new ArrayDeque<>();
+            levels[level][index] = slot;
+        }
+        slot.add(deadline == timer.deadline() ? timer : new Timer<>(timer.item(), deadline));
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+    }
+
+    private record Timer<T>(T item, long deadline) {}
+}
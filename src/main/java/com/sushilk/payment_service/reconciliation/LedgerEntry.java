@@ -0,0 +1,9 @@
+package com.sushilk.payment_service.reconciliation;
+
+import java.math.BigDecimal;
+
+/**
+ * Our side of a settlement line: the DEBIT transaction or refund with that provider id.
+ */
+record LedgerEntry(String reference, BigDecimal amount, String status) {
+}
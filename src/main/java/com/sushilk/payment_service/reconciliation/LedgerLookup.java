@@ -0,0 +1,82 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Ledger reads of the reconciliation, in plain SQL: batched IN lookups by provider id for the
+ * file pass, and a streamed range scan of the day's successful records for the reverse pass.
+ * Only records whose payment belongs to the provider being reconciled are considered.
+ * Lookups ask every shard at once; the streamed scan reads the shard the caller is routed to.
+ */
+class LedgerLookup {
+
+    private static final String PAYMENTS_BY_REFERENCE = """
+            select t.provider_reference, t.amount, t.status
+            from payment_transactions t join payments p on p.payment_id = t.payment_id
+            where t.provider_reference in (:references) and t.transaction_type = 'DEBIT' and p.provider = :provider
+            """;
+    private static final String REFUNDS_BY_REFERENCE = """
+            select r.provider_refund_id, r.amount, r.status
+            from refunds r join payments p on p.payment_id = r.payment_id
+            where r.provider_refund_id in (:references) and p.provider = :provider
+            """;
+    private static final String SETTLED_PAYMENTS_OF_DAY = """
+            select t.provider_reference, t.amount, t.status
+            from payment_transactions t join payments p on p.payment_id = t.payment_id
+            where t.created_at >= ? and t.created_at < ? and t.transaction_type = 'DEBIT'
+              and t.status = 'SUCCESS' and t.provider_reference is not null and p.provider = ?
+            """;
+    private static final String SETTLED_REFUNDS_OF_DAY = """
+            select r.provider_refund_id, r.amount, r.status
+            from refunds r join payments p on p.payment_id = r.payment_id
+            where r.created_at >= ? and r.created_at < ? and r.status = 'SUCCESS'
+              and r.provider_refund_id is not null and p.provider = ?
+            """;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ShardDirectory shards;
+
+    LedgerLookup(NamedParameterJdbcTemplate namedJdbcTemplate, JdbcTemplate streamingJdbcTemplate,
+                 ShardDirectory shards) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.shards = shards;
+    }
+
+    Map<String, LedgerEntry> find(PaymentProvider provider, boolean refunds, Collection<String> references) {
+        Map<String, LedgerEntry> entries = new HashMap<>(references.size() * 2);
+        if (references.isEmpty()) {
+            return entries;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("references", references)
+                .addValue("provider", provider.name());
+        List<LedgerEntry> found = shards.scatter(() -> namedJdbcTemplate.query(
+                refunds ? REFUNDS_BY_REFERENCE : PAYMENTS_BY_REFERENCE, parameters,
+                (row, rowNum) -> new LedgerEntry(row.getString(1), row.getBigDecimal(2), row.getString(3))));
+        found.forEach(entry -> entries.put(entry.reference(), entry));
+        return entries;
+    }
+
+    void forEachSettled(PaymentProvider provider, boolean refunds, LocalDate day, Consumer<LedgerEntry> action) {
+        streamingJdbcTemplate.query(refunds ? SETTLED_REFUNDS_OF_DAY : SETTLED_PAYMENTS_OF_DAY,
+                (RowCallbackHandler) row -> action.accept(
+                        new LedgerEntry(row.getString(1), row.getBigDecimal(2), row.getString(3))),
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()),
+                provider.name());
+    }
+}
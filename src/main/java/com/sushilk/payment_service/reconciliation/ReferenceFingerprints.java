@@ -0,0 +1,80 @@
+package com.sushilk.payment_service.reconciliation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free set of 64-bit fingerprints of the references seen in a settlement file, so the
+ * ledger-side pass can find records missing from the file with 8 bytes per line instead of a
+ * set of Strings. Open addressing with linear probing; sized up front from the line count.
+ * <p>
+ * Fingerprints are hashed straight from the mapped bytes. Two different references sharing a
+ * fingerprint (odds around n^2 / 2^65) would hide one MISSING_IN_FILE, never invent one.
+ */
+final class ReferenceFingerprints {
+
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    ReferenceFingerprints(long expectedEntries) {
+        long wanted = Math.max(16, expectedEntries * 2); // load factor <= 0.5
+        if (wanted > 1 << 30) {
+            throw new IllegalArgumentException("Too many settlement lines for one run: " + expectedEntries);
+        }
+        int capacity = Integer.highestOneBit((int) wanted - 1) << 1;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    void add(boolean refund, ByteBuffer bytes, int offset, int length) {
+        long fingerprint = fingerprint(refund, bytes, offset, length);
+        int index = (int) fingerprint & mask;
+        while (true) {
+            long current = slots.get(index);
+            if (current == fingerprint) {
+                return;
+            }
+            if (current == EMPTY && slots.compareAndSet(index, EMPTY, fingerprint)) {
+                return;
+            }
+            if (current != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            // lost a CAS on an empty slot: re-read the same slot
+        }
+    }
+
+    boolean contains(boolean refund, String reference) {
+        byte[] bytes = reference.getBytes(StandardCharsets.UTF_8);
+        long fingerprint = fingerprint(refund, ByteBuffer.wrap(bytes), 0, bytes.length);
+        int index = (int) fingerprint & mask;
+        while (true) {
+            long current = slots.get(index);
+            if (current == fingerprint) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /** FNV-1a over the bytes, finished with the MurmurHash3 mixer; never EMPTY. */
+    private static long fingerprint(boolean refund, ByteBuffer bytes, int offset, int length) {
+        long hash = refund ? 0xcbf29ce484222325L : 0x84222325cbf29ce4L;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= bytes.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
@@ -0,0 +1,322 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.entities.ReconciliationMismatch;
+import com.sushilk.payment_service.enums.MismatchType;
+import com.sushilk.payment_service.enums.SettlementRecordType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reconciles the lines starting in [start, end) of the settlement file. Ranges above the chunk
+ * size are split in half and forked; a leaf maps its range read-only and parses lines in place
+ * (field offsets into the mapping, amounts as minor units), allocating only the reference
+ * Strings its ledger lookups need. A line belongs to the chunk its first byte falls in, so the
+ * mapping reaches up to one maximum line length past end to finish the last line.
+ */
+final class SettlementChunk extends RecursiveAction {
+
+    static final int MAX_LINE_LENGTH = 4096;
+
+    private static final byte[] PAYMENT = "PAYMENT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REFUND = "REFUND".getBytes(StandardCharsets.US_ASCII);
+
+    private final SettlementRun run;
+    private final long start;
+    private final long end;
+
+    SettlementChunk(SettlementRun run, long start, long end) {
+        this.run = run;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start > run.chunkSize()) {
+            long middle = start + (end - start) / 2;
+            invokeAll(new SettlementChunk(run, start, middle), new SettlementChunk(run, middle, end));
+            return;
+        }
+        try {
+            reconcileLeaf();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void reconcileLeaf() throws IOException {
+        // One byte of look-behind tells whether a line starts exactly at start
+        long mapStart = start == 0 ? 0 : start - 1;
+        long mapEnd = Math.min(run.fileSize(), end + MAX_LINE_LENGTH);
+        MappedByteBuffer bytes = run.channel().map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = bytes.limit();
+        int chunkEnd = (int) (end - mapStart);
+
+        int position = 0;
+        if (start != 0) {
+            int newline = indexOfNewline(bytes, 0, limit);
+            if (newline < 0) {
+                return; // the line covering this whole range belongs to an earlier chunk
+            }
+            position = newline + 1;
+        }
+
+        LineBatch batch = new LineBatch(bytes, run.batchSize());
+        while (position < chunkEnd && position < limit) {
+            int newline = indexOfNewline(bytes, position, limit);
+            if (newline < 0) {
+                if (mapEnd != run.fileSize()) {
+                    throw new IllegalStateException("Settlement line at offset " + (mapStart + position)
+                            + " is longer than " + MAX_LINE_LENGTH + " bytes");
+                }
+                newline = limit; // last line without a trailing newline
+            }
+            int lineEnd = newline > position && bytes.get(newline - 1) == '\r' ? newline - 1 : newline;
+            if (lineEnd > position && !batch.add(position, lineEnd) && mapStart + position != 0) {
+                // an unparseable first line of the file is taken as the header
+                run.linesRead(1);
+                run.report(List.of(malformed(mapStart + position)));
+            }
+            if (batch.isFull()) {
+                reconcile(batch);
+            }
+            position = newline + 1;
+        }
+        reconcile(batch);
+    }
+
+    private void reconcile(LineBatch batch) {
+        if (batch.size == 0) {
+            return;
+        }
+        run.linesRead(batch.size);
+        List<ReconciliationMismatch> mismatches = new ArrayList<>();
+        long matched = 0;
+        for (boolean refunds : new boolean[]{false, true}) {
+            List<String> references = batch.references(refunds);
+            if (references.isEmpty()) {
+                continue;
+            }
+            Map<String, LedgerEntry> ledger = run.ledger().find(run.provider(), refunds, references);
+            for (int i = 0; i < batch.size; i++) {
+                if (batch.refund[i] != refunds) {
+                    continue;
+                }
+                run.fingerprints().add(refunds, batch.bytes, batch.referenceStart[i], batch.referenceLength[i]);
+                LedgerEntry entry = ledger.get(batch.reference[i]);
+                MismatchType mismatch = compare(batch, i, entry);
+                if (mismatch == null) {
+                    matched++;
+                } else {
+                    mismatches.add(mismatch(batch, i, mismatch, entry));
+                }
+            }
+        }
+        run.matched(matched);
+        run.report(mismatches);
+        batch.clear();
+    }
+
+    private static MismatchType compare(LineBatch batch, int line, LedgerEntry entry) {
+        if (entry == null) {
+            return MismatchType.MISSING_IN_LEDGER;
+        }
+        if (BigDecimal.valueOf(batch.amountMinor[line], 2).compareTo(entry.amount()) != 0) {
+            return MismatchType.AMOUNT_MISMATCH;
+        }
+        if (!equalsAscii(batch.bytes, batch.statusStart[line], batch.statusLength[line], entry.status())) {
+            return MismatchType.STATUS_MISMATCH;
+        }
+        return null;
+    }
+
+    private ReconciliationMismatch mismatch(LineBatch batch, int line, MismatchType type, LedgerEntry entry) {
+        return ReconciliationMismatch.builder()
+                .runId(run.runId())
+                .recordType(batch.refund[line] ? SettlementRecordType.REFUND : SettlementRecordType.PAYMENT)
+                .mismatchType(type)
+                .providerReference(batch.reference[line])
+                .fileAmount(BigDecimal.valueOf(batch.amountMinor[line], 2))
+                .fileStatus(batch.string(batch.statusStart[line], batch.statusLength[line]))
+                .ledgerAmount(entry != null ? entry.amount() : null)
+                .ledgerStatus(entry != null ? entry.status() : null)
+                .build();
+    }
+
+    private ReconciliationMismatch malformed(long offset) {
+        return ReconciliationMismatch.builder()
+                .runId(run.runId())
+                .mismatchType(MismatchType.MALFORMED_LINE)
+                .providerReference("@" + offset)
+                .build();
+    }
+
+    private static int indexOfNewline(MappedByteBuffer bytes, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (bytes.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equalsAscii(MappedByteBuffer bytes, int offset, int length, String value) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsBytes(MappedByteBuffer bytes, int offset, int length, byte[] value) {
+        if (value.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(offset + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parsed lines of one leaf as parallel arrays of offsets into the mapping. Line format:
+     * record_type,provider_reference,amount,status[,...] with record_type PAYMENT or REFUND and
+     * amount in major units with up to two decimals; further columns are ignored.
+     */
+    private static final class LineBatch {
+        private final MappedByteBuffer bytes;
+        private final boolean[] refund;
+        private final int[] referenceStart;
+        private final int[] referenceLength;
+        private final String[] reference;
+        private final long[] amountMinor;
+        private final int[] statusStart;
+        private final int[] statusLength;
+        private int size;
+
+        LineBatch(MappedByteBuffer bytes, int capacity) {
+            this.bytes = bytes;
+            this.refund = new boolean[capacity];
+            this.referenceStart = new int[capacity];
+            this.referenceLength = new int[capacity];
+            this.reference = new String[capacity];
+            this.amountMinor = new long[capacity];
+            this.statusStart = new int[capacity];
+            this.statusLength = new int[capacity];
+        }
+
+        /** Parses the line [from, to); false if it is not a valid settlement line. */
+        boolean add(int from, int to) {
+            int typeEnd = indexOfComma(from, to);
+            int referenceEnd = typeEnd < 0 ? -1 : indexOfComma(typeEnd + 1, to);
+            int amountEnd = referenceEnd < 0 ? -1 : indexOfComma(referenceEnd + 1, to);
+            if (amountEnd < 0) {
+                return false;
+            }
+            int statusEnd = indexOfComma(amountEnd + 1, to);
+            if (statusEnd < 0) {
+                statusEnd = to;
+            }
+
+            boolean isRefund;
+            if (equalsBytes(bytes, from, typeEnd - from, PAYMENT)) {
+                isRefund = false;
+            } else if (equalsBytes(bytes, from, typeEnd - from, REFUND)) {
+                isRefund = true;
+            } else {
+                return false;
+            }
+            int referenceLen = referenceEnd - typeEnd - 1;
+            long amount = parseMinorUnits(referenceEnd + 1, amountEnd);
+            if (referenceLen == 0 || referenceLen > 100 || amount < 0 || statusEnd == amountEnd + 1) {
+                return false;
+            }
+
+            refund[size] = isRefund;
+            referenceStart[size] = typeEnd + 1;
+            referenceLength[size] = referenceLen;
+            reference[size] = string(typeEnd + 1, referenceLen);
+            amountMinor[size] = amount;
+            statusStart[size] = amountEnd + 1;
+            statusLength[size] = statusEnd - amountEnd - 1;
+            size++;
+            return true;
+        }
+
+        boolean isFull() {
+            return size == refund.length;
+        }
+
+        List<String> references(boolean refunds) {
+            List<String> references = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (refund[i] == refunds) {
+                    references.add(reference[i]);
+                }
+            }
+            return references;
+        }
+
+        String string(int offset, int length) {
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, StandardCharsets.UTF_8);
+        }
+
+        void clear() {
+            Arrays.fill(reference, 0, size, null);
+            size = 0;
+        }
+
+        private int indexOfComma(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes.get(i) == ',') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** "123", "123.4" or "123.45" as minor units; -1 if not a plain non-negative amount. */
+        private long parseMinorUnits(int from, int to) {
+            long units = 0;
+            int decimals = -1;
+            if (from >= to) {
+                return -1;
+            }
+            for (int i = from; i < to; i++) {
+                byte b = bytes.get(i);
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (b >= '0' && b <= '9' && decimals < 2 && units < Long.MAX_VALUE / 100) {
+                    units = units * 10 + (b - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else {
+                    return -1;
+                }
+            }
+            for (int scale = Math.max(decimals, 0); scale < 2; scale++) {
+                units *= 10;
+            }
+            return units;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Picks up settlement files dropped into the inbox directory as {@code {PROVIDER}_{yyyy-MM-dd}.csv},
+ * reconciles each one and moves it to {@code processed/} (or {@code failed/}).
+ */
+@Component
+@Slf4j
+public class SettlementInbox {
+
+    private static final Pattern FILE_NAME = Pattern.compile("([A-Z_]+)_(\\d{4}-\\d{2}-\\d{2})\\.csv");
+
+    private final SettlementReconciler reconciler;
+    private final Path inbox;
+
+    public SettlementInbox(
+            SettlementReconciler reconciler,
+            @Value("${payment.reconciliation.inbox:settlements}") Path inbox) {
+        this.reconciler = reconciler;
+        this.inbox = inbox;
+    }
+
+    @Scheduled(cron = "${payment.reconciliation.cron:0 0 3 * * *}")
+    public void reconcilePending() {
+        if (!Files.isDirectory(inbox)) {
+            return;
+        }
+        for (Path file : pendingFiles()) {
+            Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+            if (!matcher.matches()) {
+                continue;
+            }
+            String outcome = "failed";
+            try {
+                PaymentProvider provider = PaymentProvider.valueOf(matcher.group(1));
+                LocalDate settlementDate = LocalDate.parse(matcher.group(2));
+                reconciler.reconcile(provider, settlementDate, file);
+                outcome = "processed";
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.warn("Skipping settlement file with unknown provider or date: {}", file);
+            } catch (Exception e) {
+                log.error("Failed to reconcile settlement file: {}", file, e);
+            }
+            moveTo(file, outcome);
+        }
+    }
+
+    private List<Path> pendingFiles() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inbox, "*.csv")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.error("Failed to list settlement inbox: {}", inbox, e);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private void moveTo(Path file, String directory) {
+        try {
+            Path target = Files.createDirectories(inbox.resolve(directory));
+            Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to move settlement file {} to {}/", file, directory, e);
+        }
+    }
+}
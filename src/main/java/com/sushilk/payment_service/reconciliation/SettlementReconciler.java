@@ -0,0 +1,187 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.entities.ReconciliationMismatch;
+import com.sushilk.payment_service.entities.ReconciliationRun;
+import com.sushilk.payment_service.enums.MismatchType;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.ReconciliationStatus;
+import com.sushilk.payment_service.enums.SettlementRecordType;
+import com.sushilk.payment_service.repositories.ReconciliationMismatchRepository;
+import com.sushilk.payment_service.repositories.ReconciliationRunRepository;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import com.sushilk.payment_service.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reconciles a provider's daily settlement file against payment_transactions (DEBIT) and
+ * refunds, matching on provider id and comparing amount and status.
+ * <p>
+ * 1️⃣ A newline count over the mapped file sizes the reference fingerprint set.
+ * 2️⃣ The file is split into chunks reconciled in parallel on a fork-join pool (see
+ *    {@link SettlementChunk}), each looking up its lines in batches of IN queries.
+ * 3️⃣ The day's successful ledger records for the provider are streamed and any whose
+ *    reference was not in the file is reported as MISSING_IN_FILE.
+ * <p>
+ * Heap use is bounded by the fingerprint table (at most 32 bytes per line) plus one batch per worker;
+ * the file itself stays in the page cache. Mismatches are written as they are found, each
+ * batch in its own transaction, so a failed run still leaves what it found.
+ */
+@Component
+@Slf4j
+public class SettlementReconciler {
+
+    private static final long COUNT_WINDOW = 256L * 1024 * 1024;
+
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final LedgerLookup ledger;
+    private final ShardDirectory shards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int parallelism;
+    private final long chunkSize;
+    private final int batchSize;
+
+    public SettlementReconciler(
+            ReconciliationRunRepository runRepository,
+            ReconciliationMismatchRepository mismatchRepository,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ShardDirectory shards,
+            @Value("${payment.reconciliation.parallelism:0}") int parallelism,
+            @Value("${payment.reconciliation.chunk-size:16MB}") DataSize chunkSize,
+            @Value("${payment.reconciliation.batch-size:1000}") int batchSize,
+            @Value("${payment.reconciliation.fetch-size:1000}") int fetchSize) {
+        this.runRepository = runRepository;
+        this.mismatchRepository = mismatchRepository;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(fetchSize);
+        this.ledger = new LedgerLookup(new NamedParameterJdbcTemplate(dataSource), streaming, shards);
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Mismatches are written while the read-only ledger stream is still open
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Each worker holds a pool connection while it looks up a batch; 0 = one per core
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(chunkSize.toBytes(), SettlementChunk.MAX_LINE_LENGTH);
+        this.batchSize = batchSize;
+    }
+
+    public ReconciliationRun reconcile(PaymentProvider provider, LocalDate settlementDate, Path file) {
+        log.info("Reconciling {} settlement for {} from {}", provider, settlementDate, file);
+        ReconciliationRun run = runRepository.save(ReconciliationRun.builder()
+                .provider(provider)
+                .settlementDate(settlementDate)
+                .fileName(file.getFileName().toString())
+                .status(ReconciliationStatus.RUNNING)
+                .build());
+
+        SettlementRun settlement = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ReferenceFingerprints fingerprints = new ReferenceFingerprints(countLines(channel, fileSize));
+            settlement = new SettlementRun(run.getRunId(), provider, channel, fileSize, chunkSize, batchSize,
+                    ledger, fingerprints, this::writeMismatches);
+
+            // 2️⃣ File side, in parallel
+            if (fileSize > 0) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    pool.invoke(new SettlementChunk(settlement, 0, fileSize));
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+
+            // 3️⃣ Ledger side, one shard after the other
+            SettlementRun current = settlement;
+            shards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+                reportMissingInFile(current, settlementDate, false);
+                reportMissingInFile(current, settlementDate, true);
+            }));
+
+            run.setStatus(ReconciliationStatus.COMPLETED);
+        } catch (IOException e) {
+            run.setStatus(ReconciliationStatus.FAILED);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            run.setStatus(ReconciliationStatus.FAILED);
+            throw e;
+        } finally {
+            if (settlement != null) {
+                run.setLinesRead(settlement.linesRead());
+                run.setMatched(settlement.matched());
+                run.setMismatches(settlement.mismatches());
+            }
+            run = runRepository.save(run);
+            log.info("Reconciliation {} of {} for {}: {} lines, {} matched, {} mismatches", run.getStatus(),
+                    provider, settlementDate, run.getLinesRead(), run.getMatched(), run.getMismatches());
+        }
+        return run;
+    }
+
+    private void reportMissingInFile(SettlementRun settlement, LocalDate settlementDate, boolean refunds) {
+        List<ReconciliationMismatch> missing = new ArrayList<>();
+        ledger.forEachSettled(settlement.provider(), refunds, settlementDate, entry -> {
+            if (settlement.fingerprints().contains(refunds, entry.reference())) {
+                return;
+            }
+            missing.add(ReconciliationMismatch.builder()
+                    .runId(settlement.runId())
+                    .recordType(refunds ? SettlementRecordType.REFUND : SettlementRecordType.PAYMENT)
+                    .mismatchType(MismatchType.MISSING_IN_FILE)
+                    .providerReference(entry.reference())
+                    .ledgerAmount(entry.amount())
+                    .ledgerStatus(entry.status())
+                    .build());
+            if (missing.size() >= batchSize) {
+                settlement.report(List.copyOf(missing));
+                missing.clear();
+            }
+        });
+        settlement.report(missing);
+    }
+
+    private void writeMismatches(List<ReconciliationMismatch> mismatches) {
+        // Runs and mismatches live on the home shard, whichever shard is being scanned
+        ShardRouting.runOnShard(shards.home(),
+                () -> writeTransaction.executeWithoutResult(status -> mismatchRepository.saveAll(mismatches)));
+    }
+
+    /** 1️⃣ Sequential newline count over the mapped file - bandwidth bound, no parsing. */
+    private static long countLines(FileChannel channel, long fileSize) throws IOException {
+        long lines = 0;
+        for (long offset = 0; offset < fileSize; offset += COUNT_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(COUNT_WINDOW, fileSize - offset));
+            for (int i = 0, limit = window.limit(); i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines + 1; // a last line without a trailing newline
+    }
+}
@@ -0,0 +1,103 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.entities.ReconciliationMismatch;
+import com.sushilk.payment_service.enums.PaymentProvider;
+
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * State shared by all chunks of one reconciliation: the open file, tuning, the ledger,
+ * the reference fingerprints and the counters. Everything mutable in here is thread-safe.
+ */
+final class SettlementRun {
+
+    private final UUID runId;
+    private final PaymentProvider provider;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long chunkSize;
+    private final int batchSize;
+    private final LedgerLookup ledger;
+    private final ReferenceFingerprints fingerprints;
+    private final Consumer<List<ReconciliationMismatch>> mismatchWriter;
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    SettlementRun(UUID runId, PaymentProvider provider, FileChannel channel, long fileSize, long chunkSize,
+                  int batchSize, LedgerLookup ledger, ReferenceFingerprints fingerprints,
+                  Consumer<List<ReconciliationMismatch>> mismatchWriter) {
+        this.runId = runId;
+        this.provider = provider;
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.ledger = ledger;
+        this.fingerprints = fingerprints;
+        this.mismatchWriter = mismatchWriter;
+    }
+
+    UUID runId() {
+        return runId;
+    }
+
+    PaymentProvider provider() {
+        return provider;
+    }
+
+    FileChannel channel() {
+        return channel;
+    }
+
+    long fileSize() {
+        return fileSize;
+    }
+
+    long chunkSize() {
+        return chunkSize;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    LedgerLookup ledger() {
+        return ledger;
+    }
+
+    ReferenceFingerprints fingerprints() {
+        return fingerprints;
+    }
+
+    void linesRead(long lines) {
+        linesRead.add(lines);
+    }
+
+    void matched(long lines) {
+        matched.add(lines);
+    }
+
+    void report(List<ReconciliationMismatch> found) {
+        if (!found.isEmpty()) {
+            mismatchWriter.accept(found);
+            mismatches.add(found.size());
+        }
+    }
+
+    long linesRead() {
+        return linesRead.sum();
+    }
+
+    long matched() {
+        return matched.sum();
+    }
+
+    long mismatches() {
+        return mismatches.sum();
+    }
+}
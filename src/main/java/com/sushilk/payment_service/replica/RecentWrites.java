@@ -0,0 +1,51 @@
+package com.sushilk.payment_service.replica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Payments and users written by this node within the read-your-writes window. Their reads are
+ * forced to the primary, since a replica may not have caught up with the write yet. Expired keys
+ * are swept once the map grows past MAX_ENTRIES. Does nothing unless the replica is enabled.
+ */
+@Component
+public class RecentWrites {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final ConcurrentMap<Object, Long> expiries = new ConcurrentHashMap<>();
+
+    public RecentWrites(
+            @Value("${payment.datasource.replica.enabled:false}") boolean enabled,
+            @Value("${payment.datasource.replica.read-your-writes-window:PT30S}") Duration window) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+    }
+
+    public void record(Object... keys) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Object key : keys) {
+            expiries.put(key, now + windowNanos);
+        }
+        if (expiries.size() > MAX_ENTRIES) {
+            expiries.values().removeIf(expiry -> expiry - now < 0);
+        }
+    }
+
+    public boolean isRecent(Object key) {
+        if (!enabled) {
+            return false;
+        }
+        Long expiry = expiries.get(key);
+        return expiry != null && expiry - System.nanoTime() > 0;
+    }
+}
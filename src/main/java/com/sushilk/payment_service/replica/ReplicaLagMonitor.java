@@ -0,0 +1,79 @@
+package com.sushilk.payment_service.replica;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replication lag with a heartbeat row: every heartbeat-interval the current time is
+ * written to replica_heartbeat on the primary and read back from the replica; the difference is
+ * how far the replica is behind. Until the first heartbeat arrives, or while the replica cannot
+ * be read, the lag is unknown (Long.MAX_VALUE) and reads stay on the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final long UNKNOWN = Long.MAX_VALUE;
+
+    private static final String CREATE_TABLE =
+            "create table if not exists replica_heartbeat (id int primary key, beat_at bigint not null)";
+    private static final String UPDATE_BEAT = "update replica_heartbeat set beat_at = ? where id = 1";
+    private static final String INSERT_BEAT = "insert into replica_heartbeat (id, beat_at) values (1, ?)";
+    private static final String SELECT_BEAT = "select beat_at from replica_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private volatile long lagMillis = UNKNOWN;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.primary.execute(CREATE_TABLE);
+        TimeGauge.builder("payment.datasource.replica.lag", this,
+                        TimeUnit.MILLISECONDS, monitor -> monitor.lagMillis == UNKNOWN ? Double.NaN : monitor.lagMillis)
+                .description("How far the read replica is behind the primary; NaN while unknown")
+                .register(meterRegistry);
+    }
+
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.datasource.replica.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update(UPDATE_BEAT, now) == 0) {
+                primary.update(INSERT_BEAT, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        measure();
+    }
+
+    void measure() {
+        long lag;
+        try {
+            List<Long> beat = replica.queryForList(SELECT_BEAT, Long.class);
+            lag = beat.isEmpty() ? UNKNOWN : Math.max(0, System.currentTimeMillis() - beat.getFirst());
+        } catch (DataAccessException e) {
+            lag = UNKNOWN;
+        }
+        if ((lag == UNKNOWN) != (lagMillis == UNKNOWN)) {
+            if (lag == UNKNOWN) {
+                log.warn("Replica lag unknown, reads go to the primary");
+            } else {
+                log.info("Replica heartbeat received, lag {} ms", lag);
+            }
+        }
+        lagMillis = lag;
+    }
+}
@@ -0,0 +1,33 @@
+package com.sushilk.payment_service.replica;
+
+import java.util.function.Supplier;
+
+/**
+ * Forces the reads of an action to the primary, whatever its transaction says. Used for
+ * read-your-writes: a client reading what it just wrote must not be served by a replica that
+ * has not caught up yet. Connections are fetched lazily, so this also works inside a read-only
+ * transaction, as long as it wraps the first statement.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean outer = PRIMARY_FORCED.get();
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_FORCED.remove();
+            }
+        }
+    }
+
+    static boolean primaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sushilk.payment_service.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. A read-only
+ * transaction still goes to the primary when the replica lags more than max-lag (or its lag is
+ * unknown) and inside {@link ReplicaRouting#onPrimary}.
+ * <p>
+ * The transaction's read-only flag is only known once it has begun, so this must sit behind a
+ * LazyConnectionDataSourceProxy that fetches the physical connection at the first statement.
+ * Work outside a transaction runs on the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final LongSupplier replicaLagMillis;
+    private final long maxLagMillis;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, LongSupplier replicaLagMillis,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicaLagMillis = replicaLagMillis;
+        this.maxLagMillis = maxLag.toMillis();
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.primaryConnections = connections(meterRegistry, PRIMARY);
+        this.replicaConnections = connections(meterRegistry, REPLICA);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaRouting.primaryForced()
+                && replicaLagMillis.getAsLong() <= maxLagMillis) {
+            replicaConnections.increment();
+            return REPLICA;
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    private static Counter connections(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("payment.datasource.connections")
+                .description("Connections handed out by the read/write router")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
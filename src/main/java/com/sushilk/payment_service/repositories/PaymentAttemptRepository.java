@@ -1,13 +1,21 @@
 package com.sushilk.payment_service.repositories;
 
 import com.sushilk.payment_service.entities.PaymentAttempt;
+import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface PaymentAttemptRepository extends JpaRepository<PaymentAttempt, UUID> {
 
     List<PaymentAttempt> findByPaymentId(UUID paymentId);
+
+    List<PaymentAttempt> findByPaymentIdInAndStatus(Collection<UUID> paymentIds, PaymentAttemptStatus status);
+
+    List<PaymentAttempt> findByStatusAndUpdatedAtBefore(PaymentAttemptStatus status, LocalDateTime cutoff, Limit limit);
 }
 
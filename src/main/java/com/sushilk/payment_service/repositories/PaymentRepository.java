@@ -1,8 +1,19 @@
 package com.sushilk.payment_service.repositories;
 
+import com.sushilk.payment_service.dtos.PaymentSummary;
+import com.sushilk.payment_service.dtos.PaymentView;
 import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.polling.PendingPayment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +24,89 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
 
     Optional<Payment> findByIdempotencyKey(String idempotencyKey);
 
-    List<Payment> findByUserId(String userId);
-}
+    List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+    @Query("""
+            select new com.sushilk.payment_service.dtos.PaymentView(
+                p.paymentId, p.userId, p.orderId, p.orderType, p.amount, p.refundedAmount, p.currency,
+                p.status, p.provider, p.paymentMethod, p.beneficiaryId, p.beneficiaryName, p.createdAt, p.updatedAt)
+            from Payment p
+            where p.paymentId = :paymentId
+            """)
+    Optional<PaymentView> findViewById(@Param("paymentId") UUID paymentId);
+
+    /** Just the status, by primary key; used to replay a cached initiate response. */
+    @Query("select p.status from Payment p where p.paymentId = :paymentId")
+    Optional<PaymentStatus> findStatusById(@Param("paymentId") UUID paymentId);
+
+    /**
+     * First page of a user's payments, newest first - a range scan on idx_payment_user_created.
+     * status and from are optional filters (null matches everything).
+     */
+    @Query("""
+            select new com.sushilk.payment_service.dtos.PaymentSummary(
+                p.paymentId, p.orderId, p.amount, p.currency, p.status, p.provider, p.paymentMethod, p.createdAt)
+            from Payment p
+            where p.userId = :userId
+              and (:status is null or p.status = :status)
+              and (:from is null or p.createdAt >= :from)
+            order by p.createdAt desc, p.paymentId desc
+            """)
+    List<PaymentSummary> findFirstPage(@Param("userId") String userId,
+                                       @Param("status") PaymentStatus status,
+                                       @Param("from") LocalDateTime from,
+                                       Limit limit);
 
+    /**
+     * Next page after the (createdAt, paymentId) of the previous page's last row. The index seek
+     * starts at the cursor, so the cost does not grow with the page number the way an offset does.
+     */
+    @Query("""
+            select new com.sushilk.payment_service.dtos.PaymentSummary(
+                p.paymentId, p.orderId, p.amount, p.currency, p.status, p.provider, p.paymentMethod, p.createdAt)
+            from Payment p
+            where p.userId = :userId
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.paymentId < :paymentId))
+              and (:status is null or p.status = :status)
+              and (:from is null or p.createdAt >= :from)
+            order by p.createdAt desc, p.paymentId desc
+            """)
+    List<PaymentSummary> findPageAfter(@Param("userId") String userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("paymentId") UUID paymentId,
+                                       @Param("status") PaymentStatus status,
+                                       @Param("from") LocalDateTime from,
+                                       Limit limit);
+
+    /**
+     * Payments in a status created in ((createdAt, paymentId), until], oldest first - a range scan on
+     * idx_payment_status_created that touches only rows in that status.
+     */
+    @Query("""
+            select new com.sushilk.payment_service.polling.PendingPayment(p.paymentId, p.createdAt)
+            from Payment p
+            where p.status = :status
+              and (p.createdAt > :createdAt or (p.createdAt = :createdAt and p.paymentId > :paymentId))
+              and p.createdAt <= :until
+            order by p.createdAt, p.paymentId
+            """)
+    List<PendingPayment> findPendingAfter(@Param("status") PaymentStatus status,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("paymentId") UUID paymentId,
+                                          @Param("until") LocalDateTime until,
+                                          Limit limit);
+
+    /**
+     * One-off backfill of the refund ledger for payments created before refundedAmount/version existed:
+     * refundedAmount = sum of SUCCESS and in-flight refunds, version starts at 0.
+     */
+    @Modifying
+    @Query("""
+            update Payment p
+            set p.refundedAmount = coalesce(
+                    (select sum(r.amount) from Refund r where r.paymentId = p.paymentId and r.status in :statuses), 0),
+                p.version = coalesce(p.version, 0)
+            where p.refundedAmount is null or p.version is null
+            """)
+    int backfillRefundLedger(@Param("statuses") Collection<RefundStatus> statuses);
+}
@@ -1,13 +1,22 @@
 package com.sushilk.payment_service.repositories;
 
 import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.enums.TransactionType;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface PaymentTransactionRepository extends JpaRepository<PaymentTransaction, UUID> {
 
     List<PaymentTransaction> findByPaymentId(UUID paymentId);
+
+    List<PaymentTransaction> findByPaymentIdInAndTransactionType(
+            Collection<UUID> paymentIds, TransactionType transactionType);
+
+    /** Index lookup on idx_transaction_provider_ref for a batch of webhook events. */
+    List<PaymentTransaction> findByTransactionTypeAndProviderReferenceIn(
+            TransactionType transactionType, Collection<String> providerReferences);
 }
 
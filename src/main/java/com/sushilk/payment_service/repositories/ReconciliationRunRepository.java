@@ -0,0 +1,9 @@
+package com.sushilk.payment_service.repositories;
+
+import com.sushilk.payment_service.entities.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, UUID> {
+}
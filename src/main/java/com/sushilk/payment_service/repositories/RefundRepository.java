@@ -1,12 +1,29 @@
 package com.sushilk.payment_service.repositories;
 
+import com.sushilk.payment_service.config.SecondLevelCacheConfig;
 import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.RefundStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface RefundRepository extends JpaRepository<Refund, UUID> {
 
+    /**
+     * Served from the query cache until the refunds table changes; any refund insert or update
+     * invalidates the region, so results are never stale.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.REFUNDS_BY_PAYMENT_REGION)
+    })
     List<Refund> findByPaymentId(UUID paymentId);
+
+    List<Refund> findByStatusAndUpdatedAtBefore(RefundStatus status, LocalDateTime cutoff, Limit limit);
 }
@@ -0,0 +1,20 @@
+package com.sushilk.payment_service.repositories;
+
+import com.sushilk.payment_service.entities.WebhookEvent;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.WebhookEventStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, UUID> {
+
+    Optional<WebhookEvent> findByProviderAndProviderEventId(PaymentProvider provider, String providerEventId);
+
+    List<WebhookEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+            WebhookEventStatus status, LocalDateTime now, Limit limit);
+}
@@ -0,0 +1,79 @@
+package com.sushilk.payment_service.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * AIMD concurrency limit for one provider - the bulkhead.
+ *
+ * A call is admitted only while in-flight calls stay below the limit. The limit grows by
+ * 1/limit per fast call while the bulkhead is at least half used (about +1 per round trip),
+ * and shrinks by backoffRatio when a call is slower than baseline * tolerance or times out -
+ * at most once per round trip: calls that started before the last decrease report congestion the
+ * limit has already reacted to, so a burst of slow samples cuts it once, not once per call.
+ * All state is updated with CAS; nothing blocks.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    AdaptiveConcurrencyLimit(ResilienceSettings settings) {
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(settings.initialLimit()));
+        this.minLimit = settings.minLimit();
+        this.maxLimit = settings.maxLimit();
+        this.tolerance = settings.latencyTolerance();
+        this.backoffRatio = settings.backoffRatio();
+    }
+
+    boolean tryAcquire() {
+        int admitted = inFlight.incrementAndGet();
+        if (admitted > (int) limit()) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Feeds one completed (or timed out) call into the limit.
+     */
+    void onSample(long latencyNanos, long baselineNanos, boolean timedOut) {
+        if (timedOut || (baselineNanos > 0 && latencyNanos > baselineNanos * tolerance)) {
+            long now = System.nanoTime();
+            long lastDecrease = lastDecreaseNanos.get();
+            if (now - latencyNanos >= lastDecrease && lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+                update(limit -> Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (inFlight.get() * 2 >= (int) limit()) {
+            update(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator function) {
+        long current;
+        long next;
+        do {
+            current = limitBits.get();
+            next = Double.doubleToRawLongBits(function.applyAsDouble(Double.longBitsToDouble(current)));
+        } while (!limitBits.compareAndSet(current, next));
+    }
+}
@@ -0,0 +1,142 @@
+package com.sushilk.payment_service.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Count-based circuit breaker for one provider.
+ *
+ * CLOSED: calls pass; opens when the failure rate over the last windowSize calls reaches the threshold.
+ * OPEN: calls are rejected for openDuration, then the breaker moves to HALF_OPEN.
+ * HALF_OPEN: halfOpenCalls trial calls pass; all succeeding closes it, any failure re-opens it.
+ *
+ * The admission check reads a volatile state (plus a CAS on the trial permits when half open);
+ * only recording an outcome and the one-off OPEN to HALF_OPEN transition take the monitor.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int gaugeValue;
+
+        State(int gaugeValue) {
+            this.gaugeValue = gaugeValue;
+        }
+
+        int gaugeValue() {
+            return gaugeValue;
+        }
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] window;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+
+    // Guarded by this
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(ResilienceSettings settings) {
+        this.failureRateThreshold = settings.failureRateThreshold();
+        this.minimumCalls = settings.minimumCalls();
+        this.openNanos = settings.openDuration().toNanos();
+        this.halfOpenCalls = settings.halfOpenCalls();
+        this.window = new boolean[settings.windowSize()];
+    }
+
+    State state() {
+        return state;
+    }
+
+    boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return false;
+            }
+            halfOpen();
+        }
+        return acquireTrialPermit();
+    }
+
+    /**
+     * Returns a trial permit taken by tryAcquire when the call was not made after all.
+     */
+    void releasePermit() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    synchronized void onResult(boolean failure) {
+        switch (state) {
+            case CLOSED -> {
+                if (windowCalls == window.length) {
+                    windowFailures -= window[windowIndex] ? 1 : 0;
+                } else {
+                    windowCalls++;
+                }
+                window[windowIndex] = failure;
+                windowFailures += failure ? 1 : 0;
+                windowIndex = (windowIndex + 1) % window.length;
+                if (windowCalls >= minimumCalls && windowFailures >= failureRateThreshold * windowCalls) {
+                    open();
+                }
+            }
+            case HALF_OPEN -> {
+                if (failure) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case OPEN -> {
+                // Late result of a call admitted before the breaker opened
+            }
+        }
+    }
+
+    private boolean acquireTrialPermit() {
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void halfOpen() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            halfOpenSuccesses = 0;
+            halfOpenPermits.set(halfOpenCalls);
+            state = State.HALF_OPEN;
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        halfOpenPermits.set(0);
+        state = State.OPEN;
+    }
+
+    private void close() {
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        state = State.CLOSED;
+    }
+}
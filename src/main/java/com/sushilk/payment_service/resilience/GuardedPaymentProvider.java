@@ -0,0 +1,172 @@
+package com.sushilk.payment_service.resilience;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.exceptions.ProviderUnavailableException;
+import com.sushilk.payment_service.services.PaymentProviderService;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Isolates one provider: circuit breaker, then adaptive concurrency limit (bulkhead), then a
+ * timeout derived from the provider's recent p99. The call itself runs on the provider executor
+ * so the caller can stop waiting at the timeout; the bulkhead slot is held until the call really
+ * finishes, so a hung provider cannot accumulate more work than its limit. Whichever of the task
+ * and a caller giving up claims the call first owns the slot's release, so a call abandoned
+ * before it started never leaks one.
+ *
+ * Exceptions and timeouts count as breaker failures; a declined response (success=false) is a
+ * healthy answer from the provider and does not.
+ */
+public class GuardedPaymentProvider implements PaymentProviderService {
+
+    private final PaymentProviderService delegate;
+    private final ExecutorService executor;
+    private final ResilienceSettings settings;
+    private final CircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimit limit;
+    private final LatencyTracker latencies;
+
+    GuardedPaymentProvider(PaymentProviderService delegate, ExecutorService executor, ResilienceSettings settings) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.settings = settings;
+        this.breaker = new CircuitBreaker(settings);
+        this.limit = new AdaptiveConcurrencyLimit(settings);
+        this.latencies = new LatencyTracker(Math.max(100, settings.windowSize()));
+    }
+
+    @Override
+    public PaymentProvider getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public ProviderResponse initiatePayment(Payment payment) {
+        return call(() -> delegate.initiatePayment(payment));
+    }
+
+    @Override
+    public ProviderResponse refundPayment(Payment payment, String reason) {
+        return call(() -> delegate.refundPayment(payment, reason));
+    }
+
+    /**
+     * Status queries (of refunds too) share the breaker and bulkhead with payments: they reach the same provider
+     * endpoints, and the poller backs off instead of queueing when the provider is saturated.
+     */
+    @Override
+    public ProviderStatusResponse queryPaymentStatus(Payment payment) {
+        return call(() -> delegate.queryPaymentStatus(payment));
+    }
+
+    @Override
+    public ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund) {
+        return call(() -> delegate.queryRefundStatus(payment, refund));
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    double concurrencyLimit() {
+        return limit.limit();
+    }
+
+    int inFlight() {
+        return limit.inFlight();
+    }
+
+    /**
+     * Timeout the next call gets: recent p99 * multiplier, or maxTimeout until enough calls were seen.
+     */
+    long timeoutNanos() {
+        LatencyTracker.Snapshot snapshot = latencies.snapshot();
+        long max = settings.maxTimeout().toNanos();
+        if (snapshot.samples() < settings.minimumCalls()) {
+            return max;
+        }
+        long derived = (long) (snapshot.p99Nanos() * settings.timeoutMultiplier());
+        return Math.max(settings.minTimeout().toNanos(), Math.min(max, derived));
+    }
+
+    private <T> T call(Supplier<T> action) {
+        if (!breaker.tryAcquire()) {
+            throw new ProviderUnavailableException(getProvider(), "circuit breaker open");
+        }
+        if (!limit.tryAcquire()) {
+            breaker.releasePermit();
+            throw new ProviderUnavailableException(getProvider(), "concurrency limit reached");
+        }
+
+        long timeoutNanos = timeoutNanos();
+        long start = System.nanoTime();
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null; // abandoned before it started; the caller released the slot
+                }
+                try {
+                    return action.get();
+                } finally {
+                    limit.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            limit.release();
+            breaker.releasePermit();
+            throw new ProviderUnavailableException(getProvider(), "provider executor rejected the call");
+        }
+
+        try {
+            T response = future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            long latency = System.nanoTime() - start;
+            limit.onSample(latency, latencies.snapshot().p10Nanos(), false);
+            latencies.record(latency);
+            breaker.onResult(false);
+            return response;
+        } catch (TimeoutException e) {
+            boolean dispatched = abandon(future, claimed);
+            limit.onSample(timeoutNanos, 0, true);
+            breaker.onResult(true);
+            throw new ProviderUnavailableException(getProvider(),
+                    "timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms", dispatched);
+        } catch (ExecutionException e) {
+            breaker.onResult(true);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Provider call failed", e.getCause());
+        } catch (InterruptedException e) {
+            boolean dispatched = abandon(future, claimed);
+            Thread.currentThread().interrupt();
+            throw new ProviderUnavailableException(getProvider(), "interrupted while waiting for the provider", dispatched);
+        }
+    }
+
+    /**
+     * Stops waiting for a call. Returns whether it had already started, i.e. whether the provider
+     * may have received the request; if it had not, it never will and its slot is released here.
+     */
+    private boolean abandon(Future<?> future, AtomicBoolean claimed) {
+        if (claimed.compareAndSet(false, true)) {
+            future.cancel(false);
+            limit.release();
+            return false;
+        }
+        future.cancel(true);
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sushilk.payment_service.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentiles over the most recent call latencies of one provider.
+ *
+ * Recording is a single slot write. Percentiles are recomputed from a sorted copy of the window
+ * at most once per refresh interval, by whichever caller wins a CAS; everyone else reads the
+ * last snapshot.
+ */
+final class LatencyTracker {
+
+    private static final long REFRESH_NANOS = 100_000_000L;
+
+    private final AtomicLongArray window;
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(0, 0, 0, 0, System.nanoTime());
+
+    LatencyTracker(int windowSize) {
+        this.window = new AtomicLongArray(windowSize);
+    }
+
+    void record(long latencyNanos) {
+        long index = recorded.getAndIncrement();
+        window.set((int) (index % window.length()), latencyNanos);
+    }
+
+    Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (now - current.takenAtNanos() >= REFRESH_NANOS && refreshing.compareAndSet(false, true)) {
+            try {
+                current = compute(now);
+                snapshot = current;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return current;
+    }
+
+    private Snapshot compute(long now) {
+        int samples = (int) Math.min(recorded.get(), window.length());
+        long[] sorted = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sorted[i] = window.get(i);
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(samples, percentile(sorted, 0.10), percentile(sorted, 0.50), percentile(sorted, 0.99), now);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1; // nearest-rank
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+
+    record Snapshot(int samples, long p10Nanos, long p50Nanos, long p99Nanos, long takenAtNanos) {}
+}
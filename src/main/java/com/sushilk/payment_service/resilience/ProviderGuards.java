@@ -0,0 +1,70 @@
+package com.sushilk.payment_service.resilience;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps each provider in its own {@link GuardedPaymentProvider} and exports its state:
+ * payment.provider.circuit.state (0 closed, 1 half open, 2 open), payment.provider.concurrency.limit,
+ * payment.provider.inflight and payment.provider.timeout (ms), all tagged by provider.
+ * Callers that fan out many calls at once read the current limit to stay inside the bulkhead.
+ */
+@Component
+public class ProviderGuards {
+
+    private final ResilienceSettings settings;
+    private final ExecutorService providerExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<PaymentProvider, GuardedPaymentProvider> byProvider = new ConcurrentHashMap<>();
+
+    public ProviderGuards(ResilienceSettings settings,
+                          @Qualifier("providerExecutor") ExecutorService providerExecutor,
+                          MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.providerExecutor = providerExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public PaymentProviderService guard(PaymentProviderService provider) {
+        GuardedPaymentProvider guarded = new GuardedPaymentProvider(provider, providerExecutor, settings);
+        byProvider.put(provider.getProvider(), guarded);
+        Tags tags = Tags.of("provider", provider.getProvider().name());
+
+        Gauge.builder("payment.provider.circuit.state", guarded, g -> g.circuitState().gaugeValue())
+                .description("Circuit breaker state: 0 closed, 1 half open, 2 open")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.concurrency.limit", guarded, GuardedPaymentProvider::concurrencyLimit)
+                .description("Adaptive concurrency limit of the provider bulkhead")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.inflight", guarded, GuardedPaymentProvider::inFlight)
+                .description("Provider calls currently holding a bulkhead slot")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.timeout", guarded, g -> TimeUnit.NANOSECONDS.toMillis(g.timeoutNanos()))
+                .description("Timeout applied to the next provider call")
+                .tags(tags)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return guarded;
+    }
+
+    /**
+     * Concurrent calls the provider's bulkhead admits right now; unbounded for a provider that is not guarded.
+     */
+    public int concurrencyLimit(PaymentProvider provider) {
+        GuardedPaymentProvider guard = byProvider.get(provider);
+        return guard == null ? Integer.MAX_VALUE : Math.max(1, (int) guard.concurrencyLimit());
+    }
+}
@@ -0,0 +1,42 @@
+package com.sushilk.payment_service.resilience;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the per-provider bulkhead, adaptive limit, timeout and circuit breaker.
+ *
+ * @param initialLimit         concurrent calls allowed per provider before any latency is observed
+ * @param minLimit             floor the limit never decreases below
+ * @param maxLimit             ceiling the limit never grows above
+ * @param latencyTolerance     a call slower than baseline (recent p10) times this is treated as congestion
+ * @param backoffRatio         multiplicative decrease applied to the limit on congestion or timeout
+ * @param timeoutMultiplier    timeout = recent p99 times this, clamped to [minTimeout, maxTimeout]
+ * @param minTimeout           lower bound of the derived timeout
+ * @param maxTimeout           timeout used until enough samples exist, and upper bound of the derived one
+ * @param failureRateThreshold fraction of failed calls in the window that opens the breaker
+ * @param windowSize           number of most recent calls the failure rate is computed over
+ * @param minimumCalls         calls needed in the window before the breaker may open
+ * @param openDuration         how long the breaker rejects calls before letting trial calls through
+ * @param halfOpenCalls        trial calls that must all succeed to close the breaker again
+ */
+public record ResilienceSettings(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double latencyTolerance,
+        double backoffRatio,
+        double timeoutMultiplier,
+        Duration minTimeout,
+        Duration maxTimeout,
+        double failureRateThreshold,
+        int windowSize,
+        int minimumCalls,
+        Duration openDuration,
+        int halfOpenCalls) {
+
+    public static ResilienceSettings defaults() {
+        return new ResilienceSettings(20, 2, 200, 2.0, 0.9, 1.5,
+                Duration.ofMillis(200), Duration.ofSeconds(5),
+                0.5, 50, 20, Duration.ofSeconds(10), 3);
+    }
+}
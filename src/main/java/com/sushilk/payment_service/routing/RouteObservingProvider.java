@@ -0,0 +1,57 @@
+package com.sushilk.payment_service.routing;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.services.PaymentProviderService;
+
+/**
+ * Reports latency and outcome of every initiate call to the {@link UpiRouter}, whether or not
+ * the request was auto-routed. Calls rejected by the provider guard count as fast failures.
+ * Refunds and status queries pass through unobserved.
+ */
+public class RouteObservingProvider implements PaymentProviderService {
+
+    private final PaymentProviderService delegate;
+    private final UpiRouter router;
+
+    RouteObservingProvider(PaymentProviderService delegate, UpiRouter router) {
+        this.delegate = delegate;
+        this.router = router;
+    }
+
+    @Override
+    public PaymentProvider getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public ProviderResponse initiatePayment(Payment payment) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ProviderResponse response = delegate.initiatePayment(payment);
+            success = response.success();
+            return response;
+        } finally {
+            router.record(delegate.getProvider(), System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public ProviderResponse refundPayment(Payment payment, String reason) {
+        return delegate.refundPayment(payment, reason);
+    }
+
+    @Override
+    public ProviderStatusResponse queryPaymentStatus(Payment payment) {
+        return delegate.queryPaymentStatus(payment);
+    }
+
+    @Override
+    public ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund) {
+        return delegate.queryRefundStatus(payment, refund);
+    }
+}
@@ -0,0 +1,28 @@
+package com.sushilk.payment_service.routing;
+
+import java.time.Duration;
+
+/**
+ * Tuning for AUTO_UPI routing.
+ *
+ * @param ewmaAlpha   weight of the newest call in the latency and success-rate averages
+ * @param exploration fraction of routed requests sent to a random non-best provider so that
+ *                    a recovered provider is noticed again
+ * @param fastFailure a call that fails within this time fails over to the next provider
+ * @param hedgeAfter  a call still pending after this time is raced against the next provider;
+ *                    zero disables hedging
+ */
+public record RoutingSettings(
+        double ewmaAlpha,
+        double exploration,
+        Duration fastFailure,
+        Duration hedgeAfter) {
+
+    public static RoutingSettings defaults() {
+        return new RoutingSettings(0.2, 0.05, Duration.ofSeconds(1), Duration.ZERO);
+    }
+
+    public boolean hedgeEnabled() {
+        return hedgeAfter.compareTo(Duration.ZERO) > 0;
+    }
+}
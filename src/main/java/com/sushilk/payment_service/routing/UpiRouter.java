@@ -0,0 +1,148 @@
+package com.sushilk.payment_service.routing;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranks the interchangeable UPI providers for AUTO_UPI requests by expected cost: EWMA latency
+ * divided by EWMA success rate, both fed by every initiate call made through {@link #observe}.
+ * <p>
+ * The stats map is filled once at construction and only its atomics change afterwards, so
+ * ranking and recording never take a lock. Exports payment.routing.latency.ewma (ms) and
+ * payment.routing.success.ewma per provider.
+ */
+@Component
+public class UpiRouter {
+
+    public static final Set<PaymentProvider> UPI_PROVIDERS =
+            Collections.unmodifiableSet(EnumSet.of(PaymentProvider.PHONEPE, PaymentProvider.PAYTM, PaymentProvider.GOOGLEPAY));
+
+    private static final double MIN_SUCCESS_RATE = 0.01;
+
+    private final RoutingSettings settings;
+    private final Map<PaymentProvider, Stats> stats = new EnumMap<>(PaymentProvider.class);
+
+    public UpiRouter(RoutingSettings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        for (PaymentProvider provider : UPI_PROVIDERS) {
+            Stats providerStats = new Stats();
+            stats.put(provider, providerStats);
+            Tags tags = Tags.of("provider", provider.name());
+            Gauge.builder("payment.routing.latency.ewma", providerStats, s -> s.latencyNanos() / 1_000_000.0)
+                    .description("Smoothed initiate latency used for routing")
+                    .tags(tags)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("payment.routing.success.ewma", providerStats, Stats::successRate)
+                    .description("Smoothed initiate success rate used for routing")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * UPI providers best first. The preferred provider wins ties, so it is tried first until
+     * there is data saying otherwise. A provider without any recorded call ranks ahead of every
+     * measured one, so it gets its first samples instead of never being tried.
+     */
+    public List<PaymentProvider> route(PaymentProvider preferred) {
+        List<PaymentProvider> ranked = new ArrayList<>(UPI_PROVIDERS.size());
+        if (stats.containsKey(preferred)) {
+            ranked.add(preferred);
+        }
+        for (PaymentProvider provider : UPI_PROVIDERS) {
+            if (provider != preferred) {
+                ranked.add(provider);
+            }
+        }
+
+        // Costs are read once, so concurrent updates cannot reorder the list mid-sort
+        double[] costs = new double[ranked.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = stats.get(ranked.get(i)).cost();
+        }
+        for (int i = 1; i < costs.length; i++) {
+            for (int j = i; j > 0 && costs[j] < costs[j - 1]; j--) { // stable insertion sort
+                double cost = costs[j];
+                costs[j] = costs[j - 1];
+                costs[j - 1] = cost;
+                ranked.set(j - 1, ranked.set(j, ranked.get(j - 1)));
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (ranked.size() > 1 && random.nextDouble() < settings.exploration()) {
+            ranked.add(0, ranked.remove(1 + random.nextInt(ranked.size() - 1)));
+        }
+        return ranked;
+    }
+
+    public void record(PaymentProvider provider, long latencyNanos, boolean success) {
+        Stats providerStats = stats.get(provider);
+        if (providerStats != null) {
+            providerStats.update(latencyNanos, success ? 1.0 : 0.0, settings.ewmaAlpha());
+        }
+    }
+
+    /**
+     * Feeds the initiate calls of a UPI provider into the router; other providers are returned as is.
+     */
+    public PaymentProviderService observe(PaymentProviderService provider) {
+        return stats.containsKey(provider.getProvider()) ? new RouteObservingProvider(provider, this) : provider;
+    }
+
+    private static final class Stats {
+        // doubles stored as raw long bits; NaN until the first call
+        private final AtomicLong latency = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+        private final AtomicLong success = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+
+        void update(long latencyNanos, double outcome, double alpha) {
+            blend(latency, latencyNanos, alpha);
+            blend(success, outcome, alpha);
+        }
+
+        /** Unknown providers cost nothing, so they get tried and measured. */
+        double cost() {
+            double latencyNanos = Double.longBitsToDouble(latency.get());
+            if (Double.isNaN(latencyNanos)) {
+                return 0;
+            }
+            return latencyNanos / Math.max(successRate(), MIN_SUCCESS_RATE);
+        }
+
+        double latencyNanos() {
+            double value = Double.longBitsToDouble(latency.get());
+            return Double.isNaN(value) ? 0 : value;
+        }
+
+        double successRate() {
+            double value = Double.longBitsToDouble(success.get());
+            return Double.isNaN(value) ? 1.0 : value;
+        }
+
+        private static void blend(AtomicLong average, double sample, double alpha) {
+            while (true) {
+                long currentBits = average.get();
+                double current = Double.longBitsToDouble(currentBits);
+                double next = Double.isNaN(current) ? sample : current + alpha * (sample - current);
+                if (average.compareAndSet(currentBits, Double.doubleToRawLongBits(next))) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.PaymentProvider;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link PaymentProviderService}.
+ * The returned future completes when the provider has answered; callers never block on it.
+ */
+public interface AsyncPaymentProviderService {
+
+    PaymentProvider getProvider();
+
+    CompletableFuture<ProviderResponse> initiatePayment(Payment payment);
+
+    CompletableFuture<ProviderResponse> refundPayment(Payment payment, String reason);
+
+    CompletableFuture<ProviderStatusResponse> queryPaymentStatus(Payment payment);
+}
@@ -0,0 +1,11 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.BatchInitiatePaymentResponse;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+
+import java.util.List;
+
+public interface BatchPaymentService {
+
+    BatchInitiatePaymentResponse initiatePayments(List<InitiatePaymentRequest> requests);
+}
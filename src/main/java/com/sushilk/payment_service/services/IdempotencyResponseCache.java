@@ -0,0 +1,224 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache of initiate-payment results keyed by idempotency key.
+ *
+ * - Finished responses are replayed with the payment's current status, re-read by primary key,
+ *   so a retry sees the same status as the database path would (e.g. SUCCESS after a webhook)
+ *   without the idempotency-key lookup and initiation work. The status changes on webhook, poller
+ *   and refund paths of any node, so it is not cached until it is final (FAILED, REFUNDED): from
+ *   then on the entry holds it and replays cost no query
+ * - Concurrent duplicates wait on the first in-flight computation instead of racing it
+ *   into the unique constraint on Payment.idempotencyKey, and get its response as computed
+ * - Keys are spread over lock stripes, each an access-ordered LRU map with a hard bound: a full
+ *   stripe evicts its least recently used finished entry, and when every entry is in flight the
+ *   new computation runs uncached (the database still deduplicates it)
+ * - Entries expire after a fixed TTL; failed computations are never cached
+ */
+@Component
+@Slf4j
+public class IdempotencyResponseCache {
+
+    private static final EnumSet<PaymentStatus> FINAL_STATUSES = EnumSet.of(PaymentStatus.FAILED, PaymentStatus.REFUNDED);
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long ttlNanos;
+
+    public IdempotencyResponseCache(
+            @Value("${payment.idempotency.cache.max-entries:10000}") int maxEntries,
+            @Value("${payment.idempotency.cache.stripes:16}") int stripeCount,
+            @Value("${payment.idempotency.cache.ttl:PT10M}") Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("max-entries must be positive: " + maxEntries);
+        }
+        int stripesPow2 = 1;
+        while (stripesPow2 < stripeCount && stripesPow2 * 2 <= maxEntries) {
+            stripesPow2 <<= 1;
+        }
+
+        // The stripe bounds add up to exactly maxEntries
+        this.stripes = new Stripe[stripesPow2];
+        for (int i = 0; i < stripesPow2; i++) {
+            stripes[i] = new Stripe(maxEntries / stripesPow2 + (i < maxEntries % stripesPow2 ? 1 : 0));
+        }
+        this.stripeMask = stripesPow2 - 1;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached response for the key with its status refreshed through currentStatus,
+     * waits for an in-flight computation of the same key, or runs the loader and caches its result.
+     */
+    public InitiatePaymentResponse getOrCompute(String idempotencyKey, Supplier<InitiatePaymentResponse> loader,
+                                                Function<UUID, Optional<PaymentStatus>> currentStatus) {
+        Stripe stripe = stripeFor(idempotencyKey);
+        CachedResult hit = null;
+        CompletableFuture<InitiatePaymentResponse> owned = null;
+
+        stripe.lock.lock();
+        try {
+            CachedResult entry = stripe.entries.get(idempotencyKey);
+            if (entry != null && !entry.isExpired(System.nanoTime(), ttlNanos)) {
+                hit = entry;
+            } else if (entry != null || stripe.makeRoom()) {
+                owned = new CompletableFuture<>();
+                stripe.entries.put(idempotencyKey, CachedResult.inFlight(owned));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (hit != null) {
+            log.debug("Idempotency cache hit for key: {}", idempotencyKey);
+            InitiatePaymentResponse response = await(hit.future());
+            if (hit.pending() || FINAL_STATUSES.contains(response.status())) {
+                return response; // computed while this request waited, or cannot change any more
+            }
+            InitiatePaymentResponse current = currentStatus.apply(response.paymentId())
+                    .map(status -> new InitiatePaymentResponse(response.paymentId(), status))
+                    .orElse(response);
+            if (FINAL_STATUSES.contains(current.status())) {
+                stripe.replace(idempotencyKey, hit.future(),
+                        CachedResult.completed(CompletableFuture.completedFuture(current), hit.completedAtNanos()));
+            }
+            return current;
+        }
+        if (owned == null) {
+            log.debug("Idempotency cache stripe full of in-flight keys, computing {} uncached", idempotencyKey);
+            return loader.get();
+        }
+
+        try {
+            InitiatePaymentResponse response = loader.get();
+            stripe.replace(idempotencyKey, owned, CachedResult.completed(owned, System.nanoTime()));
+            owned.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            stripe.remove(idempotencyKey, owned);
+            owned.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Entries currently held, in flight or finished; never more than the configured bound. */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & stripeMask];
+    }
+
+    private static InitiatePaymentResponse await(CompletableFuture<InitiatePaymentResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record CachedResult(CompletableFuture<InitiatePaymentResponse> future, long completedAtNanos, boolean pending) {
+
+        static CachedResult inFlight(CompletableFuture<InitiatePaymentResponse> future) {
+            return new CachedResult(future, 0L, true);
+        }
+
+        static CachedResult completed(CompletableFuture<InitiatePaymentResponse> future, long nowNanos) {
+            return new CachedResult(future, nowNanos, false);
+        }
+
+        boolean isExpired(long nowNanos, long ttlNanos) {
+            return !pending && nowNanos - completedAtNanos >= ttlNanos;
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Frees a slot for a new key by evicting the least recently used finished entry; false when
+         * the stripe is full of in-flight entries, which are never evicted since waiters depend on them.
+         * Called with the lock held.
+         */
+        boolean makeRoom() {
+            if (entries.size() < capacity) {
+                return true;
+            }
+            Iterator<CachedResult> lru = entries.values().iterator();
+            while (lru.hasNext()) {
+                if (!lru.next().pending()) {
+                    lru.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void replace(String key, CompletableFuture<InitiatePaymentResponse> owner, CachedResult replacement) {
+            lock.lock();
+            try {
+                CachedResult current = entries.get(key);
+                if (current != null && current.future() == owner) {
+                    entries.put(key, replacement);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(String key, CompletableFuture<InitiatePaymentResponse> owner) {
+            lock.lock();
+            try {
+                CachedResult current = entries.get(key);
+                if (current != null && current.future() == owner) {
+                    entries.remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package com.sushilk.payment_service.services;
 
 import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.metrics.PaymentMetrics;
+import com.sushilk.payment_service.resilience.ProviderGuards;
+import com.sushilk.payment_service.routing.UpiRouter;
+import com.sushilk.payment_service.services.impl.ExecutorBackedAsyncProvider;
+import com.sushilk.payment_service.services.impl.InstrumentedPaymentProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Component
 public class PaymentProviderFactory {
 
     private final Map<PaymentProvider, PaymentProviderService> providerMap;
-
-    public PaymentProviderFactory(List<PaymentProviderService> providers) {
+    private final Map<PaymentProvider, AsyncPaymentProviderService> asyncProviderMap;
+
+    public PaymentProviderFactory(List<PaymentProviderService> providers,
+                                  @Qualifier("providerExecutor") ExecutorService providerExecutor,
+                                  PaymentMetrics metrics,
+                                  ProviderGuards providerGuards,
+                                  UpiRouter upiRouter) {
+        // Each provider gets its own bulkhead/breaker (isolation), observed by the UPI router
+        // (rejections count as failures) and wrapped by the step timer
         this.providerMap = providers.stream()
                 .collect(Collectors.toMap(
                         PaymentProviderService::getProvider, // Enum key
-                        Function.identity()
+                        provider -> new InstrumentedPaymentProvider(
+                                upiRouter.observe(providerGuards.guard(provider)), metrics)
+                ));
+        this.asyncProviderMap = providerMap.values().stream()
+                .collect(Collectors.toMap(
+                        PaymentProviderService::getProvider,
+                        provider -> new ExecutorBackedAsyncProvider(provider, providerExecutor)
                 ));
     }
 
@@ -28,6 +47,14 @@ public class PaymentProviderFactory {
         }
         return service;
     }
+
+    public AsyncPaymentProviderService getAsyncProvider(PaymentProvider provider) {
+        AsyncPaymentProviderService service = asyncProviderMap.get(provider);
+        if (service == null) {
+            throw new IllegalArgumentException("No provider found for: " + provider);
+        }
+        return service;
+    }
 }
 
 
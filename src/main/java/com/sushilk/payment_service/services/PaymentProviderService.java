@@ -1,7 +1,9 @@
 package com.sushilk.payment_service.services;
 
 import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
 import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
 import com.sushilk.payment_service.enums.PaymentProvider;
 
 public interface PaymentProviderService {
@@ -11,5 +13,18 @@ public interface PaymentProviderService {
     ProviderResponse initiatePayment(Payment payment);
 
     ProviderResponse refundPayment(Payment payment, String reason);
+
+    /**
+     * Asks the provider for the current status of a payment initiated earlier, for payments whose
+     * outcome never arrived by webhook. Looked up by our paymentId, which is sent on initiation.
+     */
+    ProviderStatusResponse queryPaymentStatus(Payment payment);
+
+    /**
+     * Asks the provider for the outcome of a refund whose answer never arrived, e.g. the call
+     * timed out or the node crashed during it. Refunds are kept under the original payment, so
+     * this is looked up by our paymentId and the refund's amount.
+     */
+    ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund);
 }
 
@@ -0,0 +1,19 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.PaymentPage;
+import com.sushilk.payment_service.dtos.PaymentView;
+import com.sushilk.payment_service.enums.PaymentStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface PaymentQueryService {
+
+    PaymentView getPayment(UUID paymentId);
+
+    /**
+     * A user's payments newest first, optionally filtered by status and by createdAt >= from.
+     * cursor is the nextCursor of the previous page, or null for the first page.
+     */
+    PaymentPage listPayments(String userId, PaymentStatus status, LocalDateTime from, String cursor, int limit);
+}
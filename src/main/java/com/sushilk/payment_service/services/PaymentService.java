@@ -3,11 +3,24 @@ package com.sushilk.payment_service.services;
 import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
 import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
 import com.sushilk.payment_service.dtos.RefundRequest;
+import com.sushilk.payment_service.enums.PaymentStatus;
+
+import java.util.Optional;
+import java.util.UUID;
 
 public interface PaymentService {
 
     InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request);
 
+    /**
+     * Persists the payment and returns immediately; the provider call completes in the
+     * background and updates the attempt, transaction and payment status when it answers.
+     */
+    InitiatePaymentResponse initiatePaymentAsync(InitiatePaymentRequest request);
+
     void refundPayment(RefundRequest request);
+
+    /** The payment's status as committed now, read on its shard's primary; empty if there is no such payment. */
+    Optional<PaymentStatus> currentStatus(UUID paymentId);
 }
 
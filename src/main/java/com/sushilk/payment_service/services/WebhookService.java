@@ -0,0 +1,13 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.WebhookReceipt;
+
+public interface WebhookService {
+
+    /**
+     * Stores a provider's status notification for asynchronous processing. The payload must be
+     * a JSON object with eventId, transactionId and status, signed with the provider's webhook
+     * secret (hex HMAC-SHA256 of the payload); unsigned or mis-signed events are rejected.
+     */
+    WebhookReceipt receive(String provider, String payload, String signature);
+}
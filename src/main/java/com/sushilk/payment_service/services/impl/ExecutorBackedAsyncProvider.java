@@ -0,0 +1,44 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.services.AsyncPaymentProviderService;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link PaymentProviderService} to the async contract by running each call
+ * on the given executor (a virtual thread per call by default), so the caller's thread is
+ * released for the whole provider round trip.
+ */
+@RequiredArgsConstructor
+public class ExecutorBackedAsyncProvider implements AsyncPaymentProviderService {
+
+    private final PaymentProviderService delegate;
+    private final Executor executor;
+
+    @Override
+    public PaymentProvider getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public CompletableFuture<ProviderResponse> initiatePayment(Payment payment) {
+        return CompletableFuture.supplyAsync(() -> delegate.initiatePayment(payment), executor);
+    }
+
+    @Override
+    public CompletableFuture<ProviderResponse> refundPayment(Payment payment, String reason) {
+        return CompletableFuture.supplyAsync(() -> delegate.refundPayment(payment, reason), executor);
+    }
+
+    @Override
+    public CompletableFuture<ProviderStatusResponse> queryPaymentStatus(Payment payment) {
+        return CompletableFuture.supplyAsync(() -> delegate.queryPaymentStatus(payment), executor);
+    }
+}
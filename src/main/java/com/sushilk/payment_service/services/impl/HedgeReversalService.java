@@ -0,0 +1,157 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentAttempt;
+import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.repositories.PaymentAttemptRepository;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.services.PaymentProviderFactory;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Refunds the losing side of a hedged AUTO_UPI payment that both providers accepted.
+ *
+ * PaymentServiceImpl marks such an attempt REVERSAL_PENDING in the same transaction that records
+ * it, then asks the attempt's provider for a refund at once. A refund that fails or never returns
+ * leaves the attempt REVERSAL_PENDING, and the sweep here retries it on every shard until the
+ * provider confirms and the attempt becomes REVERSED.
+ *
+ * A losing call that failed after it may have reached its provider (e.g. timed out) is
+ * OUTCOME_UNKNOWN. The same sweep asks that provider for the payment's status: SUCCESS makes the
+ * attempt REVERSAL_PENDING and reverses it, FAILED or NOT_FOUND makes it FAILED, and anything
+ * else is asked again on a later sweep.
+ */
+@Service
+@Slf4j
+public class HedgeReversalService {
+
+    static final String REVERSAL_REASON = "Duplicate collection from a hedged attempt";
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentAttemptRepository attemptRepository;
+    private final PaymentProviderFactory providerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shards;
+    private final Duration retryAfter;
+    private final int batchSize;
+
+    public HedgeReversalService(
+            PaymentRepository paymentRepository,
+            PaymentAttemptRepository attemptRepository,
+            PaymentProviderFactory providerFactory,
+            TransactionTemplate transactionTemplate,
+            ShardDirectory shards,
+            @Value("${payment.routing.reversal-retry-after:PT1M}") Duration retryAfter,
+            @Value("${payment.recovery.batch-size:100}") int batchSize) {
+        this.paymentRepository = paymentRepository;
+        this.attemptRepository = attemptRepository;
+        this.providerFactory = providerFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.retryAfter = retryAfter;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Refunds the attempt's collection through the provider that made it. Must run on the
+     * payment's shard with the attempt already committed as REVERSAL_PENDING.
+     */
+    public void reverse(Payment payment, PaymentAttempt attempt) {
+        try {
+            // The payment row carries the winner's provider; the refund goes to the loser's
+            ProviderResponse response = providerFactory.getProvider(attempt.getProvider())
+                    .refundPayment(payment.toBuilder().provider(attempt.getProvider()).build(), REVERSAL_REASON);
+            if (!response.success()) {
+                log.warn("Provider {} declined the reversal of attempt {} for payment: {}, will retry",
+                        attempt.getProvider(), attempt.getAttemptNo(), payment.getPaymentId());
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                attempt.setStatus(PaymentAttemptStatus.REVERSED);
+                attemptRepository.save(attempt);
+            });
+            log.info("Reversed hedged attempt {} via {} for payment: {}",
+                    attempt.getAttemptNo(), attempt.getProvider(), payment.getPaymentId());
+        } catch (Exception e) {
+            log.error("Failed to reverse hedged attempt {} via {} for payment: {}, will retry",
+                    attempt.getAttemptNo(), attempt.getProvider(), payment.getPaymentId(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.recovery.interval:PT1M}")
+    public void retryPending() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retryAfter);
+        shards.forEachShard(shard -> retryPending(cutoff));
+    }
+
+    private void retryPending(LocalDateTime cutoff) {
+        List<PaymentAttempt> pending = attemptRepository.findByStatusAndUpdatedAtBefore(
+                PaymentAttemptStatus.REVERSAL_PENDING, cutoff, Limit.of(batchSize));
+        for (PaymentAttempt attempt : pending) {
+            paymentRepository.findById(attempt.getPaymentId())
+                    .ifPresent(payment -> reverse(payment, attempt));
+        }
+
+        List<PaymentAttempt> unknown = attemptRepository.findByStatusAndUpdatedAtBefore(
+                PaymentAttemptStatus.OUTCOME_UNKNOWN, cutoff, Limit.of(batchSize));
+        for (PaymentAttempt attempt : unknown) {
+            paymentRepository.findById(attempt.getPaymentId())
+                    .ifPresent(payment -> resolve(payment, attempt));
+        }
+    }
+
+    private void resolve(Payment payment, PaymentAttempt attempt) {
+        ProviderStatusResponse answer;
+        try {
+            // Asked through the attempt's own provider, which the payment row does not carry
+            answer = providerFactory.getProvider(attempt.getProvider())
+                    .queryPaymentStatus(payment.toBuilder().provider(attempt.getProvider()).build());
+        } catch (Exception e) {
+            log.warn("Status query of hedged attempt {} via {} failed for payment: {}, will retry: {}",
+                    attempt.getAttemptNo(), attempt.getProvider(), payment.getPaymentId(), e.getMessage());
+            answer = null;
+        }
+
+        PaymentAttemptStatus next;
+        if (answer == null || answer.status() == ProviderPaymentStatus.PENDING) {
+            next = PaymentAttemptStatus.OUTCOME_UNKNOWN;
+        } else if (answer.status() == ProviderPaymentStatus.SUCCESS) {
+            next = PaymentAttemptStatus.REVERSAL_PENDING;
+        } else {
+            next = PaymentAttemptStatus.FAILED;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                attempt.setStatus(next);
+                // Moves an unanswered attempt behind the others for the next sweep
+                attempt.setUpdatedAt(LocalDateTime.now());
+                attemptRepository.save(attempt);
+            });
+        } catch (Exception e) {
+            log.error("Failed to record status of hedged attempt {} for payment: {}",
+                    attempt.getAttemptNo(), payment.getPaymentId(), e);
+            return;
+        }
+        if (next == PaymentAttemptStatus.REVERSAL_PENDING) {
+            log.warn("Hedged attempt {} via {} turned out accepted for payment: {}, reversing it",
+                    attempt.getAttemptNo(), attempt.getProvider(), payment.getPaymentId());
+            reverse(payment, attempt);
+        } else if (next == PaymentAttemptStatus.FAILED) {
+            log.info("Hedged attempt {} via {} resolved as {} for payment: {}",
+                    attempt.getAttemptNo(), attempt.getProvider(), answer.status(), payment.getPaymentId());
+        }
+    }
+}
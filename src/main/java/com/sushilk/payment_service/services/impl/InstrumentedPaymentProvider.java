@@ -0,0 +1,56 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.metrics.PaymentMetrics;
+import com.sushilk.payment_service.metrics.PaymentStep;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records the provider_call step around every call to the wrapped provider, whichever flow
+ * (sync, async or batch) makes it. Outcome is success, declined (provider answered success=false)
+ * or error (the call threw).
+ */
+@RequiredArgsConstructor
+public class InstrumentedPaymentProvider implements PaymentProviderService {
+
+    private final PaymentProviderService delegate;
+    private final PaymentMetrics metrics;
+
+    @Override
+    public PaymentProvider getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public ProviderResponse initiatePayment(Payment payment) {
+        return metrics.time(PaymentStep.PROVIDER_CALL, payment.getProvider(), payment.getPaymentMethod(),
+                () -> delegate.initiatePayment(payment), InstrumentedPaymentProvider::outcome);
+    }
+
+    @Override
+    public ProviderResponse refundPayment(Payment payment, String reason) {
+        return metrics.time(PaymentStep.REFUND_PROVIDER_CALL, payment.getProvider(), payment.getPaymentMethod(),
+                () -> delegate.refundPayment(payment, reason), InstrumentedPaymentProvider::outcome);
+    }
+
+    @Override
+    public ProviderStatusResponse queryPaymentStatus(Payment payment) {
+        return metrics.time(PaymentStep.STATUS_PROVIDER_CALL, payment.getProvider(), payment.getPaymentMethod(),
+                () -> delegate.queryPaymentStatus(payment));
+    }
+
+    @Override
+    public ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund) {
+        return metrics.time(PaymentStep.REFUND_STATUS_PROVIDER_CALL, payment.getProvider(), payment.getPaymentMethod(),
+                () -> delegate.queryRefundStatus(payment, refund));
+    }
+
+    private static String outcome(ProviderResponse response) {
+        return response.success() ? PaymentMetrics.SUCCESS : PaymentMetrics.DECLINED;
+    }
+}
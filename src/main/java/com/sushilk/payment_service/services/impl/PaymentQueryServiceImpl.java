@@ -0,0 +1,78 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.PaymentCursor;
+import com.sushilk.payment_service.dtos.PaymentPage;
+import com.sushilk.payment_service.dtos.PaymentSummary;
+import com.sushilk.payment_service.dtos.PaymentView;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.exceptions.PaymentNotFoundException;
+import com.sushilk.payment_service.replica.RecentWrites;
+import com.sushilk.payment_service.replica.ReplicaRouting;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.services.PaymentQueryService;
+import com.sushilk.payment_service.sharding.ShardRouting;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read side of payments. Rows are selected straight into response records, and lists use
+ * keyset pagination on (userId, createdAt, paymentId) so every page costs one index seek
+ * plus limit rows, however deep the client pages.
+ * <p>
+ * Reads are read-only transactions, so they are served by the replica when one is configured,
+ * except for payments and users this node wrote within the read-your-writes window. With sharding,
+ * a payment is read from the shard its id points to and a user's list from the user's shard.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PaymentQueryServiceImpl implements PaymentQueryService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final PaymentRepository paymentRepository;
+    private final RecentWrites recentWrites;
+
+    @Override
+    public PaymentView getPayment(UUID paymentId) {
+        return ShardRouting.forPayment(paymentId, () -> recentWrites.isRecent(paymentId)
+                ? ReplicaRouting.onPrimary(() -> paymentRepository.findViewById(paymentId))
+                : paymentRepository.findViewById(paymentId))
+                .orElseThrow(() -> new PaymentNotFoundException("Payment not found: " + paymentId));
+    }
+
+    @Override
+    public PaymentPage listPayments(String userId, PaymentStatus status, LocalDateTime from, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        // One extra row tells whether another page exists without a count query
+        Limit fetch = Limit.of(limit + 1);
+        List<PaymentSummary> rows = ShardRouting.forUser(userId, () -> recentWrites.isRecent(userId)
+                ? ReplicaRouting.onPrimary(() -> fetchPage(userId, status, from, cursor, fetch))
+                : fetchPage(userId, status, from, cursor, fetch));
+
+        if (rows.size() <= limit) {
+            return new PaymentPage(rows, null);
+        }
+        List<PaymentSummary> page = rows.subList(0, limit);
+        return new PaymentPage(List.copyOf(page), PaymentCursor.after(page.get(limit - 1)).encode());
+    }
+
+    private List<PaymentSummary> fetchPage(String userId, PaymentStatus status, LocalDateTime from,
+                                           String cursor, Limit fetch) {
+        if (cursor == null || cursor.isBlank()) {
+            return paymentRepository.findFirstPage(userId, status, from, fetch);
+        }
+        PaymentCursor position = PaymentCursor.decode(cursor);
+        return paymentRepository.findPageAfter(userId, position.createdAt(), position.paymentId(), status, from, fetch);
+    }
+}
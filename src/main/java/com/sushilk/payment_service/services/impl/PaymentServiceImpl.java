@@ -1,8 +1,5 @@
 package com.sushilk.payment_service.services.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.MapType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
 import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
 import com.sushilk.payment_service.dtos.ProviderResponse;
@@ -12,64 +9,382 @@ import com.sushilk.payment_service.entities.PaymentAttempt;
 import com.sushilk.payment_service.entities.PaymentTransaction;
 import com.sushilk.payment_service.entities.Refund;
 import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
 import com.sushilk.payment_service.enums.PaymentStatus;
 import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.enums.RoutingMode;
 import com.sushilk.payment_service.enums.TransactionStatus;
 import com.sushilk.payment_service.enums.TransactionType;
 import com.sushilk.payment_service.exceptions.PaymentNotFoundException;
+import com.sushilk.payment_service.exceptions.ProviderUnavailableException;
+import com.sushilk.payment_service.metrics.PaymentMetrics;
+import com.sushilk.payment_service.metrics.PaymentStep;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.replica.RecentWrites;
 import com.sushilk.payment_service.repositories.PaymentAttemptRepository;
 import com.sushilk.payment_service.repositories.PaymentRepository;
 import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
 import com.sushilk.payment_service.repositories.RefundRepository;
+import com.sushilk.payment_service.routing.RoutingSettings;
+import com.sushilk.payment_service.routing.UpiRouter;
+import com.sushilk.payment_service.sharding.ShardRouting;
 import com.sushilk.payment_service.services.PaymentProviderFactory;
 import com.sushilk.payment_service.services.PaymentProviderService;
 import com.sushilk.payment_service.services.PaymentService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final int MAX_CONFLICT_RETRIES = 5;
+
     private final PaymentRepository paymentRepository;
     private final PaymentAttemptRepository attemptRepository;
     private final PaymentProviderFactory providerFactory;
     private final PaymentTransactionRepository transactionRepository;
     private final RefundRepository refundRepository;
-    private final ObjectMapper objectMapper;
+    private final RequestPayloadSerializer requestPayloadSerializer;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService providerExecutor;
+    private final PaymentMetrics metrics;
+    private final UpiRouter upiRouter;
+    private final RoutingSettings routingSettings;
+    private final OutboxWriter outbox;
+    private final RecentWrites recentWrites;
+    private final HedgeReversalService hedgeReversals;
 
     @Override
-    @Transactional
     public InitiatePaymentResponse initiatePayment(InitiatePaymentRequest req) {
+        // Every transaction of the payment runs on the user's shard
+        return ShardRouting.forUser(req.userId(), () -> initiate(req));
+    }
+
+    @Override
+    public InitiatePaymentResponse initiatePaymentAsync(InitiatePaymentRequest req) {
+        return ShardRouting.forUser(req.userId(), () -> initiateAsync(req));
+    }
+
+    private InitiatePaymentResponse initiate(InitiatePaymentRequest req) {
         log.info("Initiating payment for user: {}, orderId: {}, idempotencyKey: {}", 
                 req.userId(), req.orderId(), req.idempotencyKey());
 
+        // AUTO_UPI starts on the router's best UPI provider and may move on to the next ones
+        boolean autoRouted = req.routing() == RoutingMode.AUTO_UPI;
+        List<PaymentProvider> route = autoRouted ? upiRouter.route(req.provider()) : List.of(req.provider());
+
+        // Phase 1 - persist Payment, PaymentAttempt and PaymentTransaction in a short transaction
+        Initiation initiation = beginInitiation(req, route.get(0));
+        Payment payment = initiation.payment();
+        if (initiation.existing()) {
+            return new InitiatePaymentResponse(payment.getPaymentId(), payment.getStatus());
+        }
+
+        // Phase 2 - call the provider without holding a connection or transaction
+        ProviderCall call = autoRouted ? callRouted(initiation, route) : callProvider(initiation);
+
+        // Phase 3 - record the provider outcome in a short transaction
+        payment = recordInitiationOutcome(call.initiation(), call.response());
+
+        // A successful call leaves the payment PROCESSING; the final SUCCESS/FAILED arrives on
+        // POST /webhooks/{provider} and is applied by WebhookEventProcessor.
+
+        return new InitiatePaymentResponse(payment.getPaymentId(), payment.getStatus());
+    }
+
+    private InitiatePaymentResponse initiateAsync(InitiatePaymentRequest req) {
+        log.info("Initiating async payment for user: {}, orderId: {}, idempotencyKey: {}",
+                req.userId(), req.orderId(), req.idempotencyKey());
+
+        // AUTO_UPI picks the best UPI provider up front; failover and hedging need the sync flow
+        PaymentProvider provider = req.routing() == RoutingMode.AUTO_UPI
+                ? upiRouter.route(req.provider()).get(0) : req.provider();
+
+        // Phase 1 - persist synchronously so the caller gets a durable paymentId
+        Initiation initiation = beginInitiation(req, provider);
+        Payment payment = initiation.payment();
+        InitiatePaymentResponse response = new InitiatePaymentResponse(payment.getPaymentId(), payment.getStatus());
+        if (initiation.existing()) {
+            return response;
+        }
+
+        // Phases 2 and 3 run on the provider executor, never on the request thread
+        providerFactory.getAsyncProvider(provider)
+                .initiatePayment(payment)
+                .whenCompleteAsync((providerResponse, error) -> ShardRouting.forPayment(payment.getPaymentId(), () -> {
+                    try {
+                        if (error != null) {
+                            log.error("Error during async payment initiation for payment: {}",
+                                    payment.getPaymentId(), error);
+                            failInitiationIfRejected(initiation, error);
+                        } else {
+                            recordInitiationOutcome(initiation, providerResponse);
+                        }
+                    } catch (Exception e) {
+                        // Left INITIATED; PaymentStatusPoller settles it
+                        log.error("Failed to record provider outcome for payment: {}", payment.getPaymentId(), e);
+                    }
+                    return null;
+                }), providerExecutor);
+
+        return response;
+    }
+
+    private ProviderCall callProvider(Initiation initiation) {
+        Payment payment = initiation.payment();
+        try {
+            PaymentProviderService provider = providerFactory.getProvider(payment.getProvider());
+            return new ProviderCall(initiation, provider.initiatePayment(payment));
+        } catch (Exception e) {
+            log.error("Error during payment initiation for payment: {}", payment.getPaymentId(), e);
+            failInitiationIfRejected(initiation, e);
+            throw initiationFailure(e);
+        }
+    }
+
+    /**
+     * AUTO_UPI: walks the router's ranking. A call failing within fast-failure moves the payment
+     * to the next provider as a new attempt; with hedging on, a call still pending after
+     * hedge-after is raced against the next provider and the first success wins.
+     */
+    private ProviderCall callRouted(Initiation initiation, List<PaymentProvider> route) {
+        RouteCursor cursor = new RouteCursor(route, initiation);
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                return routingSettings.hedgeEnabled() && cursor.hasNext()
+                        ? callHedged(cursor)
+                        : new ProviderCall(cursor.current(), providerFactory.getProvider(cursor.provider())
+                                .initiatePayment(cursor.current().payment()));
+            } catch (Exception e) {
+                Initiation failed = cursor.current();
+                boolean fastFailure = System.nanoTime() - start <= routingSettings.fastFailure().toNanos();
+                if (fastFailure && cursor.hasNext()) {
+                    PaymentProvider fallback = cursor.advance();
+                    int attemptNo = cursor.nextAttemptNo();
+                    log.warn("Provider {} failed fast for payment: {}, failing over to {}: {}",
+                            failed.attempt().getProvider(), failed.payment().getPaymentId(), fallback, e.getMessage());
+                    cursor.moveTo(transactionTemplate.execute(status -> failOver(failed, fallback, attemptNo)));
+                    continue;
+                }
+                log.error("Error during payment initiation for payment: {}", failed.payment().getPaymentId(), e);
+                failInitiationIfRejected(failed, e);
+                throw initiationFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Gives the current provider hedge-after to answer, then opens an attempt on the next one
+     * and races both. The losing call is still recorded on its own attempt when it completes.
+     */
+    private ProviderCall callHedged(RouteCursor cursor) throws Exception {
+        Initiation primary = cursor.current();
+        CompletableFuture<ProviderResponse> primaryCall = providerFactory.getAsyncProvider(cursor.provider())
+                .initiatePayment(primary.payment());
+        try {
+            return new ProviderCall(primary, primaryCall.get(routingSettings.hedgeAfter().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException slow) {
+            // fall through to the hedge
+        }
+
+        PaymentProvider fallback = cursor.advance();
+        int attemptNo = cursor.nextAttemptNo();
+        Initiation hedge = transactionTemplate.execute(status -> openHedge(primary, fallback, attemptNo));
+        log.info("Provider {} slow for payment: {}, hedging with {}",
+                primary.attempt().getProvider(), primary.payment().getPaymentId(), fallback);
+        // The hedge sees its own provider on a detached copy; the payment row keeps the winner's
+        CompletableFuture<ProviderResponse> hedgeCall = providerFactory.getAsyncProvider(fallback)
+                .initiatePayment(primary.payment().toBuilder().provider(fallback).build());
+
+        CompletableFuture<HedgeOutcome> race = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        primaryCall.whenComplete((response, error) -> settleRace(race, pending, primary, response, error));
+        hedgeCall.whenComplete((response, error) -> settleRace(race, pending, hedge, response, error));
+        HedgeOutcome outcome = race.get();
+
+        boolean primaryWon = outcome.initiation() == primary;
+        Initiation loser = primaryWon ? hedge : primary;
+        (primaryWon ? hedgeCall : primaryCall).whenCompleteAsync((response, error) -> ShardRouting.forPayment(
+                loser.payment().getPaymentId(), () -> settleHedgeLoser(loser, response, error)), providerExecutor);
+
+        cursor.moveTo(outcome.initiation());
+        if (outcome.error() != null) {
+            throw outcome.error() instanceof Exception e ? e : new RuntimeException(outcome.error());
+        }
+        return new ProviderCall(outcome.initiation(), outcome.response());
+    }
+
+    /**
+     * The first successful call wins; if neither succeeds the race ends with whichever finished last.
+     */
+    private static void settleRace(CompletableFuture<HedgeOutcome> race, AtomicInteger pending,
+                                   Initiation initiation, ProviderResponse response, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause == null && response.success()) {
+            race.complete(new HedgeOutcome(initiation, response, null));
+        } else if (pending.decrementAndGet() == 0) {
+            race.complete(new HedgeOutcome(initiation, response, cause));
+        }
+    }
+
+    /**
+     * Records the losing call on its own attempt. If its provider accepted too, the attempt is
+     * committed as REVERSAL_PENDING before the refund is requested, so HedgeReversalService
+     * retries the reversal until it succeeds. A call that failed after it may have reached the
+     * provider is OUTCOME_UNKNOWN, and HedgeReversalService asks the provider how it ended.
+     */
+    private Void settleHedgeLoser(Initiation loser, ProviderResponse response, Throwable error) {
+        PaymentAttempt attempt = loser.attempt();
+        boolean accepted = error == null && response.success();
+        PaymentAttemptStatus outcome;
+        if (accepted) {
+            outcome = PaymentAttemptStatus.REVERSAL_PENDING;
+        } else if (error == null || ProviderUnavailableException.rejectedBeforeDispatch(error)) {
+            outcome = PaymentAttemptStatus.FAILED;
+        } else {
+            outcome = PaymentAttemptStatus.OUTCOME_UNKNOWN;
+            log.warn("Outcome unknown for hedged attempt {} via {} for payment: {}, left for the status query",
+                    attempt.getAttemptNo(), attempt.getProvider(), attempt.getPaymentId());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                attempt.setStatus(outcome);
+                if (response != null) {
+                    attempt.setResponsePayload(response.rawResponse());
+                }
+                attemptRepository.save(attempt);
+            });
+        } catch (Exception e) {
+            log.error("Failed to record hedged attempt {} for payment: {}", attempt.getAttemptNo(), attempt.getPaymentId(), e);
+            return null;
+        }
+        if (accepted) {
+            log.warn("Hedged attempt {} via {} was also accepted for payment: {}, reversing it",
+                    attempt.getAttemptNo(), attempt.getProvider(), attempt.getPaymentId());
+            hedgeReversals.reverse(loser.payment(), attempt);
+        }
+        return null;
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        return e.getCause() instanceof Exception cause ? cause : e;
+    }
+
+    /**
+     * Only a call the guard refused before dispatch is known not to have reached the provider;
+     * any other failure leaves the payment INITIATED for PaymentStatusPoller to settle.
+     */
+    private void failInitiationIfRejected(Initiation initiation, Throwable error) {
+        if (ProviderUnavailableException.rejectedBeforeDispatch(error)) {
+            transactionTemplate.executeWithoutResult(status -> failInitiation(initiation));
+        } else {
+            log.warn("Outcome unknown for payment: {}, left INITIATED for the status poller",
+                    initiation.payment().getPaymentId());
+        }
+    }
+
+    private static RuntimeException initiationFailure(Exception e) {
+        if (e instanceof ProviderUnavailableException unavailable) {
+            return unavailable; // isolated provider - surfaced as 503 so the client can retry later
+        }
+        return new RuntimeException("Payment initiation failed: " + e.getMessage(), e);
+    }
+
+    private Initiation failOver(Initiation failed, PaymentProvider fallback, int attemptNo) {
+        PaymentAttempt previous = failed.attempt();
+        previous.setStatus(PaymentAttemptStatus.FAILED);
+        attemptRepository.save(previous);
+
+        Payment payment = failed.payment();
+        payment.setProvider(fallback);
+        payment = paymentRepository.save(payment);
+
+        PaymentAttempt attempt = attemptRepository.save(nextAttempt(previous, fallback, attemptNo));
+        log.info("Created payment attempt {} via {} for payment: {}", attempt.getAttemptNo(), fallback, payment.getPaymentId());
+        return new Initiation(payment, attempt, failed.transaction(), false);
+    }
+
+    private Initiation openHedge(Initiation primary, PaymentProvider fallback, int attemptNo) {
+        // The payment row is left alone so the primary's version stays valid for whoever wins
+        PaymentAttempt attempt = attemptRepository.save(nextAttempt(primary.attempt(), fallback, attemptNo));
+        log.info("Created hedged payment attempt {} via {} for payment: {}",
+                attempt.getAttemptNo(), fallback, attempt.getPaymentId());
+        return new Initiation(primary.payment(), attempt, primary.transaction(), false);
+    }
+
+    private static PaymentAttempt nextAttempt(PaymentAttempt previous, PaymentProvider provider, int attemptNo) {
+        return PaymentAttempt.builder()
+                .paymentId(previous.getPaymentId())
+                .provider(provider)
+                .attemptNo(attemptNo)
+                .status(PaymentAttemptStatus.INITIATED)
+                .requestPayload(previous.getRequestPayload())
+                .build();
+    }
+
+    private Initiation beginInitiation(InitiatePaymentRequest req, PaymentProvider provider) {
+        try {
+            Initiation initiation = transactionTemplate.execute(status -> persistInitiation(req, provider));
+            // The client reads this payment next; keep those reads on the primary for a while
+            recentWrites.record(initiation.payment().getPaymentId(), req.userId());
+            return initiation;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same idempotency key committed first
+            Payment existingPayment = paymentRepository.findByIdempotencyKey(req.idempotencyKey())
+                    .orElseThrow(() -> e);
+            log.info("Payment already exists for idempotencyKey: {}, returning existing payment: {}",
+                    req.idempotencyKey(), existingPayment.getPaymentId());
+            return new Initiation(existingPayment, null, null, true);
+        }
+    }
+
+    private Initiation persistInitiation(InitiatePaymentRequest req, PaymentProvider provider) {
         // 1️⃣ Idempotency check - return existing payment if found
-        Payment existingPayment = paymentRepository.findByIdempotencyKey(req.idempotencyKey())
-                .orElse(null);
+        Payment existingPayment = metrics.time(PaymentStep.IDEMPOTENCY_LOOKUP, provider, req.paymentMethod(),
+                () -> paymentRepository.findByIdempotencyKey(req.idempotencyKey()).orElse(null),
+                found -> found != null ? PaymentMetrics.HIT : PaymentMetrics.MISS);
         if (existingPayment != null) {
             log.info("Payment already exists for idempotencyKey: {}, returning existing payment: {}", 
                     req.idempotencyKey(), existingPayment.getPaymentId());
-            return new InitiatePaymentResponse(existingPayment.getPaymentId(), existingPayment.getStatus());
+            return new Initiation(existingPayment, null, null, true);
         }
+        // Inserts below are flushed at commit, so the database write time is recorded there
+        metrics.timeCommit(PaymentStep.PERSIST_COMMIT, provider, req.paymentMethod());
 
-        // 2️⃣ Create Payment (CREATED status)
+        // 2️⃣ Create Payment (INITIATED status)
         Payment.PaymentBuilder paymentBuilder = Payment.builder()
                 .userId(req.userId())
                 .orderId(req.orderId())
                 .orderType(req.orderType())
                 .amount(req.amount())
                 .currency(req.currency())
-                .provider(req.provider())
+                .provider(provider)
                 .paymentMethod(req.paymentMethod())
-                .status(PaymentStatus.CREATED)
+                // Rows are inserted at flush, so the CREATED step never reaches the database
+                .status(PaymentStatus.INITIATED)
                 .idempotencyKey(req.idempotencyKey());
 
         // Set beneficiary details if provided
@@ -84,107 +399,172 @@ public class PaymentServiceImpl implements PaymentService {
                     req.beneficiaryDetails().getMaskedAccount());
         }
 
-        Payment payment = paymentBuilder.build();
-        payment = paymentRepository.save(payment);
+        Payment newPayment = paymentBuilder.build();
+        Payment payment = metrics.time(PaymentStep.PAYMENT_INSERT, provider, req.paymentMethod(),
+                () -> paymentRepository.save(newPayment));
         log.info("Created payment with id: {}", payment.getPaymentId());
 
-        try {
-            // 3️⃣ Create PaymentAttempt (INITIATED status)
-            List<PaymentAttempt> previousAttempts = attemptRepository.findByPaymentId(payment.getPaymentId());
-            int attemptNo = previousAttempts.size() + 1;
+        // 3️⃣ Create PaymentAttempt (INITIATED status) - the payment is new, so this is attempt 1
+        int attemptNo = 1;
 
-            // Log payment details safely (masked) if present
-            if (req.cardDetails() != null) {
-                log.info("Processing card payment with masked card: {}", req.cardDetails().getMaskedCardNumber());
-            }
-            if (req.upiDetails() != null) {
-                log.info("Processing UPI payment with masked UPI ID: {}", req.upiDetails().getMaskedUPIId());
-            }
+        // Log payment details safely (masked) if present
+        if (req.cardDetails() != null) {
+            log.info("Processing card payment with masked card: {}", req.cardDetails().getMaskedCardNumber());
+        }
+        if (req.upiDetails() != null) {
+            log.info("Processing UPI payment with masked UPI ID: {}", req.upiDetails().getMaskedUPIId());
+        }
 
-            PaymentAttempt attempt = PaymentAttempt.builder()
-                    .paymentId(payment.getPaymentId())
-                    .provider(req.provider())
-                    .attemptNo(attemptNo)
-                    .status(PaymentAttemptStatus.INITIATED)
-                    .requestPayload(serializeRequest(req)) // This will mask card details
-                    .build();
-            attempt = attemptRepository.save(attempt);
-            log.info("Created payment attempt {} for payment: {}", attemptNo, payment.getPaymentId());
-
-            // 4️⃣ Create PaymentTransaction (DEBIT, INITIATED)
-            PaymentTransaction transaction = PaymentTransaction.builder()
-                    .paymentId(payment.getPaymentId())
-                    .transactionType(TransactionType.DEBIT)
-                    .amount(req.amount())
-                    .status(TransactionStatus.INITIATED)
-                    .description("Payment initiation for order: " + req.orderId())
-                    .build();
-            transaction = transactionRepository.save(transaction);
-            log.info("Created transaction: {} for payment: {}", transaction.getTransactionId(), payment.getPaymentId());
-
-            // 5️⃣ Update Payment status to INITIATED
-            payment.setStatus(PaymentStatus.INITIATED);
-            payment = paymentRepository.save(payment);
-
-            // 6️⃣ Call Provider
-            PaymentProviderService provider = providerFactory.getProvider(req.provider());
-            ProviderResponse providerResponse = provider.initiatePayment(payment);
-
-            // 7️⃣ Update Attempt with provider response
-            attempt.setResponsePayload(providerResponse.rawResponse());
-            if (providerResponse.success()) {
-                attempt.setStatus(PaymentAttemptStatus.SUCCESS);
-                payment.setStatus(PaymentStatus.PROCESSING);
-                transaction.setStatus(TransactionStatus.SUCCESS);
-                log.info("Provider call successful for payment: {}", payment.getPaymentId());
-            } else {
-                attempt.setStatus(PaymentAttemptStatus.FAILED);
-                payment.setStatus(PaymentStatus.FAILED);
-                transaction.setStatus(TransactionStatus.FAILED);
-                log.warn("Provider call failed for payment: {}", payment.getPaymentId());
-            }
+        PaymentAttempt newAttempt = PaymentAttempt.builder()
+                .paymentId(payment.getPaymentId())
+                .provider(provider)
+                .attemptNo(attemptNo)
+                .status(PaymentAttemptStatus.INITIATED)
+                .requestPayload(requestPayloadSerializer.serialize(req)) // This will mask card details
+                .build();
+        PaymentAttempt attempt = metrics.time(PaymentStep.ATTEMPT_INSERT, provider, req.paymentMethod(),
+                () -> attemptRepository.save(newAttempt));
+        log.info("Created payment attempt {} for payment: {}", attemptNo, payment.getPaymentId());
 
-            attemptRepository.save(attempt);
-            transactionRepository.save(transaction);
-            payment = paymentRepository.save(payment);
+        // 4️⃣ Create PaymentTransaction (DEBIT, INITIATED)
+        PaymentTransaction newTransaction = PaymentTransaction.builder()
+                .paymentId(payment.getPaymentId())
+                .transactionType(TransactionType.DEBIT)
+                .amount(req.amount())
+                .status(TransactionStatus.INITIATED)
+                .description("Payment initiation for order: " + req.orderId())
+                .build();
+        PaymentTransaction transaction = metrics.time(PaymentStep.TRANSACTION_INSERT, provider, req.paymentMethod(),
+                () -> transactionRepository.save(newTransaction));
+        log.info("Created transaction: {} for payment: {}", transaction.getTransactionId(), payment.getPaymentId());
 
-            // Note: In real implementation, payment status would be updated to SUCCESS/FAILED
-            // based on webhook confirmation from provider. For now, we keep it as PROCESSING on success.
+        // 5️⃣ Publish both through the outbox; all inserts go out in one flush at commit
+        outbox.record(transaction);
+        outbox.record(payment);
 
-            return new InitiatePaymentResponse(payment.getPaymentId(), payment.getStatus());
+        return new Initiation(payment, attempt, transaction, false);
+    }
 
-        } catch (Exception e) {
-            log.error("Error during payment initiation for payment: {}", payment.getPaymentId(), e);
-            // Rollback - mark payment and transaction as failed
+    private Payment recordInitiationOutcome(Initiation initiation, ProviderResponse providerResponse) {
+        Payment payment = initiation.payment();
+        return metrics.time(PaymentStep.FINAL_UPDATE, payment.getProvider(), payment.getPaymentMethod(),
+                () -> transactionTemplate.execute(status -> completeInitiation(initiation, providerResponse)));
+    }
+
+    private Payment completeInitiation(Initiation initiation, ProviderResponse providerResponse) {
+        Payment payment = initiation.payment();
+        PaymentAttempt attempt = initiation.attempt();
+        PaymentTransaction transaction = initiation.transaction();
+
+        // 6️⃣ Update Attempt with provider response; the payment belongs to the provider that answered
+        attempt.setResponsePayload(providerResponse.rawResponse());
+        payment.setProvider(attempt.getProvider());
+        if (providerResponse.success()) {
+            attempt.setStatus(PaymentAttemptStatus.SUCCESS);
+            payment.setStatus(PaymentStatus.PROCESSING);
+            transaction.setStatus(TransactionStatus.SUCCESS);
+            transaction.setProviderReference(providerResponse.providerTransactionId());
+            log.info("Provider call successful for payment: {}", payment.getPaymentId());
+        } else {
+            attempt.setStatus(PaymentAttemptStatus.FAILED);
             payment.setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(payment);
-            
-            // Update last attempt and transaction if they exist
-            List<PaymentAttempt> attempts = attemptRepository.findByPaymentId(payment.getPaymentId());
-            if (!attempts.isEmpty()) {
-                PaymentAttempt lastAttempt = attempts.get(attempts.size() - 1);
-                lastAttempt.setStatus(PaymentAttemptStatus.FAILED);
-                attemptRepository.save(lastAttempt);
-            }
-            
-            List<PaymentTransaction> transactions = transactionRepository.findByPaymentId(payment.getPaymentId());
-            if (!transactions.isEmpty()) {
-                PaymentTransaction lastTxn = transactions.get(transactions.size() - 1);
-                lastTxn.setStatus(TransactionStatus.FAILED);
-                transactionRepository.save(lastTxn);
-            }
-            
-            throw new RuntimeException("Payment initiation failed: " + e.getMessage(), e);
+            transaction.setStatus(TransactionStatus.FAILED);
+            log.warn("Provider call failed for payment: {}", payment.getPaymentId());
         }
+
+        attemptRepository.save(attempt);
+        transactionRepository.save(transaction);
+        payment = paymentRepository.save(payment);
+        outbox.record(transaction);
+        outbox.record(payment);
+        return payment;
+    }
+
+    private void failInitiation(Initiation initiation) {
+        // Mark payment, attempt and transaction as failed
+        Payment payment = initiation.payment();
+        payment.setStatus(PaymentStatus.FAILED);
+        paymentRepository.save(payment);
+
+        PaymentAttempt attempt = initiation.attempt();
+        attempt.setStatus(PaymentAttemptStatus.FAILED);
+        attemptRepository.save(attempt);
+
+        PaymentTransaction transaction = initiation.transaction();
+        transaction.setStatus(TransactionStatus.FAILED);
+        transactionRepository.save(transaction);
+
+        outbox.record(transaction);
+        outbox.record(payment);
     }
 
     @Override
-    @Transactional
     public void refundPayment(RefundRequest request) {
+        // Every phase runs on the payment's shard
+        ShardRouting.forPayment(request.paymentId(), () -> refund(request));
+    }
+
+    @Override
+    public Optional<PaymentStatus> currentStatus(UUID paymentId) {
+        // Outside any transaction, so never routed to a lagging replica
+        return ShardRouting.forPayment(paymentId, () -> paymentRepository.findStatusById(paymentId));
+    }
+
+    private Void refund(RefundRequest request) {
         log.info("Processing refund request for paymentId: {}, amount: {}", 
                 request.paymentId(), request.amount());
 
+        // Phase 1 - validate and persist Refund + REFUND transaction in a short transaction
+        RefundInitiation initiation = retryOnConflict(() -> transactionTemplate.execute(status -> persistRefund(request)));
+        Payment payment = initiation.payment();
+        recentWrites.record(payment.getPaymentId(), payment.getUserId());
+
+        // Phase 2 - call provider to refund without holding a connection or transaction
+        ProviderResponse providerResponse;
+        try {
+            PaymentProviderService provider = providerFactory.getProvider(payment.getProvider());
+            providerResponse = provider.refundPayment(payment, request.reason());
+        } catch (Exception e) {
+            log.error("Error during refund for payment: {}", payment.getPaymentId(), e);
+            if (ProviderUnavailableException.rejectedBeforeDispatch(e)) {
+                retryOnConflict(() -> transactionTemplate.execute(status -> failRefund(initiation)));
+            } else {
+                // The provider may have refunded: keep the reservation so the amount cannot be refunded twice
+                log.warn("Outcome unknown for refund: {}, left INITIATED with its amount reserved",
+                        initiation.refund().getRefundId());
+            }
+            if (e instanceof ProviderUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new RuntimeException("Refund failed: " + e.getMessage(), e);
+        }
+
+        // Phase 3 - record the provider outcome in a short transaction
+        metrics.time(PaymentStep.REFUND_FINAL_UPDATE, payment.getProvider(), payment.getPaymentMethod(),
+                () -> retryOnConflict(() -> transactionTemplate.execute(status -> completeRefund(initiation, providerResponse))));
+        return null;
+    }
+
+    /**
+     * Re-runs a refund phase when another transaction committed a change to the same payment
+     * first. Each phase re-reads the payment, so a retry sees the winner's refundedAmount.
+     */
+    private <T> T retryOnConflict(Supplier<T> phase) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return phase.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+                log.info("Concurrent update on payment detected, retrying refund phase (attempt {})", attempt);
+            }
+        }
+    }
+
+    private RefundInitiation persistRefund(RefundRequest request) {
         // 1️⃣ Validate payment exists and is refundable
+        long validationStart = System.nanoTime();
         Payment payment = paymentRepository.findById(request.paymentId())
                 .orElseThrow(() -> new PaymentNotFoundException("Payment not found: " + request.paymentId()));
 
@@ -201,13 +581,8 @@ public class PaymentServiceImpl implements PaymentService {
                             request.amount(), payment.getAmount()));
         }
 
-        // Validate refund amount doesn't exceed remaining refundable amount
-        List<Refund> existingRefunds = refundRepository.findByPaymentId(payment.getPaymentId());
-        BigDecimal totalRefunded = existingRefunds.stream()
-                .filter(r -> r.getStatus() == RefundStatus.SUCCESS)
-                .map(Refund::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        // Validate refund amount doesn't exceed remaining refundable amount (running ledger, no refund scan)
+        BigDecimal totalRefunded = refundedAmountOf(payment);
         BigDecimal remainingRefundable = payment.getAmount().subtract(totalRefunded);
         if (request.amount().compareTo(remainingRefundable) > 0) {
             throw new IllegalArgumentException(
@@ -215,145 +590,190 @@ public class PaymentServiceImpl implements PaymentService {
                             request.amount(), remainingRefundable, totalRefunded));
         }
 
-        // 2️⃣ Store original payment status before modifying it
-        PaymentStatus originalPaymentStatus = payment.getStatus();
+        PaymentProvider provider = payment.getProvider();
+        PaymentMethod method = payment.getPaymentMethod();
+        metrics.record(PaymentStep.REFUND_VALIDATION, provider, method,
+                PaymentMetrics.SUCCESS, System.nanoTime() - validationStart);
 
-        // 3️⃣ Create Refund entry (INITIATED)
-        Refund refund = Refund.builder()
+        // 2️⃣ Create Refund entry (INITIATED)
+        Refund newRefund = Refund.builder()
                 .paymentId(payment.getPaymentId())
                 .amount(request.amount())
                 .status(RefundStatus.INITIATED)
                 .reason(request.reason())
                 .build();
-        refund = refundRepository.save(refund);
+        Refund refund = metrics.time(PaymentStep.REFUND_INSERT, provider, method,
+                () -> refundRepository.save(newRefund));
         log.info("Created refund: {} for payment: {}", refund.getRefundId(), payment.getPaymentId());
 
-        try {
-            // 4️⃣ Create PaymentTransaction (REFUND, INITIATED)
-            PaymentTransaction transaction = PaymentTransaction.builder()
-                    .paymentId(payment.getPaymentId())
-                    .transactionType(TransactionType.REFUND)
-                    .amount(request.amount())
-                    .status(TransactionStatus.INITIATED)
-                    .description("Refund: " + request.reason())
-                    .build();
-            transaction = transactionRepository.save(transaction);
-            log.info("Created refund transaction: {} for payment: {}", 
-                    transaction.getTransactionId(), payment.getPaymentId());
-
-            // 5️⃣ Update Payment status to REFUND_INITIATED
-            payment.setStatus(PaymentStatus.REFUND_INITIATED);
-            payment = paymentRepository.save(payment);
-
-            // 6️⃣ Call provider to refund
-            PaymentProviderService provider = providerFactory.getProvider(payment.getProvider());
-            ProviderResponse providerResponse = provider.refundPayment(payment, request.reason());
+        // 3️⃣ Create PaymentTransaction (REFUND, INITIATED)
+        PaymentTransaction newTransaction = PaymentTransaction.builder()
+                .paymentId(payment.getPaymentId())
+                .transactionType(TransactionType.REFUND)
+                .amount(request.amount())
+                .status(TransactionStatus.INITIATED)
+                .description("Refund: " + request.reason())
+                .build();
+        PaymentTransaction transaction = metrics.time(PaymentStep.REFUND_TRANSACTION_INSERT, provider, method,
+                () -> transactionRepository.save(newTransaction));
+        log.info("Created refund transaction: {} for payment: {}", 
+                transaction.getTransactionId(), payment.getPaymentId());
+
+        // 4️⃣ Reserve the amount on the ledger (@Version makes a concurrent refund against the same
+        //    snapshot fail and retry). The status is left alone: further partial refunds stay possible
+        //    and a webhook or status poll can still settle a PROCESSING payment meanwhile
+        payment.setRefundedAmount(totalRefunded.add(request.amount()));
+        //    The payment is managed, so dirty checking writes the update in the single flush at commit,
+        //    together with the refund, transaction and outbox inserts; this step carries that database time
+        metrics.timeCommit(PaymentStep.REFUND_PAYMENT_UPDATE, provider, method);
+        outbox.record(refund);
+        outbox.record(transaction);
+        outbox.record(payment);
+
+        return new RefundInitiation(payment, refund, transaction);
+    }
 
-            // 7️⃣ Update refund, transaction, and payment status based on provider response
-            refund.setProviderRefundId(providerResponse.providerTransactionId());
-            if (providerResponse.success()) {
-                refund.setStatus(RefundStatus.SUCCESS);
-                transaction.setStatus(TransactionStatus.SUCCESS);
+    private Void completeRefund(RefundInitiation initiation, ProviderResponse providerResponse) {
+        Payment payment = reloadPayment(initiation);
+        Refund refund = initiation.refund();
+        PaymentTransaction transaction = initiation.transaction();
+
+        // 5️⃣ Update refund and transaction from the provider response; the payment's status is the
+        //    one just re-read, so an update made during the provider call is kept
+        refund.setProviderRefundId(providerResponse.providerTransactionId());
+        transaction.setProviderReference(providerResponse.providerTransactionId());
+        if (providerResponse.success()) {
+            refund.setStatus(RefundStatus.SUCCESS);
+            transaction.setStatus(TransactionStatus.SUCCESS);
+            // Reservation from phase 1 stays on the ledger; only a full refund closes the payment
+            if (isFullyRefunded(payment, refund)) {
                 payment.setStatus(PaymentStatus.REFUNDED);
-                log.info("Refund successful for payment: {}", payment.getPaymentId());
-            } else {
-                refund.setStatus(RefundStatus.FAILED);
-                transaction.setStatus(TransactionStatus.FAILED);
-                // Revert payment status to original state before refund attempt
-                payment.setStatus(originalPaymentStatus);
-                log.warn("Refund failed for payment: {}, reverting to original status: {}", 
-                        payment.getPaymentId(), originalPaymentStatus);
             }
+            log.info("Refund successful for payment: {}, refunded so far: {}",
+                    payment.getPaymentId(), payment.getRefundedAmount());
+        } else {
+            refund.setStatus(RefundStatus.FAILED);
+            transaction.setStatus(TransactionStatus.FAILED);
+            releaseReservation(payment, refund);
+            log.warn("Refund failed for payment: {}, released {} on the refund ledger",
+                    payment.getPaymentId(), refund.getAmount());
+        }
 
-            refundRepository.save(refund);
-            transactionRepository.save(transaction);
-            paymentRepository.save(payment);
+        refundRepository.save(refund);
+        transactionRepository.save(transaction);
+        paymentRepository.save(payment);
+        outbox.record(refund);
+        outbox.record(transaction);
+        outbox.record(payment);
+        return null;
+    }
 
-        } catch (Exception e) {
-            log.error("Error during refund for payment: {}", payment.getPaymentId(), e);
-            // Rollback - mark refund and transaction as failed
-            refund.setStatus(RefundStatus.FAILED);
-            refundRepository.save(refund);
+    private Void failRefund(RefundInitiation initiation) {
+        // Mark refund and transaction as failed
+        Refund refund = initiation.refund();
+        refund.setStatus(RefundStatus.FAILED);
+        refundRepository.save(refund);
+
+        PaymentTransaction transaction = initiation.transaction();
+        transaction.setStatus(TransactionStatus.FAILED);
+        transactionRepository.save(transaction);
+
+        // Release the reservation; the payment's status was never changed by the refund
+        Payment payment = reloadPayment(initiation);
+        releaseReservation(payment, refund);
+        paymentRepository.save(payment);
+        outbox.record(refund);
+        outbox.record(transaction);
+        outbox.record(payment);
+        log.info("Released refund {} of payment {} on the refund ledger due to exception",
+                refund.getRefundId(), payment.getPaymentId());
+        return null;
+    }
 
-            // Revert payment status to original state before refund attempt
-            payment.setStatus(originalPaymentStatus);
-            paymentRepository.save(payment);
-            log.info("Reverted payment {} status to original: {} due to exception", 
-                    payment.getPaymentId(), originalPaymentStatus);
+    /**
+     * Fresh managed copy of the payment so completion applies on top of the latest version,
+     * not the detached snapshot taken in phase 1.
+     */
+    private Payment reloadPayment(RefundInitiation initiation) {
+        UUID paymentId = initiation.payment().getPaymentId();
+        return paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new PaymentNotFoundException("Payment not found: " + paymentId));
+    }
 
-            throw new RuntimeException("Refund failed: " + e.getMessage(), e);
+    private static BigDecimal refundedAmountOf(Payment payment) {
+        return payment.getRefundedAmount() != null ? payment.getRefundedAmount() : BigDecimal.ZERO;
+    }
+
+    /**
+     * The ledger covers the whole amount and no other refund of the payment is still in flight,
+     * since a failing one would release its reservation again.
+     */
+    private boolean isFullyRefunded(Payment payment, Refund completed) {
+        if (refundedAmountOf(payment).compareTo(payment.getAmount()) < 0) {
+            return false;
         }
+        return refundRepository.findByPaymentId(payment.getPaymentId()).stream()
+                .noneMatch(other -> other.getStatus() == RefundStatus.INITIATED
+                        && !other.getRefundId().equals(completed.getRefundId()));
     }
 
-    @SuppressWarnings("unchecked")
-    private String serializeRequest(InitiatePaymentRequest req) {
-        try {
-            // Convert to Map for easy modification
-            TypeFactory typeFactory = objectMapper.getTypeFactory();
-            MapType mapType = typeFactory.constructMapType(Map.class, String.class, Object.class);
-            Map<String, Object> requestMap = objectMapper.convertValue(req, mapType);
-            
-            // For PCI compliance: Mask sensitive card details before storing
-            if (req.cardDetails() != null && requestMap.containsKey("cardDetails")) {
-                Object cardDetailsObj = requestMap.get("cardDetails");
-                if (cardDetailsObj instanceof Map) {
-                    Map<String, Object> cardDetailsMap = (Map<String, Object>) cardDetailsObj;
-                    // Mask sensitive card information
-                    cardDetailsMap.put("cardNumber", req.cardDetails().getMaskedCardNumber());
-                    cardDetailsMap.put("cvv", "***");
-                    cardDetailsMap.put("expiryDate", "**/**");
-                    // Keep cardholderName as it's not considered sensitive for audit purposes
-                }
-            }
+    private static void releaseReservation(Payment payment, Refund refund) {
+        payment.setRefundedAmount(refundedAmountOf(payment).subtract(refund.getAmount()).max(BigDecimal.ZERO));
+    }
 
-            // Mask sensitive UPI details before storing
-            if (req.upiDetails() != null && requestMap.containsKey("upiDetails")) {
-                Object upiDetailsObj = requestMap.get("upiDetails");
-                if (upiDetailsObj instanceof Map) {
-                    Map<String, Object> upiDetailsMap = (Map<String, Object>) upiDetailsObj;
-                    // Mask sensitive UPI information
-                    upiDetailsMap.put("upiId", req.upiDetails().getMaskedUPIId());
-                    if (req.upiDetails().phoneNumber() != null) {
-                        upiDetailsMap.put("phoneNumber", req.upiDetails().getMaskedPhoneNumber());
-                    }
-                }
-            }
+    /**
+     * Entities persisted by phase 1 of initiatePayment, carried across the provider call.
+     */
+    private record Initiation(Payment payment, PaymentAttempt attempt, PaymentTransaction transaction,
+                              boolean existing) {}
+
+    private record ProviderCall(Initiation initiation, ProviderResponse response) {}
+
+    private record HedgeOutcome(Initiation initiation, ProviderResponse response, Throwable error) {}
+
+    /**
+     * Position of an AUTO_UPI payment in its provider ranking and the attempt currently on it.
+     */
+    private static final class RouteCursor {
+        private final List<PaymentProvider> route;
+        private int position;
+        private int attemptNo;
+        private Initiation current;
+
+        RouteCursor(List<PaymentProvider> route, Initiation current) {
+            this.route = route;
+            this.current = current;
+            this.attemptNo = current.attempt().getAttemptNo();
+        }
 
-            // Mask sensitive net banking details before storing
-            if (req.netBankingDetails() != null && requestMap.containsKey("netBankingDetails")) {
-                Object netBankingObj = requestMap.get("netBankingDetails");
-                if (netBankingObj instanceof Map) {
-                    Map<String, Object> netBankingMap = (Map<String, Object>) netBankingObj;
-                    // Mask customer ID if present
-                    if (req.netBankingDetails().customerId() != null) {
-                        netBankingMap.put("customerId", req.netBankingDetails().getMaskedCustomerId());
-                    }
-                }
-            }
+        Initiation current() {
+            return current;
+        }
 
-            // Mask sensitive beneficiary account details before storing
-            if (req.beneficiaryDetails() != null && requestMap.containsKey("beneficiaryDetails")) {
-                Object beneficiaryObj = requestMap.get("beneficiaryDetails");
-                if (beneficiaryObj instanceof Map) {
-                    Map<String, Object> beneficiaryMap = (Map<String, Object>) beneficiaryObj;
-                    // Mask beneficiary account/UPI ID
-                    if (req.beneficiaryDetails().beneficiaryAccount() != null) {
-                        beneficiaryMap.put("beneficiaryAccount", req.beneficiaryDetails().getMaskedAccount());
-                    }
-                    // Mask account number if present
-                    if (req.beneficiaryDetails().accountNumber() != null) {
-                        beneficiaryMap.put("accountNumber", "****" + 
-                                req.beneficiaryDetails().accountNumber().substring(
-                                        Math.max(0, req.beneficiaryDetails().accountNumber().length() - 4)));
-                    }
-                }
-            }
-            
-            return objectMapper.writeValueAsString(requestMap);
-        } catch (Exception e) {
-            log.warn("Failed to serialize request payload", e);
-            return "{}";
+        PaymentProvider provider() {
+            return current.attempt().getProvider();
+        }
+
+        boolean hasNext() {
+            return position + 1 < route.size();
+        }
+
+        PaymentProvider advance() {
+            return route.get(++position);
+        }
+
+        /** Attempt numbers stay unique even when a hedge and a failover both opened attempts. */
+        int nextAttemptNo() {
+            return ++attemptNo;
+        }
+
+        void moveTo(Initiation initiation) {
+            current = initiation;
         }
     }
-}
 
+    /**
+     * Entities persisted by phase 1 of refundPayment, carried across the provider call.
+     */
+    private record RefundInitiation(Payment payment, Refund refund, PaymentTransaction transaction) {}
+}
@@ -3,8 +3,11 @@ package com.sushilk.payment_service.services.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
 import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
 import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
 import com.sushilk.payment_service.services.PaymentProviderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -76,5 +79,55 @@ public class PhonePePaymentProvider implements PaymentProviderService {
             return new ProviderResponse(false, null, "Refund failed", null);
         }
     }
-}
 
+    @Override
+    public ProviderStatusResponse queryPaymentStatus(Payment payment) {
+        log.info("Querying PHONEPE status for payment: {}", payment.getPaymentId());
+
+        // Mock provider status call
+        try {
+            String providerTxnId = "PHONEPE_TXN_" + UUID.randomUUID();
+            Map<String, Object> mockResponse = Map.of(
+                    "transactionId", providerTxnId,
+                    "merchantTransactionId", payment.getPaymentId().toString(),
+                    "status", "SUCCESS"
+            );
+
+            return new ProviderStatusResponse(
+                    ProviderPaymentStatus.SUCCESS,
+                    providerTxnId,
+                    objectMapper.writeValueAsString(mockResponse)
+            );
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing status response", e);
+            return new ProviderStatusResponse(ProviderPaymentStatus.PENDING, null, null);
+        }
+    }
+
+    @Override
+    public ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund) {
+        log.info("Querying PHONEPE refund status for payment: {}, refund: {}", payment.getPaymentId(), refund.getRefundId());
+
+        // Mock provider refund status call
+        try {
+            String providerRefundId = refund.getProviderRefundId() != null
+                    ? refund.getProviderRefundId()
+                    : "PHONEPE_REFUND_" + UUID.randomUUID();
+            Map<String, Object> mockResponse = Map.of(
+                    "refundId", providerRefundId,
+                    "merchantTransactionId", payment.getPaymentId().toString(),
+                    "amount", refund.getAmount(),
+                    "status", "SUCCESS"
+            );
+
+            return new ProviderStatusResponse(
+                    ProviderPaymentStatus.SUCCESS,
+                    providerRefundId,
+                    objectMapper.writeValueAsString(mockResponse)
+            );
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing refund status response", e);
+            return new ProviderStatusResponse(ProviderPaymentStatus.PENDING, null, null);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumSet;
+
+/**
+ * Computes Payment.refundedAmount for rows that predate the refund ledger.
+ *
+ * Counts SUCCESS and still INITIATED refunds - the same amounts the live flow keeps reserved.
+ * Only touches rows where the ledger is missing, so it is a no-op after the first run.
+ */
+@Component
+@Slf4j
+public class RefundLedgerBackfill implements ApplicationRunner {
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shards;
+    private final boolean enabled;
+
+    public RefundLedgerBackfill(
+            PaymentRepository paymentRepository,
+            TransactionTemplate transactionTemplate,
+            ShardDirectory shards,
+            @Value("${payment.refund-ledger.backfill-on-startup:true}") boolean enabled) {
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        shards.forEachShard(shard -> {
+            Integer updated = transactionTemplate.execute(status -> paymentRepository.backfillRefundLedger(
+                    EnumSet.of(RefundStatus.SUCCESS, RefundStatus.INITIATED)));
+            if (updated != null && updated > 0) {
+                log.info("Backfilled refund ledger for {} payments on shard {}", updated, shard);
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.masking.MaskingJsonWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes an InitiatePaymentRequest into the audit payload stored on PaymentAttempt,
+ * masking card, UPI, net banking and beneficiary details (PCI compliance).
+ * Masking rules are declared on the DTO fields with @Masked.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestPayloadSerializer {
+
+    private final MaskingJsonWriter maskingJsonWriter;
+
+    public String serialize(InitiatePaymentRequest req) {
+        try {
+            return maskingJsonWriter.writeValueAsString(req);
+        } catch (Exception e) {
+            log.warn("Failed to serialize request payload", e);
+            return "{}";
+        }
+    }
+}
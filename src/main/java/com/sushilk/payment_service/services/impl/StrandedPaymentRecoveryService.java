@@ -0,0 +1,187 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.enums.TransactionStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.repositories.RefundRepository;
+import com.sushilk.payment_service.services.PaymentProviderFactory;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Settles refunds left between the persist and completion phases of PaymentServiceImpl, e.g. when
+ * the provider call timed out or the node crashed while it was in flight. The provider may have
+ * refunded, so a refund still INITIATED after the threshold is settled by the provider's refund
+ * status query, never by the time alone:
+ *
+ * - SUCCESS: refund and REFUND transaction succeed; the payment is REFUNDED once fully refunded
+ * - FAILED / NOT_FOUND: both fail and the amount is released from the payment's refund ledger
+ * - PENDING or no answer: left INITIATED with its amount reserved and asked again on a later sweep
+ *
+ * Payments left INITIATED are settled by PaymentStatusPoller through the payment status query.
+ * Every shard is scanned in turn.
+ */
+@Service
+@Slf4j
+public class StrandedPaymentRecoveryService {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentTransactionRepository transactionRepository;
+    private final RefundRepository refundRepository;
+    private final PaymentProviderFactory providerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outbox;
+    private final ShardDirectory shards;
+    private final Duration strandedAfter;
+    private final int batchSize;
+
+    public StrandedPaymentRecoveryService(
+            PaymentRepository paymentRepository,
+            PaymentTransactionRepository transactionRepository,
+            RefundRepository refundRepository,
+            PaymentProviderFactory providerFactory,
+            TransactionTemplate transactionTemplate,
+            OutboxWriter outbox,
+            ShardDirectory shards,
+            @Value("${payment.recovery.stranded-after:PT15M}") Duration strandedAfter,
+            @Value("${payment.recovery.batch-size:100}") int batchSize) {
+        this.paymentRepository = paymentRepository;
+        this.transactionRepository = transactionRepository;
+        this.refundRepository = refundRepository;
+        this.providerFactory = providerFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.shards = shards;
+        this.strandedAfter = strandedAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.recovery.interval:PT1M}")
+    public void recoverStranded() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(strandedAfter);
+        shards.forEachShard(shard -> recoverStranded(cutoff));
+    }
+
+    private void recoverStranded(LocalDateTime cutoff) {
+        List<Refund> strandedRefunds = refundRepository.findByStatusAndUpdatedAtBefore(
+                RefundStatus.INITIATED, cutoff, Limit.of(batchSize));
+        for (Refund refund : strandedRefunds) {
+            try {
+                settleStrandedRefund(refund);
+            } catch (Exception e) {
+                log.error("Failed to recover stranded refund: {}", refund.getRefundId(), e);
+            }
+        }
+    }
+
+    private void settleStrandedRefund(Refund refund) {
+        Payment payment = paymentRepository.findById(refund.getPaymentId()).orElse(null);
+        if (payment == null) {
+            log.error("Stranded refund {} has no payment {}", refund.getRefundId(), refund.getPaymentId());
+            return;
+        }
+
+        // Provider first, outside any transaction
+        ProviderStatusResponse answer;
+        try {
+            answer = providerFactory.getProvider(payment.getProvider()).queryRefundStatus(payment, refund);
+        } catch (Exception e) {
+            log.warn("Refund status query failed for refund: {}, will retry: {}", refund.getRefundId(), e.getMessage());
+            answer = null;
+        }
+        ProviderStatusResponse outcome = answer;
+        transactionTemplate.executeWithoutResult(status -> applyRefundOutcome(refund, outcome));
+    }
+
+    private void applyRefundOutcome(Refund stranded, ProviderStatusResponse answer) {
+        // Re-read: the refund's own completion phase may have finished meanwhile
+        Refund refund = refundRepository.findById(stranded.getRefundId()).orElse(null);
+        if (refund == null || refund.getStatus() != RefundStatus.INITIATED) {
+            return;
+        }
+        if (answer == null || answer.status() == ProviderPaymentStatus.PENDING) {
+            // Keeps its reservation; moving updatedAt lets the next sweeps reach the refunds behind it
+            log.warn("Refund {} stranded in INITIATED since {} is not confirmed by the provider, amount stays reserved",
+                    refund.getRefundId(), refund.getUpdatedAt());
+            refund.setUpdatedAt(LocalDateTime.now());
+            refundRepository.save(refund);
+            return;
+        }
+
+        Payment payment = paymentRepository.findById(refund.getPaymentId()).orElseThrow();
+        PaymentTransaction transaction = openRefundTransaction(refund);
+        boolean refunded = answer.status() == ProviderPaymentStatus.SUCCESS;
+        if (refund.getProviderRefundId() == null) {
+            refund.setProviderRefundId(answer.providerTransactionId());
+        }
+        if (refunded) {
+            refund.setStatus(RefundStatus.SUCCESS);
+            // The reservation made when the refund was persisted stays on the ledger
+            if (isFullyRefunded(payment, refund)) {
+                payment.setStatus(PaymentStatus.REFUNDED);
+            }
+        } else {
+            refund.setStatus(RefundStatus.FAILED);
+            BigDecimal refundedAmount = payment.getRefundedAmount() != null ? payment.getRefundedAmount() : BigDecimal.ZERO;
+            payment.setRefundedAmount(refundedAmount.subtract(refund.getAmount()).max(BigDecimal.ZERO));
+        }
+        log.warn("Refund {} stranded in INITIATED since {} resolved as {} by status query ({})",
+                refund.getRefundId(), refund.getUpdatedAt(), refund.getStatus(), answer.status());
+
+        refundRepository.save(refund);
+        outbox.record(refund);
+        if (transaction != null) {
+            transaction.setStatus(refunded ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+            if (transaction.getProviderReference() == null) {
+                transaction.setProviderReference(answer.providerTransactionId());
+            }
+            transactionRepository.save(transaction);
+            outbox.record(transaction);
+        }
+        paymentRepository.save(payment);
+        outbox.record(payment);
+    }
+
+    /**
+     * The REFUND transaction persisted with the refund: refunds and their transactions are not
+     * linked, so it is the oldest open one of the same amount.
+     */
+    private PaymentTransaction openRefundTransaction(Refund refund) {
+        return transactionRepository.findByPaymentId(refund.getPaymentId()).stream()
+                .filter(transaction -> transaction.getTransactionType() == TransactionType.REFUND
+                        && transaction.getStatus() == TransactionStatus.INITIATED
+                        && transaction.getAmount().compareTo(refund.getAmount()) == 0)
+                .min(Comparator.comparing(PaymentTransaction::getCreatedAt))
+                .orElse(null);
+    }
+
+    /** Same rule as PaymentServiceImpl: the ledger covers the amount and no other refund is in flight. */
+    private boolean isFullyRefunded(Payment payment, Refund completed) {
+        if (payment.getRefundedAmount() == null || payment.getRefundedAmount().compareTo(payment.getAmount()) < 0) {
+            return false;
+        }
+        return refundRepository.findByPaymentId(payment.getPaymentId()).stream()
+                .noneMatch(other -> other.getStatus() == RefundStatus.INITIATED
+                        && !other.getRefundId().equals(completed.getRefundId()));
+    }
+}
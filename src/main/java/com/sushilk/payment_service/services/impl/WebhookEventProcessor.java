@@ -0,0 +1,226 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.entities.WebhookEvent;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.TransactionStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.enums.WebhookEventStatus;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.repositories.WebhookEventRepository;
+import com.sushilk.payment_service.sharding.ShardDirectory;
+import com.sushilk.payment_service.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies received webhook events to payments in batches: each batch is one transaction with one
+ * IN lookup of the DEBIT transactions by provider reference (idx_transaction_provider_ref), one of
+ * their payments, and JDBC-batched updates at commit.
+ *
+ * - SUCCESS moves a PROCESSING payment to SUCCESS
+ * - FAILED moves a PROCESSING payment and its DEBIT transaction to FAILED
+ * - Anything else, including events for payments already past PROCESSING, is IGNORED
+ * - Events with no matching transaction yet (the webhook overtook the initiation commit) are
+ *   retried with a growing delay and marked UNMATCHED after max-attempts
+ *
+ * With sharding the events stay on the home shard and the lookups run once per shard, other
+ * shards in a transaction of their own that commits first. If the home commit then fails, the
+ * retried events find their payments past PROCESSING and are IGNORED.
+ */
+@Service
+@Slf4j
+public class WebhookEventProcessor {
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentTransactionRepository transactionRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outbox;
+    private final ShardDirectory shards;
+    private final TransactionTemplate shardTransaction;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final int maxAttempts;
+
+    public WebhookEventProcessor(
+            WebhookEventRepository webhookEventRepository,
+            PaymentTransactionRepository transactionRepository,
+            PaymentRepository paymentRepository,
+            TransactionTemplate transactionTemplate,
+            OutboxWriter outbox,
+            ShardDirectory shards,
+            @Value("${payment.webhook.batch-size:500}") int batchSize,
+            @Value("${payment.webhook.retry-delay:PT5S}") Duration retryDelay,
+            @Value("${payment.webhook.max-attempts:10}") int maxAttempts) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.transactionRepository = transactionRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.shards = shards;
+        this.shardTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.retryDelay = retryDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Drains everything that is due, one batch per transaction. */
+    @Scheduled(fixedDelayString = "${payment.webhook.poll-interval:PT0.2S}")
+    public void applyPending() {
+        int processed;
+        do {
+            try {
+                processed = transactionTemplate.execute(status -> applyBatch(LocalDateTime.now()));
+            } catch (OptimisticLockingFailureException e) {
+                // A refund or another node changed one of the payments; retry this batch event by event
+                log.info("Concurrent update in webhook batch, applying events one at a time");
+                applyOneByOne(LocalDateTime.now());
+                processed = 0; // leave what still conflicts to the next poll
+            }
+        } while (processed == batchSize);
+    }
+
+    private int applyBatch(LocalDateTime now) {
+        List<WebhookEvent> events = webhookEventRepository
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                        WebhookEventStatus.RECEIVED, now, Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        applyOnShards(events, now);
+        return events.size();
+    }
+
+    /** Events live on the home shard; each shard applies those matching payments it owns. */
+    private void applyOnShards(List<WebhookEvent> events, LocalDateTime now) {
+        List<WebhookEvent> unmatched = new ArrayList<>(events);
+        for (String shard : shards.shards()) {
+            if (unmatched.isEmpty()) {
+                break;
+            }
+            List<WebhookEvent> pending = List.copyOf(unmatched);
+            List<WebhookEvent> matched = shard.equals(shards.currentShard())
+                    ? applyMatching(shard, pending, now)
+                    // Its own transaction on that shard; the events are still flushed with the home one
+                    : ShardRouting.onShard(shard, () -> shardTransaction.execute(status -> applyMatching(shard, pending, now)));
+            unmatched.removeAll(matched);
+        }
+        for (WebhookEvent event : unmatched) {
+            apply(event, null, null, now);
+        }
+    }
+
+    private List<WebhookEvent> applyMatching(String shard, List<WebhookEvent> events, LocalDateTime now) {
+        // 1️⃣ DEBIT transactions of the whole batch in one indexed IN query; rows of buckets
+        // being moved away are left to their new owner
+        Set<String> references = events.stream().map(WebhookEvent::getProviderReference).collect(Collectors.toSet());
+        Map<String, PaymentTransaction> transactions = transactionRepository
+                .findByTransactionTypeAndProviderReferenceIn(TransactionType.DEBIT, references).stream()
+                .filter(transaction -> shards.ownerOfPayment(transaction.getPaymentId()).equals(shard))
+                .collect(Collectors.toMap(PaymentTransaction::getProviderReference, Function.identity(), (a, b) -> a));
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+
+        // 2️⃣ Their payments in one more
+        Set<UUID> paymentIds = transactions.values().stream()
+                .map(PaymentTransaction::getPaymentId).collect(Collectors.toSet());
+        Map<UUID, Payment> payments = paymentRepository.findAllById(paymentIds).stream()
+                .collect(Collectors.toMap(Payment::getPaymentId, Function.identity()));
+
+        // 3️⃣ Apply in arrival order; all entities are managed, so changes flush as batched updates at commit
+        List<WebhookEvent> matched = new ArrayList<>();
+        for (WebhookEvent event : events) {
+            PaymentTransaction transaction = transactions.get(event.getProviderReference());
+            Payment payment = transaction != null ? payments.get(transaction.getPaymentId()) : null;
+            if (payment != null) {
+                apply(event, transaction, payment, now);
+                matched.add(event);
+            }
+        }
+        return matched;
+    }
+
+    private void applyOneByOne(LocalDateTime now) {
+        List<UUID> eventIds = webhookEventRepository
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                        WebhookEventStatus.RECEIVED, now, Limit.of(batchSize)).stream()
+                .map(WebhookEvent::getEventId)
+                .toList();
+        for (UUID eventId : eventIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> webhookEventRepository.findById(eventId)
+                        .filter(event -> event.getStatus() == WebhookEventStatus.RECEIVED)
+                        .ifPresent(event -> applyOnShards(List.of(event), now)));
+            } catch (OptimisticLockingFailureException e) {
+                // Left RECEIVED; the next poll sees the payment's new state
+                log.warn("Webhook event {} conflicted with a concurrent update, will retry", eventId);
+            }
+        }
+    }
+
+    private void apply(WebhookEvent event, PaymentTransaction transaction, Payment payment, LocalDateTime now) {
+        if (payment == null) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            if (attempts >= maxAttempts) {
+                event.setStatus(WebhookEventStatus.UNMATCHED);
+                log.warn("Webhook event {} from {} matches no transaction: {}",
+                        event.getProviderEventId(), event.getProvider(), event.getProviderReference());
+            } else {
+                event.setNextAttemptAt(now.plus(retryDelay.multipliedBy(attempts)));
+            }
+            return;
+        }
+        if (payment.getProvider() != event.getProvider()) {
+            log.warn("Webhook event {} from {} refers to a {} payment: {}", event.getProviderEventId(),
+                    event.getProvider(), payment.getProvider(), payment.getPaymentId());
+            event.setStatus(WebhookEventStatus.IGNORED);
+            return;
+        }
+        if (payment.getStatus() != PaymentStatus.PROCESSING) {
+            // Redelivered outcome, or the payment already moved on (refunded, recovered)
+            event.setStatus(WebhookEventStatus.IGNORED);
+            return;
+        }
+
+        switch (event.getProviderStatus()) {
+            case "SUCCESS" -> {
+                payment.setStatus(PaymentStatus.SUCCESS);
+                outbox.record(payment);
+                event.setStatus(WebhookEventStatus.APPLIED);
+            }
+            case "FAILED" -> {
+                payment.setStatus(PaymentStatus.FAILED);
+                transaction.setStatus(TransactionStatus.FAILED);
+                outbox.record(transaction);
+                outbox.record(payment);
+                event.setStatus(WebhookEventStatus.APPLIED);
+            }
+            default -> event.setStatus(WebhookEventStatus.IGNORED);
+        }
+        log.debug("Webhook event {} for payment {}: {}", event.getProviderEventId(), payment.getPaymentId(),
+                event.getStatus());
+    }
+}
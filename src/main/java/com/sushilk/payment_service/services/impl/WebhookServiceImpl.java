@@ -0,0 +1,97 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.dtos.WebhookReceipt;
+import com.sushilk.payment_service.entities.WebhookEvent;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.WebhookEventStatus;
+import com.sushilk.payment_service.repositories.WebhookEventRepository;
+import com.sushilk.payment_service.services.WebhookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Ingestion side of provider webhooks: one insert per delivery and nothing else, so the
+ * acknowledgement stays fast during the bursts that follow a provider outage. Status changes
+ * are applied by WebhookEventProcessor. The signature is checked before anything is parsed or
+ * stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookServiceImpl implements WebhookService {
+
+    private static final int MAX_ID_LENGTH = 100;
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final ObjectMapper objectMapper;
+    private final WebhookSignatureVerifier signatureVerifier;
+
+    @Override
+    public WebhookReceipt receive(String provider, String payload, String signature) {
+        PaymentProvider paymentProvider = parseProvider(provider);
+        signatureVerifier.verify(paymentProvider, payload, signature);
+        JsonNode body = parse(payload);
+        String providerEventId = requiredField(body, "eventId", MAX_ID_LENGTH);
+
+        WebhookEvent event = WebhookEvent.builder()
+                .provider(paymentProvider)
+                .providerEventId(providerEventId)
+                .providerReference(requiredField(body, "transactionId", MAX_ID_LENGTH))
+                .providerStatus(requiredField(body, "status", 30).toUpperCase(Locale.ROOT))
+                .payload(payload)
+                .status(WebhookEventStatus.RECEIVED)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        try {
+            event = webhookEventRepository.save(event);
+            log.debug("Webhook {} from {} received as {}", providerEventId, paymentProvider, event.getEventId());
+            return new WebhookReceipt(event.getEventId(), false);
+        } catch (DataIntegrityViolationException e) {
+            // The unique (provider, providerEventId) constraint is the deduplication
+            WebhookEvent existing = webhookEventRepository
+                    .findByProviderAndProviderEventId(paymentProvider, providerEventId)
+                    .orElseThrow(() -> e);
+            log.info("Duplicate webhook {} from {}", providerEventId, paymentProvider);
+            return new WebhookReceipt(existing.getEventId(), true);
+        }
+    }
+
+    private static PaymentProvider parseProvider(String provider) {
+        try {
+            return PaymentProvider.valueOf(provider.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown payment provider: " + provider);
+        }
+    }
+
+    private JsonNode parse(String payload) {
+        try {
+            JsonNode body = objectMapper.readTree(payload);
+            if (body == null || !body.isObject()) {
+                throw new IllegalArgumentException("Webhook payload must be a JSON object");
+            }
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Webhook payload is not valid JSON");
+        }
+    }
+
+    private static String requiredField(JsonNode body, String field, int maxLength) {
+        JsonNode value = body.get(field);
+        if (value == null || !value.isTextual() || value.asText().isBlank()) {
+            throw new IllegalArgumentException("Webhook payload is missing '" + field + "'");
+        }
+        if (value.asText().length() > maxLength) {
+            throw new IllegalArgumentException("Webhook field '" + field + "' is longer than " + maxLength);
+        }
+        return value.asText();
+    }
+}
@@ -0,0 +1,72 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.exceptions.WebhookSignatureException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Checks the X-Webhook-Signature header: the hex HMAC-SHA256 of the raw request body, keyed with
+ * the provider's secret from payment.webhook.secrets.{PROVIDER}. A provider without a configured
+ * secret cannot deliver webhooks at all.
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Map<PaymentProvider, SecretKeySpec> keys = new EnumMap<>(PaymentProvider.class);
+
+    public WebhookSignatureVerifier(Environment environment) {
+        Binder.get(environment)
+                .bind("payment.webhook.secrets", Bindable.mapOf(PaymentProvider.class, String.class))
+                .orElse(Map.of())
+                .forEach((provider, secret) -> {
+                    if (secret != null && !secret.isBlank()) {
+                        keys.put(provider, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+                    }
+                });
+    }
+
+    public void verify(PaymentProvider provider, String payload, String signature) {
+        SecretKeySpec key = keys.get(provider);
+        if (key == null) {
+            throw new WebhookSignatureException("No webhook secret is configured for " + provider);
+        }
+        if (signature == null || signature.isBlank()) {
+            throw new WebhookSignatureException("Webhook from " + provider + " is not signed");
+        }
+        byte[] expected = sign(key, payload);
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signature.trim());
+        } catch (IllegalArgumentException e) {
+            throw new WebhookSignatureException("Webhook signature from " + provider + " is not hex");
+        }
+        // Constant time, so the comparison does not leak how many leading bytes matched
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new WebhookSignatureException("Webhook signature from " + provider + " does not match");
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec key, String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
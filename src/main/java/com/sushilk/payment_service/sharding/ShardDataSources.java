@@ -0,0 +1,54 @@
+package com.sushilk.payment_service.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One connection pool per shard, in configuration order. Closed with the application context.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+
+    public ShardDataSources(List<ShardingProperties.Shard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("payment.sharding.enabled is set but payment.sharding.shards is empty");
+        }
+        for (ShardingProperties.Shard shard : shards) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(shard.name());
+            pool.setJdbcUrl(shard.url());
+            pool.setUsername(shard.username());
+            pool.setPassword(shard.password());
+            pool.setMaximumPoolSize(shard.maxPoolSize());
+            if (pools.putIfAbsent(shard.name(), pool) != null) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.name());
+            }
+        }
+    }
+
+    public Map<String, HikariDataSource> pools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    public List<String> names() {
+        return List.copyOf(pools.keySet());
+    }
+
+    public HikariDataSource get(String shard) {
+        HikariDataSource pool = pools.get(shard);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard + ", configured shards are " + pools.keySet());
+        }
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,180 @@
+package com.sushilk.payment_service.sharding;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The shards and the current {@link ShardMap}. The first shard is the home shard: it holds the
+ * shard map and the tables that are not sharded (webhook events, reconciliation runs), and gets
+ * every connection fetched outside {@link ShardRouting}.
+ * <p>
+ * The home shard also keeps the rows of payments created before sharding was enabled, whose ids
+ * carry no bucket ({@link ShardKeys#LEGACY}): they are routed there and never split off. So the
+ * database that held the payments until then has to be configured as the first shard.
+ * <p>
+ * Without sharding there is one shard owning every bucket, so callers resolve shards the same
+ * way either way and the routing calls cost a ThreadLocal write.
+ */
+@Slf4j
+public class ShardDirectory {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    private final List<String> shards;
+    private final ShardTopologyStore store;
+    private final ExecutorService scatterPool;
+    private volatile ShardMap map;
+
+    private ShardDirectory(List<String> shards, ShardMap map, ShardTopologyStore store) {
+        this.shards = List.copyOf(shards);
+        this.map = map;
+        this.store = store;
+        this.scatterPool = shards.size() > 1
+                ? Executors.newFixedThreadPool(shards.size(), Thread.ofPlatform().daemon().name("shard-scatter-", 0).factory())
+                : null;
+    }
+
+    public static ShardDirectory single() {
+        return new ShardDirectory(List.of(DEFAULT_SHARD), ShardMap.single(DEFAULT_SHARD), null);
+    }
+
+    /**
+     * Shards with the map stored on the home shard, seeded with initial when there is none yet.
+     */
+    public static ShardDirectory load(List<String> shards, ShardMap initial, ShardTopologyStore store) {
+        ShardMap map = store.load().orElseGet(() -> {
+            try {
+                store.save(initial);
+                log.info("Seeded shard map from configuration");
+                return initial;
+            } catch (DuplicateKeyException e) {
+                return store.load().orElseThrow(() -> e); // another node seeded it first
+            }
+        });
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            if (!shards.contains(map.ownerOf(bucket))) {
+                throw new IllegalStateException(
+                        "Bucket " + bucket + " is owned by " + map.ownerOf(bucket) + ", which is not a configured shard");
+            }
+        }
+        return new ShardDirectory(shards, map, store);
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String home() {
+        return shards.getFirst();
+    }
+
+    public boolean isSharded() {
+        return store != null;
+    }
+
+    public ShardMap map() {
+        return map;
+    }
+
+    public String ownerOf(int bucket) {
+        return bucket == ShardKeys.LEGACY ? home() : map.ownerOf(bucket);
+    }
+
+    public String ownerOfPayment(UUID paymentId) {
+        return ownerOf(ShardKeys.bucketOf(paymentId));
+    }
+
+    public boolean isMoving(int bucket) {
+        return bucket != ShardKeys.LEGACY && map.isMoving(bucket);
+    }
+
+    /** The shard a connection fetched now would go to. */
+    public String currentShard() {
+        ShardRouting.Target target = ShardRouting.current();
+        if (target == null) {
+            return home();
+        }
+        return target.shard() != null ? target.shard() : ownerOf(target.bucket());
+    }
+
+    /** Runs action once per shard, in shard order, with connections routed to that shard. */
+    public void forEachShard(Consumer<String> action) {
+        for (String shard : shards) {
+            ShardRouting.runOnShard(shard, () -> action.accept(shard));
+        }
+    }
+
+    /**
+     * Scatter-gather: runs query on every shard at once and concatenates the results in shard
+     * order. Each shard's part uses one connection of that shard's pool.
+     */
+    public <T> List<T> scatter(Supplier<List<T>> query) {
+        if (scatterPool == null) {
+            return ShardRouting.onShard(home(), query::get);
+        }
+        List<Future<List<T>>> parts = new ArrayList<>(shards.size());
+        for (String shard : shards) {
+            parts.add(scatterPool.submit(() -> ShardRouting.onShard(shard, query::get)));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<List<T>> part : parts) {
+                results.addAll(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } finally {
+            parts.forEach(part -> part.cancel(true));
+        }
+        return results;
+    }
+
+    /** Stores and applies a new map; other nodes pick it up on their next refresh. */
+    public void update(ShardMap next) {
+        if (store == null) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        store.save(next);
+        map = next;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.sharding.refresh-interval:PT1S}")
+    public void refresh() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.load().ifPresent(loaded -> {
+                if (!loaded.equals(map)) {
+                    log.info("Shard map changed, applying");
+                    map = loaded;
+                }
+            });
+        } catch (RuntimeException e) {
+            // Home shard unreachable: keep routing with the last known map
+            log.warn("Shard map refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scatterPool != null) {
+            scatterPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.sushilk.payment_service.sharding;
+
+/**
+ * An entity stored on the shard of a payment: the payment itself and its attempts,
+ * transactions and refunds. Their ids are minted with this bucket.
+ */
+public interface ShardKeyed {
+
+    int shardBucket();
+}
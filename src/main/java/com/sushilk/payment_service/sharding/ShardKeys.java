@@ -0,0 +1,38 @@
+package com.sushilk.payment_service.sharding;
+
+import com.sushilk.payment_service.ids.UuidV7;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Shard keys. A userId hashes to one of {@link #BUCKETS} logical buckets and every bucket is
+ * owned by one shard (see {@link ShardMap}). Adding a shard moves whole buckets, so only the
+ * users in those buckets move and the hash itself never changes.
+ * <p>
+ * Ids of a payment and its rows carry the payment's bucket (see {@link UuidV7#generate(int)}),
+ * so a lookup by paymentId goes straight to its shard. Ids minted before sharding was enabled
+ * carry none: they are {@link #LEGACY}, and their rows stay on the home shard (see {@link ShardDirectory}).
+ */
+public final class ShardKeys {
+
+    public static final int BUCKETS = 256;
+
+    /** Bucket of an id without one. */
+    public static final int LEGACY = -1;
+
+    private ShardKeys() {
+    }
+
+    public static int bucketOf(String userId) {
+        CRC32C crc = new CRC32C();
+        crc.update(userId.getBytes(StandardCharsets.UTF_8));
+        long hash = crc.getValue();
+        return (int) (hash ^ hash >>> 8 ^ hash >>> 16 ^ hash >>> 24) & (BUCKETS - 1);
+    }
+
+    public static int bucketOf(UUID id) {
+        return UuidV7.hasBucket(id) ? UuidV7.bucketOf(id) : LEGACY;
+    }
+}
@@ -0,0 +1,114 @@
+package com.sushilk.payment_service.sharding;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Immutable bucket-to-shard assignment, plus the buckets being moved by {@link ShardSplitter}
+ * (writes to those are refused until the move is done). Changes return a new map.
+ */
+public final class ShardMap {
+
+    private final String[] owners;
+    private final BitSet moving;
+
+    ShardMap(String[] owners, BitSet moving) {
+        if (owners.length != ShardKeys.BUCKETS) {
+            throw new IllegalArgumentException("Expected " + ShardKeys.BUCKETS + " bucket owners, got " + owners.length);
+        }
+        for (int bucket = 0; bucket < owners.length; bucket++) {
+            if (owners[bucket] == null) {
+                throw new IllegalArgumentException("Bucket " + bucket + " is not assigned to a shard");
+            }
+        }
+        this.owners = owners;
+        this.moving = moving;
+    }
+
+    public static ShardMap single(String shard) {
+        String[] owners = new String[ShardKeys.BUCKETS];
+        Arrays.fill(owners, shard);
+        return new ShardMap(owners, new BitSet());
+    }
+
+    /**
+     * Assignment from bucket ranges per shard, e.g. {shard-0: "0-127", shard-1: "128-255"}.
+     * Ranges are comma separated; every bucket has to be assigned exactly once.
+     */
+    public static ShardMap fromRanges(Map<String, String> rangesByShard) {
+        String[] owners = new String[ShardKeys.BUCKETS];
+        rangesByShard.forEach((shard, ranges) -> {
+            if (ranges == null || ranges.isBlank()) {
+                return; // a shard waiting for a split
+            }
+            for (String range : ranges.split(",")) {
+                BucketRange buckets = BucketRange.parse(range);
+                for (int bucket = buckets.first(); bucket <= buckets.last(); bucket++) {
+                    if (owners[bucket] != null) {
+                        throw new IllegalArgumentException(
+                                "Bucket " + bucket + " is assigned to both " + owners[bucket] + " and " + shard);
+                    }
+                    owners[bucket] = shard;
+                }
+            }
+        });
+        return new ShardMap(owners, new BitSet());
+    }
+
+    public String ownerOf(int bucket) {
+        return owners[bucket];
+    }
+
+    public boolean isMoving(int bucket) {
+        return moving.get(bucket);
+    }
+
+    public ShardMap withOwner(BucketRange buckets, String shard) {
+        String[] next = owners.clone();
+        Arrays.fill(next, buckets.first(), buckets.last() + 1, shard);
+        return new ShardMap(next, moving);
+    }
+
+    public ShardMap withMoving(BucketRange buckets, boolean isMoving) {
+        BitSet next = (BitSet) moving.clone();
+        next.set(buckets.first(), buckets.last() + 1, isMoving);
+        return new ShardMap(owners, next);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ShardMap map && Arrays.equals(owners, map.owners) && moving.equals(map.moving);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(owners) + moving.hashCode();
+    }
+
+    /** An inclusive range of buckets, written "first-last" or as a single bucket. */
+    public record BucketRange(int first, int last) {
+
+        public BucketRange {
+            if (first < 0 || last >= ShardKeys.BUCKETS || first > last) {
+                throw new IllegalArgumentException(
+                        "Invalid bucket range " + first + "-" + last + ", buckets are 0-" + (ShardKeys.BUCKETS - 1));
+            }
+        }
+
+        public static BucketRange parse(String range) {
+            String[] bounds = range.trim().split("-", 2);
+            int first = Integer.parseInt(bounds[0].trim());
+            return new BucketRange(first, bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : first);
+        }
+
+        public boolean contains(int bucket) {
+            return bucket >= first && bucket <= last;
+        }
+
+        @Override
+        public String toString() {
+            return first + "-" + last;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sushilk.payment_service.sharding;
+
+import java.util.UUID;
+
+/**
+ * Selects the shard the connections of an action go to. A bucket (from a userId or paymentId)
+ * is resolved to its owner when the connection is fetched, so a transaction started after a
+ * bucket moved goes to the new owner; {@link #onShard} names a shard directly, for scans that
+ * visit every shard. Without either, connections go to the home shard (see {@link ShardDirectory}).
+ * <p>
+ * Connections are fetched lazily, so this has to wrap the first statement of a transaction,
+ * not necessarily its start. Nested calls override the outer selection until they return.
+ */
+public final class ShardRouting {
+
+    private static final ThreadLocal<Target> TARGET = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    public static <T, E extends Exception> T forUser(String userId, ShardAction<T, E> action) throws E {
+        return with(new Target(null, ShardKeys.bucketOf(userId)), action);
+    }
+
+    public static <T, E extends Exception> T forPayment(UUID paymentId, ShardAction<T, E> action) throws E {
+        return with(new Target(null, ShardKeys.bucketOf(paymentId)), action);
+    }
+
+    public static <T, E extends Exception> T onShard(String shard, ShardAction<T, E> action) throws E {
+        return with(new Target(shard, -1), action);
+    }
+
+    public static void runOnShard(String shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static Target current() {
+        return TARGET.get();
+    }
+
+    private static <T, E extends Exception> T with(Target target, ShardAction<T, E> action) throws E {
+        Target outer = TARGET.get();
+        TARGET.set(target);
+        try {
+            return action.run();
+        } finally {
+            if (outer == null) {
+                TARGET.remove();
+            } else {
+                TARGET.set(outer);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ShardAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /** A named shard, or the owner of bucket when shard is null. */
+    record Target(String shard, int bucket) {
+    }
+}
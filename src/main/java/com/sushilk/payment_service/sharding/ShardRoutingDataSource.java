@@ -0,0 +1,44 @@
+package com.sushilk.payment_service.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard selected by {@link ShardRouting}, or of the home shard when
+ * nothing is selected. The bucket owner is looked up when the connection is fetched, so this must
+ * sit behind a LazyConnectionDataSourceProxy: a transaction's connection is then fetched at its
+ * first statement, inside whatever ShardRouting call wraps it.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardDirectory directory;
+    private final Map<String, Counter> connections = new HashMap<>();
+
+    public ShardRoutingDataSource(Map<String, ? extends DataSource> shards, ShardDirectory directory,
+                                  MeterRegistry meterRegistry) {
+        this.directory = directory;
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(directory.home()));
+        setLenientFallback(false);
+        shards.keySet().forEach(shard -> connections.put(shard, Counter.builder("payment.datasource.connections")
+                .description("Connections handed out per shard")
+                .tag("target", shard)
+                .register(meterRegistry)));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = directory.currentShard();
+        Counter counter = connections.get(shard);
+        if (counter != null) {
+            counter.increment();
+        }
+        return shard;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sushilk.payment_service.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerHaltImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hibernate's ddl-auto only reaches the connection it is given, which is the home shard's. With
+ * ddl-auto=update this runs the same schema migration against every other shard while the session
+ * factory starts, before anything reads from them. Other modes leave those shards alone.
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+
+    private static final TargetDescriptor DATABASE = new TargetDescriptor() {
+        @Override
+        public EnumSet<TargetType> getTargetTypes() {
+            return EnumSet.of(TargetType.DATABASE);
+        }
+
+        @Override
+        public ScriptTargetOutput getScriptTargetOutput() {
+            return null;
+        }
+    };
+
+    private final ShardDirectory directory;
+
+    public ShardSchemaIntegrator(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        Object action = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+        if (!"update".equals(action)) {
+            log.info("ddl-auto is {}, schema of shards other than {} is not managed", action, directory.home());
+            return;
+        }
+        SchemaManagementTool tool = sessionFactory.getServiceRegistry().requireService(SchemaManagementTool.class);
+        ConnectionProvider connections = sessionFactory.getServiceRegistry().requireService(ConnectionProvider.class);
+        for (String shard : directory.shards()) {
+            if (!shard.equals(directory.home())) {
+                log.info("Updating schema of shard {}", shard);
+                // the migrator fetches its connections from the routed DataSource inside this call
+                ShardRouting.runOnShard(shard, () -> migrate(shard, tool, metadata, sessionFactory, connections));
+            }
+        }
+    }
+
+    /**
+     * The metadata's implicit catalog and schema are the home shard's, and the migrator only looks
+     * for existing tables there. Each shard is its own database, so the migrator gets the current
+     * shard's as defaults (its DDL comes out qualified with them); otherwise it would try to create
+     * every table again on each start.
+     */
+    private static void migrate(String shard, SchemaManagementTool tool, Metadata metadata,
+                                SessionFactoryImplementor sessionFactory, ConnectionProvider connections) {
+        Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+        try {
+            Connection connection = connections.getConnection();
+            try {
+                settings.putIfAbsent(AvailableSettings.DEFAULT_CATALOG, connection.getCatalog());
+                settings.putIfAbsent(AvailableSettings.DEFAULT_SCHEMA, connection.getSchema());
+            } finally {
+                connections.closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read the catalog of shard " + shard, e);
+        }
+        ExecutionOptions options = SchemaManagementToolCoordinator.buildExecutionOptions(
+                settings, ExceptionHandlerHaltImpl.INSTANCE);
+        tool.getSchemaMigrator(settings).doMigration(metadata, options, ContributableMatcher.ALL, DATABASE);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             SessionFactoryServiceRegistry serviceRegistry) {
+        // nothing registered, nothing to undo
+    }
+}
@@ -0,0 +1,61 @@
+package com.sushilk.payment_service.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line shard split: with payment.sharding.split.run=true the application moves the
+ * buckets payment.sharding.split.buckets from the source to the target shard and exits (status 1
+ * on failure), while the serving nodes keep running, e.g.
+ * java -jar payment-service.jar --payment.sharding.split.run=true --payment.sharding.split.source=shard-1
+ * --payment.sharding.split.target=shard-2 --payment.sharding.split.buckets=192-255
+ */
+@Component
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardSplitRunner implements ApplicationRunner {
+
+    private final ShardSplitter splitter;
+    private final ConfigurableApplicationContext context;
+    private final boolean enabled;
+    private final String source;
+    private final String target;
+    private final String buckets;
+
+    public ShardSplitRunner(
+            ShardSplitter splitter,
+            ConfigurableApplicationContext context,
+            @Value("${payment.sharding.split.run:false}") boolean enabled,
+            @Value("${payment.sharding.split.source:}") String source,
+            @Value("${payment.sharding.split.target:}") String target,
+            @Value("${payment.sharding.split.buckets:}") String buckets) {
+        this.splitter = splitter;
+        this.context = context;
+        this.enabled = enabled;
+        this.source = source;
+        this.target = target;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            splitter.split(source, target, ShardMap.BucketRange.parse(buckets));
+        } catch (Exception e) {
+            log.error("Shard split failed", e);
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
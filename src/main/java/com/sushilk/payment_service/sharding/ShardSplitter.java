@@ -0,0 +1,292 @@
+package com.sushilk.payment_service.sharding;
+
+import com.sushilk.payment_service.sharding.ShardMap.BucketRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves a range of buckets from one shard to another while the application keeps running:
+ * <p>
+ * 1️⃣ copy the rows of those buckets to the target, with writes still going to the source
+ * 2️⃣ copy again what was updated during the previous pass, until a pass is small
+ * 3️⃣ mark the buckets moving: every node refuses writes to them from its next map refresh on
+ *    ({@link ShardWriteGuard}); wait grace for that and for transactions already past the guard
+ * 4️⃣ copy the last updates, then make the target the owner; wait grace for every node to route there
+ * 5️⃣ accept writes again and delete the moved rows from the source
+ * <p>
+ * Writes to the moving buckets fail for about two grace periods; reads keep working throughout.
+ * grace has to exceed the map refresh interval plus the longest write transaction. Rows are
+ * compared by updated_at, so rows deleted on the source meanwhile (published outbox events) are
+ * not deleted on the target and get published again, which the outbox allows. Rows of payments
+ * whose ids carry no bucket ({@link ShardKeys#LEGACY}) are in no range and stay on the home shard.
+ */
+@Slf4j
+public class ShardSplitter {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_CATCH_UP_PASSES = 5;
+
+    /** The sharded tables, with their key and the column whose id carries the bucket. */
+    private static final List<ShardedTable> TABLES = List.of(
+            new ShardedTable("payments", "payment_id", "payment_id"),
+            new ShardedTable("payment_attempts", "attempt_id", "payment_id"),
+            new ShardedTable("payment_transactions", "transaction_id", "payment_id"),
+            new ShardedTable("refunds", "refund_id", "payment_id"),
+            new ShardedTable("outbox_events", "event_id", "aggregate_id"));
+
+    private final ShardDirectory directory;
+    private final ShardDataSources dataSources;
+    private final int batchSize;
+    private final Duration grace;
+
+    public ShardSplitter(ShardDirectory directory, ShardDataSources dataSources, int batchSize, Duration grace) {
+        this.directory = directory;
+        this.dataSources = dataSources;
+        this.batchSize = batchSize;
+        this.grace = grace;
+    }
+
+    /** Moves buckets from source to target; returns the number of rows moved. */
+    public long split(String source, String target, BucketRange buckets) {
+        Shard from = shard(source);
+        Shard to = shard(target);
+        if (source.equals(target)) {
+            throw new IllegalArgumentException("Source and target shard are both " + source);
+        }
+        if (ownsAll(target, buckets)) {
+            // An earlier run got past the switch; finish it
+            log.info("Buckets {} already belong to {}, deleting what is left on {}", buckets, target, source);
+            if (movingAny(buckets)) {
+                directory.update(directory.map().withMoving(buckets, false));
+            }
+            return delete(from, buckets);
+        }
+        if (!ownsAll(source, buckets)) {
+            throw new IllegalStateException("Buckets " + buckets + " are not all owned by " + source);
+        }
+        log.info("Moving buckets {} from {} to {}", buckets, source, target);
+
+        // 1️⃣ 2️⃣ Copy while writes continue, then catch up with what changed meanwhile
+        LocalDateTime since = BEGINNING;
+        long copied = 0;
+        boolean switched = false;
+        try {
+            for (int pass = 0; pass <= MAX_CATCH_UP_PASSES; pass++) {
+                LocalDateTime passStart = LocalDateTime.now();
+                long rows = copy(from, to, buckets, since);
+                copied += rows;
+                since = passStart.minus(grace);
+                log.info("Copy pass {} of buckets {}: {} rows", pass + 1, buckets, rows);
+                if (rows <= batchSize) {
+                    break;
+                }
+            }
+
+            // 3️⃣ Freeze writes to the buckets
+            directory.update(directory.map().withMoving(buckets, true));
+            pause();
+
+            // 4️⃣ Last updates, then switch the owner
+            copied += copy(from, to, buckets, since);
+            directory.update(directory.map().withOwner(buckets, target));
+            switched = true;
+            pause();
+        } finally {
+            if (!switched) {
+                abort(to, buckets);
+            }
+        }
+
+        // 5️⃣ Writes resume on the target; the source's rows are now unreachable
+        directory.update(directory.map().withMoving(buckets, false));
+        long deleted = delete(from, buckets);
+        log.info("Moved buckets {} from {} to {}: {} rows copied, {} deleted from the source",
+                buckets, source, target, copied, deleted);
+        return deleted;
+    }
+
+    private long copy(Shard from, Shard to, BucketRange buckets, LocalDateTime since) {
+        long copied = 0;
+        for (ShardedTable table : TABLES) {
+            UUID after = new UUID(0, 0);
+            Page page;
+            do {
+                page = from.jdbc.query(table.selectPage(), page(table), after, Timestamp.valueOf(since), batchSize);
+                List<Object[]> rows = page.rowsIn(buckets);
+                if (!rows.isEmpty()) {
+                    Page current = page;
+                    to.transaction.executeWithoutResult(status -> {
+                        // Delete and insert: the row may be there from an earlier pass
+                        to.jdbc.batchUpdate(table.deleteByKey(), rows, rows.size(),
+                                (statement, row) -> statement.setObject(1, row[current.keyIndex()]));
+                        to.jdbc.batchUpdate(table.insert(current.columns()), rows, rows.size(), (statement, row) -> {
+                            for (int i = 0; i < row.length; i++) {
+                                statement.setObject(i + 1, row[i]);
+                            }
+                        });
+                    });
+                    copied += rows.size();
+                }
+                after = page.lastKey();
+            } while (page.size() == batchSize);
+        }
+        return copied;
+    }
+
+    private long delete(Shard shard, BucketRange buckets) {
+        long deleted = 0;
+        for (ShardedTable table : TABLES) {
+            UUID after = new UUID(0, 0);
+            Page page;
+            do {
+                page = shard.jdbc.query(table.selectPage(), page(table), after, Timestamp.valueOf(BEGINNING), batchSize);
+                List<Object[]> rows = page.rowsIn(buckets);
+                if (!rows.isEmpty()) {
+                    int keyIndex = page.keyIndex();
+                    shard.transaction.executeWithoutResult(status -> shard.jdbc.batchUpdate(table.deleteByKey(),
+                            rows, rows.size(), (statement, row) -> statement.setObject(1, row[keyIndex])));
+                    deleted += rows.size();
+                }
+                after = page.lastKey();
+            } while (page.size() == batchSize);
+        }
+        return deleted;
+    }
+
+    /** The split failed before the switch: writes resume on the source and the partial copy goes. */
+    private void abort(Shard to, BucketRange buckets) {
+        log.warn("Split of buckets {} failed before the switch, keeping them on their shard", buckets);
+        try {
+            if (movingAny(buckets)) {
+                directory.update(directory.map().withMoving(buckets, false));
+            }
+            delete(to, buckets);
+        } catch (RuntimeException e) {
+            log.error("Cleanup after the failed split of buckets {} failed", buckets, e);
+        }
+    }
+
+    private boolean ownsAll(String shard, BucketRange buckets) {
+        for (int bucket = buckets.first(); bucket <= buckets.last(); bucket++) {
+            if (!directory.ownerOf(bucket).equals(shard)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean movingAny(BucketRange buckets) {
+        for (int bucket = buckets.first(); bucket <= buckets.last(); bucket++) {
+            if (directory.isMoving(bucket)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(grace);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Shard split interrupted", e);
+        }
+    }
+
+    private Shard shard(String name) {
+        DataSource dataSource = dataSources.get(name);
+        return new Shard(new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    private static ResultSetExtractor<Page> page(ShardedTable table) {
+        return rs -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            List<String> columns = new ArrayList<>(meta.getColumnCount());
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnLabel(i));
+            }
+            List<Object[]> rows = new ArrayList<>();
+            while (rs.next()) {
+                Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = detached(rs.getObject(i + 1));
+                }
+                rows.add(row);
+            }
+            return new Page(columns, rows, indexOf(columns, table.key()), indexOf(columns, table.bucketColumn()));
+        };
+    }
+
+    /** LOBs are only readable through the source connection; copy their content. */
+    private static Object detached(Object value) throws SQLException {
+        if (value instanceof Clob clob) {
+            return clob.getSubString(1, Math.toIntExact(clob.length()));
+        }
+        if (value instanceof Blob blob) {
+            return blob.getBytes(1, Math.toIntExact(blob.length()));
+        }
+        return value;
+    }
+
+    private static int indexOf(List<String> columns, String column) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Column " + column + " not found in " + columns);
+    }
+
+    private record Shard(JdbcTemplate jdbc, TransactionTemplate transaction) {
+    }
+
+    private record ShardedTable(String name, String key, String bucketColumn) {
+
+        /** Keyset page in key order; rows updated before since are skipped. */
+        String selectPage() {
+            return "select * from " + name + " where " + key + " > ? and updated_at >= ? order by " + key + " limit ?";
+        }
+
+        String deleteByKey() {
+            return "delete from " + name + " where " + key + " = ?";
+        }
+
+        String insert(List<String> columns) {
+            return "insert into " + name + " (" + String.join(", ", columns) + ") values ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        }
+    }
+
+    private record Page(List<String> columns, List<Object[]> rows, int keyIndex, int bucketIndex) {
+
+        int size() {
+            return rows.size();
+        }
+
+        UUID lastKey() {
+            return rows.isEmpty() ? null : (UUID) rows.getLast()[keyIndex];
+        }
+
+        List<Object[]> rowsIn(BucketRange buckets) {
+            return rows.stream()
+                    .filter(row -> buckets.contains(ShardKeys.bucketOf((UUID) row[bucketIndex])))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.sushilk.payment_service.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * The shard map as rows of shard_buckets on the home shard, one per bucket. Every node reads it
+ * at startup and on each refresh, so a split done by one process reaches all of them. The
+ * configured bucket ranges only seed the table the first time.
+ */
+public class ShardTopologyStore {
+
+    private static final String CREATE_TABLE = """
+            create table if not exists shard_buckets (
+                bucket int primary key,
+                shard varchar(64) not null,
+                moving boolean not null
+            )
+            """;
+    private static final String SELECT_ALL = "select bucket, shard, moving from shard_buckets order by bucket";
+    private static final String INSERT = "insert into shard_buckets (shard, moving, bucket) values (?, ?, ?)";
+    private static final String UPDATE = "update shard_buckets set shard = ?, moving = ? where bucket = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardTopologyStore(DataSource homeDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(homeDataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(homeDataSource));
+        jdbcTemplate.execute(CREATE_TABLE);
+    }
+
+    public Optional<ShardMap> load() {
+        String[] owners = new String[ShardKeys.BUCKETS];
+        BitSet moving = new BitSet();
+        List<Integer> buckets = jdbcTemplate.query(SELECT_ALL, (rs, rowNum) -> {
+            int bucket = rs.getInt("bucket");
+            owners[bucket] = rs.getString("shard");
+            moving.set(bucket, rs.getBoolean("moving"));
+            return bucket;
+        });
+        return buckets.isEmpty() ? Optional.empty() : Optional.of(new ShardMap(owners, moving));
+    }
+
+    /** Replaces the stored map in one transaction, so a refresh never sees half a change. */
+    public void save(ShardMap map) {
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean seeded = jdbcTemplate.queryForObject("select count(*) from shard_buckets", Integer.class) > 0;
+            List<Integer> buckets = IntStream.range(0, ShardKeys.BUCKETS).boxed().toList();
+            jdbcTemplate.batchUpdate(seeded ? UPDATE : INSERT, buckets, buckets.size(), (statement, bucket) -> {
+                statement.setString(1, map.ownerOf(bucket));
+                statement.setBoolean(2, map.isMoving(bucket));
+                statement.setInt(3, bucket);
+            });
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.sushilk.payment_service.sharding;
+
+import com.sushilk.payment_service.exceptions.ShardMovingException;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Refuses writes of a {@link ShardKeyed} entity while its bucket is being moved, and writes on a
+ * shard that does not own the bucket (a scan that read the row before a split moved it, or a
+ * missing {@link ShardRouting} call). Both fail the transaction with {@link ShardMovingException},
+ * which callers treat as retryable.
+ */
+public class ShardWriteGuard {
+
+    private final ShardDirectory directory;
+
+    public ShardWriteGuard(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    void beforeWrite(Object entity) {
+        if (!directory.isSharded() || !(entity instanceof ShardKeyed keyed)) {
+            return;
+        }
+        int bucket = keyed.shardBucket();
+        if (directory.isMoving(bucket)) {
+            throw new ShardMovingException("Bucket " + bucket + " is being moved to another shard");
+        }
+        String owner = directory.ownerOf(bucket);
+        String current = directory.currentShard();
+        if (!owner.equals(current)) {
+            throw new ShardMovingException("Bucket " + bucket + " belongs to " + owner + ", not " + current);
+        }
+    }
+}
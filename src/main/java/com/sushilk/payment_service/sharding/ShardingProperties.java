@@ -0,0 +1,18 @@
+package com.sushilk.payment_service.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * payment.sharding: the shard databases, the first being the home shard. buckets seeds the
+ * shard map on first start (see {@link ShardTopologyStore}); a shard without buckets is a split target.
+ */
+@ConfigurationProperties("payment.sharding")
+public record ShardingProperties(boolean enabled, @DefaultValue List<Shard> shards) {
+
+    public record Shard(String name, String url, String username, String password,
+                        @DefaultValue("10") int maxPoolSize, String buckets) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.sushilk.payment_service.sqlstats;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Saturation of the HikariCP pool: connections in use as a fraction of the maximum pool size.
+ * At 1.0 requests queue for a connection (hikaricp.connections.pending), and the wait shows up in
+ * payment.request.db.connection-wait. Nothing is registered if the DataSource is not Hikari.
+ */
+@Component
+public class ConnectionPoolMetrics {
+
+    public ConnectionPoolMetrics(DataSource dataSource, MeterRegistry registry) throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return;
+        }
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        Gauge.builder("payment.db.pool.saturation", hikari, ConnectionPoolMetrics::saturation)
+                .description("Active connections / maximum pool size")
+                .register(registry);
+    }
+
+    private static double saturation(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return Double.NaN; // pool not started yet
+        }
+        return (double) pool.getActiveConnections() / hikari.getMaximumPoolSize();
+    }
+}
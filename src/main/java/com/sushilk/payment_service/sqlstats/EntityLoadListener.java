@@ -0,0 +1,18 @@
+package com.sushilk.payment_service.sqlstats;
+
+import jakarta.persistence.PostLoad;
+
+/**
+ * Counts entities materialized from the database; registered on BaseEntity, so every entity
+ * a request reads - by id, by query or through a merge - is counted once per load.
+ */
+public class EntityLoadListener {
+
+    @PostLoad
+    void loaded(Object entity) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.entitiesLoaded++;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sushilk.payment_service.sqlstats;
+
+import com.sushilk.payment_service.controllers.PaymentController;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request database work of the PaymentController endpoints as distributions, tagged by
+ * endpoint (handler method name): statements, entities loaded and flushes per request, and the
+ * time spent waiting for a connection and executing statements. A jump in the statement or
+ * entity count of an endpoint is an N+1 or a chatty save; the p99 shows it before latency does.
+ */
+@Component
+public class RequestSqlMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    public RequestSqlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Records the request if a PaymentController method handled it. */
+    public void record(HttpServletRequest request, RequestSqlStats stats) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)
+                || handler.getBeanType() != PaymentController.class) {
+            return;
+        }
+        EndpointMeters endpoint = meters.computeIfAbsent(handler.getMethod().getName(), this::register);
+        endpoint.statements().record(stats.statements());
+        endpoint.entitiesLoaded().record(stats.entitiesLoaded());
+        endpoint.flushes().record(stats.flushes());
+        endpoint.connectionWait().record(stats.connectionWaitNanos(), TimeUnit.NANOSECONDS);
+        endpoint.dbTime().record(stats.executeNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private EndpointMeters register(String endpoint) {
+        return new EndpointMeters(
+                summary("payment.request.sql.statements", "JDBC statements per request", endpoint),
+                summary("payment.request.sql.entities-loaded", "Entities loaded per request", endpoint),
+                summary("payment.request.sql.flushes", "Persistence context flushes per request", endpoint),
+                timer("payment.request.db.connection-wait", "Time per request waiting for a JDBC connection", endpoint),
+                timer("payment.request.db.time", "Time per request executing JDBC statements", endpoint));
+    }
+
+    private DistributionSummary summary(String name, String description, String endpoint) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer timer(String name, String description, String endpoint) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record EndpointMeters(DistributionSummary statements, DistributionSummary entitiesLoaded,
+                                  DistributionSummary flushes, Timer connectionWait, Timer dbTime) {}
+}
@@ -0,0 +1,57 @@
+package com.sushilk.payment_service.sqlstats;
+
+/**
+ * Database work done by the current thread since {@link #start}: JDBC statements prepared
+ * (a JDBC batch counts once), entities loaded, flushes, time spent waiting for a connection and
+ * time spent executing statements. Filled by {@link SqlStatsSessionListener} and
+ * {@link EntityLoadListener}; work on other threads (e.g. async initiation) is not included.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    int statements;
+    int entitiesLoaded;
+    int flushes;
+    long connectionWaitNanos;
+    long executeNanos;
+
+    private RequestSqlStats() {
+    }
+
+    /** Starts counting on this thread, replacing any scope left open. */
+    public static RequestSqlStats start() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /** The scope of this thread, or null when nothing is being counted. */
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int entitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int flushes() {
+        return flushes;
+    }
+
+    public long connectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    public long executeNanos() {
+        return executeNanos;
+    }
+}
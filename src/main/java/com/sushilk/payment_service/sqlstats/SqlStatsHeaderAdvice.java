@@ -0,0 +1,44 @@
+package com.sushilk.payment_service.sqlstats;
+
+import com.sushilk.payment_service.controllers.PaymentController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debug mode: adds the request's database work to PaymentController responses as X-Sql-* and
+ * X-Db-* headers. Written just before the body, after the service transactions committed.
+ */
+@ControllerAdvice(assignableTypes = PaymentController.class)
+@ConditionalOnProperty(name = "payment.sql-stats.debug-headers", havingValue = "true")
+public class SqlStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set("X-Sql-Statements", Integer.toString(stats.statements()));
+            headers.set("X-Sql-Entities-Loaded", Integer.toString(stats.entitiesLoaded()));
+            headers.set("X-Sql-Flushes", Integer.toString(stats.flushes()));
+            headers.set("X-Db-Connection-Wait-Micros", Long.toString(TimeUnit.NANOSECONDS.toMicros(stats.connectionWaitNanos())));
+            headers.set("X-Db-Time-Micros", Long.toString(TimeUnit.NANOSECONDS.toMicros(stats.executeNanos())));
+        }
+        return body;
+    }
+}
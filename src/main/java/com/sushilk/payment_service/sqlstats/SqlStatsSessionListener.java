@@ -0,0 +1,73 @@
+package com.sushilk.payment_service.sqlstats;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the JDBC activity of a Hibernate session to the {@link RequestSqlStats} of the thread it
+ * runs on. Hibernate creates one instance per session (hibernate.session.events.auto); a session
+ * is used by one thread at a time, so the start timestamps need no synchronization.
+ * <p>
+ * Unlike the SessionFactory-wide {@code Statistics}, this attributes every statement to the
+ * request that issued it, and it costs nothing when no scope is open.
+ */
+public class SqlStatsSessionListener implements SessionEventListener {
+
+    private long acquisitionStart;
+    private long executeStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.connectionWaitNanos += System.nanoTime() - acquisitionStart;
+        }
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        addExecuteTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        addExecuteTime();
+    }
+
+    @Override
+    public void flushStart() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.flushes++;
+        }
+    }
+
+    private void addExecuteTime() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.executeNanos += System.nanoTime() - executeStart;
+        }
+    }
+}
@@ -14,12 +14,14 @@ import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
 import com.sushilk.payment_service.enums.OrderType;
 import com.sushilk.payment_service.enums.PaymentMethod;
 import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.RoutingMode;
 
 /**
  * Custom validation to ensure appropriate payment details are provided based on PROVIDER:
  * - CARD provider: Card details required, paymentMethod must be CARD
  * - PHONEPE/PAYTM/GOOGLEPAY provider: UPI details required, paymentMethod must be UPI
  * - NET_BANKING paymentMethod: Net banking details required (future provider implementation)
+ * - AUTO_UPI routing: only valid for UPI payments, provider is the preferred UPI rail
  * 
  * Also validates beneficiary details based on order type:
  * - P2P, BILL_PAYMENT, DONATION: Beneficiary details required
@@ -73,6 +75,15 @@ public @interface PaymentDetailsRequired {
                 }
             }
 
+            // AUTO_UPI routing may switch between UPI providers, so it needs a UPI payment to start from
+            if (request.routing() == RoutingMode.AUTO_UPI && paymentMethod != PaymentMethod.UPI) {
+                context.disableDefaultConstraintViolation();
+                context.buildConstraintViolationWithTemplate(
+                        "Routing AUTO_UPI requires payment method UPI and a UPI provider"
+                ).addPropertyNode("routing").addConstraintViolation();
+                return false;
+            }
+
             // 2️⃣ Validate payment details based on PROVIDER (primary validation)
             
             // CARD provider requires card details
@@ -11,6 +11,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.time.YearMonth;
+import java.time.ZoneId;
 
 /**
  * Custom validation annotation to validate that card expiry date is not in the past
@@ -36,24 +37,67 @@ public @interface ValidCardExpiry {
                 return true; // Let @NotBlank handle null/empty validation
             }
 
-            // Format should already be validated by @Pattern, but double-check
-            if (!expiryDate.matches("^(0[1-9]|1[0-2])/([0-9]{2})$")) {
+            // Format should already be validated by @Pattern, but double-check MM/YY without regex or split
+            if (expiryDate.length() != 5 || expiryDate.charAt(2) != '/') {
+                return false;
+            }
+            int month = twoDigits(expiryDate, 0);
+            int year = twoDigits(expiryDate, 3);
+            if (month < 1 || month > 12 || year < 0) {
                 return false;
             }
 
-            try {
-                String[] parts = expiryDate.split("/");
-                int month = Integer.parseInt(parts[0]);
-                int year = Integer.parseInt("20" + parts[1]); // Convert YY to YYYY (e.g., 25 -> 2025)
+            // Expiry date should not be in the past
+            // Allow current month as cards are typically valid until end of month
+            // YY is read as 20YY (e.g., 25 -> 2025)
+            return monthIndex(2000 + year, month) >= CurrentMonth.index();
+        }
 
-                YearMonth expiry = YearMonth.of(year, month);
-                YearMonth current = YearMonth.now();
+        /**
+         * Value of the two ASCII digits at offset, or -1 if either is not a digit
+         */
+        private static int twoDigits(String value, int offset) {
+            char tens = value.charAt(offset);
+            char units = value.charAt(offset + 1);
+            if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+                return -1;
+            }
+            return (tens - '0') * 10 + (units - '0');
+        }
 
-                // Expiry date should not be in the past
-                // Allow current month as cards are typically valid until end of month
-                return !expiry.isBefore(current);
-            } catch (Exception e) {
-                return false;
+        private static int monthIndex(int year, int month) {
+            return year * 12 + month - 1;
+        }
+
+        /**
+         * Current year-month (system default zone, as YearMonth.now()) cached until the next month
+         * starts, so validation reads the clock once per call instead of building a date.
+         */
+        private static final class CurrentMonth {
+            private static volatile CurrentMonth current = compute();
+
+            private final int index;
+            private final long validUntilMillis;
+
+            private CurrentMonth(int index, long validUntilMillis) {
+                this.index = index;
+                this.validUntilMillis = validUntilMillis;
+            }
+
+            static int index() {
+                CurrentMonth month = current;
+                if (System.currentTimeMillis() >= month.validUntilMillis) {
+                    month = compute();
+                    current = month;
+                }
+                return month.index;
+            }
+
+            private static CurrentMonth compute() {
+                ZoneId zone = ZoneId.systemDefault();
+                YearMonth now = YearMonth.now(zone);
+                long nextMonthStart = now.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                return new CurrentMonth(monthIndex(now.getYear(), now.getMonthValue()), nextMonthStart);
             }
         }
     }
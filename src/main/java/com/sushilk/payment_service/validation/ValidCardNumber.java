@@ -35,50 +35,45 @@ public @interface ValidCardNumber {
                 return true; // Let @NotBlank handle null/empty validation
             }
 
-            // Remove any spaces or hyphens
-            String cleaned = cardNumber.replaceAll("[\\s-]", "");
-
-            // Check if all characters are digits
-            if (!cleaned.matches("^[0-9]+$")) {
-                return false;
+            // Single right-to-left pass: skip spaces/hyphens, reject anything but digits,
+            // count digits (13-19) and accumulate the Luhn sum - no regex, no string copies
+            int digits = 0;
+            int sum = 0;
+            for (int i = cardNumber.length() - 1; i >= 0; i--) {
+                char c = cardNumber.charAt(i);
+                if (isSeparator(c)) {
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+                sum += luhnDigit(c - '0', (digits & 1) == 1);
+                digits++;
             }
 
-            // Check length (13-19 digits)
-            if (cleaned.length() < 13 || cleaned.length() > 19) {
-                return false;
-            }
+            return digits >= 13 && digits <= 19 && sum % 10 == 0;
+        }
 
-            // Luhn algorithm validation
-            return isValidLuhn(cleaned);
+        /**
+         * Separators stripped before validation: ASCII whitespace (same set as regex \s) and hyphen
+         */
+        private static boolean isSeparator(char c) {
+            return c == ' ' || c == '-' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
         }
 
         /**
-         * Luhn algorithm (Mod 10) implementation
+         * Luhn algorithm (Mod 10) contribution of one digit
          * 1. Starting from the rightmost digit, double every second digit
          * 2. If doubling results in a two-digit number, add the two digits
          * 3. Sum all digits
          * 4. If the sum is divisible by 10, the card number is valid
          */
-        private boolean isValidLuhn(String cardNumber) {
-            int sum = 0;
-            boolean alternate = false;
-
-            // Process from right to left
-            for (int i = cardNumber.length() - 1; i >= 0; i--) {
-                int digit = Character.getNumericValue(cardNumber.charAt(i));
-
-                if (alternate) {
-                    digit *= 2;
-                    if (digit > 9) {
-                        digit = (digit % 10) + 1; // Add digits of two-digit number
-                    }
-                }
-
-                sum += digit;
-                alternate = !alternate;
+        private static int luhnDigit(int digit, boolean alternate) {
+            if (!alternate) {
+                return digit;
             }
-
-            return sum % 10 == 0;
+            digit *= 2;
+            return digit > 9 ? digit - 9 : digit; // Add digits of two-digit number
         }
     }
 }
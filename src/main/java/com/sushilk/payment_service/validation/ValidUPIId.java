@@ -28,14 +28,16 @@ public @interface ValidUPIId {
     Class<? extends Payload>[] payload() default {};
 
     class UPIIdValidator implements ConstraintValidator<ValidUPIId, String> {
-        private static final String UPI_ID_PATTERN = "^[a-zA-Z0-9._-]+@[a-zA-Z0-9.-]+$";
-        
+        private static final int MAX_USERNAME_LENGTH = 255;
+        private static final int MIN_HANDLE_LENGTH = 2;
+        private static final int MAX_HANDLE_LENGTH = 63;
+
         // Common UPI handle identifiers (non-exhaustive list)
         private static final String[] VALID_UPI_HANDLES = {
-            "paytm", "ybl", "okaxis", "okhdfcbank", "okicici", "oksbi", 
-            "okaxis", "payu", "airtel", "phonepe", "gpay", "amazonpay",
-            "upi", "axl", "ibl", "yesbank", "kvb", "paytm", "payzapp",
-            "rbl", "sbi", "unionbank", "upi", "waayu"
+            "paytm", "ybl", "okaxis", "okhdfcbank", "okicici", "oksbi",
+            "payu", "airtel", "phonepe", "gpay", "amazonpay",
+            "upi", "axl", "ibl", "yesbank", "kvb", "payzapp",
+            "rbl", "sbi", "unionbank", "waayu"
         };
 
         @Override
@@ -49,48 +51,61 @@ public @interface ValidUPIId {
                 return true; // Let @NotBlank handle null/empty validation
             }
 
-            // Basic format check: must contain @ symbol and valid characters
-            if (!upiId.matches(UPI_ID_PATTERN)) {
-                return false;
-            }
-
-            // Must contain exactly one @
-            int atCount = upiId.length() - upiId.replace("@", "").length();
-            if (atCount != 1) {
-                return false;
+            // Single pass format check: username [a-zA-Z0-9._-], exactly one @, handle [a-zA-Z0-9.-]
+            int length = upiId.length();
+            int at = -1;
+            for (int i = 0; i < length; i++) {
+                char c = upiId.charAt(i);
+                if (c == '@') {
+                    if (at >= 0) {
+                        return false;
+                    }
+                    at = i;
+                } else if (!isAsciiLetterOrDigit(c) && c != '.' && c != '-' && (c != '_' || at >= 0)) {
+                    return false;
+                }
             }
 
-            String[] parts = upiId.split("@");
-            if (parts.length != 2) {
+            // Username and handle must both be non-empty
+            if (at <= 0 || at == length - 1) {
                 return false;
             }
 
-            String username = parts[0];
-            String handle = parts[1].toLowerCase();
-
             // Username validation
-            if (username.length() < 1 || username.length() > 255) {
+            if (at > MAX_USERNAME_LENGTH) {
                 return false;
             }
 
-            // Handle validation - must be a valid UPI handle
-            // Check if handle is a known UPI provider/handle
+            // Handle validation - a known UPI provider/handle (or a sub-domain of one) is always accepted
             // Note: This is a basic check. In production, you might want to check against a comprehensive list
-            boolean isValidHandle = false;
+            int handleStart = at + 1;
             for (String validHandle : VALID_UPI_HANDLES) {
-                if (handle.equals(validHandle) || handle.endsWith("." + validHandle)) {
-                    isValidHandle = true;
-                    break;
+                if (handleMatches(upiId, handleStart, validHandle)) {
+                    return true;
                 }
             }
 
-            // Also allow generic patterns like xyz@bankname or xyz@upi
-            if (!isValidHandle) {
-                // Allow if handle looks reasonable (contains letters/numbers and dots/hyphens)
-                isValidHandle = handle.matches("^[a-zA-Z0-9.-]+$") && handle.length() >= 2 && handle.length() <= 63;
+            // Also allow generic patterns like xyz@bankname or xyz@upi if the handle length is reasonable
+            int handleLength = length - handleStart;
+            return handleLength >= MIN_HANDLE_LENGTH && handleLength <= MAX_HANDLE_LENGTH;
+        }
+
+        /**
+         * Case-insensitive "handle equals validHandle or ends with .validHandle", without lower-casing a copy
+         */
+        private static boolean handleMatches(String upiId, int handleStart, String validHandle) {
+            int handleLength = upiId.length() - handleStart;
+            int suffixStart = upiId.length() - validHandle.length();
+            if (handleLength == validHandle.length()) {
+                return upiId.regionMatches(true, handleStart, validHandle, 0, validHandle.length());
             }
+            return handleLength > validHandle.length()
+                    && upiId.charAt(suffixStart - 1) == '.'
+                    && upiId.regionMatches(true, suffixStart, validHandle, 0, validHandle.length());
+        }
 
-            return isValidHandle;
+        private static boolean isAsciiLetterOrDigit(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
         }
     }
 }
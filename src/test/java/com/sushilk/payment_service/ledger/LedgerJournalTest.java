@@ -0,0 +1,98 @@
+package com.sushilk.payment_service.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entries survive reopening across segment rolls, a torn tail is discarded, and redelivered
+ * events are not journaled twice. Small segments force several rolls.
+ */
+class LedgerJournalTest {
+
+    private static final int SEGMENT_BYTES = 512;
+
+    @TempDir
+    Path dir;
+
+    private final UUID paymentA = UUID.randomUUID();
+    private final UUID paymentB = UUID.randomUUID();
+
+    @Test
+    void historyFollowsEachPaymentAcrossSegmentsAndReopen() throws IOException {
+        List<LedgerChange> changes = changes(10);
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            assertThat(journal.append(changes)).hasSize(10);
+        }
+
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            assertThat(journal.size()).isEqualTo(10);
+            assertThat(journal.history(paymentA))
+                    .extracting(entry -> entry.change().status())
+                    .containsExactly("S0", "S2", "S4", "S6", "S8");
+            assertThat(journal.history(paymentB).getFirst().change().providerReference()).isEqualTo("ref-1");
+            assertThat(journal.history(paymentB).getFirst().change().amount()).isEqualByComparingTo("10.50");
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    void redeliveredEventsAreSkipped() throws IOException {
+        List<LedgerChange> changes = changes(4);
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            journal.append(changes);
+        }
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            assertThat(journal.append(changes)).isEmpty();
+            assertThat(journal.size()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedOnOpen() throws IOException {
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            journal.append(changes(2));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().toList().getLast();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // A half-written entry: a length and a checksum that does not match the (empty) body
+            file.seek(SEGMENT_BYTES - 64);
+            file.writeInt(40);
+            file.writeInt(12345);
+        }
+
+        try (LedgerJournal journal = new LedgerJournal(dir, SEGMENT_BYTES)) {
+            assertThat(journal.size()).isEqualTo(2);
+            List<JournalEntry> entries = new ArrayList<>();
+            journal.append(changes(1));
+            journal.replay(entries::add);
+            assertThat(entries).extracting(JournalEntry::sequence).containsExactly(0L, 1L, 2L);
+        }
+    }
+
+    private List<LedgerChange> changes(int count) {
+        List<LedgerChange> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            changes.add(new LedgerChange(UUID.randomUUID(), Instant.now(), UUID.randomUUID(),
+                    i % 2 == 0 ? paymentA : paymentB, "DEBIT", "S" + i, new BigDecimal("10.50"), "ref-" + i));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.sushilk.payment_service.masking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The streaming MaskingJsonWriter must produce byte-for-byte the audit payload the
+ * previous convertValue/patch/re-serialize implementation stored on PaymentAttempt.
+ */
+class AuditPayloadGoldenTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final MaskingJsonWriter writer = new MaskingJsonWriter(objectMapper);
+    private final LegacyRequestPayloadSerializer legacy = new LegacyRequestPayloadSerializer(objectMapper);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "card.json",
+            "card-with-separators.json",
+            "upi-with-phone.json",
+            "upi-short-handle.json",
+            "p2p-beneficiary.json",
+            "bill-payment-bank-account.json",
+            "net-banking.json",
+            "net-banking-no-customer.json"
+    })
+    void matchesLegacyOutput(String fixture) throws IOException {
+        InitiatePaymentRequest request = load(fixture);
+
+        String expected = legacy.serialize(request);
+        String actual = writer.writeValueAsString(request);
+
+        assertThat(expected).isNotEqualTo("{}");
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"card.json", "card-with-separators.json", "bill-payment-bank-account.json"})
+    void neverContainsRawSensitiveValues(String fixture) throws IOException {
+        InitiatePaymentRequest request = load(fixture);
+
+        String actual = writer.writeValueAsString(request);
+
+        if (request.cardDetails() != null) {
+            assertThat(actual).doesNotContain(request.cardDetails().cardNumber());
+            assertThat(actual).doesNotContain("\"cvv\":\"" + request.cardDetails().cvv() + "\"");
+            assertThat(actual).doesNotContain(request.cardDetails().expiryDate());
+        }
+        if (request.beneficiaryDetails() != null && request.beneficiaryDetails().accountNumber() != null) {
+            assertThat(actual).doesNotContain(request.beneficiaryDetails().accountNumber());
+        }
+    }
+
+    private InitiatePaymentRequest load(String fixture) throws IOException {
+        try (InputStream in = new ClassPathResource("audit/" + fixture).getInputStream()) {
+            return objectMapper.readValue(in, InitiatePaymentRequest.class);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sushilk.payment_service.outbox;
+
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.OutboxAggregateType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.repositories.OutboxEventRepository;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Outbox rows commit and roll back with the state change, and the relay moves committed rows
+ * to the sink. The relay thread is off; batches are driven by the test.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay relay;
+    @Autowired
+    private OutboxSink sink;
+    @Autowired
+    private OutboxWriter outbox;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private InMemoryOutboxSink memory;
+
+    @BeforeEach
+    void drain() throws Exception {
+        while (relay.relayBatch() > 0) {
+            // publish whatever earlier tests left behind
+        }
+        memory = (InMemoryOutboxSink) sink;
+        memory.clear();
+    }
+
+    @Test
+    void committedChangeIsPublishedAndRemovedFromTheOutbox() throws Exception {
+        Payment payment = transactionTemplate.execute(status -> {
+            Payment saved = paymentRepository.save(payment(PaymentStatus.INITIATED));
+            outbox.record(saved);
+            return saved;
+        });
+
+        assertThat(relay.relayBatch()).isEqualTo(1);
+
+        assertThat(memory.messages()).singleElement().satisfies(message -> {
+            assertThat(message.aggregateType()).isEqualTo(OutboxAggregateType.PAYMENT);
+            assertThat(message.aggregateId()).isEqualTo(payment.getPaymentId());
+            assertThat(message.status()).isEqualTo("INITIATED");
+            assertThat(message.payload()).contains(payment.getPaymentId().toString());
+        });
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void rolledBackChangeIsNeverPublished() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.record(paymentRepository.save(payment(PaymentStatus.INITIATED)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(relay.relayBatch()).isZero();
+        assertThat(memory.messages()).isEmpty();
+    }
+
+    @Test
+    void writingOutsideATransactionIsRejected() {
+        assertThatThrownBy(() -> outbox.record(payment(PaymentStatus.CREATED)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Payment payment(PaymentStatus status) {
+        return Payment.builder()
+                .userId("user-1")
+                .orderId("order-" + UUID.randomUUID())
+                .orderType(OrderType.values()[0])
+                .amount(new BigDecimal("100.00"))
+                .currency("INR")
+                .status(status)
+                .provider(PaymentProvider.PHONEPE)
+                .paymentMethod(PaymentMethod.UPI)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.sushilk.payment_service.persistence;
+
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.dtos.RefundRequest;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.services.PaymentService;
+import com.sushilk.payment_service.sqlstats.RequestSqlStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL statements per payment operation. Each phase is one transaction written in a single flush
+ * with JDBC batching; a new query or an extra flush shows up here as a budget overrun.
+ * <p>
+ * initiatePayment: idempotency lookup + payment, attempt, transaction and outbox inserts (5),
+ * then three loads, three updates and the outbox insert when recording the outcome (7).
+ * refundPayment: payment load + refund and transaction inserts, payment update and outbox
+ * insert (5), then at most the same seven on completion.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false"
+})
+class StatementBudgetTest {
+
+    private static final int INITIATE_BUDGET = 12;
+    private static final int REFUND_BUDGET = 12;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Test
+    void initiatePaymentStaysWithinItsStatementBudget() {
+        RequestSqlStats stats = RequestSqlStats.start();
+        InitiatePaymentResponse response;
+        try {
+            response = paymentService.initiatePayment(cardRequest());
+        } finally {
+            RequestSqlStats.stop();
+        }
+
+        assertThat(response.status()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(stats.statements()).isLessThanOrEqualTo(INITIATE_BUDGET);
+        assertThat(stats.flushes()).isEqualTo(2);
+    }
+
+    @Test
+    void refundPaymentStaysWithinItsStatementBudget() {
+        UUID paymentId = paymentService.initiatePayment(cardRequest()).paymentId();
+
+        RequestSqlStats stats = RequestSqlStats.start();
+        try {
+            paymentService.refundPayment(new RefundRequest(paymentId, new BigDecimal("100.00"), "Customer request"));
+        } finally {
+            RequestSqlStats.stop();
+        }
+
+        assertThat(stats.statements()).isLessThanOrEqualTo(REFUND_BUDGET);
+        assertThat(stats.flushes()).isEqualTo(2);
+    }
+
+    private static InitiatePaymentRequest cardRequest() {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal("1000.50"), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, UUID.randomUUID().toString(),
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,161 @@
+package com.sushilk.payment_service.polling;
+
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentAttempt;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.enums.TransactionStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.repositories.PaymentAttemptRepository;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.services.impl.CardPaymentProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A payment the provider keeps answering PENDING for is queried with exponential backoff capped
+ * at max-backoff, and dropped after max-attempts; a final answer settles the payment together
+ * with its attempt and DEBIT transaction. Durations are scaled down to tens of
+ * milliseconds; only lower bounds are asserted where a slow machine could stretch an interval.
+ * The context is closed afterwards so its poller does not resolve other tests' payments.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=true",
+        "payment.status-poll.tick=PT0.02S",
+        "payment.status-poll.initial-delay=PT0S",
+        "payment.status-poll.discovery-interval=PT0.05S",
+        "payment.status-poll.min-backoff=PT0.1S",
+        "payment.status-poll.max-backoff=PT0.2S",
+        "payment.status-poll.max-attempts=5"
+})
+@DirtiesContext
+class PaymentStatusPollerTest {
+
+    private static final Duration TICK = Duration.ofMillis(20);
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofMillis(200);
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentAttemptRepository attemptRepository;
+
+    @Autowired
+    private PaymentTransactionRepository transactionRepository;
+
+    @MockitoSpyBean
+    private CardPaymentProvider card;
+
+    @Test
+    void pendingAnswersBackOffExponentiallyUntilThePollerGivesUp() throws Exception {
+        UUID paymentId = paymentRepository.save(cardPayment(PaymentStatus.PROCESSING)).getPaymentId();
+        List<Long> queriedAt = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            if (!payment.getPaymentId().equals(paymentId)) {
+                return invocation.callRealMethod();
+            }
+            queriedAt.add(System.nanoTime());
+            return new ProviderStatusResponse(ProviderPaymentStatus.PENDING, null, "{}");
+        }).when(card).queryPaymentStatus(any());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (queriedAt.size() < MAX_ATTEMPTS && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(queriedAt).as("status queries").hasSize(MAX_ATTEMPTS);
+
+        // Backoff doubles from min-backoff up to max-backoff, less up to 10% jitter and a tick of rounding
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            Duration backoff = MIN_BACKOFF.multipliedBy(1L << (attempt - 1));
+            Duration expected = backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+            Duration interval = Duration.ofNanos(queriedAt.get(attempt) - queriedAt.get(attempt - 1));
+            assertThat(interval).as("interval before query %d", attempt + 1)
+                    .isGreaterThanOrEqualTo(expected.multipliedBy(9).dividedBy(10).minus(TICK));
+        }
+        // Capped: uncapped, the last wait would have been 800ms
+        Duration last = Duration.ofNanos(queriedAt.get(MAX_ATTEMPTS - 1) - queriedAt.get(MAX_ATTEMPTS - 2));
+        assertThat(last).isLessThan(Duration.ofMillis(600));
+
+        // Given up: several max-backoffs later there has been no further query
+        Thread.sleep(MAX_BACKOFF.multipliedBy(5).toMillis());
+        assertThat(queriedAt).hasSize(MAX_ATTEMPTS);
+        assertThat(paymentRepository.findById(paymentId).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PROCESSING);
+    }
+
+    @Test
+    void finalAnswerSettlesThePaymentItsAttemptAndItsDebit() throws Exception {
+        Payment payment = paymentRepository.save(cardPayment(PaymentStatus.INITIATED));
+        UUID paymentId = payment.getPaymentId();
+        UUID attemptId = attemptRepository.save(PaymentAttempt.builder()
+                .paymentId(paymentId)
+                .provider(PaymentProvider.CARD)
+                .attemptNo(1)
+                .status(PaymentAttemptStatus.INITIATED)
+                .build()).getAttemptId();
+        UUID debitId = transactionRepository.save(PaymentTransaction.builder()
+                .paymentId(paymentId)
+                .transactionType(TransactionType.DEBIT)
+                .amount(payment.getAmount())
+                .status(TransactionStatus.INITIATED)
+                .build()).getTransactionId();
+        doAnswer(invocation -> {
+            Payment queried = invocation.getArgument(0);
+            if (!queried.getPaymentId().equals(paymentId)) {
+                return invocation.callRealMethod();
+            }
+            return new ProviderStatusResponse(ProviderPaymentStatus.SUCCESS, "CARD_TXN_polled", "{}");
+        }).when(card).queryPaymentStatus(any());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (paymentRepository.findById(paymentId).orElseThrow().getStatus() == PaymentStatus.INITIATED
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(paymentRepository.findById(paymentId).orElseThrow().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(attemptRepository.findById(attemptId).orElseThrow().getStatus()).isEqualTo(PaymentAttemptStatus.SUCCESS);
+        PaymentTransaction debit = transactionRepository.findById(debitId).orElseThrow();
+        assertThat(debit.getStatus()).isEqualTo(TransactionStatus.SUCCESS);
+        assertThat(debit.getProviderReference()).isEqualTo("CARD_TXN_polled");
+    }
+
+    private static Payment cardPayment(PaymentStatus status) {
+        return Payment.builder()
+                .userId("user-1")
+                .orderId("order-" + UUID.randomUUID())
+                .orderType(OrderType.values()[0])
+                .amount(new BigDecimal("100.00"))
+                .currency("INR")
+                .status(status)
+                .provider(PaymentProvider.CARD)
+                .paymentMethod(PaymentMethod.CARD)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.sushilk.payment_service.polling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Timers fire at exactly their deadline tick whichever level they start on, deadlines beyond the
+ * wheel's range are clamped to its last tick, and passed deadlines fire on the next advance.
+ */
+class TimingWheelTest {
+
+    @Test
+    void timersExpireAtTheirDeadlineAcrossLevels() {
+        // Level boundaries of a 3-level wheel: 64 ticks per level-1 slot, 4096 per level-2 slot
+        long start = 1000;
+        TimingWheel<Long> wheel = new TimingWheel<>(3, start);
+        long[] deadlines = {start + 4095, start, start + 63, start + 64, start + 65, start + 1, start + 4096,
+                start + 4097, start + 100_000, start + 262_143, start + 127, start + 128};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        Map<Long, Long> firedAt = advanceTickByTick(wheel, start + 262_143);
+
+        assertThat(firedAt).hasSize(deadlines.length);
+        firedAt.forEach((deadline, tick) -> assertThat(tick).as("deadline %d", deadline).isEqualTo(deadline));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void randomDeadlinesExpireInDeadlineOrder() {
+        Random random = new Random(42);
+        long start = 12_345;
+        TimingWheel<Long> wheel = new TimingWheel<>(4, start);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly near, some on the upper levels
+            long delta = random.nextInt(4) == 0 ? random.nextInt(1 << 18) : random.nextInt(1 << 10);
+            deadlines.add(start + delta);
+            wheel.schedule(start + delta, start + delta);
+        }
+
+        // Large strides, so one advance crosses many slots and levels at once
+        List<Long> expired = new ArrayList<>();
+        for (long tick = start; tick < start + (1 << 18); tick += 5_000) {
+            wheel.advanceTo(tick, expired::add);
+        }
+        wheel.advanceTo(start + (1 << 18), expired::add);
+
+        assertThat(expired).hasSameSizeAs(deadlines).isSorted();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void farFutureDeadlinesAreClampedToTheLastTickOfTheWheel() {
+        TimingWheel<String> oneLevel = new TimingWheel<>(1, 0);
+        oneLevel.schedule("far", 1_000_000);
+        assertThat(advanceTickByTick(oneLevel, 100)).containsEntry("far", 63L);
+
+        long start = 500;
+        TimingWheel<String> twoLevels = new TimingWheel<>(2, start);
+        twoLevels.schedule("far", Long.MAX_VALUE);
+        twoLevels.schedule("last", start + 4095);
+        assertThat(advanceTickByTick(twoLevels, start + 5000))
+                .containsEntry("far", start + 4095)
+                .containsEntry("last", start + 4095);
+    }
+
+    @Test
+    void passedDeadlinesExpireOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(2, 0);
+        wheel.advanceTo(700, item -> {});
+        assertThat(wheel.currentTick()).isEqualTo(701);
+
+        wheel.schedule("long ago", 3);
+        wheel.schedule("just now", 700);
+        wheel.schedule("next", 701);
+        assertThat(wheel.size()).isEqualTo(3);
+
+        // Going backwards expires nothing
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(10, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advanceTo(701, expired::add);
+        assertThat(expired).containsExactlyInAnyOrder("long ago", "just now", "next");
+        assertThat(wheel.size()).isZero();
+    }
+
+    /** Advances one tick at a time; returns each item with the tick it expired on. */
+    private static <T> Map<T, Long> advanceTickByTick(TimingWheel<T> wheel, long until) {
+        Map<T, Long> firedAt = new HashMap<>();
+        for (long tick = wheel.currentTick(); tick <= until; tick++) {
+            long now = tick;
+            wheel.advanceTo(tick, item -> assertThat(firedAt.put(item, now)).as("fired twice: %s", item).isNull());
+        }
+        return firedAt;
+    }
+}
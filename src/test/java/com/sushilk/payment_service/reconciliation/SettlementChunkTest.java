@@ -0,0 +1,187 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.entities.ReconciliationMismatch;
+import com.sushilk.payment_service.enums.MismatchType;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.SettlementRecordType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The file pass on its own: a settlement file in a temp dir, a ledger held in a map. A chunk
+ * size of a few bytes puts a chunk boundary inside almost every line.
+ */
+class SettlementChunkTest {
+
+    private static final String HEADER = "record_type,provider_reference,amount,status";
+
+    @TempDir
+    private Path dir;
+
+    private final Map<String, LedgerEntry> payments = new HashMap<>();
+    private final Map<String, LedgerEntry> refunds = new HashMap<>();
+    private final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+    private final List<ReconciliationMismatch> mismatches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void recordsStraddlingChunkBoundariesAreReconciledOnce() throws IOException {
+        List<String> lines = settledLines(200);
+
+        SettlementRun run = reconcile(file("\n", lines, true), 7, 3);
+
+        assertThat(run.linesRead()).isEqualTo(200);
+        assertThat(run.matched()).isEqualTo(200);
+        assertThat(mismatches).isEmpty();
+        assertThat(lookups).hasSize(200).allSatisfy((reference, count) -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    void crlfLineEndingsAreNotPartOfTheStatus() throws IOException {
+        SettlementRun run = reconcile(file("\r\n", settledLines(50), true), 13, 4);
+
+        assertThat(run.linesRead()).isEqualTo(50);
+        assertThat(run.matched()).isEqualTo(50);
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    void lastLineWithoutNewlineIsRead() throws IOException {
+        List<String> lines = settledLines(20);
+
+        SettlementRun run = reconcile(file("\r\n", lines, false), 11, 5);
+
+        assertThat(run.linesRead()).isEqualTo(20);
+        assertThat(run.matched()).isEqualTo(20);
+        assertThat(run.fingerprints().contains(false, "TXN-19")).isTrue();
+    }
+
+    @Test
+    void singleChunkFile() throws IOException {
+        SettlementRun run = reconcile(file("\n", settledLines(30), false), 1 << 20, 1000);
+
+        assertThat(run.linesRead()).isEqualTo(30);
+        assertThat(run.matched()).isEqualTo(30);
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    void differencesAreReportedPerLine() throws IOException {
+        payments.put("TXN-OK", new LedgerEntry("TXN-OK", new BigDecimal("10.00"), "SUCCESS"));
+        payments.put("TXN-AMOUNT", new LedgerEntry("TXN-AMOUNT", new BigDecimal("10.00"), "SUCCESS"));
+        payments.put("TXN-STATUS", new LedgerEntry("TXN-STATUS", new BigDecimal("10.00"), "FAILED"));
+        refunds.put("RFD-OK", new LedgerEntry("RFD-OK", new BigDecimal("2.5"), "SUCCESS"));
+        // A payment reference on a REFUND line is not the refund's
+        Path file = file("\n", List.of(
+                "PAYMENT,TXN-OK,10,SUCCESS",
+                "PAYMENT,TXN-AMOUNT,10.01,SUCCESS",
+                "PAYMENT,TXN-STATUS,10.00,SUCCESS",
+                "PAYMENT,TXN-UNKNOWN,1.00,SUCCESS",
+                "REFUND,RFD-OK,2.50,SUCCESS,extra,columns",
+                "REFUND,TXN-OK,10.00,SUCCESS",
+                "CHARGEBACK,TXN-OK,10.00,SUCCESS",
+                "PAYMENT,TXN-OK,-10.00,SUCCESS"), true);
+
+        SettlementRun run = reconcile(file, 9, 2);
+
+        assertThat(run.matched()).isEqualTo(2);
+        assertThat(run.linesRead()).isEqualTo(8);
+        assertThat(mismatches)
+                .extracting(ReconciliationMismatch::getMismatchType, ReconciliationMismatch::getRecordType,
+                        ReconciliationMismatch::getProviderReference)
+                .containsExactlyInAnyOrder(
+                        tuple(MismatchType.AMOUNT_MISMATCH, SettlementRecordType.PAYMENT, "TXN-AMOUNT"),
+                        tuple(MismatchType.STATUS_MISMATCH, SettlementRecordType.PAYMENT, "TXN-STATUS"),
+                        tuple(MismatchType.MISSING_IN_LEDGER, SettlementRecordType.PAYMENT, "TXN-UNKNOWN"),
+                        tuple(MismatchType.MISSING_IN_LEDGER, SettlementRecordType.REFUND, "TXN-OK"),
+                        tuple(MismatchType.MALFORMED_LINE, null, "@" + offsetOf(file, "CHARGEBACK")),
+                        tuple(MismatchType.MALFORMED_LINE, null, "@" + offsetOf(file, "PAYMENT,TXN-OK,-10")));
+        assertThat(mismatches).filteredOn(m -> "TXN-AMOUNT".equals(m.getProviderReference())).singleElement()
+                .satisfies(m -> {
+                    assertThat(m.getFileAmount()).isEqualByComparingTo("10.01");
+                    assertThat(m.getLedgerAmount()).isEqualByComparingTo("10.00");
+                });
+
+        // Only references read from the file are fingerprinted, per record type
+        assertThat(run.fingerprints().contains(false, "TXN-OK")).isTrue();
+        assertThat(run.fingerprints().contains(true, "RFD-OK")).isTrue();
+        assertThat(run.fingerprints().contains(true, "TXN-STATUS")).isFalse();
+        assertThat(run.fingerprints().contains(false, "TXN-NEVER-SEEN")).isFalse();
+    }
+
+    /** n matching PAYMENT lines TXN-0..TXN-(n-1), each also put in the ledger. */
+    private List<String> settledLines(int n) {
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String reference = "TXN-" + i;
+            BigDecimal amount = BigDecimal.valueOf(100 + i, 2);
+            payments.put(reference, new LedgerEntry(reference, amount, "SUCCESS"));
+            lines.add("PAYMENT," + reference + "," + amount.toPlainString() + ",SUCCESS");
+        }
+        return lines;
+    }
+
+    private Path file(String newline, List<String> lines, boolean trailingNewline) throws IOException {
+        String content = HEADER + newline + String.join(newline, lines) + (trailingNewline ? newline : "");
+        return Files.writeString(dir.resolve("settlement.csv"), content, StandardCharsets.US_ASCII);
+    }
+
+    private static long offsetOf(Path file, String linePrefix) throws IOException {
+        return Files.readString(file, StandardCharsets.US_ASCII).indexOf("\n" + linePrefix) + 1;
+    }
+
+    private SettlementRun reconcile(Path file, long chunkSize, int batchSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            SettlementRun run = new SettlementRun(UUID.randomUUID(), PaymentProvider.PHONEPE, channel, size,
+                    chunkSize, batchSize, new MapLedger(), new ReferenceFingerprints(size), mismatches::addAll);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                pool.invoke(new SettlementChunk(run, 0, size));
+            } finally {
+                pool.shutdown();
+            }
+            return run;
+        }
+    }
+
+    private final class MapLedger extends LedgerLookup {
+
+        MapLedger() {
+            super(null, null, null);
+        }
+
+        @Override
+        Map<String, LedgerEntry> find(PaymentProvider provider, boolean refund, Collection<String> references) {
+            Map<String, LedgerEntry> found = new HashMap<>();
+            for (String reference : references) {
+                lookups.computeIfAbsent((refund ? "R:" : "P:") + reference, key -> new AtomicInteger()).incrementAndGet();
+                LedgerEntry entry = (refund ? refunds : payments).get(reference);
+                if (entry != null) {
+                    found.put(reference, entry);
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sushilk.payment_service.reconciliation;
+
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.entities.ReconciliationMismatch;
+import com.sushilk.payment_service.entities.ReconciliationRun;
+import com.sushilk.payment_service.enums.MismatchType;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.ReconciliationStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.repositories.ReconciliationMismatchRepository;
+import com.sushilk.payment_service.services.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Both passes against the real ledger: payments made through the service today, a settlement
+ * file that has one of them, a reference we never saw, and not the other.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false"
+})
+class SettlementReconcilerTest {
+
+    @TempDir
+    private Path dir;
+
+    @Autowired
+    private SettlementReconciler reconciler;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentTransactionRepository transactionRepository;
+
+    @Autowired
+    private ReconciliationMismatchRepository mismatchRepository;
+
+    @Test
+    void reportsLinesMissingOnEitherSide() throws IOException {
+        String settled = debitReference(paymentService.initiatePayment(cardRequest()).paymentId());
+        String unsettled = debitReference(paymentService.initiatePayment(cardRequest()).paymentId());
+        Path file = Files.writeString(dir.resolve("card-settlement.csv"), """
+                record_type,provider_reference,amount,status
+                PAYMENT,%s,1000.50,SUCCESS
+                PAYMENT,CARD_TXN_NEVER_SEEN,5.00,SUCCESS
+                """.formatted(settled));
+
+        ReconciliationRun run = reconciler.reconcile(PaymentProvider.CARD, LocalDate.now(), file);
+
+        assertThat(run.getStatus()).isEqualTo(ReconciliationStatus.COMPLETED);
+        assertThat(run.getLinesRead()).isEqualTo(2);
+        assertThat(run.getMatched()).isEqualTo(1);
+        assertThat(mismatchRepository.findByRunId(run.getRunId()))
+                .extracting(ReconciliationMismatch::getMismatchType, ReconciliationMismatch::getProviderReference)
+                .contains(
+                        tuple(MismatchType.MISSING_IN_LEDGER, "CARD_TXN_NEVER_SEEN"),
+                        tuple(MismatchType.MISSING_IN_FILE, unsettled))
+                .doesNotContain(tuple(MismatchType.MISSING_IN_FILE, settled));
+    }
+
+    private String debitReference(UUID paymentId) {
+        return transactionRepository.findByPaymentId(paymentId).stream()
+                .filter(transaction -> transaction.getTransactionType() == TransactionType.DEBIT)
+                .map(PaymentTransaction::getProviderReference)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static InitiatePaymentRequest cardRequest() {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal("1000.50"), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, UUID.randomUUID().toString(),
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.sushilk.payment_service.recovery;
+
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.dtos.RefundRequest;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.RefundRepository;
+import com.sushilk.payment_service.services.PaymentService;
+import com.sushilk.payment_service.services.impl.CardPaymentProvider;
+import com.sushilk.payment_service.services.impl.StrandedPaymentRecoveryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A refund whose provider call failed after dispatch stays INITIATED with its amount reserved
+ * until the provider's refund status says how it ended. stranded-after is zero, so every sweep
+ * sees it; the scheduled sweep only runs at startup.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false",
+        "payment.recovery.stranded-after=PT0S",
+        "payment.recovery.interval=PT1H"
+})
+class StrandedRefundRecoveryTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StrandedPaymentRecoveryService recovery;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @MockitoSpyBean
+    private CardPaymentProvider card;
+
+    @Test
+    void unconfirmedRefundKeepsItsReservationUntilTheProviderFailsIt() {
+        UUID paymentId = paymentService.initiatePayment(cardRequest()).paymentId();
+        Refund refund = strandRefund(paymentId, "400.00");
+
+        doReturn(status(ProviderPaymentStatus.PENDING)).when(card).queryRefundStatus(any(), any());
+        recovery.recoverStranded();
+        assertThat(refund(refund).getStatus()).isEqualTo(RefundStatus.INITIATED);
+        assertThat(payment(paymentId).getRefundedAmount()).isEqualByComparingTo("400.00");
+
+        doThrow(new IllegalStateException("status endpoint down")).when(card).queryRefundStatus(any(), any());
+        recovery.recoverStranded();
+        assertThat(refund(refund).getStatus()).isEqualTo(RefundStatus.INITIATED);
+        assertThat(payment(paymentId).getRefundedAmount()).isEqualByComparingTo("400.00");
+
+        doReturn(status(ProviderPaymentStatus.FAILED)).when(card).queryRefundStatus(any(), any());
+        recovery.recoverStranded();
+        assertThat(refund(refund).getStatus()).isEqualTo(RefundStatus.FAILED);
+        assertThat(payment(paymentId).getRefundedAmount()).isEqualByComparingTo("0");
+        assertThat(payment(paymentId).getStatus()).isEqualTo(PaymentStatus.PROCESSING);
+    }
+
+    @Test
+    void refundConfirmedByTheProviderKeepsItsAmount() {
+        UUID paymentId = paymentService.initiatePayment(cardRequest()).paymentId();
+        Refund refund = strandRefund(paymentId, "1000.50");
+
+        doReturn(status(ProviderPaymentStatus.SUCCESS)).when(card).queryRefundStatus(any(), any());
+        recovery.recoverStranded();
+
+        assertThat(refund(refund).getStatus()).isEqualTo(RefundStatus.SUCCESS);
+        assertThat(refund(refund).getProviderRefundId()).isEqualTo("CARD_REFUND_CONFIRMED");
+        assertThat(payment(paymentId).getRefundedAmount()).isEqualByComparingTo("1000.50");
+        assertThat(payment(paymentId).getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+    }
+
+    /** The refund call fails after it may have reached the provider. */
+    private Refund strandRefund(UUID paymentId, String amount) {
+        doThrow(new IllegalStateException("read timed out")).when(card).refundPayment(any(), anyString());
+        assertThatThrownBy(() -> paymentService.refundPayment(
+                new RefundRequest(paymentId, new BigDecimal(amount), "Customer request")))
+                .isInstanceOf(RuntimeException.class);
+        Refund refund = refundRepository.findByPaymentId(paymentId).getFirst();
+        assertThat(refund.getStatus()).isEqualTo(RefundStatus.INITIATED);
+        assertThat(payment(paymentId).getRefundedAmount()).isEqualByComparingTo(amount);
+        return refund;
+    }
+
+    private Payment payment(UUID paymentId) {
+        return paymentRepository.findById(paymentId).orElseThrow();
+    }
+
+    private Refund refund(Refund refund) {
+        return refundRepository.findById(refund.getRefundId()).orElseThrow();
+    }
+
+    private static ProviderStatusResponse status(ProviderPaymentStatus status) {
+        return new ProviderStatusResponse(status, "CARD_REFUND_CONFIRMED", "{}");
+    }
+
+    private static InitiatePaymentRequest cardRequest() {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal("1000.50"), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, UUID.randomUUID().toString(),
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+}
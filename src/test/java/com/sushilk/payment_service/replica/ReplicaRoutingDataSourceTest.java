@@ -0,0 +1,100 @@
+package com.sushilk.payment_service.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases stand in for primary and replica; each knows its own name, so a query shows
+ * where it was routed. Replication is simulated by copying the heartbeat row.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate routed;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primary, replica, lagMillis::get, Duration.ofSeconds(5), meterRegistry));
+        routed = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        String readOnlyServer = readOnly.execute(status -> server());
+        String readWriteServer = readWrite.execute(status -> server());
+        assertThat(readOnlyServer).isEqualTo("replica");
+        assertThat(readWriteServer).isEqualTo("primary");
+        assertThat(server()).isEqualTo("primary"); // no transaction
+    }
+
+    @Test
+    void forcedPrimaryOverridesTheReadOnlyFlag() {
+        String server = readOnly.execute(status -> ReplicaRouting.onPrimary(this::server));
+        assertThat(server).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaIsBypassed() {
+        lagMillis.set(Duration.ofSeconds(6).toMillis());
+        String behind = readOnly.execute(status -> server());
+        assertThat(behind).isEqualTo("primary");
+
+        lagMillis.set(ReplicaLagMonitor.UNKNOWN);
+        String unknown = readOnly.execute(status -> server());
+        assertThat(unknown).isEqualTo("primary");
+    }
+
+    @Test
+    void lagMonitorMeasuresTheReplicatedHeartbeat() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, replica, meterRegistry);
+        new JdbcTemplate(replica).execute(
+                "create table replica_heartbeat (id int primary key, beat_at bigint not null)");
+
+        monitor.heartbeat();
+        assertThat(monitor.lagMillis()).isEqualTo(ReplicaLagMonitor.UNKNOWN); // not replicated yet
+
+        Long beat = new JdbcTemplate(primary).queryForObject("select beat_at from replica_heartbeat", Long.class);
+        new JdbcTemplate(replica).update("insert into replica_heartbeat values (1, ?)", beat - 2_000);
+        monitor.measure();
+        assertThat(monitor.lagMillis()).isBetween(2_000L, 10_000L);
+    }
+
+    private String server() {
+        return routed.queryForObject("select name from server", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table server (name varchar(16))");
+        jdbc.update("insert into server values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,186 @@
+package com.sushilk.payment_service.resilience;
+
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.exceptions.ProviderUnavailableException;
+import com.sushilk.payment_service.services.PaymentProviderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Load test: a PHONEPE stub that hangs must not take CARD down with it. CARD throughput with
+ * PHONEPE saturated by callers is compared against CARD alone.
+ */
+class ProviderIsolationLoadTest {
+
+    private static final Duration MEASUREMENT = Duration.ofMillis(1500);
+    private static final int CARD_CALLERS = 8;
+    private static final int PHONEPE_CALLERS = 64;
+
+    private final ExecutorService providerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ResilienceSettings settings = withShortTimings(ResilienceSettings.defaults());
+    private final ProviderGuards guards = new ProviderGuards(settings, providerExecutor, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        providerExecutor.shutdownNow();
+    }
+
+    @Test
+    void slowProviderDoesNotReduceThroughputOfOthers() throws Exception {
+        PaymentProviderService card = guards.guard(new StubProvider(PaymentProvider.CARD, Duration.ofMillis(2)));
+        PaymentProviderService phonePe = guards.guard(new StubProvider(PaymentProvider.PHONEPE, Duration.ofSeconds(3)));
+
+        long baseline = measureSuccesses(card);
+
+        AtomicBoolean hammering = new AtomicBoolean(true);
+        LongAdder phonePeRejected = new LongAdder();
+        for (int i = 0; i < PHONEPE_CALLERS; i++) {
+            callers.submit(() -> {
+                while (hammering.get()) {
+                    try {
+                        phonePe.initiatePayment(payment(PaymentProvider.PHONEPE));
+                    } catch (ProviderUnavailableException e) {
+                        phonePeRejected.increment();
+                        // Client backs off briefly instead of spinning: the rejections would otherwise
+                        // take the CPU (and virtual thread carriers) from CARD's callers, which measures
+                        // the test machine rather than the isolation
+                        Thread.sleep(5);
+                    }
+                }
+                return null;
+            });
+        }
+        long underLoad = measureSuccesses(card);
+        hammering.set(false);
+
+        assertThat(underLoad).isGreaterThanOrEqualTo((long) (baseline * 0.7));
+        assertThat(phonePeRejected.sum()).isPositive();
+        assertThat(meterRegistry.get("payment.provider.circuit.state").tag("provider", "PHONEPE").gauge().value())
+                .isEqualTo(CircuitBreaker.State.OPEN.gaugeValue());
+        assertThat(meterRegistry.get("payment.provider.circuit.state").tag("provider", "CARD").gauge().value())
+                .isEqualTo(CircuitBreaker.State.CLOSED.gaugeValue());
+    }
+
+    @Test
+    void callAbandonedBeforeStartingReleasesItsSlot() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            GuardedPaymentProvider phonePe = new GuardedPaymentProvider(
+                    new StubProvider(PaymentProvider.PHONEPE, Duration.ofSeconds(3)), single, settings);
+
+            // The only thread is taken, so this call times out before it ever reaches the provider
+            single.submit(() -> {
+                busy.await();
+                return null;
+            });
+            assertThatThrownBy(() -> phonePe.initiatePayment(payment(PaymentProvider.PHONEPE)))
+                    .isInstanceOfSatisfying(ProviderUnavailableException.class, e -> assertThat(e.isDispatched()).isFalse());
+            assertThat(phonePe.inFlight()).isZero();
+
+            // Once started, the provider may have the request even though the caller gave up
+            busy.countDown();
+            assertThatThrownBy(() -> phonePe.initiatePayment(payment(PaymentProvider.PHONEPE)))
+                    .isInstanceOfSatisfying(ProviderUnavailableException.class, e -> assertThat(e.isDispatched()).isTrue());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    private long measureSuccesses(PaymentProviderService provider) throws Exception {
+        LongAdder successes = new LongAdder();
+        long deadline = System.nanoTime() + MEASUREMENT.toNanos();
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < CARD_CALLERS; i++) {
+            running.add(callers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        if (provider.initiatePayment(payment(provider.getProvider())).success()) {
+                            successes.increment();
+                        }
+                    } catch (ProviderUnavailableException e) {
+                        // counted as lost throughput
+                    }
+                }
+            }));
+        }
+        for (Future<?> caller : running) {
+            caller.get();
+        }
+        return successes.sum();
+    }
+
+    /**
+     * Production limits and latency tolerance; only the timeouts and breaker window are shortened
+     * so the hung provider trips within the measurement.
+     */
+    private static ResilienceSettings withShortTimings(ResilienceSettings defaults) {
+        return new ResilienceSettings(defaults.initialLimit(), defaults.minLimit(), defaults.maxLimit(),
+                defaults.latencyTolerance(), defaults.backoffRatio(), defaults.timeoutMultiplier(),
+                Duration.ofMillis(50), Duration.ofMillis(500), defaults.failureRateThreshold(),
+                20, 10, Duration.ofSeconds(30), defaults.halfOpenCalls());
+    }
+
+    private static Payment payment(PaymentProvider provider) {
+        return Payment.builder().provider(provider).build();
+    }
+
+    private record StubProvider(PaymentProvider provider, Duration latency) implements PaymentProviderService {
+
+        @Override
+        public PaymentProvider getProvider() {
+            return provider;
+        }
+
+        @Override
+        public ProviderResponse initiatePayment(Payment payment) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("cancelled", e);
+            }
+            return new ProviderResponse(true, provider + "_TXN", "ok", "{}");
+        }
+
+        @Override
+        public ProviderResponse refundPayment(Payment payment, String reason) {
+            return initiatePayment(payment);
+        }
+
+        @Override
+        public ProviderStatusResponse queryPaymentStatus(Payment payment) {
+            initiatePayment(payment);
+            return new ProviderStatusResponse(ProviderPaymentStatus.SUCCESS, provider + "_TXN", "{}");
+        }
+
+        @Override
+        public ProviderStatusResponse queryRefundStatus(Payment payment, Refund refund) {
+            initiatePayment(payment);
+            return new ProviderStatusResponse(ProviderPaymentStatus.SUCCESS, provider + "_REFUND", "{}");
+        }
+    }
+}
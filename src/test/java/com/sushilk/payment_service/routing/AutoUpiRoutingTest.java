@@ -0,0 +1,182 @@
+package com.sushilk.payment_service.routing;
+
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.dtos.ProviderResponse;
+import com.sushilk.payment_service.dtos.ProviderStatusResponse;
+import com.sushilk.payment_service.dtos.UPIDetails;
+import com.sushilk.payment_service.entities.PaymentAttempt;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentAttemptStatus;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.ProviderPaymentStatus;
+import com.sushilk.payment_service.enums.RoutingMode;
+import com.sushilk.payment_service.repositories.PaymentAttemptRepository;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.services.PaymentService;
+import com.sushilk.payment_service.services.impl.GooglePayPaymentProvider;
+import com.sushilk.payment_service.services.impl.HedgeReversalService;
+import com.sushilk.payment_service.services.impl.PhonePePaymentProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * AUTO_UPI through the real PaymentServiceImpl, with PHONEPE scripted. A fresh context per test
+ * starts the router without data, so PHONEPE (preferred) leads and GOOGLEPAY comes next.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false",
+        "payment.routing.exploration=0",
+        "payment.routing.hedge-after=PT0.1S",
+        "payment.routing.reversal-retry-after=PT0S"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AutoUpiRoutingTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentAttemptRepository attemptRepository;
+
+    @Autowired
+    private HedgeReversalService hedgeReversals;
+
+    @MockitoSpyBean
+    private PhonePePaymentProvider phonePe;
+
+    @MockitoSpyBean
+    private GooglePayPaymentProvider googlePay;
+
+    @Test
+    void fastFailureFailsOverToTheNextProvider() {
+        doThrow(new IllegalStateException("connection refused")).when(phonePe).initiatePayment(any());
+
+        InitiatePaymentResponse response = paymentService.initiatePayment(autoUpiRequest());
+
+        assertThat(response.status()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(paymentRepository.findById(response.paymentId()).orElseThrow().getProvider())
+                .isEqualTo(PaymentProvider.GOOGLEPAY);
+        assertThat(attempts(response.paymentId()))
+                .extracting(PaymentAttempt::getProvider, PaymentAttempt::getStatus)
+                .containsExactly(
+                        tuple(PaymentProvider.PHONEPE, PaymentAttemptStatus.FAILED),
+                        tuple(PaymentProvider.GOOGLEPAY, PaymentAttemptStatus.SUCCESS));
+    }
+
+    @Test
+    void slowLoserThatWasAlsoAcceptedIsReversed() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(500); // well past hedge-after, so GOOGLEPAY answers first
+            return new ProviderResponse(true, "PHONEPE_TXN_SLOW", "Payment initiated successfully", "{}");
+        }).when(phonePe).initiatePayment(any());
+
+        InitiatePaymentResponse response = paymentService.initiatePayment(autoUpiRequest());
+
+        assertThat(response.status()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(paymentRepository.findById(response.paymentId()).orElseThrow().getProvider())
+                .isEqualTo(PaymentProvider.GOOGLEPAY);
+
+        // The losing collection is refunded through PHONEPE, not the winner's provider
+        verify(phonePe, timeout(5_000)).refundPayment(any(), anyString());
+        PaymentAttempt loser = awaitAttempt(response.paymentId(), PaymentProvider.PHONEPE, PaymentAttemptStatus.REVERSED);
+        assertThat(loser.getAttemptNo()).isEqualTo(1);
+        verify(googlePay, never()).refundPayment(any(), anyString());
+    }
+
+    @Test
+    void failedReversalStaysPendingForTheRetry() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(500);
+            return new ProviderResponse(true, "PHONEPE_TXN_SLOW", "Payment initiated successfully", "{}");
+        }).when(phonePe).initiatePayment(any());
+        doThrow(new IllegalStateException("refund endpoint down")).when(phonePe).refundPayment(any(), anyString());
+
+        InitiatePaymentResponse response = paymentService.initiatePayment(autoUpiRequest());
+
+        verify(phonePe, timeout(5_000)).refundPayment(any(), anyString());
+        awaitAttempt(response.paymentId(), PaymentProvider.PHONEPE, PaymentAttemptStatus.REVERSAL_PENDING);
+    }
+
+    @Test
+    void loserWithUnknownOutcomeIsSettledByTheStatusQuery() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(500);
+            throw new IllegalStateException("read timed out"); // the provider may have the payment
+        }).when(phonePe).initiatePayment(any());
+
+        InitiatePaymentResponse response = paymentService.initiatePayment(autoUpiRequest());
+        assertThat(response.status()).isEqualTo(PaymentStatus.PROCESSING);
+        awaitAttempt(response.paymentId(), PaymentProvider.PHONEPE, PaymentAttemptStatus.OUTCOME_UNKNOWN);
+
+        // No answer yet: stays open
+        doReturn(new ProviderStatusResponse(ProviderPaymentStatus.PENDING, null, "{}"))
+                .when(phonePe).queryPaymentStatus(any());
+        hedgeReversals.retryPending();
+        awaitAttempt(response.paymentId(), PaymentProvider.PHONEPE, PaymentAttemptStatus.OUTCOME_UNKNOWN);
+        verify(phonePe, never()).refundPayment(any(), anyString());
+
+        // PHONEPE did collect: reversed through PHONEPE
+        doReturn(new ProviderStatusResponse(ProviderPaymentStatus.SUCCESS, "PHONEPE_TXN_LATE", "{}"))
+                .when(phonePe).queryPaymentStatus(any());
+        hedgeReversals.retryPending();
+        verify(phonePe, timeout(5_000)).refundPayment(any(), anyString());
+        awaitAttempt(response.paymentId(), PaymentProvider.PHONEPE, PaymentAttemptStatus.REVERSED);
+        verify(googlePay, never()).refundPayment(any(), anyString());
+    }
+
+    private List<PaymentAttempt> attempts(UUID paymentId) {
+        return attemptRepository.findByPaymentId(paymentId).stream()
+                .sorted(Comparator.comparing(PaymentAttempt::getAttemptNo))
+                .toList();
+    }
+
+    private PaymentAttempt awaitAttempt(UUID paymentId, PaymentProvider provider, PaymentAttemptStatus status)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            PaymentAttempt attempt = attempts(paymentId).stream()
+                    .filter(candidate -> candidate.getProvider() == provider)
+                    .findFirst()
+                    .orElseThrow();
+            if (attempt.getStatus() == status || System.nanoTime() > deadline) {
+                assertThat(attempt.getStatus()).isEqualTo(status);
+                return attempt;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static InitiatePaymentRequest autoUpiRequest() {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal("250.00"), "INR",
+                PaymentProvider.PHONEPE, PaymentMethod.UPI, UUID.randomUUID().toString(),
+                null, new UPIDetails("user@ybl", null), null, null, RoutingMode.AUTO_UPI);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sushilk.payment_service.routing;
+
+import com.sushilk.payment_service.enums.PaymentProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.sushilk.payment_service.enums.PaymentProvider.GOOGLEPAY;
+import static com.sushilk.payment_service.enums.PaymentProvider.PAYTM;
+import static com.sushilk.payment_service.enums.PaymentProvider.PHONEPE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpiRouterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void preferredProviderLeadsUntilThereIsData() {
+        UpiRouter router = router(0);
+
+        assertThat(router.route(PAYTM)).containsExactly(PAYTM, PHONEPE, GOOGLEPAY);
+        assertThat(router.route(GOOGLEPAY)).containsExactly(GOOGLEPAY, PHONEPE, PAYTM);
+    }
+
+    @Test
+    void providersAreRankedByLatencyOverSuccessRate() {
+        UpiRouter router = router(0);
+        record(router, PHONEPE, 10, true);
+        record(router, PAYTM, 5, true);
+        record(router, GOOGLEPAY, 2, false); // fastest, but every call fails
+
+        assertThat(router.route(PHONEPE)).containsExactly(PAYTM, PHONEPE, GOOGLEPAY);
+        assertThat(meterRegistry.get("payment.routing.latency.ewma").tag("provider", "PAYTM").gauge().value())
+                .isEqualTo(5.0);
+        assertThat(meterRegistry.get("payment.routing.success.ewma").tag("provider", "GOOGLEPAY").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void unmeasuredProviderIsTriedFirst() {
+        UpiRouter router = router(0);
+        record(router, PHONEPE, 10, true);
+        record(router, PAYTM, 5, true);
+
+        assertThat(router.route(PHONEPE)).containsExactly(GOOGLEPAY, PAYTM, PHONEPE);
+    }
+
+    @Test
+    void averagesFollowRecentCallsGradually() {
+        UpiRouter router = router(0);
+        record(router, PHONEPE, 10, true);
+        record(router, PAYTM, 5, true);
+        record(router, GOOGLEPAY, 50, true);
+
+        // alpha 0.2: one fast call moves PHONEPE from 10ms to 8ms, still behind PAYTM
+        record(router, PHONEPE, 0, true);
+        assertThat(router.route(PHONEPE).get(0)).isEqualTo(PAYTM);
+
+        for (int i = 0; i < 10; i++) {
+            record(router, PHONEPE, 1, true);
+        }
+        assertThat(router.route(PHONEPE).get(0)).isEqualTo(PHONEPE);
+    }
+
+    @Test
+    void explorationPutsANonBestProviderFirst() {
+        UpiRouter router = router(1.0);
+        record(router, PHONEPE, 1, true);
+        record(router, PAYTM, 5, true);
+        record(router, GOOGLEPAY, 10, true);
+
+        // exploration 1.0: always one of the others moved to the front, the rest keep their order
+        for (int i = 0; i < 20; i++) {
+            assertThat(router.route(PHONEPE)).isIn(
+                    List.of(PAYTM, PHONEPE, GOOGLEPAY),
+                    List.of(GOOGLEPAY, PHONEPE, PAYTM));
+        }
+    }
+
+    private UpiRouter router(double exploration) {
+        return new UpiRouter(new RoutingSettings(0.2, exploration, Duration.ofSeconds(1), Duration.ZERO), meterRegistry);
+    }
+
+    private static void record(UpiRouter router, PaymentProvider provider, long latencyMillis, boolean success) {
+        router.record(provider, TimeUnit.MILLISECONDS.toNanos(latencyMillis), success);
+    }
+}
@@ -0,0 +1,213 @@
+package com.sushilk.payment_service.services;
+
+import com.sushilk.payment_service.dtos.InitiatePaymentResponse;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Coalescing of concurrent duplicates, the status re-read on replay, and the entry bound holding
+ * even while every entry is in flight.
+ */
+class IdempotencyResponseCacheTest {
+
+    private static final Function<UUID, Optional<PaymentStatus>> NOT_REREAD = paymentId -> {
+        throw new AssertionError("status re-read for a response that was not replayed");
+    };
+
+    @Test
+    void concurrentDuplicatesShareOneComputation() throws Exception {
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(100, 4, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<InitiatePaymentResponse> slowLoader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return response("key-1", PaymentStatus.PROCESSING);
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<InitiatePaymentResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> cache.getOrCompute("key-1", slowLoader, NOT_REREAD)));
+            }
+            // Let every caller reach the cache before the first computation finishes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<InitiatePaymentResponse> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(response("key-1", PaymentStatus.PROCESSING));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void replayCarriesTheCurrentStatus() {
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(100, 4, Duration.ofMinutes(10));
+        InitiatePaymentResponse first = cache.getOrCompute("key-1",
+                () -> response("key-1", PaymentStatus.PROCESSING), NOT_REREAD);
+
+        // A webhook has since settled the payment
+        InitiatePaymentResponse replay = cache.getOrCompute("key-1",
+                () -> { throw new AssertionError("recomputed a cached key"); },
+                paymentId -> Optional.of(PaymentStatus.SUCCESS));
+
+        assertThat(first.status()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(replay).isEqualTo(new InitiatePaymentResponse(first.paymentId(), PaymentStatus.SUCCESS));
+    }
+
+    @Test
+    void finalStatusIsReplayedWithoutRereading() {
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(100, 4, Duration.ofMinutes(10));
+        InitiatePaymentResponse first = cache.getOrCompute("key-1",
+                () -> response("key-1", PaymentStatus.PROCESSING), NOT_REREAD);
+        AtomicInteger rereads = new AtomicInteger();
+        Supplier<InitiatePaymentResponse> noRecompute = () -> { throw new AssertionError("recomputed a cached key"); };
+
+        for (int i = 0; i < 3; i++) {
+            InitiatePaymentResponse replay = cache.getOrCompute("key-1", noRecompute, paymentId -> {
+                rereads.incrementAndGet();
+                return Optional.of(PaymentStatus.FAILED);
+            });
+            assertThat(replay).isEqualTo(new InitiatePaymentResponse(first.paymentId(), PaymentStatus.FAILED));
+        }
+
+        // FAILED never changes, so only the first replay read it
+        assertThat(rereads).hasValue(1);
+    }
+
+    @Test
+    void failedComputationIsNotCached() {
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(100, 4, Duration.ofMinutes(10));
+
+        assertThatThrownBy(() -> cache.getOrCompute("key-1",
+                () -> { throw new IllegalStateException("provider down"); }, NOT_REREAD))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getOrCompute("key-1", () -> response("key-1", PaymentStatus.SUCCESS), NOT_REREAD).status())
+                .isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void boundHoldsWhenEveryEntryIsInFlight() throws Exception {
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(2, 1, Duration.ofMinutes(10));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<InitiatePaymentResponse>> inFlight = new ArrayList<>();
+            for (String key : List.of("key-1", "key-2")) {
+                inFlight.add(callers.submit(() -> cache.getOrCompute(key, () -> {
+                    started.countDown();
+                    await(release);
+                    return response(key, PaymentStatus.PROCESSING);
+                }, NOT_REREAD)));
+            }
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Nothing can be evicted: the third key is computed but not cached, and not coalesced either
+            AtomicInteger loads = new AtomicInteger();
+            Supplier<InitiatePaymentResponse> loader = () -> {
+                loads.incrementAndGet();
+                return response("key-3", PaymentStatus.PROCESSING);
+            };
+            cache.getOrCompute("key-3", loader, NOT_REREAD);
+            cache.getOrCompute("key-3", loader, NOT_REREAD);
+            assertThat(loads).hasValue(2);
+            assertThat(cache.size()).isEqualTo(2);
+
+            release.countDown();
+            for (Future<InitiatePaymentResponse> result : inFlight) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // Finished entries are evictable again, least recently used first
+        cache.getOrCompute("key-1", () -> { throw new AssertionError("key-1 was evicted"); },
+                paymentId -> Optional.of(PaymentStatus.SUCCESS));
+        cache.getOrCompute("key-3", () -> response("key-3", PaymentStatus.PROCESSING), NOT_REREAD);
+        assertThat(cache.size()).isEqualTo(2);
+        AtomicInteger reloads = new AtomicInteger();
+        cache.getOrCompute("key-2", () -> {
+            reloads.incrementAndGet();
+            return response("key-2", PaymentStatus.PROCESSING);
+        }, NOT_REREAD);
+        assertThat(reloads).as("key-2 was the least recently used").hasValue(1);
+    }
+
+    @Test
+    void concurrentMixOfKeysStaysWithinTheBound() throws Exception {
+        int maxEntries = 50;
+        IdempotencyResponseCache cache = new IdempotencyResponseCache(maxEntries, 8, Duration.ofMinutes(10));
+        AtomicInteger maxSeen = new AtomicInteger();
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                workers.add(callers.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        String key = "key-" + ThreadLocalRandom.current().nextInt(200);
+                        InitiatePaymentResponse response = cache.getOrCompute(key,
+                                () -> response(key, PaymentStatus.PROCESSING),
+                                paymentId -> Optional.of(PaymentStatus.SUCCESS));
+                        assertThat(response.paymentId()).isEqualTo(paymentId(key));
+                        maxSeen.accumulateAndGet(cache.size(), Math::max);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(maxSeen.get()).isLessThanOrEqualTo(maxEntries);
+        assertThat(cache.size()).isLessThanOrEqualTo(maxEntries);
+    }
+
+    private static InitiatePaymentResponse response(String key, PaymentStatus status) {
+        return new InitiatePaymentResponse(paymentId(key), status);
+    }
+
+    private static UUID paymentId(String key) {
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
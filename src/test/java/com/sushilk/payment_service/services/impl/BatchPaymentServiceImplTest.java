@@ -0,0 +1,87 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.BatchInitiatePaymentResponse;
+import com.sushilk.payment_service.dtos.BatchPaymentResult;
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.services.BatchPaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A batch larger than the provider's bulkhead limit: every item must reach the provider instead of
+ * the calls over the limit being refused and their payments failed.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false",
+        "payment.provider.limit.initial=20"
+})
+@DirtiesContext
+class BatchPaymentServiceImplTest {
+
+    private static final int BATCH_SIZE = 60;
+
+    @Autowired
+    private BatchPaymentService batchPaymentService;
+
+    @MockitoSpyBean
+    private CardPaymentProvider cardProvider;
+
+    @Test
+    void batchLargerThanTheBulkheadLimitFailsNoItem() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return invocation.callRealMethod();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }).when(cardProvider).initiatePayment(any(Payment.class));
+
+        List<InitiatePaymentRequest> requests = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> cardRequest())
+                .toList();
+        BatchInitiatePaymentResponse response = batchPaymentService.initiatePayments(requests);
+
+        assertThat(response.accepted()).isEqualTo(BATCH_SIZE);
+        assertThat(response.results())
+                .allSatisfy(result -> {
+                    assertThat(result.errors()).isEmpty();
+                    assertThat(result.status()).isEqualTo(PaymentStatus.PROCESSING);
+                })
+                .extracting(BatchPaymentResult::paymentId)
+                .doesNotContainNull();
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(20);
+    }
+
+    private static InitiatePaymentRequest cardRequest() {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal("100.00"), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, UUID.randomUUID().toString(),
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,124 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.CardDetails;
+import com.sushilk.payment_service.dtos.InitiatePaymentRequest;
+import com.sushilk.payment_service.dtos.RefundRequest;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.Refund;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.RefundStatus;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.RefundRepository;
+import com.sushilk.payment_service.services.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Two partial refunds of one payment reserve their amounts from the same ledger snapshot: both
+ * threads are held just before their phase 1 commits, so one commit always loses the version
+ * check and the loser re-runs phase 1 against the winner's refundedAmount.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false"
+})
+class ConcurrentRefundTest {
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @MockitoSpyBean
+    private OutboxWriter outbox;
+
+    @BeforeEach
+    void holdBothReservationsUntilTheyOverlap() {
+        // The first outbox write of each refund happens in phase 1, after the ledger is read and
+        // before the reservation commits
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        AtomicInteger writes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (writes.getAndIncrement() < 2) {
+                bothRead.await(10, TimeUnit.SECONDS);
+            }
+            return invocation.callRealMethod();
+        }).when(outbox).record(any(Refund.class));
+    }
+
+    @Test
+    void loserRetriesWhenBothRefundsFit() {
+        UUID paymentId = paymentService.initiatePayment(cardRequest("1000.00")).paymentId();
+
+        List<Throwable> errors = refundConcurrently(paymentId, "400.00", "400.00");
+
+        assertThat(errors).containsOnlyNulls();
+        Payment payment = paymentRepository.findById(paymentId).orElseThrow();
+        assertThat(payment.getRefundedAmount()).isEqualByComparingTo("800.00");
+        assertThat(refundRepository.findByPaymentId(paymentId))
+                .hasSize(2)
+                .allSatisfy(refund -> assertThat(refund.getStatus()).isEqualTo(RefundStatus.SUCCESS));
+    }
+
+    @Test
+    void loserIsRejectedWhenTogetherTheyExceedTheAmount() {
+        UUID paymentId = paymentService.initiatePayment(cardRequest("1000.00")).paymentId();
+
+        List<Throwable> errors = refundConcurrently(paymentId, "600.00", "700.00");
+
+        assertThat(errors).filteredOn(error -> error == null).hasSize(1);
+        assertThat(errors).filteredOn(error -> error != null).singleElement()
+                .isInstanceOf(IllegalArgumentException.class)
+                .satisfies(error -> assertThat(error).hasMessageContaining("remaining refundable amount"));
+        Payment payment = paymentRepository.findById(paymentId).orElseThrow();
+        assertThat(payment.getRefundedAmount()).isLessThanOrEqualTo(payment.getAmount());
+        assertThat(refundRepository.findByPaymentId(paymentId)).singleElement().satisfies(refund -> {
+            assertThat(refund.getStatus()).isEqualTo(RefundStatus.SUCCESS);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo(refund.getAmount());
+        });
+    }
+
+    /** Runs both refunds at once; each element is the refund's failure, or null. */
+    private List<Throwable> refundConcurrently(UUID paymentId, String first, String second) {
+        List<CompletableFuture<Throwable>> refunds = List.of(first, second).stream()
+                .map(amount -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        paymentService.refundPayment(new RefundRequest(paymentId, new BigDecimal(amount), "Customer request"));
+                        return (Throwable) null;
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }))
+                .toList();
+        return refunds.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static InitiatePaymentRequest cardRequest(String amount) {
+        return new InitiatePaymentRequest(
+                "USER123", "ORD-" + UUID.randomUUID(), OrderType.PRODUCT, new BigDecimal(amount), "USD",
+                PaymentProvider.CARD, PaymentMethod.CARD, UUID.randomUUID().toString(),
+                new CardDetails("4111111111111111", "John Doe", "12/99", "123"),
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,265 @@
+package com.sushilk.payment_service.services.impl;
+
+import com.sushilk.payment_service.dtos.WebhookReceipt;
+import com.sushilk.payment_service.entities.Payment;
+import com.sushilk.payment_service.entities.PaymentTransaction;
+import com.sushilk.payment_service.entities.WebhookEvent;
+import com.sushilk.payment_service.enums.OrderType;
+import com.sushilk.payment_service.enums.PaymentMethod;
+import com.sushilk.payment_service.enums.PaymentProvider;
+import com.sushilk.payment_service.enums.PaymentStatus;
+import com.sushilk.payment_service.enums.TransactionStatus;
+import com.sushilk.payment_service.enums.TransactionType;
+import com.sushilk.payment_service.enums.WebhookEventStatus;
+import com.sushilk.payment_service.exceptions.WebhookSignatureException;
+import com.sushilk.payment_service.outbox.OutboxWriter;
+import com.sushilk.payment_service.repositories.PaymentRepository;
+import com.sushilk.payment_service.repositories.PaymentTransactionRepository;
+import com.sushilk.payment_service.repositories.WebhookEventRepository;
+import com.sushilk.payment_service.services.WebhookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Webhook ingestion (signature, deduplication) and the batch processor. The scheduled poll only
+ * runs at startup, so batches are driven by the test; a retry is due at once and an event is
+ * UNMATCHED on its third miss.
+ */
+@SpringBootTest(properties = {
+        "payment.outbox.sink=memory",
+        "payment.outbox.relay.enabled=false",
+        "payment.status-poll.enabled=false",
+        "payment.webhook.poll-interval=PT1H",
+        "payment.webhook.batch-size=2",
+        "payment.webhook.retry-delay=PT0S",
+        "payment.webhook.max-attempts=3",
+        "payment.webhook.secrets.PHONEPE=" + WebhookEventProcessorTest.SECRET
+})
+class WebhookEventProcessorTest {
+
+    static final String SECRET = "phonepe-test-secret";
+
+    @Autowired
+    private WebhookService webhookService;
+    @Autowired
+    private WebhookEventProcessor processor;
+    @Autowired
+    private PaymentTransactionRepository transactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoSpyBean
+    private WebhookEventRepository webhookEventRepository;
+    @MockitoSpyBean
+    private PaymentRepository paymentRepository;
+    @MockitoSpyBean
+    private OutboxWriter outbox;
+
+    @BeforeEach
+    void drain() {
+        // Retries are due at once, so a few passes settle whatever earlier tests left behind
+        for (int pass = 0; pass < 3 && !due().isEmpty(); pass++) {
+            processor.applyPending();
+        }
+        clearInvocations(webhookEventRepository, paymentRepository);
+    }
+
+    @Test
+    void unsignedOrMisSignedEventsAreRejectedBeforeTheyAreStored() {
+        String payload = event("evt-" + UUID.randomUUID(), "ref-" + UUID.randomUUID(), "SUCCESS");
+        long before = webhookEventRepository.count();
+
+        assertThatThrownBy(() -> webhookService.receive("phonepe", payload, null))
+                .isInstanceOf(WebhookSignatureException.class);
+        assertThatThrownBy(() -> webhookService.receive("phonepe", payload, sign(payload.replace("SUCCESS", "FAILED"))))
+                .isInstanceOf(WebhookSignatureException.class);
+        assertThatThrownBy(() -> webhookService.receive("phonepe", payload, "not-hex"))
+                .isInstanceOf(WebhookSignatureException.class);
+        // No secret configured for PAYTM, so nothing it sends is trusted
+        assertThatThrownBy(() -> webhookService.receive("paytm", payload, sign(payload)))
+                .isInstanceOf(WebhookSignatureException.class);
+
+        assertThat(webhookEventRepository.count()).isEqualTo(before);
+    }
+
+    @Test
+    void redeliveredEventIsStoredOnce() {
+        String eventId = "evt-" + UUID.randomUUID();
+        String payload = event(eventId, "ref-" + UUID.randomUUID(), "SUCCESS");
+
+        WebhookReceipt first = receive(payload);
+        WebhookReceipt second = receive(payload);
+
+        assertThat(first.duplicate()).isFalse();
+        assertThat(second.duplicate()).isTrue();
+        assertThat(second.eventId()).isEqualTo(first.eventId());
+        assertThat(webhookEventRepository.findAll())
+                .filteredOn(event -> event.getProviderEventId().equals(eventId))
+                .hasSize(1);
+    }
+
+    @Test
+    void eventsAreAppliedInBatchesOfBatchSize() {
+        List<Payment> payments = new ArrayList<>();
+        List<UUID> eventIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String reference = "ref-" + UUID.randomUUID();
+            payments.add(processingPayment(reference));
+            eventIds.add(receive(event("evt-" + UUID.randomUUID(), reference, i == 0 ? "FAILED" : "SUCCESS")).eventId());
+        }
+        clearInvocations(webhookEventRepository, paymentRepository);
+
+        processor.applyPending();
+
+        // 2 + 2 + 1: the short batch ends the drain
+        verify(webhookEventRepository, times(3))
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(any(), any(), any(Limit.class));
+        verify(paymentRepository, times(3)).findAllById(anyIterable());
+        assertThat(eventIds).allSatisfy(id ->
+                assertThat(webhookEventRepository.findById(id).orElseThrow().getStatus())
+                        .isEqualTo(WebhookEventStatus.APPLIED));
+        assertThat(status(payments.get(0))).isEqualTo(PaymentStatus.FAILED);
+        assertThat(transactionRepository.findByPaymentId(payments.get(0).getPaymentId()))
+                .singleElement()
+                .satisfies(debit -> assertThat(debit.getStatus()).isEqualTo(TransactionStatus.FAILED));
+        assertThat(payments.subList(1, 5)).allSatisfy(payment ->
+                assertThat(status(payment)).isEqualTo(PaymentStatus.SUCCESS));
+    }
+
+    @Test
+    void eventWithoutATransactionIsRetriedThenMarkedUnmatched() {
+        UUID eventId = receive(event("evt-" + UUID.randomUUID(), "ref-" + UUID.randomUUID(), "SUCCESS")).eventId();
+
+        processor.applyPending();
+        WebhookEvent afterFirst = webhookEventRepository.findById(eventId).orElseThrow();
+        assertThat(afterFirst.getStatus()).isEqualTo(WebhookEventStatus.RECEIVED);
+        assertThat(afterFirst.getAttempts()).isEqualTo(1);
+
+        processor.applyPending();
+        assertThat(webhookEventRepository.findById(eventId).orElseThrow().getStatus())
+                .isEqualTo(WebhookEventStatus.RECEIVED);
+
+        processor.applyPending();
+        WebhookEvent afterLast = webhookEventRepository.findById(eventId).orElseThrow();
+        assertThat(afterLast.getStatus()).isEqualTo(WebhookEventStatus.UNMATCHED);
+        assertThat(afterLast.getAttempts()).isEqualTo(3);
+
+        // Settled, so later polls leave it alone
+        processor.applyPending();
+        assertThat(webhookEventRepository.findById(eventId).orElseThrow().getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void batchThatLosesAnOptimisticLockIsReplayedEventByEvent() {
+        String firstReference = "ref-" + UUID.randomUUID();
+        String secondReference = "ref-" + UUID.randomUUID();
+        Payment refunded = processingPayment(firstReference);
+        Payment other = processingPayment(secondReference);
+        UUID firstEvent = receive(event("evt-" + UUID.randomUUID(), firstReference, "SUCCESS")).eventId();
+        UUID secondEvent = receive(event("evt-" + UUID.randomUUID(), secondReference, "SUCCESS")).eventId();
+
+        // While the batch applies its first event, a refund reservation commits on that payment
+        TransactionTemplate concurrent = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean interfered = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (interfered.compareAndSet(false, true)) {
+                concurrent.executeWithoutResult(status -> paymentRepository.findById(refunded.getPaymentId())
+                        .orElseThrow()
+                        .setRefundedAmount(new BigDecimal("10.00")));
+            }
+            return invocation.callRealMethod();
+        }).when(outbox).record(any(Payment.class));
+
+        processor.applyPending();
+
+        assertThat(interfered).isTrue();
+        // One failed batch read, then one read per event
+        verify(paymentRepository, times(3)).findAllById(anyIterable());
+        assertThat(List.of(firstEvent, secondEvent)).allSatisfy(id ->
+                assertThat(webhookEventRepository.findById(id).orElseThrow().getStatus())
+                        .isEqualTo(WebhookEventStatus.APPLIED));
+        Payment reloaded = paymentRepository.findById(refunded.getPaymentId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(reloaded.getRefundedAmount()).isEqualByComparingTo("10.00");
+        assertThat(status(other)).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    private List<WebhookEvent> due() {
+        return webhookEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                WebhookEventStatus.RECEIVED, LocalDateTime.now(), Limit.of(1));
+    }
+
+    private WebhookReceipt receive(String payload) {
+        return webhookService.receive("phonepe", payload, sign(payload));
+    }
+
+    private Payment processingPayment(String providerReference) {
+        return transactionTemplate.execute(status -> {
+            Payment payment = paymentRepository.save(Payment.builder()
+                    .userId("user-1")
+                    .orderId("order-" + UUID.randomUUID())
+                    .orderType(OrderType.values()[0])
+                    .amount(new BigDecimal("100.00"))
+                    .currency("INR")
+                    .status(PaymentStatus.PROCESSING)
+                    .provider(PaymentProvider.PHONEPE)
+                    .paymentMethod(PaymentMethod.UPI)
+                    .idempotencyKey(UUID.randomUUID().toString())
+                    .build());
+            transactionRepository.save(PaymentTransaction.builder()
+                    .paymentId(payment.getPaymentId())
+                    .transactionType(TransactionType.DEBIT)
+                    .amount(payment.getAmount())
+                    .status(TransactionStatus.INITIATED)
+                    .providerReference(providerReference)
+                    .build());
+            return payment;
+        });
+    }
+
+    private PaymentStatus status(Payment payment) {
+        return paymentRepository.findById(payment.getPaymentId()).orElseThrow().getStatus();
+    }
+
+    private static String event(String eventId, String transactionId, String status) {
+        return "{\"eventId\":\"" + eventId + "\",\"transactionId\":\"" + transactionId
+                + "\",\"status\":\"" + status + "\"}";
+    }
+
+    private static String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.sushilk.payment_service.sharding;
+
+import com.sushilk.payment_service.ids.UuidV7;
+import com.sushilk.payment_service.sharding.ShardMap.BucketRange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three H2 databases stand in for the shards; each knows its own name, so a query shows where it
+ * was routed. s0 and s1 split the buckets, s2 starts empty as the target of a split.
+ */
+class ShardRoutingDataSourceTest {
+
+    private ShardDataSources dataSources;
+    private ShardDirectory directory;
+    private JdbcTemplate routed;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        dataSources = new ShardDataSources(List.of(shard("s0", run), shard("s1", run), shard("s2", run)));
+        dataSources.pools().forEach(ShardRoutingDataSourceTest::createTables);
+
+        Map<String, String> buckets = new LinkedHashMap<>();
+        buckets.put("s0", "0-127");
+        buckets.put("s1", "128-255");
+        buckets.put("s2", "");
+        directory = ShardDirectory.load(dataSources.names(), ShardMap.fromRanges(buckets),
+                new ShardTopologyStore(dataSources.get("s0")));
+        routed = new JdbcTemplate(new LazyConnectionDataSourceProxy(
+                new ShardRoutingDataSource(dataSources.pools(), directory, new SimpleMeterRegistry())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        directory.shutdown();
+        dataSources.close();
+    }
+
+    @Test
+    void usersArePinnedToTheShardOwningTheirBucket() {
+        String low = userInBuckets(0, 127);
+        String high = userInBuckets(128, 255);
+
+        assertThat(ShardRouting.forUser(low, this::server)).isEqualTo("s0");
+        assertThat(ShardRouting.forUser(high, this::server)).isEqualTo("s1");
+        assertThat(ShardRouting.onShard("s2", this::server)).isEqualTo("s2");
+        assertThat(server()).isEqualTo("s0"); // nothing selected: home shard
+    }
+
+    @Test
+    void paymentIdsCarryTheirBucket() {
+        for (int bucket : new int[]{0, 17, 128, 255}) {
+            UUID paymentId = UuidV7.generate(bucket);
+            assertThat(paymentId.version()).isEqualTo(8);
+            assertThat(ShardKeys.bucketOf(paymentId)).isEqualTo(bucket);
+            assertThat(ShardRouting.forPayment(paymentId, this::server)).isEqualTo(directory.ownerOf(bucket));
+        }
+        assertThat(UuidV7.bucketOf(UuidV7.generate())).isBetween(0, ShardKeys.BUCKETS - 1);
+    }
+
+    @Test
+    void idsWithoutABucketStayOnTheHomeShard() {
+        UUID legacy = UuidV7.generate();
+        assertThat(ShardKeys.bucketOf(legacy)).isEqualTo(ShardKeys.LEGACY);
+        assertThat(ShardRouting.forPayment(legacy, this::server)).isEqualTo("s0");
+
+        UUID bucketed = UuidV7.generate(10);
+        insertPayment("s0", legacy);
+        insertPayment("s0", bucketed);
+        new ShardSplitter(directory, dataSources, 1, Duration.ZERO).split("s0", "s2", BucketRange.parse("0-127"));
+
+        assertThat(paymentIds("s0")).containsExactly(legacy);
+        assertThat(paymentIds("s2")).containsExactly(bucketed);
+        assertThat(ShardRouting.forPayment(legacy, this::server)).isEqualTo("s0");
+    }
+
+    @Test
+    void splitMovesTheBucketsRowsAndOwnership() {
+        UUID moved = UuidV7.generate(200);
+        UUID kept = UuidV7.generate(130);
+        insertPayment("s1", moved);
+        insertPayment("s1", kept);
+
+        long deleted = new ShardSplitter(directory, dataSources, 1, Duration.ZERO)
+                .split("s1", "s2", BucketRange.parse("192-255"));
+
+        assertThat(deleted).isEqualTo(3); // the payment, its transaction and its outbox event
+        assertThat(paymentIds("s1")).containsExactly(kept);
+        assertThat(paymentIds("s2")).containsExactly(moved);
+        assertThat(directory.ownerOf(200)).isEqualTo("s2");
+        assertThat(directory.isMoving(200)).isFalse();
+        assertThat(ShardRouting.forPayment(moved, this::server)).isEqualTo("s2");
+        assertThat(new ShardTopologyStore(dataSources.get("s0")).load()).contains(directory.map());
+    }
+
+    private String server() {
+        return routed.queryForObject("select name from server", String.class);
+    }
+
+    private static String userInBuckets(int first, int last) {
+        return IntStream.iterate(0, i -> i + 1)
+                .mapToObj(i -> "user-" + i)
+                .filter(user -> ShardKeys.bucketOf(user) >= first && ShardKeys.bucketOf(user) <= last)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void insertPayment(String shard, UUID paymentId) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSources.get(shard));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.update("insert into payments values (?, ?)", paymentId, now);
+        jdbc.update("insert into payment_transactions values (?, ?, ?)", UuidV7.generate(), paymentId, now);
+        jdbc.update("insert into outbox_events values (?, ?, ?)", UuidV7.generate(), paymentId, now);
+    }
+
+    private List<UUID> paymentIds(String shard) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForList("select payment_id from payments", UUID.class);
+    }
+
+    private static ShardingProperties.Shard shard(String name, String run) {
+        return new ShardingProperties.Shard(name, "jdbc:h2:mem:" + name + "-" + run + ";DB_CLOSE_DELAY=-1",
+                "sa", "", 2, null);
+    }
+
+    /** The sharded tables, reduced to the columns the splitter relies on. */
+    private static void createTables(String name, DataSource dataSource) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table server (name varchar(16))");
+        jdbc.update("insert into server values (?)", name);
+        jdbc.execute("create table payments (payment_id uuid primary key, updated_at timestamp)");
+        jdbc.execute("create table payment_attempts (attempt_id uuid primary key, payment_id uuid, updated_at timestamp)");
+        jdbc.execute("create table payment_transactions (transaction_id uuid primary key, payment_id uuid, updated_at timestamp)");
+        jdbc.execute("create table refunds (refund_id uuid primary key, payment_id uuid, updated_at timestamp)");
+        jdbc.execute("create table outbox_events (event_id uuid primary key, aggregate_id uuid, updated_at timestamp)");
+    }
+}
@@ -0,0 +1,111 @@
+package com.sushilk.payment_service.sharding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots Hibernate on the routed DataSource with the integrator installed, as ShardingConfig does,
+ * and checks the tables reached s1 and not only the home shard s0.
+ */
+class ShardSchemaIntegratorTest {
+
+    private ShardDataSources dataSources;
+    private ShardDirectory directory;
+    private DataSource routed;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        dataSources = new ShardDataSources(List.of(shard("s0", run), shard("s1", run)));
+        Map<String, String> buckets = new LinkedHashMap<>();
+        buckets.put("s0", "0-127");
+        buckets.put("s1", "128-255");
+        directory = ShardDirectory.load(dataSources.names(), ShardMap.fromRanges(buckets),
+                new ShardTopologyStore(dataSources.get("s0")));
+        routed = new LazyConnectionDataSourceProxy(
+                new ShardRoutingDataSource(dataSources.pools(), directory, new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        directory.shutdown();
+        dataSources.close();
+    }
+
+    @Test
+    void updateCreatesTheSchemaOnEveryShard() {
+        try (SessionFactory ignored = sessionFactory("update")) {
+            assertThat(hasProbeTable("s0")).isTrue();
+            assertThat(hasProbeTable("s1")).isTrue();
+        }
+
+        // Already there: a restart migrates nothing and does not fail
+        try (SessionFactory ignored = sessionFactory("update")) {
+            assertThat(hasProbeTable("s1")).isTrue();
+        }
+    }
+
+    @Test
+    void otherModesLeaveNonHomeShardsAlone() {
+        try (SessionFactory ignored = sessionFactory("create")) {
+            assertThat(hasProbeTable("s0")).isTrue();
+            assertThat(hasProbeTable("s1")).isFalse();
+        }
+    }
+
+    private SessionFactory sessionFactory(String ddlAuto) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder(new BootstrapServiceRegistryBuilder()
+                .applyIntegrator(new ShardSchemaIntegrator(directory))
+                .build())
+                .applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, routed)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, ddlAuto)
+                .build();
+        return new MetadataSources(registry)
+                .addAnnotatedClass(Probe.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    private boolean hasProbeTable(String shard) {
+        Integer tables = new JdbcTemplate(dataSources.get(shard)).queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) = 'shard_schema_probe'",
+                Integer.class);
+        return tables != null && tables > 0;
+    }
+
+    private static ShardingProperties.Shard shard(String name, String run) {
+        return new ShardingProperties.Shard(name, "jdbc:h2:mem:" + name + "-" + run + ";DB_CLOSE_DELAY=-1",
+                "sa", "", 2, null);
+    }
+
+    @Entity
+    @Table(name = "shard_schema_probe")
+    static class Probe {
+
+        @Id
+        private UUID id;
+
+        private String name;
+    }
+}
@@ -0,0 +1,109 @@
+package com.sushilk.payment_service.validation;
+
+import com.sushilk.payment_service.masking.MaskingRule;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * The single-pass validators and card masking must accept and produce exactly what the
+ * regex based versions in LegacyValidators did.
+ */
+class ValidatorEquivalenceTest {
+
+    private final ValidCardNumber.CardNumberValidator cardNumberValidator = new ValidCardNumber.CardNumberValidator();
+    private final ValidUPIId.UPIIdValidator upiIdValidator = new ValidUPIId.UPIIdValidator();
+    private final ValidCardExpiry.CardExpiryValidator cardExpiryValidator = new ValidCardExpiry.CardExpiryValidator();
+
+    @Property(tries = 5000)
+    void cardNumberMatchesLegacy(@ForAll("cardNumbers") String cardNumber) {
+        assertThat(cardNumberValidator.isValid(cardNumber, null))
+                .isEqualTo(LegacyValidators.isValidCardNumber(cardNumber));
+    }
+
+    @Property(tries = 5000)
+    void upiIdMatchesLegacy(@ForAll("upiIds") String upiId) {
+        assertThat(upiIdValidator.isValid(upiId, null))
+                .isEqualTo(LegacyValidators.isValidUpiId(upiId));
+    }
+
+    @Property(tries = 5000)
+    void cardExpiryMatchesLegacy(@ForAll("expiryDates") String expiryDate) {
+        assertThat(cardExpiryValidator.isValid(expiryDate, null))
+                .isEqualTo(LegacyValidators.isValidCardExpiry(expiryDate));
+    }
+
+    @Property(tries = 5000)
+    void cardNumberMaskMatchesLegacy(@ForAll("cardNumbers") String cardNumber) {
+        Throwable legacyFailure = catchThrowable(() -> LegacyValidators.maskCardNumber(cardNumber));
+        if (legacyFailure == null) {
+            assertThat(MaskingRule.CARD_NUMBER.apply(cardNumber)).isEqualTo(LegacyValidators.maskCardNumber(cardNumber));
+        } else {
+            // Legacy threw when fewer than 4 characters remained after stripping separators
+            assertThat(MaskingRule.CARD_NUMBER.apply(cardNumber)).isEqualTo("****");
+        }
+    }
+
+    @Provide
+    Arbitrary<String> cardNumbers() {
+        Arbitrary<String> noise = Arbitraries.strings().withChars("0123456789 -\t\r\u000Ba ٣").ofMaxLength(24);
+        Arbitrary<String> luhnValid = Arbitraries.strings().numeric().ofMinLength(11).ofMaxLength(20)
+                .map(ValidatorEquivalenceTest::withLuhnCheckDigit);
+        Arbitrary<String> spaced = luhnValid.map(digits -> digits.replaceAll("(\\d{4})(?=\\d)", "$1 "));
+        Arbitrary<String> hyphenated = luhnValid.map(digits -> digits.replaceAll("(\\d{4})(?=\\d)", "$1-"));
+        return Arbitraries.oneOf(noise, luhnValid, spaced, hyphenated, Arbitraries.just("   ")).injectNull(0.02);
+    }
+
+    @Provide
+    Arbitrary<String> upiIds() {
+        Arbitrary<String> noise = Arbitraries.strings().withChars("aZ09._-@ !").ofMaxLength(20);
+        Arbitrary<String> username = Arbitraries.strings().withChars("abcXYZ019._-").ofMinLength(0).ofMaxLength(260);
+        Arbitrary<String> knownHandle = Arbitraries.of("paytm", "YBL", "okAxis", "upi", "sbi", "waayu");
+        Arbitrary<String> handle = Arbitraries.oneOf(
+                knownHandle,
+                Combinators.combine(Arbitraries.strings().withChars("ab.-9").ofMaxLength(70), knownHandle)
+                        .as((prefix, known) -> prefix + "." + known),
+                Arbitraries.strings().withChars("abcXYZ09.-_").ofMaxLength(70));
+        Arbitrary<String> structured = Combinators.combine(username, handle).as((user, host) -> user + "@" + host);
+        return Arbitraries.oneOf(noise, structured).injectNull(0.02);
+    }
+
+    @Provide
+    Arbitrary<String> expiryDates() {
+        YearMonth now = YearMonth.now();
+        Arbitrary<String> noise = Arbitraries.strings().withChars("0123456789/ a").ofMaxLength(7);
+        Arbitrary<String> structured = Combinators.combine(
+                        Arbitraries.integers().between(0, 13),
+                        Arbitraries.integers().between(0, 99))
+                .as((month, year) -> String.format("%02d/%02d", month, year));
+        Arbitrary<String> aroundNow = Arbitraries.integers().between(-2, 2)
+                .map(offset -> now.plusMonths(offset))
+                .map(month -> String.format("%02d/%02d", month.getMonthValue(), month.getYear() % 100));
+        return Arbitraries.oneOf(noise, structured, aroundNow).injectNull(0.02);
+    }
+
+    private static String withLuhnCheckDigit(String payload) {
+        int sum = 0;
+        boolean alternate = true; // check digit will be appended at the rightmost position
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            alternate = !alternate;
+        }
+        return payload + (10 - sum % 10) % 10;
+    }
+}